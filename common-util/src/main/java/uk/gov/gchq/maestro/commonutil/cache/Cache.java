@@ -19,6 +19,7 @@ package uk.gov.gchq.maestro.commonutil.cache;
 import uk.gov.gchq.maestro.commonutil.exception.CacheOperationException;
 
 import java.util.Collections;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -38,6 +39,15 @@ public class Cache<V> {
         return CacheServiceLoader.getService().getFromCache(cacheName, key);
     }
 
+    /**
+     * Get every entry in the cache in one call.
+     *
+     * @return the keys in the cache mapped to their values
+     */
+    public Map<String, V> getAllFromCache() {
+        return CacheServiceLoader.getService().getAllFromCache(cacheName, CacheServiceLoader.getService().getAllKeysFromCache(cacheName));
+    }
+
     public String getCacheName() {
         return cacheName;
     }
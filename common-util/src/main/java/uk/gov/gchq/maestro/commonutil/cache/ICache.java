@@ -20,11 +20,21 @@ import uk.gov.gchq.maestro.commonutil.exception.CacheOperationException;
 import uk.gov.gchq.maestro.commonutil.exception.OverwritingException;
 
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 /**
  * Interface that All cache objects must abide by so components may instantiate any impl of a cache - no
  * matter what cache it is.
+ * <p>
+ * The default compound and bulk operations are built from the single entry
+ * operations, synchronising on the cache, so they are only atomic with
+ * respect to each other. Implementations should override them with the
+ * atomic and bulk operations of the underlying store.
+ * </p>
  *
  * @param <K> The object type that acts as the key for the cache
  * @param <V> The value that is stored in the cache
@@ -57,14 +67,119 @@ public interface ICache<K, V> {
      * @throws OverwritingException    if the specified key already exists in the cache with a non-null value
      */
     default void putSafe(final K key, final V value) throws OverwritingException, CacheOperationException {
-        if (null == get(key)) {
-            try {
+        if (null != putIfAbsent(key, value)) {
+            throw new OverwritingException("Cache entry already exists for key: " + key);
+        }
+    }
+
+    /**
+     * Add a new key-value pair to the cache if there is no existing entry
+     * associated with the specified key, as one atomic operation.
+     *
+     * @param key   the key to add
+     * @param value the value to add
+     * @return the existing value, or null if the value was added
+     * @throws CacheOperationException if there is an error adding the new key-value pair to the cache
+     */
+    default V putIfAbsent(final K key, final V value) throws CacheOperationException {
+        synchronized (this) {
+            final V existing = get(key);
+            if (null == existing) {
                 put(key, value);
-            } catch (final CacheOperationException e) {
-                throw e;
             }
-        } else {
-            throw new OverwritingException("Cache entry already exists for key: " + key);
+            return existing;
+        }
+    }
+
+    /**
+     * Replace the value associated with the given key with the result of a
+     * function of the key and current value, as one atomic operation. If the
+     * function returns null the entry is removed.
+     *
+     * @param key               the key to update
+     * @param remappingFunction the function of the key and current value, or
+     *                          null if there is none, giving the new value
+     * @return the new value, or null if the entry was removed
+     * @throws CacheOperationException if there is an error adding the new value to the cache
+     */
+    default V compute(final K key, final BiFunction<? super K, ? super V, ? extends V> remappingFunction) throws CacheOperationException {
+        synchronized (this) {
+            final V value = remappingFunction.apply(key, get(key));
+            if (null == value) {
+                remove(key);
+            } else {
+                put(key, value);
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Add the result of a function of the key, if there is no existing entry
+     * associated with the key, as one atomic operation.
+     *
+     * @param key             the key to lookup or add
+     * @param mappingFunction the function giving the value to add
+     * @return the existing or added value
+     * @throws CacheOperationException if there is an error adding the new value to the cache
+     */
+    default V computeIfAbsent(final K key, final Function<? super K, ? extends V> mappingFunction) throws CacheOperationException {
+        return compute(key, (k, existing) -> null == existing ? mappingFunction.apply(k) : existing);
+    }
+
+    /**
+     * Add the value if there is no existing entry associated with the key,
+     * otherwise replace the existing value with the result of a function of
+     * it and the value, as one atomic operation. If the function returns
+     * null the entry is removed.
+     *
+     * @param key               the key to add or update
+     * @param value             the value to add or merge
+     * @param remappingFunction the function of the existing value and the value
+     * @return the new value, or null if the entry was removed
+     * @throws CacheOperationException if there is an error adding the new value to the cache
+     */
+    default V merge(final K key, final V value, final BiFunction<? super V, ? super V, ? extends V> remappingFunction) throws CacheOperationException {
+        return compute(key, (k, existing) -> null == existing ? value : remappingFunction.apply(existing, value));
+    }
+
+    /**
+     * Retrieve the values associated with the given keys.
+     *
+     * @param keys the keys to lookup in the cache
+     * @return the keys found in the cache, mapped to their values
+     */
+    default Map<K, V> getAll(final Collection<? extends K> keys) {
+        final Map<K, V> rtn = new HashMap<>();
+        for (final K key : keys) {
+            final V value = get(key);
+            if (null != value) {
+                rtn.put(key, value);
+            }
+        }
+        return rtn;
+    }
+
+    /**
+     * Add all of the key-value pairs to the cache.
+     *
+     * @param entries the key-value pairs to add
+     * @throws CacheOperationException if there is an error adding the key-value pairs to the cache
+     */
+    default void putAll(final Map<? extends K, ? extends V> entries) throws CacheOperationException {
+        for (final Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Remove the entries associated with the specified keys.
+     *
+     * @param keys the keys of the entries to remove
+     */
+    default void removeAll(final Collection<? extends K> keys) {
+        for (final K key : keys) {
+            remove(key);
         }
     }
 
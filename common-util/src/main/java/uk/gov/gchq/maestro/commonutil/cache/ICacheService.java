@@ -21,6 +21,8 @@ import uk.gov.gchq.maestro.commonutil.exception.CacheOperationException;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 /**
  * The cache service interface which enables the cache service loader to instantiate
@@ -96,6 +98,121 @@ public interface ICacheService {
         cache.putSafe(key, value);
     }
 
+    /**
+     * Add a new key-value pair to the specified cache if there is no existing
+     * entry associated with the specified key, as one atomic operation.
+     *
+     * @param cacheName the name of the cache
+     * @param key       the key to add
+     * @param value     the value to add
+     * @param <K>       The object type that acts as the key for the cache
+     * @param <V>       The value that is stored in the cache
+     * @return the existing value, or null if the value was added
+     * @throws CacheOperationException if there is an error adding the new key-value pair to the cache
+     */
+    default <K, V> V putIfAbsentInCache(final String cacheName, final K key, final V value) throws CacheOperationException {
+        final ICache<K, V> cache = getCache(cacheName);
+        return cache.putIfAbsent(key, value);
+    }
+
+    /**
+     * Replace the value associated with the specified key in the specified
+     * cache with the result of a function of the key and current value, as
+     * one atomic operation.
+     *
+     * @param cacheName         the name of the cache
+     * @param key               the key to update
+     * @param remappingFunction the function giving the new value
+     * @param <K>               The object type that acts as the key for the cache
+     * @param <V>               The value that is stored in the cache
+     * @return the new value, or null if the entry was removed
+     * @throws CacheOperationException if there is an error adding the new value to the cache
+     * @see ICache#compute(Object, BiFunction)
+     */
+    default <K, V> V computeInCache(final String cacheName, final K key, final BiFunction<? super K, ? super V, ? extends V> remappingFunction) throws CacheOperationException {
+        final ICache<K, V> cache = getCache(cacheName);
+        return cache.compute(key, remappingFunction);
+    }
+
+    /**
+     * Add the result of a function of the key to the specified cache, if
+     * there is no existing entry associated with the key, as one atomic
+     * operation.
+     *
+     * @param cacheName       the name of the cache
+     * @param key             the key to lookup or add
+     * @param mappingFunction the function giving the value to add
+     * @param <K>             The object type that acts as the key for the cache
+     * @param <V>             The value that is stored in the cache
+     * @return the existing or added value
+     * @throws CacheOperationException if there is an error adding the new value to the cache
+     */
+    default <K, V> V computeIfAbsentInCache(final String cacheName, final K key, final Function<? super K, ? extends V> mappingFunction) throws CacheOperationException {
+        final ICache<K, V> cache = getCache(cacheName);
+        return cache.computeIfAbsent(key, mappingFunction);
+    }
+
+    /**
+     * Add the value to the specified cache, or merge it with the existing
+     * value associated with the key, as one atomic operation.
+     *
+     * @param cacheName         the name of the cache
+     * @param key               the key to add or update
+     * @param value             the value to add or merge
+     * @param remappingFunction the function of the existing value and the value
+     * @param <K>               The object type that acts as the key for the cache
+     * @param <V>               The value that is stored in the cache
+     * @return the new value, or null if the entry was removed
+     * @throws CacheOperationException if there is an error adding the new value to the cache
+     * @see ICache#merge(Object, Object, BiFunction)
+     */
+    default <K, V> V mergeInCache(final String cacheName, final K key, final V value, final BiFunction<? super V, ? super V, ? extends V> remappingFunction) throws CacheOperationException {
+        final ICache<K, V> cache = getCache(cacheName);
+        return cache.merge(key, value, remappingFunction);
+    }
+
+    /**
+     * Get the values associated with the specified keys in one call.
+     *
+     * @param cacheName the name of the cache to look in
+     * @param keys      the keys of the entries to lookup
+     * @param <K>       The object type that acts as the key for the cache
+     * @param <V>       The value that is stored in the cache
+     * @return the keys found in the cache, mapped to their values
+     */
+    default <K, V> Map<K, V> getAllFromCache(final String cacheName, final Collection<? extends K> keys) {
+        final ICache<K, V> cache = getCache(cacheName);
+        return cache.getAll(keys);
+    }
+
+    /**
+     * Add all of the key-value pairs to the specified cache in one call.
+     *
+     * @param cacheName the name of the cache
+     * @param entries   the key-value pairs to add
+     * @param <K>       The object type that acts as the key for the cache
+     * @param <V>       The value that is stored in the cache
+     * @throws CacheOperationException if there is an error adding the key-value pairs to the cache
+     */
+    default <K, V> void putAllInCache(final String cacheName, final Map<? extends K, ? extends V> entries) throws CacheOperationException {
+        final ICache<K, V> cache = getCache(cacheName);
+        cache.putAll(entries);
+    }
+
+    /**
+     * Remove the entries associated with the specified keys from the
+     * specified cache in one call.
+     *
+     * @param cacheName the name of the cache to look in
+     * @param keys      the keys of the entries to remove
+     * @param <K>       The object type that acts as the key for the cache
+     * @param <V>       The value that is stored in the cache
+     */
+    default <K, V> void removeAllFromCache(final String cacheName, final Collection<? extends K> keys) {
+        final ICache<K, V> cache = getCache(cacheName);
+        cache.removeAll(keys);
+    }
+
     /**
      * Remove the entry associated with the specified key from the specified cache.
      *
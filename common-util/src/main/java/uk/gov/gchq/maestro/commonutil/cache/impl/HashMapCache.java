@@ -25,19 +25,24 @@ import uk.gov.gchq.maestro.commonutil.serialisation.impl.JavaSerialiser;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 /**
- * Simple impl of the {@link ICache} interface, using a {@link HashMap}
- * as the cache data store.
+ * Simple impl of the {@link ICache} interface, using a {@link ConcurrentHashMap}
+ * as the cache data store, so the compound operations are atomic.
+ * Null values are not stored; putting one removes the entry.
  *
- * @param <K> The object type that acts as the key for the HashMap
- * @param <V> The value that is stored in the HashMap
+ * @param <K> The object type that acts as the key for the map
+ * @param <V> The value that is stored in the map
  */
 public class HashMapCache<K, V> implements ICache<K, V> {
     private static final JavaSerialiser JAVA_SERIALISER = new JavaSerialiser();
     private boolean useJavaSerialisation;
-    private HashMap<K, Object> cache = new HashMap<>();
+    private ConcurrentHashMap<K, Object> cache = new ConcurrentHashMap<>();
 
     public HashMapCache(final boolean useJavaSerialisation) {
         this.useJavaSerialisation = useJavaSerialisation;
@@ -49,25 +54,64 @@ public class HashMapCache<K, V> implements ICache<K, V> {
 
     @Override
     public V get(final K key) {
-        try {
-            return (V) (useJavaSerialisation
-                    ? JAVA_SERIALISER.deserialise((byte[]) cache.get(key))
-                    : cache.get(key));
-        } catch (final SerialisationException e) {
-            throw new RuntimeException(e);
-        }
+        return fromStored(cache.get(key));
     }
 
     @Override
     public void put(final K key, final V value) {
-        if (useJavaSerialisation) {
-            try {
-                cache.put(key, JAVA_SERIALISER.serialise(value));
-            } catch (final SerialisationException e) {
-                throw new RuntimeException(e);
-            }
+        if (null == value) {
+            cache.remove(key);
         } else {
-            cache.put(key, value);
+            cache.put(key, toStored(value));
+        }
+    }
+
+    @Override
+    public V putIfAbsent(final K key, final V value) {
+        if (null == value) {
+            return get(key);
+        }
+        return fromStored(cache.putIfAbsent(key, toStored(value)));
+    }
+
+    @Override
+    public V compute(final K key, final BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        return fromStored(cache.compute(key, (k, stored) -> toStored(remappingFunction.apply(k, fromStored(stored)))));
+    }
+
+    @Override
+    public V computeIfAbsent(final K key, final Function<? super K, ? extends V> mappingFunction) {
+        return fromStored(cache.computeIfAbsent(key, k -> toStored(mappingFunction.apply(k))));
+    }
+
+    @Override
+    public V merge(final K key, final V value, final BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        return fromStored(cache.merge(key, toStored(value), (stored, given) -> toStored(remappingFunction.apply(fromStored(stored), value))));
+    }
+
+    @Override
+    public Map<K, V> getAll(final Collection<? extends K> keys) {
+        final Map<K, V> rtn = new HashMap<>(keys.size());
+        for (final K key : keys) {
+            final Object stored = cache.get(key);
+            if (null != stored) {
+                rtn.put(key, fromStored(stored));
+            }
+        }
+        return rtn;
+    }
+
+    @Override
+    public void putAll(final Map<? extends K, ? extends V> entries) {
+        for (final Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public void removeAll(final Collection<? extends K> keys) {
+        for (final K key : keys) {
+            cache.remove(key);
         }
     }
 
@@ -78,18 +122,9 @@ public class HashMapCache<K, V> implements ICache<K, V> {
 
     @Override
     public Collection<V> getAllValues() {
-        ArrayList<V> rtn = Lists.newArrayList();
-        if (useJavaSerialisation) {
-            cache.values()
-                    .forEach((Object o) -> {
-                        try {
-                            rtn.add((V) JAVA_SERIALISER.deserialise((byte[]) o));
-                        } catch (final SerialisationException e) {
-                            throw new RuntimeException(e);
-                        }
-                    });
-        } else {
-            rtn.addAll((Collection<V>) cache.values());
+        final ArrayList<V> rtn = Lists.newArrayList();
+        for (final Object stored : cache.values()) {
+            rtn.add(fromStored(stored));
         }
         return rtn;
     }
@@ -108,4 +143,26 @@ public class HashMapCache<K, V> implements ICache<K, V> {
     public void clear() {
         cache.clear();
     }
+
+    private Object toStored(final V value) {
+        if (null == value || !useJavaSerialisation) {
+            return value;
+        }
+        try {
+            return JAVA_SERIALISER.serialise(value);
+        } catch (final SerialisationException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private V fromStored(final Object stored) {
+        if (null == stored || !useJavaSerialisation) {
+            return (V) stored;
+        }
+        try {
+            return (V) JAVA_SERIALISER.deserialise((byte[]) stored);
+        } catch (final SerialisationException e) {
+            throw new RuntimeException(e);
+        }
+    }
 }
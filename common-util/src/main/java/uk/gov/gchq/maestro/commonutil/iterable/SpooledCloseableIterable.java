@@ -0,0 +1,112 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.commonutil.iterable;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.gov.gchq.maestro.commonutil.CloseableUtil;
+import uk.gov.gchq.maestro.commonutil.ToStringBuilder;
+import uk.gov.gchq.maestro.commonutil.exception.MaestroRuntimeException;
+import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.JSONSerialiser;
+import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.WireFormat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * A {@code SpooledCloseableIterable} lazily reads a sequence of values that
+ * have been spooled to a file in the Smile {@link WireFormat}. Each call to
+ * {@link #iterator()} reads the file from the start, decoding one value at a
+ * time, so the values never need to be held in memory together.
+ * <p>
+ * Closing the iterable closes any open iterators and deletes the file.
+ * </p>
+ *
+ * @param <T> the type of items in the iterable.
+ */
+public class SpooledCloseableIterable<T> implements CloseableIterable<T> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpooledCloseableIterable.class);
+    public static final WireFormat SPOOL_FORMAT = WireFormat.SMILE;
+
+    private final File file;
+    private final Class<T> type;
+    private final Set<MappingIterator<T>> openIterators = Collections.newSetFromMap(new IdentityHashMap<>());
+    private boolean closed;
+
+    public SpooledCloseableIterable(final File file, final Class<T> type) {
+        this.file = file;
+        this.type = type;
+    }
+
+    @Override
+    public CloseableIterator<T> iterator() {
+        final MappingIterator<T> iterator;
+        synchronized (openIterators) {
+            if (closed) {
+                throw new IllegalStateException("Iterable has been closed, the spool file " + file + " has been deleted");
+            }
+            try {
+                iterator = JSONSerialiser.getMapper(SPOOL_FORMAT).readerFor(type).readValues(file);
+            } catch (final IOException e) {
+                throw new MaestroRuntimeException("Unable to read spool file: " + file, e);
+            }
+            openIterators.add(iterator);
+        }
+
+        return new WrappedCloseableIterator<T>(iterator) {
+            @Override
+            public void close() {
+                synchronized (openIterators) {
+                    openIterators.remove(iterator);
+                }
+                super.close();
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        synchronized (openIterators) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            openIterators.forEach(CloseableUtil::close);
+            openIterators.clear();
+        }
+        if (!file.delete() && file.exists()) {
+            LOGGER.warn("Unable to delete spool file {}", file);
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("file", file)
+                .append("type", type)
+                .toString();
+    }
+}
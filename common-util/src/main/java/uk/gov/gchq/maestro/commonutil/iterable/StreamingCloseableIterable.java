@@ -0,0 +1,146 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.commonutil.iterable;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import uk.gov.gchq.maestro.commonutil.CloseableUtil;
+import uk.gov.gchq.maestro.commonutil.ToStringBuilder;
+import uk.gov.gchq.maestro.commonutil.exception.MaestroRuntimeException;
+
+import java.io.IOException;
+import java.util.NoSuchElementException;
+
+/**
+ * A {@code StreamingCloseableIterable} lazily decodes the elements of an
+ * array from a {@link JsonParser}, one element at a time, so an array read
+ * from a stream never needs to be held in memory.
+ * <p>
+ * As the elements come from a stream the iterable can only be iterated
+ * once. The parser and the resource it reads from are closed when the
+ * array is exhausted or when the iterable is closed.
+ * </p>
+ *
+ * @param <T> the type of items in the iterable.
+ */
+public class StreamingCloseableIterable<T> implements CloseableIterable<T> {
+    private final JsonParser parser;
+    private final ObjectMapper mapper;
+    private final JavaType elementType;
+    private final AutoCloseable resource;
+    private boolean iterated;
+    private boolean closed;
+
+    /**
+     * @param parser      the parser, positioned on the start of the array
+     * @param mapper      the mapper used to decode each element
+     * @param elementType the type of the elements
+     * @param resource    the resource to close along with the parser, may be null
+     */
+    public StreamingCloseableIterable(final JsonParser parser, final ObjectMapper mapper,
+                                      final JavaType elementType, final AutoCloseable resource) {
+        if (JsonToken.START_ARRAY != parser.getCurrentToken()) {
+            throw new IllegalArgumentException("Parser must be positioned on the start of an array, but was on: " + parser.getCurrentToken());
+        }
+        this.parser = parser;
+        this.mapper = mapper;
+        this.elementType = elementType;
+        this.resource = resource;
+    }
+
+    @Override
+    public synchronized CloseableIterator<T> iterator() {
+        if (iterated || closed) {
+            throw new IllegalStateException("A streaming iterable can only be iterated once");
+        }
+        iterated = true;
+        return new StreamingIterator();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            CloseableUtil.close(parser, resource);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("elementType", elementType)
+                .append("closed", closed)
+                .toString();
+    }
+
+    private final class StreamingIterator implements CloseableIterator<T> {
+        private JsonToken next;
+
+        @Override
+        public boolean hasNext() {
+            if (null == next) {
+                next = advance();
+            }
+            return JsonToken.END_ARRAY != next && null != next;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            next = null;
+            try {
+                return mapper.readValue(parser, elementType);
+            } catch (final IOException e) {
+                close();
+                throw new MaestroRuntimeException("Unable to decode element: " + e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public void close() {
+            StreamingCloseableIterable.this.close();
+        }
+
+        private JsonToken advance() {
+            synchronized (StreamingCloseableIterable.this) {
+                if (closed) {
+                    return null;
+                }
+            }
+            try {
+                final JsonToken token = parser.nextToken();
+                if (JsonToken.END_ARRAY == token || null == token) {
+                    // Read to the end of the stream so the resource can be reused
+                    while (null != parser.nextToken()) {
+                        parser.skipChildren();
+                    }
+                    close();
+                    return JsonToken.END_ARRAY;
+                }
+                return token;
+            } catch (final IOException e) {
+                close();
+                throw new MaestroRuntimeException("Unable to read next element: " + e.getMessage(), e);
+            }
+        }
+    }
+}
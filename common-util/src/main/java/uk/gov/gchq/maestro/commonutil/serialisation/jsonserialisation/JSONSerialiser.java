@@ -47,9 +47,12 @@ import uk.gov.gchq.maestro.commonutil.exception.SerialisationException;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A {@code JSONSerialiser} provides the ability to serialise and deserialise to/from JSON.
@@ -70,6 +73,13 @@ import java.util.Set;
  * An update will be done automatically in the REST API when it is first initialised and
  * also when an Executor is initialised.
  * </p>
+ * <p>
+ * As well as JSON, objects can be serialised to the binary {@link WireFormat}s
+ * Smile and CBOR. The mapper for a binary format is created from
+ * {@link #createDefaultMapper(WireFormat)} with the same modules registered
+ * as the JSON mapper. Child classes that configure their mapper in other ways
+ * should also override {@link #createMapper(WireFormat)}.
+ * </p>
  */
 public class JSONSerialiser {
     public static final String JSON_SERIALISER_CLASS_KEY = "maestro.serialiser.json.class";
@@ -92,6 +102,8 @@ public class JSONSerialiser {
     private static JSONSerialiser instance;
 
     private final ObjectMapper mapper;
+    private final List<Module> modules = new ArrayList<>();
+    private final Map<WireFormat, ObjectMapper> binaryMappers = new ConcurrentHashMap<>();
 
     /**
      * Constructs a {@code JSONSerialiser} that skips nulls and default values.
@@ -121,6 +133,7 @@ public class JSONSerialiser {
     protected void registerModules(final Module... modules) {
         for (final Module module : modules) {
             mapper.registerModule(module);
+            this.modules.add(module);
         }
     }
 
@@ -132,6 +145,25 @@ public class JSONSerialiser {
      */
     protected void registerModules(final Collection<Module> modules) {
         modules.forEach(mapper::registerModule);
+        this.modules.addAll(modules);
+    }
+
+    /**
+     * Creates the {@link ObjectMapper} for a binary format. By default this is
+     * the default mapper for the format, with the modules and strictness of
+     * the JSON mapper applied.
+     *
+     * @param format the binary format
+     * @return a mapper that reads and writes the format
+     */
+    protected ObjectMapper createMapper(final WireFormat format) {
+        final ObjectMapper formatMapper = createDefaultMapper(format);
+        formatMapper.registerModules(modules);
+        formatMapper.configure(
+                DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES,
+                mapper.isEnabled(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+        );
+        return formatMapper;
     }
 
     public static void addSimpleClassNames(final boolean includeSubtypes, final Class... classes) {
@@ -201,6 +233,7 @@ public class JSONSerialiser {
             final List<Module> modules = factory.getModules();
             if (null != modules) {
                 newInstance.mapper.registerModules(modules);
+                newInstance.modules.addAll(modules);
             }
         }
 
@@ -214,7 +247,15 @@ public class JSONSerialiser {
     }
 
     public static ObjectMapper createDefaultMapper() {
-        final ObjectMapper mapper = new ObjectMapper();
+        return createDefaultMapper(WireFormat.JSON);
+    }
+
+    /**
+     * @param format the format the mapper should read and write
+     * @return a mapper configured the same way as the default JSON mapper
+     */
+    public static ObjectMapper createDefaultMapper(final WireFormat format) {
+        final ObjectMapper mapper = WireFormat.JSON == format ? new ObjectMapper() : new ObjectMapper(format.createFactory());
         mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
         mapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
         mapper.configure(SerializationFeature.CLOSE_CLOSEABLE, true);
@@ -313,6 +354,26 @@ public class JSONSerialiser {
         }
     }
 
+    /**
+     * Serialises an object using the given format.
+     *
+     * @param object the object to be serialised
+     * @param format the format to serialise to
+     * @return the provided object serialised into bytes
+     * @throws SerialisationException if the object fails to serialise
+     */
+    public static byte[] serialise(final Object object, final WireFormat format) throws SerialisationException {
+        if (!format.isBinary()) {
+            return serialise(object);
+        }
+
+        try {
+            return getMapper(format).writer(getFilterProvider()).writeValueAsBytes(object);
+        } catch (final IOException e) {
+            throw new SerialisationException("Failed to serialise object to " + format + ": " + e.getMessage(), e);
+        }
+    }
+
     /**
      * @param json  the json of the object to deserialise
      * @param clazz the class of the object to deserialise
@@ -408,6 +469,54 @@ public class JSONSerialiser {
         }
     }
 
+    /**
+     * @param bytes  the bytes of the object to deserialise
+     * @param clazz  the class of the object to deserialise
+     * @param format the format the bytes are encoded in
+     * @param <T>    the type of the object
+     * @return the deserialised object
+     * @throws SerialisationException if the bytes fail to deserialise
+     */
+    public static <T> T deserialise(final byte[] bytes, final Class<T> clazz, final WireFormat format) throws SerialisationException {
+        try {
+            return getMapper(format).readValue(bytes, clazz);
+        } catch (final Exception e) {
+            throw new SerialisationException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @param bytes  the bytes of the object to deserialise
+     * @param type   the type reference of the object to deserialise
+     * @param format the format the bytes are encoded in
+     * @param <T>    the type of the object
+     * @return the deserialised object
+     * @throws SerialisationException if the bytes fail to deserialise
+     */
+    public static <T> T deserialise(final byte[] bytes, final TypeReference<T> type, final WireFormat format) throws SerialisationException {
+        try {
+            return getMapper(format).readValue(bytes, type);
+        } catch (final IOException e) {
+            throw new SerialisationException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @param stream the {@link InputStream} containing the bytes of the object to deserialise
+     * @param type   the type reference of the object to deserialise
+     * @param format the format the bytes are encoded in
+     * @param <T>    the type of the object
+     * @return the deserialised object
+     * @throws SerialisationException if the bytes fail to deserialise
+     */
+    public static <T> T deserialise(final InputStream stream, final TypeReference<T> type, final WireFormat format) throws SerialisationException {
+        try (final InputStream stream2 = stream) {
+            return getMapper(format).readValue(stream2, type);
+        } catch (final IOException e) {
+            throw new SerialisationException(e.getMessage(), e);
+        }
+    }
+
     /**
      * @param content the {@link String} containing the bytes of the object to deserialise
      * @return the deserialised object
@@ -426,6 +535,19 @@ public class JSONSerialiser {
         return getInstance().mapper;
     }
 
+    /**
+     * @param format the format the mapper should read and write
+     * @return the mapper for the format, JSON uses {@link #getMapper()}
+     */
+    @JsonIgnore
+    public static ObjectMapper getMapper(final WireFormat format) {
+        final JSONSerialiser jsonSerialiser = getInstance();
+        if (null == format || !format.isBinary()) {
+            return jsonSerialiser.mapper;
+        }
+        return jsonSerialiser.binaryMappers.computeIfAbsent(format, jsonSerialiser::createMapper);
+    }
+
     @JsonIgnore
     public static JSONSerialiser getInstance() {
         if (null == instance) {
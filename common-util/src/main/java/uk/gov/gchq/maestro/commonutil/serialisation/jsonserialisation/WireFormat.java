@@ -0,0 +1,98 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * The encodings the {@link JSONSerialiser} can read and write. JSON is the
+ * default and the fallback; Smile and CBOR are binary encodings of the same
+ * data model, so any object that can be serialised to JSON can also be
+ * serialised to either of them.
+ */
+public enum WireFormat {
+    JSON(WireFormat.JSON_MEDIA_TYPE),
+    SMILE(WireFormat.SMILE_MEDIA_TYPE),
+    CBOR(WireFormat.CBOR_MEDIA_TYPE);
+
+    public static final String JSON_MEDIA_TYPE = "application/json";
+    public static final String SMILE_MEDIA_TYPE = "application/x-jackson-smile";
+    public static final String CBOR_MEDIA_TYPE = "application/cbor";
+
+    private final String mediaType;
+
+    WireFormat(final String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public boolean isBinary() {
+        return JSON != this;
+    }
+
+    /**
+     * @return a new {@link JsonFactory} that reads and writes this format
+     */
+    public JsonFactory createFactory() {
+        switch (this) {
+            case SMILE:
+                return new SmileFactory();
+            case CBOR:
+                return new CBORFactory();
+            default:
+                return new JsonFactory();
+        }
+    }
+
+    /**
+     * Finds the format for a media type, ignoring any parameters such as the
+     * charset.
+     *
+     * @param mediaType the media type, e.g. the value of a Content-Type header
+     * @return the matching format, or JSON if the media type is null or unknown
+     */
+    public static WireFormat fromMediaType(final String mediaType) {
+        if (null != mediaType) {
+            final int paramsStart = mediaType.indexOf(';');
+            final String type = (paramsStart < 0 ? mediaType : mediaType.substring(0, paramsStart)).trim();
+            for (final WireFormat format : values()) {
+                if (format.mediaType.equalsIgnoreCase(type)) {
+                    return format;
+                }
+            }
+        }
+        return JSON;
+    }
+
+    /**
+     * Finds a format by name, e.g. from a property value.
+     *
+     * @param name the case insensitive name of the format
+     * @return the matching format, or JSON if the name is null or blank
+     */
+    public static WireFormat fromName(final String name) {
+        if (null == name || name.trim().isEmpty()) {
+            return JSON;
+        }
+        return valueOf(name.trim().toUpperCase());
+    }
+}
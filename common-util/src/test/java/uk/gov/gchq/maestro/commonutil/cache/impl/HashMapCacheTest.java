@@ -24,7 +24,15 @@ import org.junit.Test;
 
 import uk.gov.gchq.maestro.commonutil.exception.SerialisationException;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -158,4 +166,78 @@ public class HashMapCacheTest {
         TempClass tempClass = new TempClass();
         map.put("test1", tempClass);
     }
+
+    @Test
+    public void shouldNotLoseConcurrentMerges() throws Exception {
+        // given
+        final HashMapCache<String, Integer> serialisingCache = new HashMapCache<>(true);
+        final ExecutorService service = Executors.newFixedThreadPool(8);
+
+        // when
+        for (int i = 0; i < 1000; i++) {
+            service.execute(() -> {
+                cache.merge("key", 1, Integer::sum);
+                serialisingCache.merge("key", 1, Integer::sum);
+            });
+        }
+        service.shutdown();
+        service.awaitTermination(10, TimeUnit.SECONDS);
+
+        // then
+        assertEquals(new Integer(1000), cache.get("key"));
+        assertEquals(new Integer(1000), serialisingCache.get("key"));
+    }
+
+    @Test
+    public void shouldOnlyPutIfAbsent() {
+        // when
+        final Integer first = cache.putIfAbsent("key", 1);
+        final Integer second = cache.putIfAbsent("key", 2);
+
+        // then
+        assertNull(first);
+        assertEquals(new Integer(1), second);
+        assertEquals(new Integer(1), cache.get("key"));
+    }
+
+    @Test
+    public void shouldComputeAndRemoveWhenNull() {
+        // given
+        cache.put("key", 1);
+
+        // when
+        cache.compute("key", (key, value) -> value + 1);
+        cache.computeIfAbsent("key", key -> 10);
+        cache.computeIfAbsent("other", key -> 10);
+
+        // then
+        assertEquals(new Integer(2), cache.get("key"));
+        assertEquals(new Integer(10), cache.get("other"));
+
+        // when
+        cache.compute("key", (key, value) -> null);
+
+        // then
+        assertNull(cache.get("key"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void shouldGetPutAndRemoveInBulk() {
+        // given
+        final Map<String, Integer> entries = new HashMap<>();
+        entries.put("a", 1);
+        entries.put("b", 2);
+        entries.put("c", 3);
+
+        // when
+        cache.putAll(entries);
+        cache.removeAll(Arrays.asList("b", "missing"));
+
+        // then
+        final Map<String, Integer> expected = new HashMap<>();
+        expected.put("a", 1);
+        expected.put("c", 3);
+        assertEquals(expected, cache.getAll(Arrays.asList("a", "b", "c")));
+    }
 }
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.commonutil.iterable;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import uk.gov.gchq.maestro.commonutil.StringUtil;
+import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.JSONSerialiser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class StreamingCloseableIterableTest {
+    private final ObjectMapper mapper = JSONSerialiser.getMapper();
+    private boolean resourceClosed;
+
+    @Test
+    public void shouldDecodeElementsLazilyAndCloseWhenExhausted() throws IOException {
+        // Given
+        final StreamingCloseableIterable<Integer> iterable = create("[1, 2, 3]");
+
+        // When
+        final List<Integer> results = new ArrayList<>();
+        final CloseableIterator<Integer> iterator = iterable.iterator();
+        results.add(iterator.next());
+        assertFalse(resourceClosed);
+        while (iterator.hasNext()) {
+            results.add(iterator.next());
+        }
+
+        // Then
+        assertEquals(Arrays.asList(1, 2, 3), results);
+        assertTrue(resourceClosed);
+    }
+
+    @Test
+    public void shouldDecodeArrayNestedInObject() throws IOException {
+        // Given
+        final JsonParser parser = mapper.getFactory().createParser(StringUtil.toBytes("{\"result\": [{\"a\": 1}, {\"b\": 2}]}"));
+        parser.nextToken();
+        parser.nextToken();
+        assertEquals(JsonToken.START_ARRAY, parser.nextToken());
+        final StreamingCloseableIterable<Object> iterable = new StreamingCloseableIterable<>(parser, mapper,
+                mapper.constructType(Object.class), () -> resourceClosed = true);
+
+        // When
+        final List<Object> results = new ArrayList<>();
+        iterable.forEach(results::add);
+
+        // Then
+        assertEquals(2, results.size());
+        assertTrue(resourceClosed);
+    }
+
+    @Test
+    public void shouldCloseResourceWhenClosedEarly() throws IOException {
+        // Given
+        final StreamingCloseableIterable<Integer> iterable = create("[1, 2, 3]");
+        final CloseableIterator<Integer> iterator = iterable.iterator();
+        iterator.next();
+
+        // When
+        iterator.close();
+
+        // Then
+        assertTrue(resourceClosed);
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void shouldOnlyBeIterableOnce() throws IOException {
+        // Given
+        final StreamingCloseableIterable<Integer> iterable = create("[]");
+        assertFalse(iterable.iterator().hasNext());
+
+        // When / Then
+        try {
+            iterable.iterator();
+            fail("Exception expected");
+        } catch (final IllegalStateException e) {
+            assertTrue(resourceClosed);
+        }
+    }
+
+    private StreamingCloseableIterable<Integer> create(final String json) throws IOException {
+        final JsonParser parser = mapper.getFactory().createParser(StringUtil.toBytes(json));
+        parser.nextToken();
+        return new StreamingCloseableIterable<>(parser, mapper, mapper.constructType(Integer.class), () -> resourceClosed = true);
+    }
+}
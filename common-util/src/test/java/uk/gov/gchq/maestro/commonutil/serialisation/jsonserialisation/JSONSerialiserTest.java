@@ -146,6 +146,33 @@ public class JSONSerialiserTest {
         assertEquals(Integer.valueOf(2), o.getK());
     }
 
+    @Test
+    public void shouldRoundTripThroughBinaryWireFormats() throws SerialisationException {
+        ParameterisedTestObject<Integer> test = new ParameterisedTestObject<>();
+        test.setX("Test");
+        test.setK(2);
+        final byte[] json = JSONSerialiser.serialise(test);
+
+        for (final WireFormat format : new WireFormat[]{WireFormat.SMILE, WireFormat.CBOR}) {
+            byte[] b = JSONSerialiser.serialise(test, format);
+            assertFalse(Arrays.equals(json, b));
+            ParameterisedTestObject<Integer> o = JSONSerialiser.deserialise(b, new TypeReference<ParameterisedTestObject<Integer>>() {
+            }, format);
+            assertEquals("Test", o.getX());
+            assertEquals(Integer.valueOf(2), o.getK());
+        }
+    }
+
+    @Test
+    public void shouldFindWireFormatFromMediaTypeAndFallBackToJson() {
+        assertEquals(WireFormat.SMILE, WireFormat.fromMediaType("application/x-jackson-smile"));
+        assertEquals(WireFormat.CBOR, WireFormat.fromMediaType("Application/CBOR; charset=UTF-8"));
+        assertEquals(WireFormat.JSON, WireFormat.fromMediaType("application/json"));
+        assertEquals(WireFormat.JSON, WireFormat.fromMediaType("text/plain"));
+        assertEquals(WireFormat.JSON, WireFormat.fromMediaType(null));
+        assertSame(JSONSerialiser.getMapper(), JSONSerialiser.getMapper(WireFormat.JSON));
+    }
+
     @Test
     public void testParameterisedDeserialisationOfComplexObject() throws SerialisationException {
         SimpleTestObject test = new SimpleTestObject();
@@ -42,6 +42,8 @@ import uk.gov.gchq.maestro.executor.hook.Hook;
 import uk.gov.gchq.maestro.executor.operation.declaration.FieldDeclaration;
 import uk.gov.gchq.maestro.executor.operation.handler.OperationHandler;
 import uk.gov.gchq.maestro.executor.operation.handler.job.util.JobExecutor;
+import uk.gov.gchq.maestro.executor.operation.handler.job.util.JobQueue;
+import uk.gov.gchq.maestro.executor.operation.handler.job.util.JobScheduler;
 import uk.gov.gchq.maestro.executor.operation.validator.OperationValidation;
 import uk.gov.gchq.maestro.executor.util.Config;
 import uk.gov.gchq.maestro.executor.util.ExecutorPropertiesUtil;
@@ -49,6 +51,8 @@ import uk.gov.gchq.maestro.executor.util.Request;
 import uk.gov.gchq.maestro.executor.util.Result;
 import uk.gov.gchq.maestro.operation.Operation;
 import uk.gov.gchq.maestro.operation.jobtracker.JobDetail;
+import uk.gov.gchq.maestro.operation.jobtracker.JobPriority;
+import uk.gov.gchq.maestro.operation.jobtracker.JobQuery;
 import uk.gov.gchq.maestro.operation.jobtracker.JobStatus;
 import uk.gov.gchq.maestro.operation.jobtracker.JobTracker;
 import uk.gov.gchq.maestro.operation.user.User;
@@ -75,7 +79,22 @@ public class Executor implements Comparable<Executor>, Serializable {
 
     @JsonCreator
     public Executor(@JsonProperty("config") final Config config) {
+        this(config, true);
+    }
+
+    /**
+     * Creates an Executor that, if not initialised now, is not usable until
+     * {@link #initialise()} is called. This allows subclasses to defer the
+     * cost of initialising until the Executor is first used.
+     *
+     * @param config     the config of the Executor
+     * @param initialise true if the Executor should be initialised now
+     */
+    protected Executor(final Config config, final boolean initialise) {
         config(config);
+        if (initialise) {
+            initialise();
+        }
     }
 
     protected void startCacheServiceLoader(final Map<String, Object> properties) {
@@ -87,6 +106,9 @@ public class Executor implements Comparable<Executor>, Serializable {
     private void addExecutorService(final Map<String, Object> properties) {
         if (null != properties) {
             ExecutorService.initialise(ExecutorPropertiesUtil.getJobExecutorThreadCount(this));
+            JobQueue.initialiseIfDisabled(ExecutorPropertiesUtil.getJobExecutorThreadCount(this),
+                    ExecutorPropertiesUtil.getJobPriorityConcurrency(this),
+                    ExecutorPropertiesUtil.getJobPriorityAgeing(this));
         }
     }
 
@@ -182,7 +204,17 @@ public class Executor implements Comparable<Executor>, Serializable {
     }
 
     public void runAsync(final Runnable runnable) {
-        getExecutorService().execute(runnable);
+        runAsync(runnable, JobPriority.NORMAL);
+    }
+
+    /**
+     * Runs a job asynchronously, once the {@link JobQueue} reaches it.
+     *
+     * @param runnable the job to run
+     * @param priority the priority class of the job
+     */
+    public void runAsync(final Runnable runnable, final JobPriority priority) {
+        JobQueue.submit(runnable, priority);
     }
 
     @JsonIgnore
@@ -225,28 +257,45 @@ public class Executor implements Comparable<Executor>, Serializable {
     private Executor config(final Config config) {
         if (nonNull(config)) {
             this.config = config;
-            startCacheServiceLoader(config.getProperties());
-            addExecutorService(config.getProperties());
-            try {
-                startScheduledJobs();
-                runInitOperation();
-            } catch (final Exception e) {
-                throw new ExecutorException(e);
-            }
         } else {
             throw new ExecutorException(new IllegalArgumentException("Config is null"));
         }
         return this;
     }
 
+    /**
+     * Initialises the cache and executor services from the config properties,
+     * starts any scheduled jobs and runs the initialiser operation.
+     */
+    protected void initialise() {
+        startCacheServiceLoader(config.getProperties());
+        addExecutorService(config.getProperties());
+        start();
+    }
+
+    /**
+     * Starts any scheduled jobs and runs the initialiser operation, leaving
+     * the cache and executor services, which are shared, as they are.
+     */
+    protected void start() {
+        try {
+            startScheduledJobs();
+            runInitOperation();
+        } catch (final Exception e) {
+            throw new ExecutorException(e);
+        }
+    }
+
     public Config addOperationHandler(final String opId, final OperationHandler handler) {
         return config.addOperationHandler(opId, handler);
     }
 
     public void startScheduledJobs() throws OperationException {
         if (JobTracker.isCacheEnabled() && ExecutorService.isEnabled()) {
-            for (final JobDetail jobDetailFromCache : JobTracker.getAllJobs()) {
-                if (jobDetailFromCache.getStatus().equals(JobStatus.SCHEDULED_PARENT)) {
+            for (final JobDetail jobDetailFromCache : JobTracker.getJobs(new JobQuery().status(JobStatus.SCHEDULED_PARENT))) {
+                if (null != jobDetailFromCache.getRepeat()) {
+                    JobScheduler.schedule(jobDetailFromCache, new Context(new User(jobDetailFromCache.getUserId())), this);
+                } else {
                     JobExecutor.executeJob(jobDetailFromCache, this);
                 }
             }
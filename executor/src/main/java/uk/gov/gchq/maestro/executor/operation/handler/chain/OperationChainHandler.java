@@ -21,6 +21,7 @@ import uk.gov.gchq.maestro.executor.Context;
 import uk.gov.gchq.maestro.executor.Executor;
 import uk.gov.gchq.maestro.executor.operation.declaration.FieldDeclaration;
 import uk.gov.gchq.maestro.executor.operation.handler.OperationHandler;
+import uk.gov.gchq.maestro.executor.operation.handler.job.util.JobQueue;
 import uk.gov.gchq.maestro.executor.operation.optimiser.OperationOptimiser;
 import uk.gov.gchq.maestro.executor.operation.validator.OperationValidation;
 import uk.gov.gchq.maestro.executor.operation.validator.OperationValidator;
@@ -49,7 +50,13 @@ public class OperationChainHandler implements OperationHandler, OperationValidat
     public Object doOperation(final OperationChain operationChain,
                               final Context context, final Executor executor) throws OperationException {
         Object result = null;
+        boolean first = true;
         for (final Operation op : operationChain.getOperations()) {
+            if (!first) {
+                // Between steps, a low priority job gives way to waiting higher priority jobs
+                JobQueue.yieldToHigherPriority();
+            }
+            first = false;
             updateOperationInput(op, result);
             result = executor.execute(op, context);
         }
@@ -57,7 +57,7 @@ public abstract class ExportToHandler extends ExportOperationHandler {
         return export;
     }
 
-    private Iterable<?> wrapInIterable(final Object input) {
+    protected Iterable<?> wrapInIterable(final Object input) {
         if (null == input) {
             return Collections.emptyList();
         }
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.executor.operation.handler.export.resultcache;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+
+import uk.gov.gchq.maestro.commonutil.ToStringBuilder;
+import uk.gov.gchq.maestro.commonutil.exception.OperationException;
+import uk.gov.gchq.maestro.commonutil.iterable.CloseableIterable;
+import uk.gov.gchq.maestro.executor.Context;
+import uk.gov.gchq.maestro.executor.Executor;
+import uk.gov.gchq.maestro.executor.operation.declaration.FieldDeclaration;
+import uk.gov.gchq.maestro.executor.operation.handler.export.ExportToHandler;
+import uk.gov.gchq.maestro.operation.Operation;
+
+/**
+ * An {@code ExportToResultCacheHandler} appends the input to the results of
+ * a job in a {@link ResultCacheStore}, under the id of the user and the
+ * export key. The job is the current one unless a jobId is given.
+ * <p>
+ * Appending reads an iterable input to the end, and an input such as a
+ * stream can only be read once, so the results appended are returned as
+ * read back from the store. Any other input is returned unchanged.
+ * </p>
+ */
+@JsonPropertyOrder(value = {"class"}, alphabetic = true)
+public class ExportToResultCacheHandler extends ExportToHandler {
+    public static final String EXPORTER_ID = "ResultCacheExporter";
+    public static final String DEFAULT_KEY = "ALL";
+
+    private ResultCacheStore store = new ResultCacheStore();
+
+    @Override
+    public Object doOperation(final Operation operation,
+                              final Context context,
+                              final Executor executor,
+                              final Operation exporter)
+            throws OperationException {
+        final Object key = operation.getOrDefault("KeyOrDefault", DEFAULT_KEY);
+        final String jobId = (String) operation.getOrDefault("jobId", context.getJobId());
+        final Object input = operation.input();
+        final CloseableIterable<Object> appended = store.append(context.getUser().getUserId(), jobId,
+                null == key ? DEFAULT_KEY : (String) key, wrapInIterable(input));
+        return input instanceof Iterable ? appended : input;
+    }
+
+    @Override
+    protected String getExporterId() {
+        return EXPORTER_ID;
+    }
+
+    @Override
+    protected Operation createExporter(final Operation export,
+                                       final Context context,
+                                       final Executor executor) {
+        return new Operation(EXPORTER_ID);
+    }
+
+    @Override
+    public FieldDeclaration getFieldDeclaration() {
+        return new FieldDeclaration()
+                .fieldOptional("input", Object.class)
+                .fieldOptional("jobId", String.class)
+                .fieldOptional("KeyOrDefault", String.class);
+    }
+
+    public ResultCacheStore getStore() {
+        return store;
+    }
+
+    public ExportToResultCacheHandler setStore(final ResultCacheStore store) {
+        this.store = store;
+        return this;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (null == o || getClass() != o.getClass()) {
+            return false;
+        }
+        final ExportToResultCacheHandler that = (ExportToResultCacheHandler) o;
+        return new EqualsBuilder()
+                .append(store, that.store)
+                .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder(17, 37)
+                .append(store)
+                .toHashCode();
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("store", store)
+                .toString();
+    }
+}
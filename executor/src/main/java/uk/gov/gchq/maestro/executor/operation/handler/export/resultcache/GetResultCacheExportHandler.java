@@ -0,0 +1,113 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.executor.operation.handler.export.resultcache;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+
+import uk.gov.gchq.maestro.commonutil.ToStringBuilder;
+import uk.gov.gchq.maestro.commonutil.exception.OperationException;
+import uk.gov.gchq.maestro.commonutil.iterable.CloseableIterable;
+import uk.gov.gchq.maestro.executor.Context;
+import uk.gov.gchq.maestro.executor.Executor;
+import uk.gov.gchq.maestro.executor.operation.declaration.FieldDeclaration;
+import uk.gov.gchq.maestro.executor.operation.handler.export.GetExportHandler;
+import uk.gov.gchq.maestro.operation.Operation;
+
+/**
+ * A {@code GetResultCacheExportHandler} streams a page of the results of a
+ * job, run by the current user, from a {@link ResultCacheStore}.
+ */
+@JsonPropertyOrder(value = {"class"}, alphabetic = true)
+public class GetResultCacheExportHandler extends GetExportHandler {
+    private ResultCacheStore store = new ResultCacheStore();
+
+    @Override
+    public CloseableIterable<?> doOperation(final Operation operation,
+                                            final Context context,
+                                            final Executor executor,
+                                            final Operation exporter)
+            throws OperationException {
+        final Object key = operation.get("key");
+        final Object start = operation.get("Start");
+        final Object end = operation.get("End");
+        return store.read(context.getUser().getUserId(),
+                (String) operation.get("jobId"),
+                null == key ? ExportToResultCacheHandler.DEFAULT_KEY : (String) key,
+                null == start ? 0 : ((Number) start).intValue(),
+                null == end ? null : ((Number) end).intValue());
+    }
+
+    @Override
+    protected String getExporterId() {
+        return ExportToResultCacheHandler.EXPORTER_ID;
+    }
+
+    @Override
+    protected Operation createExporter(final Operation export,
+                                       final Context context,
+                                       final Executor executor) {
+        return new Operation(ExportToResultCacheHandler.EXPORTER_ID);
+    }
+
+    @Override
+    public FieldDeclaration getFieldDeclaration() {
+        return new FieldDeclaration()
+                .fieldRequired("jobId", String.class)
+                .fieldOptional("key", String.class)
+                .fieldOptional("Start", Number.class)
+                .fieldOptional("End", Number.class);
+    }
+
+    public ResultCacheStore getStore() {
+        return store;
+    }
+
+    public GetResultCacheExportHandler setStore(final ResultCacheStore store) {
+        this.store = store;
+        return this;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (null == o || getClass() != o.getClass()) {
+            return false;
+        }
+        final GetResultCacheExportHandler that = (GetResultCacheExportHandler) o;
+        return new EqualsBuilder()
+                .append(store, that.store)
+                .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder(17, 37)
+                .append(store)
+                .toHashCode();
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("store", store)
+                .toString();
+    }
+}
@@ -0,0 +1,822 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.executor.operation.handler.export.resultcache;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.cfg.MapperConfig;
+import com.fasterxml.jackson.databind.jsontype.NamedType;
+import com.fasterxml.jackson.databind.jsontype.TypeIdResolver;
+import com.fasterxml.jackson.databind.jsontype.impl.ClassNameIdResolver;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.gov.gchq.koryphe.util.ReflectionUtil;
+import uk.gov.gchq.maestro.commonutil.CloseableUtil;
+import uk.gov.gchq.maestro.commonutil.CommonConstants;
+import uk.gov.gchq.maestro.commonutil.ToStringBuilder;
+import uk.gov.gchq.maestro.commonutil.exception.MaestroRuntimeException;
+import uk.gov.gchq.maestro.commonutil.exception.OperationException;
+import uk.gov.gchq.maestro.commonutil.iterable.CloseableIterable;
+import uk.gov.gchq.maestro.commonutil.iterable.CloseableIterator;
+import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.JSONSerialiser;
+import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.WireFormat;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A {@code ResultCacheStore} keeps job results on local disk, so they are not
+ * held in memory and survive a restart.
+ * <p>
+ * The results of each job are kept per user, job and export key, in
+ * append-only segment files of up to the segment size values each, encoded
+ * in the Smile {@link WireFormat} with the type of each value and gzip
+ * compressed. The number of values in each segment is part of its file
+ * name, so a page of results is read by skipping whole segments and then
+ * streaming from the one holding the first value on the page.
+ * </p>
+ * <p>
+ * The results of a job expire after the time to live. Each user may use
+ * up to the user quota of disk, and the whole directory up to the max
+ * bytes, after which the results of the least recently written jobs are
+ * removed to make room.
+ * </p>
+ * <p>
+ * The directory is created readable only by the user running the store,
+ * and is refused if it is owned by another user. Only the types of
+ * {@link #ALLOWED_CLASSES}, of the java.util and java.time packages, and
+ * of the reflection packages are read back from a segment, so a segment
+ * cannot name any other class to be created.
+ * </p>
+ */
+@JsonPropertyOrder(value = {"directory"}, alphabetic = true)
+public class ResultCacheStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResultCacheStore.class);
+    public static final String DEFAULT_DIRECTORY = System.getProperty("java.io.tmpdir") + File.separator + "maestro-result-cache";
+    public static final long DEFAULT_MAX_BYTES = 10L * 1024 * 1024 * 1024;
+    public static final long DEFAULT_USER_QUOTA = 1024L * 1024 * 1024;
+    public static final long DEFAULT_TIME_TO_LIVE = TimeUnit.DAYS.toMillis(1);
+    public static final int DEFAULT_SEGMENT_SIZE = 10000;
+    public static final String QUOTA_EXCEEDED = "The result cache quota of %s bytes has been exceeded for user: %s";
+    public static final String DIRECTORY_FULL = "The result cache directory: %s is full";
+    private static final String SEGMENT_SUFFIX = ".seg.gz";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final long CLEAN_UP_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+    private static final WireFormat FORMAT = WireFormat.SMILE;
+    /**
+     * The classes outside of the allowed packages that may be read back from
+     * a segment.
+     */
+    public static final Set<String> ALLOWED_CLASSES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            String.class.getName(), Boolean.class.getName(), Character.class.getName(),
+            Byte.class.getName(), Short.class.getName(), Integer.class.getName(),
+            Long.class.getName(), Float.class.getName(), Double.class.getName(),
+            BigInteger.class.getName(), BigDecimal.class.getName())));
+    private static final List<String> ALLOWED_PACKAGES = Arrays.asList("java.util", "java.time");
+    // The disk used in each directory, shared by the stores writing to it
+    private static final Map<Path, Usage> USAGES = new ConcurrentHashMap<>();
+    private static ObjectMapper formatMapper;
+    private static ObjectMapper typedMapper;
+
+    private String directory = DEFAULT_DIRECTORY;
+    private long maxBytes = DEFAULT_MAX_BYTES;
+    private long userQuota = DEFAULT_USER_QUOTA;
+    private long timeToLive = DEFAULT_TIME_TO_LIVE;
+    private int segmentSize = DEFAULT_SEGMENT_SIZE;
+
+    /**
+     * Appends results to those already stored for the job and key.
+     *
+     * @param userId  the id of the user running the job
+     * @param jobId   the id of the job
+     * @param key     the export key
+     * @param results the results to append
+     * @return the results appended, streamed back from disk as they are
+     * iterated
+     * @throws OperationException if the results could not be written, or
+     *                            would exceed the user quota or max bytes, in
+     *                            which case none of them are kept
+     */
+    public CloseableIterable<Object> append(final String userId, final String jobId, final String key, final Iterable<?> results) throws OperationException {
+        final Path root = getRoot();
+        final Usage usage = getUsage(root);
+        cleanUpIfDue(root, usage);
+
+        final String user = encode(userId);
+        final Path jobDir = root.resolve(user).resolve(encode(jobId));
+        final Path keyDir = jobDir.resolve(encode(key));
+        final ObjectMapper mapper = getTypedMapper();
+        final ObjectWriter writer = mapper.writerFor(TypedValue.class);
+        final List<Path> written = new ArrayList<>();
+        final List<Segment> segments = new ArrayList<>();
+        final Iterator<?> itr = results.iterator();
+        Path temp = null;
+        QuotaOutputStream quota = null;
+        try {
+            while (itr.hasNext()) {
+                temp = createTempSegment(keyDir);
+                quota = new QuotaOutputStream(Files.newOutputStream(temp), getRemainingQuota(usage, user));
+                int count = 0;
+                try (final OutputStream out = new GZIPOutputStream(new BufferedOutputStream(quota));
+                     final JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+                    while (count < segmentSize && itr.hasNext()) {
+                        writer.writeValue(generator, new TypedValue(itr.next()));
+                        count++;
+                    }
+                }
+                final Path segment = keyDir.resolve(getSequence(temp) + "-" + count + SEGMENT_SUFFIX);
+                Files.move(temp, segment, StandardCopyOption.ATOMIC_MOVE);
+                temp = segment;
+                reserve(root, usage, user, jobDir, Files.size(segment));
+                written.add(segment);
+                segments.add(new Segment(segment, getSequenceNumber(segment), count));
+                temp = null;
+                Files.setLastModifiedTime(jobDir, FileTime.fromMillis(System.currentTimeMillis()));
+            }
+            return new SegmentIterable(segments, 0, null);
+        } catch (final IOException | RuntimeException e) {
+            delete(usage, user, written, temp);
+            if (null != quota && quota.isExceeded()) {
+                throw new OperationException(String.format(QUOTA_EXCEEDED, userQuota, userId), e);
+            }
+            throw new OperationException("Unable to write results of job: " + jobId + " to the result cache: " + e.getMessage(), e);
+        } catch (final OperationException e) {
+            delete(usage, user, written, temp);
+            throw e;
+        } finally {
+            CloseableUtil.close(itr);
+        }
+    }
+
+    /**
+     * Reads a page of the results stored for the job and key, streaming them
+     * from disk as they are iterated.
+     *
+     * @param userId the id of the user that ran the job
+     * @param jobId  the id of the job
+     * @param key    the export key
+     * @param start  the inclusive index of the first result
+     * @param end    the exclusive index of the last result, or null for all
+     * @return the results, or an empty iterable if there are none or they
+     * have expired
+     */
+    public CloseableIterable<Object> read(final String userId, final String jobId, final String key, final int start, final Integer end) {
+        final Path root = getRoot();
+        cleanUpIfDue(root, getUsage(root));
+        final Path jobDir = root.resolve(encode(userId)).resolve(encode(jobId));
+        final List<Segment> segments = new ArrayList<>();
+        try {
+            if (Files.isDirectory(jobDir) && !isExpired(jobDir, System.currentTimeMillis())) {
+                segments.addAll(listSegments(jobDir.resolve(encode(key))));
+            }
+        } catch (final IOException e) {
+            throw new MaestroRuntimeException("Unable to read results of job: " + jobId + " from the result cache", e);
+        }
+        return new SegmentIterable(segments, start, end);
+    }
+
+    /**
+     * @param userId the id of a user
+     * @return the bytes of disk used by the results of the user's jobs
+     */
+    public long getUsage(final String userId) {
+        final Usage usage = getUsage(getRoot());
+        synchronized (usage) {
+            return usage.byUser.getOrDefault(encode(userId), 0L);
+        }
+    }
+
+    /**
+     * Removes the results of jobs that were last written more than the time
+     * to live ago.
+     */
+    public void cleanUp() {
+        final Path root = getRoot();
+        final Usage usage = getUsage(root);
+        synchronized (usage) {
+            removeExpired(root, usage, System.currentTimeMillis());
+        }
+    }
+
+    private void cleanUpIfDue(final Path root, final Usage usage) {
+        final long now = System.currentTimeMillis();
+        synchronized (usage) {
+            if (now - usage.lastCleanUp >= Math.min(CLEAN_UP_INTERVAL, timeToLive)) {
+                removeExpired(root, usage, now);
+            }
+        }
+    }
+
+    private void removeExpired(final Path root, final Usage usage, final long now) {
+        usage.lastCleanUp = now;
+        for (final Path jobDir : listJobDirs(root)) {
+            if (isExpired(jobDir, now)) {
+                removeJob(usage, jobDir);
+            }
+        }
+    }
+
+    // The bytes the user may still write, checked before a segment is written
+    // so a segment cannot take the user over their quota
+    private long getRemainingQuota(final Usage usage, final String user) throws OperationException {
+        final long remaining;
+        synchronized (usage) {
+            remaining = userQuota - usage.byUser.getOrDefault(user, 0L);
+        }
+        if (0 >= remaining) {
+            throw new OperationException(String.format(QUOTA_EXCEEDED, userQuota, decode(user)));
+        }
+        return remaining;
+    }
+
+    private void reserve(final Path root, final Usage usage, final String user, final Path jobDir, final long bytes) throws OperationException {
+        synchronized (usage) {
+            final long used = usage.byUser.getOrDefault(user, 0L);
+            if (used + bytes > userQuota) {
+                throw new OperationException(String.format(QUOTA_EXCEEDED, userQuota, decode(user)));
+            }
+            if (usage.total + bytes > maxBytes) {
+                // Make room by removing the results of the least recently written jobs
+                final List<Path> jobDirs = listJobDirs(root);
+                jobDirs.sort(Comparator.comparing(ResultCacheStore::getLastModified));
+                final Iterator<Path> oldest = jobDirs.iterator();
+                while (usage.total + bytes > maxBytes && oldest.hasNext()) {
+                    final Path next = oldest.next();
+                    if (!next.equals(jobDir)) {
+                        removeJob(usage, next);
+                    }
+                }
+                if (usage.total + bytes > maxBytes) {
+                    throw new OperationException(String.format(DIRECTORY_FULL, root));
+                }
+            }
+            usage.add(user, bytes);
+        }
+    }
+
+    private void delete(final Usage usage, final String user, final List<Path> written, final Path temp) {
+        synchronized (usage) {
+            for (final Path segment : written) {
+                usage.add(user, -deleteFile(segment));
+            }
+        }
+        if (null != temp) {
+            deleteFile(temp);
+        }
+    }
+
+    private void removeJob(final Usage usage, final Path jobDir) {
+        final String user = jobDir.getParent().getFileName().toString();
+        try (final Stream<Path> paths = Files.walk(jobDir)) {
+            for (final Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                final long bytes = deleteFile(path);
+                if (path.getFileName().toString().endsWith(SEGMENT_SUFFIX)) {
+                    usage.add(user, -bytes);
+                }
+            }
+        } catch (final IOException e) {
+            LOGGER.warn("Unable to remove results from the result cache: {}", jobDir, e);
+        }
+    }
+
+    private boolean isExpired(final Path jobDir, final long now) {
+        return getLastModified(jobDir) < now - timeToLive;
+    }
+
+    private Path createTempSegment(final Path keyDir) throws IOException {
+        Files.createDirectories(keyDir);
+        while (true) {
+            long sequence = 0;
+            try (final Stream<Path> files = Files.list(keyDir)) {
+                for (final Path file : files.collect(Collectors.toList())) {
+                    sequence = Math.max(sequence, getSequenceNumber(file) + 1);
+                }
+            }
+            try {
+                return Files.createFile(keyDir.resolve(String.format("%010d", sequence) + TEMP_SUFFIX));
+            } catch (final FileAlreadyExistsException e) {
+                // Another append to the same key took the sequence number, so try the next
+            }
+        }
+    }
+
+    private Path getRoot() {
+        return Paths.get(directory).toAbsolutePath().normalize();
+    }
+
+    // The mapper of the format, copied so that it writes the type of every
+    // value held in a TypedValue and results are read back as the types
+    // they were written as, as long as those types are allowed
+    private static synchronized ObjectMapper getTypedMapper() {
+        final ObjectMapper mapper = JSONSerialiser.getMapper(FORMAT);
+        if (mapper != formatMapper) {
+            typedMapper = mapper.copy().setDefaultTyping(new AllowedTypeResolverBuilder()
+                    .init(JsonTypeInfo.Id.CLASS, null)
+                    .inclusion(JsonTypeInfo.As.WRAPPER_ARRAY));
+            formatMapper = mapper;
+        }
+        return typedMapper;
+    }
+
+    private static boolean isAllowed(final String className) {
+        final String name = className.replaceFirst("^\\[+L?", "").replaceFirst(";$", "");
+        if (ALLOWED_CLASSES.contains(name) || 1 == name.length()) {
+            return true;
+        }
+        final String pkg = name.substring(0, Math.max(0, name.lastIndexOf('.')));
+        if (ALLOWED_PACKAGES.contains(pkg)) {
+            return true;
+        }
+        for (final String reflectionPackage : ReflectionUtil.getReflectionPackages()) {
+            if (pkg.equals(reflectionPackage) || pkg.startsWith(reflectionPackage + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Usage getUsage(final Path root) {
+        return USAGES.computeIfAbsent(root, dir -> {
+            checkDirectory(dir);
+            return new Usage(dir);
+        });
+    }
+
+    // Creates the directory readable only by this user, or checks that an
+    // existing directory is owned by this user, so other users cannot plant
+    // segments in it
+    private static void checkDirectory(final Path root) {
+        try {
+            if (!Files.exists(root)) {
+                Files.createDirectories(root.getParent());
+                if (root.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+                    final Set<PosixFilePermission> ownerOnly = PosixFilePermissions.fromString("rwx------");
+                    Files.createDirectory(root, PosixFilePermissions.asFileAttribute(ownerOnly));
+                    Files.setPosixFilePermissions(root, ownerOnly);
+                } else {
+                    Files.createDirectory(root);
+                }
+            }
+            final UserPrincipal owner = Files.getOwner(root);
+            final String user = System.getProperty("user.name");
+            if (!Files.isDirectory(root) || !owner.getName().equals(user)) {
+                throw new MaestroRuntimeException("The result cache directory: " + root + " must be a directory owned by " + user);
+            }
+        } catch (final FileAlreadyExistsException e) {
+            checkDirectory(root);
+        } catch (final IOException e) {
+            throw new MaestroRuntimeException("Unable to create the result cache directory: " + root, e);
+        }
+    }
+
+    private static List<Segment> listSegments(final Path keyDir) throws IOException {
+        final List<Segment> segments = new ArrayList<>();
+        if (Files.isDirectory(keyDir)) {
+            try (final Stream<Path> files = Files.list(keyDir)) {
+                for (final Path file : files.collect(Collectors.toList())) {
+                    final String name = file.getFileName().toString();
+                    if (name.endsWith(SEGMENT_SUFFIX)) {
+                        final String count = name.substring(name.indexOf('-') + 1, name.length() - SEGMENT_SUFFIX.length());
+                        segments.add(new Segment(file, getSequenceNumber(file), Integer.parseInt(count)));
+                    }
+                }
+            }
+        }
+        segments.sort(Comparator.comparingLong(segment -> segment.sequence));
+        return segments;
+    }
+
+    private static List<Path> listJobDirs(final Path root) {
+        final List<Path> jobDirs = new ArrayList<>();
+        if (Files.isDirectory(root)) {
+            try (final Stream<Path> users = Files.list(root)) {
+                for (final Path userDir : users.filter(Files::isDirectory).collect(Collectors.toList())) {
+                    try (final Stream<Path> jobs = Files.list(userDir)) {
+                        jobs.filter(Files::isDirectory).forEach(jobDirs::add);
+                    }
+                }
+            } catch (final IOException e) {
+                LOGGER.warn("Unable to list the result cache: {}", root, e);
+            }
+        }
+        return jobDirs;
+    }
+
+    private static String getSequence(final Path file) {
+        final String name = file.getFileName().toString();
+        final int end = name.indexOf(name.endsWith(TEMP_SUFFIX) ? '.' : '-');
+        return name.substring(0, end);
+    }
+
+    private static long getSequenceNumber(final Path file) {
+        try {
+            return Long.parseLong(getSequence(file));
+        } catch (final NumberFormatException | StringIndexOutOfBoundsException e) {
+            return -1;
+        }
+    }
+
+    private static long getLastModified(final Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (final IOException e) {
+            return 0;
+        }
+    }
+
+    private static long deleteFile(final Path path) {
+        try {
+            final long bytes = Files.isRegularFile(path) ? Files.size(path) : 0;
+            Files.deleteIfExists(path);
+            return bytes;
+        } catch (final IOException e) {
+            LOGGER.warn("Unable to delete from the result cache: {}", path, e);
+            return 0;
+        }
+    }
+
+    // Encodes ids as file names that cannot escape the directory
+    private static String encode(final String id) {
+        try {
+            return "_" + Base64.getUrlEncoder().withoutPadding().encodeToString(String.valueOf(id).getBytes(CommonConstants.UTF_8));
+        } catch (final UnsupportedEncodingException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static String decode(final String name) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(name.substring(1)), CommonConstants.UTF_8);
+        } catch (final UnsupportedEncodingException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public ResultCacheStore setDirectory(final String directory) {
+        this.directory = directory;
+        return this;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public ResultCacheStore setMaxBytes(final long maxBytes) {
+        this.maxBytes = maxBytes;
+        return this;
+    }
+
+    public long getUserQuota() {
+        return userQuota;
+    }
+
+    public ResultCacheStore setUserQuota(final long userQuota) {
+        this.userQuota = userQuota;
+        return this;
+    }
+
+    public long getTimeToLive() {
+        return timeToLive;
+    }
+
+    public ResultCacheStore setTimeToLive(final long timeToLive) {
+        this.timeToLive = timeToLive;
+        return this;
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    public ResultCacheStore setSegmentSize(final int segmentSize) {
+        if (1 > segmentSize) {
+            throw new IllegalArgumentException("segmentSize must be at least 1");
+        }
+        this.segmentSize = segmentSize;
+        return this;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (null == o || getClass() != o.getClass()) {
+            return false;
+        }
+        final ResultCacheStore that = (ResultCacheStore) o;
+        return new EqualsBuilder()
+                .append(directory, that.directory)
+                .append(maxBytes, that.maxBytes)
+                .append(userQuota, that.userQuota)
+                .append(timeToLive, that.timeToLive)
+                .append(segmentSize, that.segmentSize)
+                .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder(17, 37)
+                .append(directory)
+                .append(maxBytes)
+                .append(userQuota)
+                .append(timeToLive)
+                .append(segmentSize)
+                .toHashCode();
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("directory", directory)
+                .append("maxBytes", maxBytes)
+                .append("userQuota", userQuota)
+                .append("timeToLive", timeToLive)
+                .append("segmentSize", segmentSize)
+                .toString();
+    }
+
+    // A result as written to a segment. Its value is declared as an Object,
+    // so the typed mapper writes the type of the value, and of the values of
+    // any collections or maps in it.
+    private static final class TypedValue {
+        @JsonProperty("value")
+        private Object value;
+
+        private TypedValue() {
+        }
+
+        private TypedValue(final Object value) {
+            this.value = value;
+        }
+    }
+
+    // Applies the default typing of JAVA_LANG_OBJECT, reading back only the
+    // allowed types
+    private static final class AllowedTypeResolverBuilder extends ObjectMapper.DefaultTypeResolverBuilder {
+        private static final long serialVersionUID = 1L;
+
+        private AllowedTypeResolverBuilder() {
+            super(ObjectMapper.DefaultTyping.JAVA_LANG_OBJECT);
+        }
+
+        @Override
+        protected TypeIdResolver idResolver(final MapperConfig<?> config, final JavaType baseType,
+                                            final Collection<NamedType> subtypes, final boolean forSer, final boolean forDeser) {
+            return new AllowedClassNameIdResolver(baseType, config.getTypeFactory());
+        }
+    }
+
+    private static final class AllowedClassNameIdResolver extends ClassNameIdResolver {
+        private AllowedClassNameIdResolver(final JavaType baseType, final TypeFactory typeFactory) {
+            super(baseType, typeFactory);
+        }
+
+        @Override
+        protected JavaType _typeFromId(final String id, final TypeFactory typeFactory) {
+            if (!isAllowed(id)) {
+                throw new IllegalArgumentException("The result cache does not read back values of type: " + id);
+            }
+            return super._typeFromId(id, typeFactory);
+        }
+    }
+
+    // Counts the bytes written to a segment, failing the write that would
+    // take them over the limit
+    private static final class QuotaOutputStream extends FilterOutputStream {
+        private final long limit;
+        private long bytes;
+        private boolean exceeded;
+
+        private QuotaOutputStream(final OutputStream out, final long limit) {
+            super(out);
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            checkQuota(1);
+            out.write(b);
+            bytes++;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            checkQuota(len);
+            out.write(b, off, len);
+            bytes += len;
+        }
+
+        private void checkQuota(final int len) throws IOException {
+            if (exceeded || bytes + len > limit) {
+                exceeded = true;
+                throw new IOException("The result cache quota has been exceeded");
+            }
+        }
+
+        private boolean isExceeded() {
+            return exceeded;
+        }
+    }
+
+    // The bytes of segments in a directory, in total and per encoded user,
+    // counted from disk when the directory is first used.
+    private static final class Usage {
+        private final Map<String, Long> byUser = new HashMap<>();
+        private long total;
+        private long lastCleanUp;
+
+        private Usage(final Path root) {
+            for (final Path jobDir : listJobDirs(root)) {
+                final String user = jobDir.getParent().getFileName().toString();
+                try (final Stream<Path> paths = Files.walk(jobDir)) {
+                    for (final Path path : paths.collect(Collectors.toList())) {
+                        if (path.getFileName().toString().endsWith(SEGMENT_SUFFIX)) {
+                            add(user, Files.size(path));
+                        }
+                    }
+                } catch (final IOException e) {
+                    LOGGER.warn("Unable to count the size of results in the result cache: {}", jobDir, e);
+                }
+            }
+        }
+
+        private void add(final String user, final long bytes) {
+            byUser.merge(user, bytes, Long::sum);
+            total += bytes;
+        }
+    }
+
+    private static final class Segment {
+        private final Path file;
+        private final long sequence;
+        private final int count;
+
+        private Segment(final Path file, final long sequence, final int count) {
+            this.file = file;
+            this.sequence = sequence;
+            this.count = count;
+        }
+    }
+
+    private static final class SegmentIterable implements CloseableIterable<Object> {
+        private final List<Segment> segments;
+        private final int start;
+        private final Integer end;
+        private final Set<SegmentIterator> openIterators = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        private SegmentIterable(final List<Segment> segments, final int start, final Integer end) {
+            this.segments = segments;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public CloseableIterator<Object> iterator() {
+            final SegmentIterator iterator = new SegmentIterator(this);
+            synchronized (openIterators) {
+                openIterators.add(iterator);
+            }
+            return iterator;
+        }
+
+        @Override
+        public void close() {
+            synchronized (openIterators) {
+                new ArrayList<>(openIterators).forEach(SegmentIterator::close);
+            }
+        }
+    }
+
+    // Streams the values of the segments from the start to the end, skipping
+    // the segments before the start without reading them.
+    private static final class SegmentIterator implements CloseableIterator<Object> {
+        private final SegmentIterable iterable;
+        private final Iterator<Segment> segments;
+        private MappingIterator<TypedValue> current;
+        private long position;
+
+        private SegmentIterator(final SegmentIterable iterable) {
+            this.iterable = iterable;
+            this.segments = iterable.segments.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (null != iterable.end && position >= iterable.end) {
+                close();
+                return false;
+            }
+            while (null == current || !current.hasNext()) {
+                CloseableUtil.close(current);
+                current = null;
+                if (!segments.hasNext()) {
+                    close();
+                    return false;
+                }
+                final Segment segment = segments.next();
+                if (position + segment.count <= iterable.start) {
+                    position += segment.count;
+                } else {
+                    current = open(segment);
+                    while (position < iterable.start && current.hasNext()) {
+                        current.next();
+                        position++;
+                    }
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Object next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            position++;
+            return current.next().value;
+        }
+
+        @Override
+        public void close() {
+            CloseableUtil.close(current);
+            current = null;
+            synchronized (iterable.openIterators) {
+                iterable.openIterators.remove(this);
+            }
+        }
+
+        private static MappingIterator<TypedValue> open(final Segment segment) {
+            try {
+                return getTypedMapper().readerFor(TypedValue.class)
+                        .readValues(new GZIPInputStream(new BufferedInputStream(Files.newInputStream(segment.file))));
+            } catch (final IOException e) {
+                throw new MaestroRuntimeException("Unable to read the result cache segment: " + segment.file, e);
+            }
+        }
+    }
+}
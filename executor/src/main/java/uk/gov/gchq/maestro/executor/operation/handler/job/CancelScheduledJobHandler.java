@@ -21,7 +21,9 @@ import uk.gov.gchq.maestro.executor.Context;
 import uk.gov.gchq.maestro.executor.Executor;
 import uk.gov.gchq.maestro.executor.operation.declaration.FieldDeclaration;
 import uk.gov.gchq.maestro.executor.operation.handler.OperationHandler;
+import uk.gov.gchq.maestro.executor.operation.handler.job.util.JobScheduler;
 import uk.gov.gchq.maestro.operation.Operation;
+import uk.gov.gchq.maestro.operation.jobtracker.JobDetail;
 import uk.gov.gchq.maestro.operation.jobtracker.JobStatus;
 import uk.gov.gchq.maestro.operation.jobtracker.JobTracker;
 
@@ -37,8 +39,11 @@ public class CancelScheduledJobHandler implements OperationHandler {
             throw new OperationException("job id must be specified");
         }
 
-        if (JobTracker.getJob(o).getStatus().equals(JobStatus.SCHEDULED_PARENT)) {
-            JobTracker.getJob(o).setStatus(JobStatus.CANCELLED);
+        final JobDetail jobDetail = JobTracker.getJob(o);
+        if (null != jobDetail && JobStatus.SCHEDULED_PARENT.equals(jobDetail.getStatus())) {
+            jobDetail.setStatus(JobStatus.CANCELLED);
+            JobTracker.addOrUpdateJob(jobDetail);
+            JobScheduler.cancel(o);
         } else {
             throw new OperationException("Job with jobId: " + o + " is not a scheduled job and cannot be cancelled.");
         }
@@ -24,25 +24,63 @@ import uk.gov.gchq.maestro.executor.operation.declaration.FieldDeclaration;
 import uk.gov.gchq.maestro.executor.operation.handler.OutputOperationHandler;
 import uk.gov.gchq.maestro.operation.Operation;
 import uk.gov.gchq.maestro.operation.jobtracker.JobDetail;
+import uk.gov.gchq.maestro.operation.jobtracker.JobQuery;
+import uk.gov.gchq.maestro.operation.jobtracker.JobStatus;
 import uk.gov.gchq.maestro.operation.jobtracker.JobTracker;
 
 import static uk.gov.gchq.maestro.commonutil.exception.Status.SERVICE_UNAVAILABLE;
 
 /**
  * A {@code GetAllJobDetailsHandler} handles GetAllJobDetails operations
- * by querying the configured store's job tracker for all job information.
+ * by querying the configured store's job tracker for job information,
+ * newest first. The jobs can be filtered by user id, status and start time,
+ * and paged with an offset and limit.
  */
 public class GetAllJobDetailsHandler implements OutputOperationHandler<CloseableIterable<JobDetail>> {
+    public static final String USER_ID = "UserId";
+    public static final String STATUS = "Status";
+    public static final String STARTED_FROM = "StartedFrom";
+    public static final String STARTED_TO = "StartedTo";
+    public static final String INCLUDE_ARCHIVED = "IncludeArchived";
+    public static final String OLDEST_FIRST = "OldestFirst";
+    public static final String OFFSET = "Offset";
+    public static final String LIMIT = "Limit";
+
     @Override
     public CloseableIterable<JobDetail> _doOperation(final Operation /*GetAllJobDetails*/ operation, final Context context, final Executor executor) throws OperationException {
         if (!JobTracker.isCacheEnabled()) {
             throw new OperationException("The Job Tracker has not been configured", SERVICE_UNAVAILABLE);
         }
-        return JobTracker.getAllJobs();
+        final String status = (String) operation.get(STATUS);
+        final Number startedFrom = (Number) operation.get(STARTED_FROM);
+        final Number startedTo = (Number) operation.get(STARTED_TO);
+        final JobQuery query;
+        try {
+            query = new JobQuery()
+                    .userId((String) operation.get(USER_ID))
+                    .status(null == status ? null : JobStatus.valueOf(status))
+                    .startedFrom(null == startedFrom ? null : startedFrom.longValue())
+                    .startedTo(null == startedTo ? null : startedTo.longValue())
+                    .includeArchived((Boolean) operation.getOrDefault(INCLUDE_ARCHIVED, false))
+                    .oldestFirst((Boolean) operation.getOrDefault(OLDEST_FIRST, false))
+                    .offset((Integer) operation.getOrDefault(OFFSET, 0))
+                    .limit((Integer) operation.get(LIMIT));
+        } catch (final IllegalArgumentException e) {
+            throw new OperationException("Invalid job query: " + e.getMessage(), e);
+        }
+        return JobTracker.getJobs(query);
     }
 
     @Override
     public FieldDeclaration getFieldDeclaration() {
-        return new FieldDeclaration();
+        return new FieldDeclaration()
+                .fieldOptional(USER_ID, String.class)
+                .fieldOptional(STATUS, String.class)
+                .fieldOptional(STARTED_FROM, Number.class)
+                .fieldOptional(STARTED_TO, Number.class)
+                .fieldOptional(INCLUDE_ARCHIVED, Boolean.class)
+                .fieldOptional(OLDEST_FIRST, Boolean.class)
+                .fieldOptional(OFFSET, Integer.class)
+                .fieldOptional(LIMIT, Integer.class);
     }
 }
@@ -42,13 +42,17 @@ public class GetJobResultsHandler implements OutputOperationHandler<CloseableIte
         // Delegates the operation to the GetResultCacheExport operation handler.
         return executor.execute(new OperationChain("GetResultCacheExport", new Operation("GetResultCacheExport")
                 .operationArg("jobId", operation.get("JobId"))
-                .operationArg("key", operation.get("KeyOrDefault")),
+                .operationArg("key", operation.get("KeyOrDefault"))
+                .operationArg("Start", operation.get("Start"))
+                .operationArg("End", operation.get("End")),
                 operation.getOperationArgs(), operation.getOptions()
         ), context);
     }
 
     @Override
     public FieldDeclaration getFieldDeclaration() {
-        return new FieldDeclaration().fieldRequired("JobId", String.class).fieldRequired("KeyOrDefault", String.class);
+        return new FieldDeclaration().fieldRequired("JobId", String.class).fieldRequired("KeyOrDefault", String.class)
+                .fieldOptional("Start", Number.class)
+                .fieldOptional("End", Number.class);
     }
 }
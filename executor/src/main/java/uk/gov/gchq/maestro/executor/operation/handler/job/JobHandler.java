@@ -20,29 +20,50 @@ import uk.gov.gchq.maestro.executor.Context;
 import uk.gov.gchq.maestro.executor.Executor;
 import uk.gov.gchq.maestro.executor.operation.declaration.FieldDeclaration;
 import uk.gov.gchq.maestro.executor.operation.handler.OutputOperationHandler;
+import uk.gov.gchq.maestro.executor.util.SpooledInputs;
 import uk.gov.gchq.maestro.operation.Operation;
 import uk.gov.gchq.maestro.operation.jobtracker.JobDetail;
+import uk.gov.gchq.maestro.operation.jobtracker.JobPriority;
 import uk.gov.gchq.maestro.operation.jobtracker.JobStatus;
 import uk.gov.gchq.maestro.operation.jobtracker.Repeat;
 
+import java.util.Locale;
+
 import static uk.gov.gchq.maestro.executor.operation.handler.job.util.JobExecutor.addOrUpdateJobDetail;
 import static uk.gov.gchq.maestro.executor.operation.handler.job.util.JobExecutor.executeJob;
+import static uk.gov.gchq.maestro.executor.operation.handler.job.util.JobExecutor.limitPriority;
 
 public class JobHandler implements OutputOperationHandler<JobDetail> {
     @Override
     public JobDetail _doOperation(final Operation/*Job*/ operation, final Context context,
                                   final Executor executor) throws OperationException {
-        JobDetail jobDetail = addOrUpdateJobDetail((Operation) operation.get("OpAsOperation"), context, null, JobStatus.RUNNING);
-        jobDetail.setRepeat((Repeat) operation.get("Repeat"));
+        final Operation jobOperation = (Operation) operation.get("OpAsOperation");
+        try {
+            JobDetail jobDetail = addOrUpdateJobDetail(jobOperation, context, null, JobStatus.RUNNING);
+            jobDetail.setRepeat((Repeat) operation.get("Repeat"));
+            final Object priority = operation.get("Priority");
+            if (null != priority) {
+                try {
+                    jobDetail.setPriority(limitPriority(JobPriority.valueOf(((String) priority).toUpperCase(Locale.ENGLISH)), context, executor));
+                } catch (final IllegalArgumentException e) {
+                    throw new OperationException("Unknown job priority: " + priority, e);
+                }
+            }
 
-        return executeJob(jobDetail, context, executor);
+            return executeJob(jobDetail, context, executor);
+        } catch (final OperationException | RuntimeException e) {
+            // The job's inputs are closed by the job, which never started
+            SpooledInputs.close(jobOperation);
+            throw e;
+        }
     }
 
     @Override
     public FieldDeclaration getFieldDeclaration() {
         return new FieldDeclaration()
                 .field("OpAsOperation", Operation.class)
-                .field("Repeat", Repeat.class);
+                .field("Repeat", Repeat.class)
+                .fieldOptional("Priority", String.class);
     }
 
 
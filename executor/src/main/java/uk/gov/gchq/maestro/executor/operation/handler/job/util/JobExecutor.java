@@ -15,17 +15,23 @@
  */
 package uk.gov.gchq.maestro.executor.operation.handler.job.util;
 
+import uk.gov.gchq.maestro.commonutil.CloseableUtil;
 import uk.gov.gchq.maestro.commonutil.ExecutorService;
 import uk.gov.gchq.maestro.commonutil.exception.OperationException;
 import uk.gov.gchq.maestro.executor.Context;
 import uk.gov.gchq.maestro.executor.Executor;
+import uk.gov.gchq.maestro.executor.util.ExecutorPropertiesUtil;
+import uk.gov.gchq.maestro.executor.util.SpooledInputs;
 import uk.gov.gchq.maestro.operation.Operation;
 import uk.gov.gchq.maestro.operation.OperationChain;
 import uk.gov.gchq.maestro.operation.Operations;
 import uk.gov.gchq.maestro.operation.jobtracker.JobDetail;
+import uk.gov.gchq.maestro.operation.jobtracker.JobPriority;
 import uk.gov.gchq.maestro.operation.jobtracker.JobStatus;
 import uk.gov.gchq.maestro.operation.jobtracker.JobTracker;
 
+import java.util.Map;
+
 /**
  * This class is used within the {@link uk.gov.gchq.maestro.executor.operation.handler.job.JobHandler} and {@link Executor} to
  * execute (scheduled and non-scheduled)Jobs using
@@ -79,28 +85,52 @@ public final class JobExecutor {
         return executeJob(childJobDetail, context, executor);
     }
 
+    /**
+     * Records a job as a scheduled parent, with its repeat, and schedules
+     * it with the {@link JobScheduler}. Each run is a child job of it.
+     *
+     * @param parentJobDetail the details of the job, with its repeat
+     * @param context         the context to run the job in
+     * @param executor        the {@link Executor} instance
+     * @return the details of the scheduled parent job
+     */
     public static JobDetail scheduleJob(final JobDetail parentJobDetail,
                                         final Context context, final Executor executor) {
-        executor.getExecutorService().scheduleAtFixedRate(() -> {
-            if ((JobTracker.getJob(parentJobDetail.getJobId()).getStatus().equals(JobStatus.CANCELLED))) {
-                Thread.currentThread().interrupt();
-                return;
-            }
-            final Operation operation =
-                    parentJobDetail.getOpAsOperation().shallowClone();
-            final Context newContext = context.shallowClone();
-            try {
-                executeJob(operation, newContext, parentJobDetail.getJobId(),
-                        executor);
-            } catch (final OperationException e) {
-                throw new RuntimeException("Exception within scheduled job", e);
-            }
-        }, parentJobDetail.getRepeat().getInitialDelay(), parentJobDetail.getRepeat().getRepeatPeriod(), parentJobDetail.getRepeat().getTimeUnit());
+        final Operation operation = parentJobDetail.getOpAsOperation();
+        final JobDetail scheduledJobDetail = new JobDetail(context.getJobId(), context.getUser().getUserId(),
+                OperationChain.wrap(operation.getId(), operation), JobStatus.SCHEDULED_PARENT, null);
+        scheduledJobDetail.setRepeat(parentJobDetail.getRepeat());
+        scheduledJobDetail.setPriority(parentJobDetail.getPriority());
+        if (JobTracker.isCacheEnabled()) {
+            JobTracker.mergeJob(scheduledJobDetail);
+        }
+        JobScheduler.schedule(scheduledJobDetail, context, executor);
+        return scheduledJobDetail;
+    }
 
-        return addOrUpdateJobDetail(parentJobDetail.getOpAsOperation(), context, null, JobStatus.SCHEDULED_PARENT);
+    static JobDetail runScheduledJob(final Operation operation,
+                                     final Context context,
+                                     final String parentJobId,
+                                     final JobPriority priority,
+                                     final Executor executor,
+                                     final Runnable onCompletion) throws OperationException {
+        if (null == ExecutorService.getService() || !ExecutorService.isEnabled()) {
+            throw new OperationException(("Executor Service is not enabled."));
+        }
+        final JobDetail childJobDetail = new JobDetail(context.getJobId(), parentJobId, context.getUser().getUserId(),
+                OperationChain.wrap(operation.getId(), operation), JobStatus.RUNNING, null);
+        childJobDetail.setPriority(priority);
+        if (JobTracker.isCacheEnabled()) {
+            JobTracker.mergeJob(childJobDetail);
+        }
+        return runJob(childJobDetail, context, executor, onCompletion);
     }
 
     public static JobDetail runJob(final JobDetail jobDetail, final Context context, final Executor executor) {
+        return runJob(jobDetail, context, executor, null);
+    }
+
+    private static JobDetail runJob(final JobDetail jobDetail, final Context context, final Executor executor, final Runnable onCompletion) {
         Operation operation = jobDetail.getOpAsOperation();
         final OperationChain opChain;
 
@@ -110,24 +140,29 @@ public final class JobExecutor {
             opChain = OperationChain.wrap(operation.getId(), operation);
         }
 
-        if (executor.isSupported("ExportToResultCache")) {
-            boolean hasExport = false;
-
+        // Jobs without their own export have their results exported to the
+        // result cache, with the results of the chain as the input.
+        boolean exportResults = executor.isSupported("ExportToResultCache");
+        if (exportResults) {
             for (final Operation op : opChain.getOperations()) {
                 if (op.getIdComparison("ExportToResultCache")) {
-                    hasExport = true;
+                    exportResults = false;
                     break;
                 }
             }
-            if (!hasExport) {
-                opChain.getOperations()
-                        .add(new Operation("ExportToResultCache"));
-            }
         }
+        final boolean exportToResultCache = exportResults;
 
         executor.runAsync(() -> {
             try {
-                executor.execute(opChain, context);
+                final Object result = executor.execute(opChain, context);
+                if (exportToResultCache) {
+                    // The job id is passed on as executing gives the context a new one
+                    final Object exported = executor.execute(new Operation("ExportToResultCache")
+                            .operationArg("jobId", context.getJobId())
+                            .input(result), context);
+                    CloseableUtil.close(exported);
+                }
                 addOrUpdateJobDetail(opChain, context, null,
                         JobStatus.FINISHED);
             } catch (final Error e) {
@@ -137,24 +172,94 @@ public final class JobExecutor {
             } catch (final Exception e) {
                 addOrUpdateJobDetail(opChain, context, e.getMessage(),
                         JobStatus.FAILED);
+            } finally {
+                // A scheduled job's inputs are read again by its next run,
+                // so are closed when it is cancelled instead
+                if (null == onCompletion) {
+                    SpooledInputs.close(opChain);
+                }
+                try {
+                    archiveJobs(executor);
+                } finally {
+                    // A scheduled job stops if its run is never finished
+                    if (null != onCompletion) {
+                        onCompletion.run();
+                    }
+                }
             }
-        });
+        }, getPriority(jobDetail, context, executor));
         return jobDetail;
     }
 
+    /**
+     * Gets the priority class to run a job at. This is the job's own
+     * priority, or else the priority the user's op auths allow.
+     *
+     * @param jobDetail the details of the job
+     * @param context   the context the job runs in
+     * @param executor  the {@link Executor} instance
+     * @return the priority class of the job
+     * @see #getUserPriority(Context, Executor)
+     */
+    public static JobPriority getPriority(final JobDetail jobDetail, final Context context, final Executor executor) {
+        if (null != jobDetail.getPriority()) {
+            return jobDetail.getPriority();
+        }
+        return getUserPriority(context, executor);
+    }
+
+    /**
+     * Gets the priority class a user may ask for: their requested priority,
+     * unless it is higher than their op auths allow, in which case it is the
+     * priority their op auths allow.
+     *
+     * @param requested the priority the user asked for
+     * @param context   the context the job runs in
+     * @param executor  the {@link Executor} instance
+     * @return the priority class of the job
+     */
+    public static JobPriority limitPriority(final JobPriority requested, final Context context, final Executor executor) {
+        final JobPriority allowed = getUserPriority(context, executor);
+        return requested.ordinal() < allowed.ordinal() ? allowed : requested;
+    }
+
+    /**
+     * Gets the highest priority class given to any of the user's op auths,
+     * or else {@link JobPriority#NORMAL}.
+     *
+     * @param context  the context the job runs in
+     * @param executor the {@link Executor} instance
+     * @return the priority class the user's jobs run at
+     * @see ExecutorPropertiesUtil#JOB_PRIORITY_AUTHS
+     */
+    public static JobPriority getUserPriority(final Context context, final Executor executor) {
+        JobPriority priority = null;
+        final Map<String, JobPriority> auths = ExecutorPropertiesUtil.getJobPriorityAuths(executor);
+        if (!auths.isEmpty()) {
+            for (final String opAuth : context.getUser().getOpAuths()) {
+                final JobPriority authPriority = auths.get(opAuth);
+                if (null != authPriority && (null == priority || authPriority.ordinal() < priority.ordinal())) {
+                    priority = authPriority;
+                }
+            }
+        }
+        return null != priority ? priority : JobPriority.NORMAL;
+    }
+
+    private static void archiveJobs(final Executor executor) {
+        final long archiveAfter = ExecutorPropertiesUtil.getJobTrackerArchiveAfter(executor);
+        if (0 <= archiveAfter && JobTracker.isCacheEnabled()) {
+            JobTracker.archiveJobs(System.currentTimeMillis() - archiveAfter);
+        }
+    }
+
     public static JobDetail addOrUpdateJobDetail(final Operation operation,
                                                  final Context context, final String msg, final JobStatus jobStatus) {
         final JobDetail newJobDetail = new JobDetail(context.getJobId(), context
                 .getUser()
                 .getUserId(), OperationChain.wrap(operation.getId(), operation), jobStatus, msg);
         if (JobTracker.isCacheEnabled()) {
-            final JobDetail oldJobDetail =
-                    JobTracker.getJob(newJobDetail.getJobId());
-            if (null == oldJobDetail) {
-                JobTracker.addOrUpdateJob(newJobDetail);
-            } else {
-                JobTracker.addOrUpdateJob(new JobDetail(oldJobDetail, newJobDetail));
-            }
+            JobTracker.mergeJob(newJobDetail);
         }
         return newJobDetail;
     }
@@ -0,0 +1,315 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.executor.operation.handler.job.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.gov.gchq.maestro.operation.jobtracker.JobPriority;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@code JobQueue} runs async jobs in order of their {@link JobPriority},
+ * rather than first come first served.
+ * <p>
+ * Up to the concurrency limit of jobs run at once, and each priority class
+ * may have a lower limit of its own, so a flood of batch jobs cannot take
+ * every thread. Waiting jobs of the same class start in the order they were
+ * submitted. A job that has waited for the ageing period is started as if it
+ * were one class higher, and so on, so lower classes are not starved.
+ * </p>
+ * <p>
+ * A running job gives way to a waiting job of a higher class when
+ * {@link #yieldToHigherPriority()} is called between the steps of its
+ * operation chain and every thread is taken: it hands over its place and
+ * waits to be started again in its turn.
+ * </p>
+ */
+public final class JobQueue {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JobQueue.class);
+    private static final Object LOCK = new Object();
+    private static final ThreadLocal<Entry> CURRENT = new ThreadLocal<>();
+    private static final Map<JobPriority, Deque<Entry>> WAITING = new EnumMap<>(JobPriority.class);
+    private static final Map<JobPriority, Integer> RUNNING = new EnumMap<>(JobPriority.class);
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static ExecutorService pool;
+    private static int concurrency;
+    private static Map<JobPriority, Integer> limits = new EnumMap<>(JobPriority.class);
+    private static long ageing;
+    private static int running;
+
+    static {
+        for (final JobPriority priority : JobPriority.values()) {
+            WAITING.put(priority, new ArrayDeque<>());
+            RUNNING.put(priority, 0);
+        }
+    }
+
+    private JobQueue() {
+        // private to prevent instantiation
+    }
+
+    /**
+     * Sets the limits of the queue, starting it if it is not running. Jobs
+     * already queued or running are kept.
+     *
+     * @param concurrency the most jobs to run at once
+     * @param limits      the most jobs of each priority class to run at once
+     * @param ageing      how long, in milliseconds, a job waits before it is
+     *                    started as if it were one class higher. Zero or less
+     *                    disables ageing.
+     */
+    public static void initialise(final int concurrency, final Map<JobPriority, Integer> limits, final long ageing) {
+        if (1 > concurrency) {
+            throw new IllegalArgumentException("The job queue concurrency must be at least 1");
+        }
+        synchronized (LOCK) {
+            JobQueue.concurrency = concurrency;
+            JobQueue.limits = new EnumMap<>(JobPriority.class);
+            JobQueue.limits.putAll(limits);
+            JobQueue.ageing = ageing;
+            if (null == pool) {
+                pool = Executors.newCachedThreadPool(runnable -> {
+                    final Thread thread = new Thread(runnable, "maestro-job-" + THREAD_COUNT.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            drain(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Starts the queue with the given limits, unless it is already running,
+     * in which case its limits are kept. The first executor to start the
+     * queue sets its limits, so sub executors built later cannot change them.
+     *
+     * @param concurrency the most jobs to run at once
+     * @param limits      the most jobs of each priority class to run at once
+     * @param ageing      how long, in milliseconds, a job waits before it is
+     *                    started as if it were one class higher
+     * @return true if the queue was started
+     */
+    public static boolean initialiseIfDisabled(final int concurrency, final Map<JobPriority, Integer> limits, final long ageing) {
+        synchronized (LOCK) {
+            if (null != pool) {
+                LOGGER.debug("The job queue is already running, its limits are kept");
+                return false;
+            }
+            initialise(concurrency, limits, ageing);
+            return true;
+        }
+    }
+
+    public static boolean isEnabled() {
+        synchronized (LOCK) {
+            return null != pool;
+        }
+    }
+
+    /**
+     * Queues a job to run when its turn comes.
+     *
+     * @param job      the job
+     * @param priority the priority class of the job
+     */
+    public static void submit(final Runnable job, final JobPriority priority) {
+        final long now = System.currentTimeMillis();
+        synchronized (LOCK) {
+            if (null == pool) {
+                throw new IllegalStateException("The job queue has not been initialised");
+            }
+            WAITING.get(priority).addLast(new Entry(job, priority, now));
+            drain(now);
+        }
+    }
+
+    /**
+     * Called by a running job at a point where it can safely pause. If every
+     * thread is taken and a job of a higher class is waiting, the calling job
+     * hands over its place and blocks until it is started again.
+     */
+    public static void yieldToHigherPriority() {
+        final Entry current = CURRENT.get();
+        if (null == current) {
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        final CountDownLatch resume;
+        synchronized (LOCK) {
+            if (running < concurrency || null == pool) {
+                return;
+            }
+            release(current);
+            final Entry next = getNext(now);
+            if (null == next || getRank(next, now) >= current.priority.ordinal()) {
+                acquire(current);
+                return;
+            }
+            LOGGER.debug("{} job gives way to a waiting {} job", current.priority, next.priority);
+            resume = new CountDownLatch(1);
+            current.resume = resume;
+            WAITING.get(current.priority).addFirst(current);
+            drain(now);
+        }
+        try {
+            resume.await();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            synchronized (LOCK) {
+                // Carry on regardless of the limits, as the job must finish
+                if (WAITING.get(current.priority).remove(current)) {
+                    current.resume = null;
+                    acquire(current);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of jobs waiting to start, or to be started again
+     */
+    public static int getWaiting() {
+        synchronized (LOCK) {
+            int waiting = 0;
+            for (final Deque<Entry> entries : WAITING.values()) {
+                waiting += entries.size();
+            }
+            return waiting;
+        }
+    }
+
+    /**
+     * @param priority a priority class
+     * @return the number of jobs of the class running
+     */
+    public static int getRunning(final JobPriority priority) {
+        synchronized (LOCK) {
+            return RUNNING.get(priority);
+        }
+    }
+
+    /**
+     * Stops the queue, dropping any waiting jobs.
+     */
+    public static void shutdown() {
+        synchronized (LOCK) {
+            if (null != pool) {
+                pool.shutdown();
+                pool = null;
+            }
+            for (final Deque<Entry> entries : WAITING.values()) {
+                for (final Entry entry : entries) {
+                    // Let jobs that gave way finish, as their threads are still held
+                    if (null != entry.resume) {
+                        acquire(entry);
+                        entry.resume.countDown();
+                    }
+                }
+                entries.clear();
+            }
+        }
+    }
+
+    // Starts waiting jobs, best first, while there is room for them
+    private static void drain(final long now) {
+        while (running < concurrency && null != pool) {
+            final Entry next = getNext(now);
+            if (null == next) {
+                return;
+            }
+            WAITING.get(next.priority).removeFirst();
+            acquire(next);
+            if (null != next.resume) {
+                next.resume.countDown();
+                next.resume = null;
+            } else {
+                pool.execute(() -> run(next));
+            }
+        }
+    }
+
+    // The best job at the head of a class that is under its limit
+    private static Entry getNext(final long now) {
+        Entry best = null;
+        for (final Deque<Entry> entries : WAITING.values()) {
+            final Entry head = entries.peekFirst();
+            if (null != head && !isAtLimit(head.priority)) {
+                if (null == best || getRank(head, now) < getRank(best, now)
+                        || (getRank(head, now) == getRank(best, now) && head.submitted < best.submitted)) {
+                    best = head;
+                }
+            }
+        }
+        return best;
+    }
+
+    private static long getRank(final Entry entry, final long now) {
+        return entry.priority.ordinal() - (0 < ageing ? (now - entry.submitted) / ageing : 0);
+    }
+
+    private static boolean isAtLimit(final JobPriority priority) {
+        final Integer limit = limits.get(priority);
+        return null != limit && RUNNING.get(priority) >= limit;
+    }
+
+    private static void acquire(final Entry entry) {
+        running++;
+        RUNNING.merge(entry.priority, 1, Integer::sum);
+    }
+
+    private static void release(final Entry entry) {
+        running--;
+        RUNNING.merge(entry.priority, -1, Integer::sum);
+    }
+
+    private static void run(final Entry entry) {
+        CURRENT.set(entry);
+        try {
+            entry.job.run();
+        } catch (final RuntimeException e) {
+            LOGGER.error("Job failed", e);
+        } finally {
+            CURRENT.remove();
+            synchronized (LOCK) {
+                release(entry);
+                drain(System.currentTimeMillis());
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final Runnable job;
+        private final JobPriority priority;
+        private final long submitted;
+        private CountDownLatch resume;
+
+        private Entry(final Runnable job, final JobPriority priority, final long submitted) {
+            this.job = job;
+            this.priority = priority;
+            this.submitted = submitted;
+        }
+    }
+}
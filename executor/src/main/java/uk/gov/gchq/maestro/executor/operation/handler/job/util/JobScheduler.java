@@ -0,0 +1,147 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.executor.operation.handler.job.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.gov.gchq.maestro.commonutil.cache.CacheServiceLoader;
+import uk.gov.gchq.maestro.commonutil.cache.ICacheService;
+import uk.gov.gchq.maestro.commonutil.exception.CacheOperationException;
+import uk.gov.gchq.maestro.executor.Context;
+import uk.gov.gchq.maestro.executor.Executor;
+import uk.gov.gchq.maestro.executor.util.ExecutorPropertiesUtil;
+import uk.gov.gchq.maestro.operation.jobtracker.JobDetail;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@code JobScheduler} runs scheduled jobs from a single
+ * {@link TimingWheel}, handing each run to the {@link Executor}'s thread pool.
+ * <p>
+ * A handle on each scheduled job is kept, so cancelling a job stops it
+ * straight away. The time each job is next due is kept in the
+ * {@value #CACHE_NAME} cache, so when a job is scheduled again after a
+ * restart it picks up where it left off, and the runs it missed are dealt
+ * with by its misfire policy.
+ * </p>
+ */
+public final class JobScheduler {
+    public static final String CACHE_NAME = "JobScheduler";
+    private static final Logger LOGGER = LoggerFactory.getLogger(JobScheduler.class);
+    private static final int WHEEL_SIZE = 512;
+    private static final Map<String, ScheduledJob> JOBS = new ConcurrentHashMap<>();
+    private static TimingWheel wheel;
+
+    private JobScheduler() {
+        // private to prevent instantiation
+    }
+
+    /**
+     * Schedules a job, replacing any schedule it already has.
+     *
+     * @param jobDetail the details of the job, with its repeat
+     * @param context   the context to run the job in
+     * @param executor  the executor to run the job on
+     * @return the handle on the scheduled job
+     */
+    public static ScheduledJob schedule(final JobDetail jobDetail, final Context context, final Executor executor) {
+        if (null == jobDetail.getRepeat()) {
+            throw new IllegalArgumentException("Only jobs with a repeat can be scheduled");
+        }
+        final Long saved = getNextRunTime(jobDetail.getJobId());
+        final long nextRunTime = null != saved ? saved
+                : System.currentTimeMillis() + jobDetail.getRepeat().getTimeUnit().toMillis(jobDetail.getRepeat().getInitialDelay());
+        final ScheduledJob scheduledJob = new ScheduledJob(jobDetail, context, executor, nextRunTime);
+        final ScheduledJob previous = JOBS.put(jobDetail.getJobId(), scheduledJob);
+        if (null != previous) {
+            previous.cancel();
+        }
+        saveNextRunTime(jobDetail.getJobId(), nextRunTime);
+        scheduledJob.start(getWheel(executor));
+        return scheduledJob;
+    }
+
+    /**
+     * Cancels a scheduled job, and forgets when it is next due. The job's
+     * spooled inputs are closed once any run that is going has finished.
+     *
+     * @param jobId the id of the job
+     * @return true if the job was scheduled
+     */
+    public static boolean cancel(final String jobId) {
+        final ScheduledJob scheduledJob = JOBS.remove(jobId);
+        if (null != scheduledJob) {
+            scheduledJob.discard();
+        }
+        final ICacheService service = CacheServiceLoader.getService();
+        if (null != service) {
+            service.removeFromCache(CACHE_NAME, jobId);
+        }
+        return null != scheduledJob;
+    }
+
+    public static ScheduledJob getScheduledJob(final String jobId) {
+        return JOBS.get(jobId);
+    }
+
+    public static Collection<ScheduledJob> getScheduledJobs() {
+        return Collections.unmodifiableCollection(new ArrayList<>(JOBS.values()));
+    }
+
+    /**
+     * Stops all scheduled jobs, keeping when they are next due so they can
+     * be scheduled again.
+     */
+    public static synchronized void shutdown() {
+        for (final ScheduledJob scheduledJob : JOBS.values()) {
+            scheduledJob.cancel();
+        }
+        JOBS.clear();
+        if (null != wheel) {
+            wheel.stop();
+            wheel = null;
+        }
+    }
+
+    static void saveNextRunTime(final String jobId, final long nextRunTime) {
+        final ICacheService service = CacheServiceLoader.getService();
+        if (null != service) {
+            try {
+                service.putInCache(CACHE_NAME, jobId, nextRunTime);
+            } catch (final CacheOperationException e) {
+                LOGGER.warn("Unable to save when scheduled job {} is next due", jobId, e);
+            }
+        }
+    }
+
+    private static Long getNextRunTime(final String jobId) {
+        final ICacheService service = CacheServiceLoader.getService();
+        return null != service ? service.getFromCache(CACHE_NAME, jobId) : null;
+    }
+
+    private static synchronized TimingWheel getWheel(final Executor executor) {
+        if (null == wheel) {
+            wheel = new TimingWheel("maestro-job-scheduler", ExecutorPropertiesUtil.getJobSchedulerTick(executor), WHEEL_SIZE);
+        }
+        return wheel;
+    }
+}
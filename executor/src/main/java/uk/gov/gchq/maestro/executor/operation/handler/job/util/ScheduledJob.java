@@ -0,0 +1,259 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.executor.operation.handler.job.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.gov.gchq.maestro.commonutil.ExecutorService;
+import uk.gov.gchq.maestro.commonutil.ToStringBuilder;
+import uk.gov.gchq.maestro.commonutil.exception.OperationException;
+import uk.gov.gchq.maestro.executor.Context;
+import uk.gov.gchq.maestro.executor.Executor;
+import uk.gov.gchq.maestro.executor.util.ExecutorPropertiesUtil;
+import uk.gov.gchq.maestro.executor.util.SpooledInputs;
+import uk.gov.gchq.maestro.operation.jobtracker.JobDetail;
+import uk.gov.gchq.maestro.operation.jobtracker.Repeat;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A {@code ScheduledJob} is the handle on a job scheduled by the
+ * {@link JobScheduler}, which runs the job every repeat period until it is
+ * cancelled.
+ * <p>
+ * Runs that are due while the previous run is still going are dealt with by
+ * the overlap {@link uk.gov.gchq.maestro.operation.jobtracker.SchedulePolicy} of the job's {@link Repeat}, and runs
+ * missed by a whole period or more, for example while Maestro was stopped,
+ * by the misfire policy. The QUEUE misfire policy makes at most
+ * {@link ExecutorPropertiesUtil#JOB_SCHEDULER_MAX_CATCH_UP} catch-up runs.
+ * </p>
+ */
+public final class ScheduledJob {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScheduledJob.class);
+
+    private final JobDetail jobDetail;
+    private final Context context;
+    private final Executor executor;
+    private final long period;
+    private final long jitter;
+    private volatile long nextRunTime;
+    private volatile boolean cancelled;
+    private TimingWheel.Timeout timeout;
+    private boolean running;
+    private boolean discarded;
+    private long pending;
+    private long skipped;
+
+    ScheduledJob(final JobDetail jobDetail, final Context context, final Executor executor, final long nextRunTime) {
+        final Repeat repeat = jobDetail.getRepeat();
+        this.jobDetail = jobDetail;
+        this.context = context;
+        this.executor = executor;
+        this.period = repeat.getTimeUnit().toMillis(repeat.getRepeatPeriod());
+        this.jitter = repeat.getTimeUnit().toMillis(repeat.getJitter());
+        this.nextRunTime = nextRunTime;
+        if (1 > period) {
+            throw new IllegalArgumentException("The repeat period of a scheduled job must be at least 1 millisecond");
+        }
+        // A run jittered by a whole period would always count as missed
+        if (0 > jitter || jitter >= period) {
+            throw new IllegalArgumentException("The jitter of a scheduled job must be at least 0 and less than its repeat period");
+        }
+    }
+
+    public String getJobId() {
+        return jobDetail.getJobId();
+    }
+
+    /**
+     * @return the time the next run is due, in milliseconds since the epoch,
+     * before any jitter is added
+     */
+    public long getNextRunTime() {
+        return nextRunTime;
+    }
+
+    public synchronized boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return the number of runs waiting for the current run to finish
+     */
+    public synchronized long getPending() {
+        return pending;
+    }
+
+    /**
+     * @return the number of runs skipped because the previous run was still
+     * going, or because they were missed
+     */
+    public synchronized long getSkipped() {
+        return skipped;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Stops any further runs. A run that is going is left to finish.
+     */
+    public void cancel() {
+        cancelled = true;
+        final TimingWheel.Timeout current;
+        synchronized (this) {
+            pending = 0;
+            current = timeout;
+        }
+        if (null != current) {
+            current.cancel();
+        }
+    }
+
+    // Cancels the job for good, closing its spooled inputs once any run that
+    // is going has finished with them.
+    void discard() {
+        cancel();
+        final boolean idle;
+        synchronized (this) {
+            discarded = true;
+            idle = !running;
+        }
+        if (idle) {
+            SpooledInputs.close(jobDetail.getOpAsOperation());
+        }
+    }
+
+    void start(final TimingWheel wheel) {
+        schedule(wheel);
+    }
+
+    private void schedule(final TimingWheel wheel) {
+        final long delay = 0 < jitter ? ThreadLocalRandom.current().nextLong(jitter + 1) : 0;
+        final TimingWheel.Timeout next = wheel.schedule(nextRunTime + delay, () -> dispatch(wheel));
+        synchronized (this) {
+            timeout = next;
+        }
+        if (cancelled) {
+            next.cancel();
+        }
+    }
+
+    // Runs on the wheel's thread, so only hands the work to the pool
+    private void dispatch(final TimingWheel wheel) {
+        final ScheduledExecutorService service = ExecutorService.getService();
+        if (null == service) {
+            LOGGER.error("Executor Service is not enabled, so scheduled job {} has stopped", getJobId());
+            return;
+        }
+        service.execute(() -> due(wheel));
+    }
+
+    // Works out how many runs are due, then schedules the next before
+    // handing the runs to the job queue.
+    private void due(final TimingWheel wheel) {
+        if (cancelled) {
+            return;
+        }
+        final long due = nextRunTime;
+        final long missed = Math.max(0, (System.currentTimeMillis() - due) / period);
+        nextRunTime = due + (missed + 1) * period;
+        schedule(wheel);
+        JobScheduler.saveNextRunTime(getJobId(), nextRunTime);
+
+        long runs = 1;
+        if (0 < missed) {
+            switch (jobDetail.getRepeat().getMisfirePolicy()) {
+                case SKIP:
+                    runs = 0;
+                    break;
+                case QUEUE:
+                    // Capped, so a long outage does not flood the job queue
+                    runs = Math.min(missed + 1, Math.max(1, ExecutorPropertiesUtil.getJobSchedulerMaxCatchUp(executor)));
+                    break;
+                default:
+                    break;
+            }
+            LOGGER.info("Scheduled job {} missed {} runs, so will run {} times", getJobId(), missed, runs);
+        }
+        synchronized (this) {
+            skipped += missed + 1 - runs;
+            if (0 == runs) {
+                return;
+            }
+            if (running) {
+                switch (jobDetail.getRepeat().getOverlapPolicy()) {
+                    case QUEUE:
+                        pending += runs;
+                        break;
+                    case COALESCE:
+                        skipped += runs - (0 == pending ? 1 : 0);
+                        pending = 1;
+                        break;
+                    default:
+                        skipped += runs;
+                        break;
+                }
+                return;
+            }
+            running = true;
+            pending = runs - 1;
+        }
+        run();
+    }
+
+    private void run() {
+        try {
+            JobExecutor.runScheduledJob(jobDetail.getOpAsOperation().shallowClone(), context.shallowClone(), getJobId(),
+                    jobDetail.getPriority(), executor, this::finished);
+        } catch (final OperationException | RuntimeException e) {
+            LOGGER.error("Unable to run scheduled job {}", getJobId(), e);
+            finished();
+        }
+    }
+
+    private void finished() {
+        final boolean runNext;
+        final boolean closeInputs;
+        synchronized (this) {
+            runNext = !cancelled && 0 < pending;
+            if (runNext) {
+                pending--;
+            } else {
+                running = false;
+            }
+            closeInputs = !runNext && discarded;
+        }
+        if (runNext) {
+            run();
+        } else if (closeInputs) {
+            SpooledInputs.close(jobDetail.getOpAsOperation());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("jobId", getJobId())
+                .append("nextRunTime", nextRunTime)
+                .append("cancelled", cancelled)
+                .toString();
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.executor.operation.handler.job.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * A {@code TimingWheel} runs tasks at given times, on a single thread.
+ * <p>
+ * Tasks are held in buckets of one tick each, in a wheel of a fixed number
+ * of buckets. Tasks due later than one turn of the wheel are held in an
+ * overflow wheel with buckets of one turn each, and so on, and move down a
+ * wheel as their time gets nearer. Adding and cancelling a task take
+ * constant time however many are scheduled, and the thread only wakes when
+ * a bucket is due, rather than on every tick.
+ * </p>
+ * <p>
+ * Tasks should be short, handing off any real work to another thread, as
+ * they delay the tasks due after them.
+ * </p>
+ */
+final class TimingWheel {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TimingWheel.class);
+    private static final long POLL_INTERVAL = 200;
+
+    private final DelayQueue<Bucket> queue = new DelayQueue<>();
+    private final Wheel wheel;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    TimingWheel(final String name, final long tick, final int size) {
+        if (1 > tick || 1 > size) {
+            throw new IllegalArgumentException("tick and size must be at least 1");
+        }
+        this.wheel = new Wheel(tick, size, System.currentTimeMillis(), queue);
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Schedules a task to run at a time.
+     *
+     * @param time the time to run the task at, in milliseconds since the
+     *             epoch. Times in the past run as soon as possible.
+     * @param task the task
+     * @return a handle for cancelling the task
+     */
+    Timeout schedule(final long time, final Runnable task) {
+        final Timeout timeout = new Timeout(time, task);
+        synchronized (wheel) {
+            if (!wheel.add(timeout)) {
+                // Due now, so go in the bucket for the next tick
+                wheel.add(new Timeout(wheel.currentTime + wheel.tick, timeout));
+            }
+        }
+        return timeout;
+    }
+
+    void stop() {
+        running = false;
+        thread.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Bucket bucket = queue.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                if (null != bucket) {
+                    synchronized (wheel) {
+                        while (null != bucket) {
+                            wheel.advanceClock(bucket.getExpiration());
+                            bucket.flush(this::addOrRun);
+                            bucket = queue.poll();
+                        }
+                    }
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void addOrRun(final Timeout timeout) {
+        if (!wheel.add(timeout) && !timeout.isCancelled()) {
+            try {
+                timeout.task.run();
+            } catch (final RuntimeException e) {
+                LOGGER.error("Timed task failed", e);
+            }
+        }
+    }
+
+    /**
+     * A handle on a scheduled task.
+     */
+    static final class Timeout {
+        private final long time;
+        private final Runnable task;
+        private final Timeout original;
+        private volatile boolean cancelled;
+        private volatile Bucket bucket;
+
+        private Timeout(final long time, final Runnable task) {
+            this.time = time;
+            this.task = task;
+            this.original = this;
+        }
+
+        // A copy of a timeout, due at a different time, that is cancelled
+        // along with the original
+        private Timeout(final long time, final Timeout original) {
+            this.time = time;
+            this.task = original.task;
+            this.original = original;
+        }
+
+        long getTime() {
+            return time;
+        }
+
+        boolean isCancelled() {
+            return original.cancelled;
+        }
+
+        void cancel() {
+            original.cancelled = true;
+            final Bucket current = bucket;
+            if (null != current) {
+                current.remove(this);
+            }
+        }
+    }
+
+    // One level of the wheel, with buckets of one tick each
+    private static final class Wheel {
+        private final long tick;
+        private final int size;
+        private final long interval;
+        private final Bucket[] buckets;
+        private final DelayQueue<Bucket> queue;
+        private long currentTime;
+        private Wheel overflow;
+
+        private Wheel(final long tick, final int size, final long startTime, final DelayQueue<Bucket> queue) {
+            this.tick = tick;
+            this.size = size;
+            this.interval = tick * size;
+            this.queue = queue;
+            this.currentTime = startTime - (startTime % tick);
+            this.buckets = new Bucket[size];
+            for (int i = 0; i < size; i++) {
+                buckets[i] = new Bucket();
+            }
+        }
+
+        // Returns false if the timeout is due now, or has been cancelled
+        private boolean add(final Timeout timeout) {
+            if (timeout.isCancelled() || timeout.time < currentTime + tick) {
+                return false;
+            }
+            if (timeout.time < currentTime + interval) {
+                final long virtualId = timeout.time / tick;
+                final Bucket bucket = buckets[(int) (virtualId % size)];
+                bucket.add(timeout);
+                if (bucket.setExpiration(virtualId * tick)) {
+                    queue.offer(bucket);
+                }
+                return true;
+            }
+            if (null == overflow) {
+                overflow = new Wheel(interval, size, currentTime, queue);
+            }
+            return overflow.add(timeout);
+        }
+
+        private void advanceClock(final long time) {
+            if (time >= currentTime + tick) {
+                currentTime = time - (time % tick);
+                if (null != overflow) {
+                    overflow.advanceClock(currentTime);
+                }
+            }
+        }
+    }
+
+    private static final class Bucket implements Delayed {
+        private final AtomicLong expiration = new AtomicLong(-1L);
+        private final Set<Timeout> timeouts = new LinkedHashSet<>();
+
+        private synchronized void add(final Timeout timeout) {
+            timeouts.add(timeout);
+            timeout.bucket = this;
+        }
+
+        private synchronized void remove(final Timeout timeout) {
+            if (timeouts.remove(timeout)) {
+                timeout.bucket = null;
+            }
+        }
+
+        private void flush(final Consumer<Timeout> consumer) {
+            final List<Timeout> flushed;
+            synchronized (this) {
+                flushed = new ArrayList<>(timeouts);
+                timeouts.clear();
+                expiration.set(-1L);
+            }
+            for (final Timeout timeout : flushed) {
+                timeout.bucket = null;
+                consumer.accept(timeout);
+            }
+        }
+
+        // Returns true if the expiration changed, so the bucket needs queueing
+        private boolean setExpiration(final long time) {
+            return expiration.getAndSet(time) != time;
+        }
+
+        private long getExpiration() {
+            return expiration.get();
+        }
+
+        @Override
+        public long getDelay(final TimeUnit unit) {
+            return unit.convert(Math.max(getExpiration() - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(final Delayed other) {
+            return Long.compare(getExpiration(), ((Bucket) other).getExpiration());
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return this == obj;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this);
+        }
+    }
+}
@@ -16,9 +16,6 @@
 
 package uk.gov.gchq.maestro.executor.operation.handler.named.cache;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 import uk.gov.gchq.maestro.commonutil.cache.CacheServiceLoader;
 import uk.gov.gchq.maestro.commonutil.exception.CacheOperationException;
 import uk.gov.gchq.maestro.commonutil.iterable.CloseableIterable;
@@ -27,6 +24,7 @@ import uk.gov.gchq.maestro.operation.named.NamedOperationDetail;
 import uk.gov.gchq.maestro.operation.user.User;
 
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -36,7 +34,6 @@ import java.util.Set;
  */
 public class NamedOperationCache {
 
-    private static final Logger LOGGER = LoggerFactory.getLogger(NamedOperationCache.class);
     private static final String CACHE_NAME = "NamedOperation";
 
     /**
@@ -279,17 +276,12 @@ public class NamedOperationCache {
 
     private CloseableIterable<NamedOperationDetail> getAll(final User user, final String adminAuth) {
         final Set<String> keys = CacheServiceLoader.getService().getAllKeysFromCache(CACHE_NAME);
+        final Map<String, NamedOperationDetail> ops = CacheServiceLoader.getService().getAllFromCache(CACHE_NAME, keys);
         final Set<NamedOperationDetail> executables = new HashSet<>();
-        for (final String key : keys) {
-            try {
-                NamedOperationDetail op = getFromCache(key);
-                if (op.hasReadAccess(user, adminAuth)) {
-                    executables.add(op);
-                }
-            } catch (final CacheOperationException e) {
-                LOGGER.error(e.getMessage(), e);
+        for (final NamedOperationDetail op : ops.values()) {
+            if (op.hasReadAccess(user, adminAuth)) {
+                executables.add(op);
             }
-
         }
         return new WrappedCloseableIterable<>(executables);
     }
@@ -26,8 +26,10 @@ import uk.gov.gchq.maestro.commonutil.cache.util.CacheProperties;
 import uk.gov.gchq.maestro.commonutil.exception.SerialisationException;
 import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.JSONSerialiser;
 import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.JSONSerialiserModules;
+import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.WireFormat;
 import uk.gov.gchq.maestro.executor.Executor;
 import uk.gov.gchq.maestro.executor.operation.declaration.OperationDeclarations;
+import uk.gov.gchq.maestro.operation.jobtracker.JobPriority;
 
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -37,8 +39,13 @@ import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
@@ -56,18 +63,128 @@ public final class ExecutorPropertiesUtil {
     public static final String EXECUTOR_SERVICE_THREAD_COUNT = "maestro.executor.job.executor.threads";
     public static final String EXECUTOR_SERVICE_THREAD_COUNT_DEFAULT = "50";
     public static final String JOB_TRACKER_ENABLED = "maestro.executor.job.tracker.enabled";
+    /**
+     * How long, in milliseconds, finished jobs stay in the job tracker before
+     * they are moved to its archive. Negative disables archiving.
+     */
+    public static final String JOB_TRACKER_ARCHIVE_AFTER = "maestro.executor.job.tracker.archive-after";
+    public static final long DEFAULT_JOB_TRACKER_ARCHIVE_AFTER = -1;
+    /**
+     * The resolution, in milliseconds, of the timing wheel that runs
+     * scheduled jobs. It is read when the first job is scheduled.
+     */
+    public static final String JOB_SCHEDULER_TICK = "maestro.executor.job.scheduler.tick";
+    public static final long DEFAULT_JOB_SCHEDULER_TICK = 10;
+    /**
+     * The most runs a scheduled job with the QUEUE misfire policy makes to
+     * catch up on runs missed, for example while Maestro was stopped. Any
+     * further missed runs are skipped.
+     */
+    public static final String JOB_SCHEDULER_MAX_CATCH_UP = "maestro.executor.job.scheduler.max-catch-up";
+    public static final long DEFAULT_JOB_SCHEDULER_MAX_CATCH_UP = 10;
+    /**
+     * CSV of PRIORITY:count pairs, capping how many jobs of each
+     * {@link JobPriority} may run at once, within the job executor thread
+     * count.
+     */
+    public static final String JOB_PRIORITY_CONCURRENCY = "maestro.executor.job.priority.concurrency";
+    /**
+     * CSV of opAuth:PRIORITY pairs giving the {@link JobPriority} of jobs run
+     * by users with each op auth, when the job does not set its own.
+     */
+    public static final String JOB_PRIORITY_AUTHS = "maestro.executor.job.priority.auths";
+    /**
+     * How long, in milliseconds, a job waits before it is started as if it
+     * were one priority class higher. Zero or less disables ageing.
+     */
+    public static final String JOB_PRIORITY_AGEING = "maestro.executor.job.priority.ageing";
+    public static final long DEFAULT_JOB_PRIORITY_AGEING = 30000;
     public static final String JSON_SERIALISER_CLASS = JSONSerialiser.JSON_SERIALISER_CLASS_KEY;
     public static final String JSON_SERIALISER_MODULES = JSONSerialiser.JSON_SERIALISER_MODULES;
     public static final String MAESTRO_CONTEXT_ROOT = "maestro.context-root";
+    /**
+     * CSV of host:port pairs of remote Maestro REST APIs sharing the same
+     * context root. When set, a load balancing proxy spreads requests across
+     * them in place of maestro.host and maestro.port.
+     */
+    public static final String MAESTRO_ENDPOINTS = "maestro.endpoints";
     public static final String MAESTRO_HOST = "maestro.host";
     public static final String MAESTRO_PORT = "maestro.port";
     public static final String OPERATION_DECLARATIONS = "maestro.executor.operation.declarations";
+    /**
+     * Pool limits for the connections a proxy executor holds open to its
+     * remote Maestro REST API.
+     */
+    public static final String PROXY_MAX_CONNECTIONS = "maestro.proxy.max-connections";
+    public static final int DEFAULT_PROXY_MAX_CONNECTIONS = 100;
+    public static final String PROXY_MAX_CONNECTIONS_PER_ROUTE = "maestro.proxy.max-connections-per-route";
+    public static final int DEFAULT_PROXY_MAX_CONNECTIONS_PER_ROUTE = 20;
+    /**
+     * How long, in milliseconds, an idle pooled connection is kept alive when
+     * the remote does not say, and how long before idle connections are evicted.
+     */
+    public static final String PROXY_KEEP_ALIVE = "maestro.proxy.keep-alive";
+    public static final int DEFAULT_PROXY_KEEP_ALIVE = 30000;
+    public static final String PROXY_IDLE_TIMEOUT = "maestro.proxy.idle-timeout";
+    public static final int DEFAULT_PROXY_IDLE_TIMEOUT = 60000;
+    /**
+     * How often, in milliseconds, a load balancing proxy checks the status
+     * of each of its remotes. Zero disables the checks.
+     */
+    public static final String PROXY_HEALTH_CHECK_INTERVAL = "maestro.proxy.health-check-interval";
+    public static final int DEFAULT_PROXY_HEALTH_CHECK_INTERVAL = 5000;
+    /**
+     * The number of consecutive failed requests after which the circuit to a
+     * remote opens, ejecting it from load balancing, and how long, in
+     * milliseconds, before a single probe request is let through to it.
+     */
+    public static final String PROXY_EJECTION_FAILURES = "maestro.proxy.ejection-failures";
+    public static final int DEFAULT_PROXY_EJECTION_FAILURES = 5;
+    public static final String PROXY_EJECTION_TIME = "maestro.proxy.ejection-time";
+    public static final int DEFAULT_PROXY_EJECTION_TIME = 30000;
+    /**
+     * The least time, in milliseconds, a proxy waits on a remote before it
+     * hedges an idempotent operation on another, however fast recent
+     * requests have been.
+     */
+    public static final String PROXY_MIN_HEDGE_DELAY = "maestro.proxy.min-hedge-delay";
+    public static final int DEFAULT_PROXY_MIN_HEDGE_DELAY = 50;
+    /**
+     * How often, in milliseconds, a proxy refreshes the operations it has
+     * discovered its remote supports. Zero discovers them once, at
+     * initialisation. By default there is no discovery and every operation
+     * is forwarded unchecked, as a remote with its own default handler may
+     * accept operations it does not list.
+     */
+    public static final String PROXY_CAPABILITIES_REFRESH_INTERVAL = "maestro.proxy.capabilities-refresh-interval";
+    public static final int DEFAULT_PROXY_CAPABILITIES_REFRESH_INTERVAL = -1;
+    /**
+     * The most threads a proxy executor uses to wait on its remotes away from
+     * the caller's thread, such as for hedged requests and job polls.
+     */
+    public static final String PROXY_THREADS = "maestro.proxy.threads";
+    public static final int DEFAULT_PROXY_THREADS = 20;
+    /**
+     * The most threads a federated executor uses to call its sub executors
+     * at once. Calls beyond this wait for a thread. Their timeout only starts
+     * once they have one, but they are given up on if they wait for longer
+     * than the max timeout.
+     */
+    public static final String FEDERATED_THREADS = "maestro.federated.threads";
+    public static final int DEFAULT_FEDERATED_THREADS = 20;
     public static final String READ_TIMEOUT = "maestro.read-timeout";
     /**
      * CSV of extra packages to be included in the reflection scanning.
      */
     public static final String REFLECTION_PACKAGES = "maestro.executor.reflection.packages";
     public static final String STRICT_JSON = JSONSerialiser.STRICT_JSON;
+    /**
+     * The {@link WireFormat} used for requests to a remote Maestro REST API,
+     * one of json, smile or cbor. Responses are read in whatever format the
+     * remote returns, so older remotes fall back to JSON.
+     */
+    public static final String WIRE_FORMAT = "maestro.wire-format";
+    public static final WireFormat DEFAULT_WIRE_FORMAT = WireFormat.JSON;
     private static final String MAESTRO_REST_API_VERSION = "v2";
     private static final Logger LOGGER = LoggerFactory.getLogger(ExecutorPropertiesUtil.class);
 
@@ -206,6 +323,70 @@ public final class ExecutorPropertiesUtil {
         executor.setProperty(JOB_TRACKER_ENABLED, jobTrackerEnabled.toString());
     }
 
+    public static long getJobTrackerArchiveAfter(final Executor executor) {
+        return getLongProperty(executor, JOB_TRACKER_ARCHIVE_AFTER, DEFAULT_JOB_TRACKER_ARCHIVE_AFTER);
+    }
+
+    public static void setJobTrackerArchiveAfter(final Executor executor, final long archiveAfter) {
+        executor.setProperty(JOB_TRACKER_ARCHIVE_AFTER, String.valueOf(archiveAfter));
+    }
+
+    public static long getJobSchedulerTick(final Executor executor) {
+        return getLongProperty(executor, JOB_SCHEDULER_TICK, DEFAULT_JOB_SCHEDULER_TICK);
+    }
+
+    public static void setJobSchedulerTick(final Executor executor, final long tick) {
+        executor.setProperty(JOB_SCHEDULER_TICK, String.valueOf(tick));
+    }
+
+    public static long getJobSchedulerMaxCatchUp(final Executor executor) {
+        return getLongProperty(executor, JOB_SCHEDULER_MAX_CATCH_UP, DEFAULT_JOB_SCHEDULER_MAX_CATCH_UP);
+    }
+
+    public static void setJobSchedulerMaxCatchUp(final Executor executor, final long maxCatchUp) {
+        executor.setProperty(JOB_SCHEDULER_MAX_CATCH_UP, String.valueOf(maxCatchUp));
+    }
+
+    public static Map<JobPriority, Integer> getJobPriorityConcurrency(final Executor executor) {
+        final Map<JobPriority, Integer> rtn = new EnumMap<>(JobPriority.class);
+        for (final Map.Entry<String, String> entry : getPairsProperty(executor, JOB_PRIORITY_CONCURRENCY).entrySet()) {
+            try {
+                rtn.put(JobPriority.valueOf(entry.getKey().toUpperCase(Locale.ENGLISH)), Integer.parseInt(entry.getValue()));
+            } catch (final IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unable to convert " + JOB_PRIORITY_CONCURRENCY + " into job priority concurrency limits", e);
+            }
+        }
+        return rtn;
+    }
+
+    public static void setJobPriorityConcurrency(final Executor executor, final Map<JobPriority, Integer> concurrency) {
+        executor.setProperty(JOB_PRIORITY_CONCURRENCY, joinPairs(concurrency));
+    }
+
+    public static Map<String, JobPriority> getJobPriorityAuths(final Executor executor) {
+        final Map<String, JobPriority> rtn = new HashMap<>();
+        for (final Map.Entry<String, String> entry : getPairsProperty(executor, JOB_PRIORITY_AUTHS).entrySet()) {
+            try {
+                rtn.put(entry.getKey(), JobPriority.valueOf(entry.getValue().toUpperCase(Locale.ENGLISH)));
+            } catch (final IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unable to convert " + JOB_PRIORITY_AUTHS + " into job priorities", e);
+            }
+        }
+        return rtn;
+    }
+
+    public static void setJobPriorityAuths(final Executor executor, final Map<String, JobPriority> auths) {
+        executor.setProperty(JOB_PRIORITY_AUTHS, joinPairs(auths));
+    }
+
+    public static long getJobPriorityAgeing(final Executor executor) {
+        return getLongProperty(executor, JOB_PRIORITY_AGEING, DEFAULT_JOB_PRIORITY_AGEING);
+    }
+
+    public static void setJobPriorityAgeing(final Executor executor, final long ageing) {
+        executor.setProperty(JOB_PRIORITY_AGEING, String.valueOf(ageing));
+    }
+
     public static String getReflectionPackages(final Executor executor) {
         return (String) executor.getProperty(REFLECTION_PACKAGES);
     }
@@ -330,18 +511,68 @@ public final class ExecutorPropertiesUtil {
             urlSuffix = "";
         }
 
+        return getMaestroUrl(executor, getMaestroHost(executor), getMaestroPort(executor), protocol, urlSuffix);
+    }
+
+    /**
+     * @param executor the proxy executor
+     * @param endpoint one of the remote endpoints, as host:port
+     * @param suffix   the path to append to the REST API root
+     * @return the url of the path on the given endpoint
+     */
+    public static URL getMaestroEndpointUrl(final Executor executor, final String endpoint, final String suffix) {
+        final int separator = endpoint.lastIndexOf(':');
+        if (separator < 1) {
+            throw new IllegalArgumentException("Endpoint should be of the form host:port but was: " + endpoint);
+        }
+
+        final int port;
+        try {
+            port = Integer.parseInt(endpoint.substring(separator + 1).trim());
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Unable to convert port of endpoint " + endpoint + " into an integer", e);
+        }
+        return getMaestroUrl(executor, endpoint.substring(0, separator).trim(), port, "http",
+                StringUtils.isNotEmpty(suffix) ? prepend("/", suffix) : "");
+    }
+
+    private static URL getMaestroUrl(final Executor executor, final String host, final int port, final String protocol, final String urlSuffix) {
         try {
             String contextRoot = prepend("/", getGafferContextRoot(executor));
             contextRoot = addSuffix("/", contextRoot) + MAESTRO_REST_API_VERSION;
-            return new URL(protocol, getMaestroHost(executor), getMaestroPort(executor),
-                    contextRoot + urlSuffix);
+            return new URL(protocol, host, port, contextRoot + urlSuffix);
         } catch (final MalformedURLException e) {
-            throw new IllegalArgumentException("Could not create Gaffer URL from host (" + getMaestroHost(executor)
-                    + "), port (" + getMaestroPort(executor)
+            throw new IllegalArgumentException("Could not create Gaffer URL from host (" + host
+                    + "), port (" + port
                     + ") and context root (" + getGafferContextRoot(executor) + ")", e);
         }
     }
 
+    /**
+     * @param executor the proxy executor
+     * @return the host:port of each remote endpoint, defaulting to the
+     * single maestro.host and maestro.port
+     */
+    public static List<String> getMaestroEndpoints(final Executor executor) {
+        final String endpoints = (String) executor.getConfig().getPropertyOrDefault(MAESTRO_ENDPOINTS, null);
+        final List<String> rtn = new ArrayList<>();
+        if (StringUtils.isNotBlank(endpoints)) {
+            for (final String endpoint : endpoints.split(",")) {
+                if (StringUtils.isNotBlank(endpoint)) {
+                    rtn.add(endpoint.trim());
+                }
+            }
+        }
+        if (rtn.isEmpty()) {
+            rtn.add(getMaestroHost(executor) + ':' + getMaestroPort(executor));
+        }
+        return rtn;
+    }
+
+    public static void setMaestroEndpoints(final Executor executor, final String... endpoints) {
+        executor.setProperty(MAESTRO_ENDPOINTS, StringUtils.join(endpoints, ","));
+    }
+
     protected static String prepend(final String prefix, final String string) {
         if (!string.startsWith(prefix)) {
             return prefix + string;
@@ -412,4 +643,148 @@ public final class ExecutorPropertiesUtil {
     public static void setReadTimeout(final Executor executor, final int timeout) {
         executor.setProperty(READ_TIMEOUT, String.valueOf(timeout));
     }
+
+    public static WireFormat getWireFormat(final Executor executor) {
+        final String format = (String) executor.getConfig().getPropertyOrDefault(WIRE_FORMAT, null);
+        try {
+            return null == format ? DEFAULT_WIRE_FORMAT : WireFormat.fromName(format);
+        } catch (final IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unable to convert " + format + " into a wire format", e);
+        }
+    }
+
+    public static void setWireFormat(final Executor executor, final WireFormat format) {
+        executor.setProperty(WIRE_FORMAT, format.name());
+    }
+
+    public static int getProxyMaxConnections(final Executor executor) {
+        return getIntProperty(executor, PROXY_MAX_CONNECTIONS, DEFAULT_PROXY_MAX_CONNECTIONS);
+    }
+
+    public static void setProxyMaxConnections(final Executor executor, final int maxConnections) {
+        executor.setProperty(PROXY_MAX_CONNECTIONS, String.valueOf(maxConnections));
+    }
+
+    public static int getProxyMaxConnectionsPerRoute(final Executor executor) {
+        return getIntProperty(executor, PROXY_MAX_CONNECTIONS_PER_ROUTE, DEFAULT_PROXY_MAX_CONNECTIONS_PER_ROUTE);
+    }
+
+    public static void setProxyMaxConnectionsPerRoute(final Executor executor, final int maxConnections) {
+        executor.setProperty(PROXY_MAX_CONNECTIONS_PER_ROUTE, String.valueOf(maxConnections));
+    }
+
+    public static int getProxyKeepAlive(final Executor executor) {
+        return getIntProperty(executor, PROXY_KEEP_ALIVE, DEFAULT_PROXY_KEEP_ALIVE);
+    }
+
+    public static void setProxyKeepAlive(final Executor executor, final int keepAlive) {
+        executor.setProperty(PROXY_KEEP_ALIVE, String.valueOf(keepAlive));
+    }
+
+    public static int getProxyIdleTimeout(final Executor executor) {
+        return getIntProperty(executor, PROXY_IDLE_TIMEOUT, DEFAULT_PROXY_IDLE_TIMEOUT);
+    }
+
+    public static void setProxyIdleTimeout(final Executor executor, final int idleTimeout) {
+        executor.setProperty(PROXY_IDLE_TIMEOUT, String.valueOf(idleTimeout));
+    }
+
+    public static int getProxyHealthCheckInterval(final Executor executor) {
+        return getIntProperty(executor, PROXY_HEALTH_CHECK_INTERVAL, DEFAULT_PROXY_HEALTH_CHECK_INTERVAL);
+    }
+
+    public static void setProxyHealthCheckInterval(final Executor executor, final int interval) {
+        executor.setProperty(PROXY_HEALTH_CHECK_INTERVAL, String.valueOf(interval));
+    }
+
+    public static int getProxyEjectionFailures(final Executor executor) {
+        return getIntProperty(executor, PROXY_EJECTION_FAILURES, DEFAULT_PROXY_EJECTION_FAILURES);
+    }
+
+    public static void setProxyEjectionFailures(final Executor executor, final int failures) {
+        executor.setProperty(PROXY_EJECTION_FAILURES, String.valueOf(failures));
+    }
+
+    public static int getProxyEjectionTime(final Executor executor) {
+        return getIntProperty(executor, PROXY_EJECTION_TIME, DEFAULT_PROXY_EJECTION_TIME);
+    }
+
+    public static void setProxyEjectionTime(final Executor executor, final int ejectionTime) {
+        executor.setProperty(PROXY_EJECTION_TIME, String.valueOf(ejectionTime));
+    }
+
+    public static int getProxyMinHedgeDelay(final Executor executor) {
+        return getIntProperty(executor, PROXY_MIN_HEDGE_DELAY, DEFAULT_PROXY_MIN_HEDGE_DELAY);
+    }
+
+    public static void setProxyMinHedgeDelay(final Executor executor, final int minHedgeDelay) {
+        executor.setProperty(PROXY_MIN_HEDGE_DELAY, String.valueOf(minHedgeDelay));
+    }
+
+    public static int getProxyCapabilitiesRefreshInterval(final Executor executor) {
+        return getIntProperty(executor, PROXY_CAPABILITIES_REFRESH_INTERVAL, DEFAULT_PROXY_CAPABILITIES_REFRESH_INTERVAL);
+    }
+
+    public static void setProxyCapabilitiesRefreshInterval(final Executor executor, final int interval) {
+        executor.setProperty(PROXY_CAPABILITIES_REFRESH_INTERVAL, String.valueOf(interval));
+    }
+
+    public static int getProxyThreads(final Executor executor) {
+        return getIntProperty(executor, PROXY_THREADS, DEFAULT_PROXY_THREADS);
+    }
+
+    public static void setProxyThreads(final Executor executor, final int threads) {
+        executor.setProperty(PROXY_THREADS, String.valueOf(threads));
+    }
+
+    public static int getFederatedThreads(final Executor executor) {
+        return getIntProperty(executor, FEDERATED_THREADS, DEFAULT_FEDERATED_THREADS);
+    }
+
+    public static void setFederatedThreads(final Executor executor, final int threads) {
+        executor.setProperty(FEDERATED_THREADS, String.valueOf(threads));
+    }
+
+    private static int getIntProperty(final Executor executor, final String key, final int defaultValue) {
+        final String value = (String) executor.getConfig().getPropertyOrDefault(key, null);
+        try {
+            return null == value ? defaultValue : Integer.parseInt(value);
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Unable to convert " + key + " into an integer", e);
+        }
+    }
+
+    private static Map<String, String> getPairsProperty(final Executor executor, final String key) {
+        final String value = (String) executor.getConfig().getPropertyOrDefault(key, null);
+        final Map<String, String> rtn = new LinkedHashMap<>();
+        if (StringUtils.isNotBlank(value)) {
+            for (final String pair : value.split(",")) {
+                if (StringUtils.isNotBlank(pair)) {
+                    final int separator = pair.lastIndexOf(':');
+                    if (0 > separator) {
+                        throw new IllegalArgumentException("Unable to convert " + key + " into key:value pairs");
+                    }
+                    rtn.put(pair.substring(0, separator).trim(), pair.substring(separator + 1).trim());
+                }
+            }
+        }
+        return rtn;
+    }
+
+    private static String joinPairs(final Map<?, ?> pairs) {
+        final List<String> rtn = new ArrayList<>();
+        for (final Map.Entry<?, ?> entry : pairs.entrySet()) {
+            rtn.add(entry.getKey() + ":" + entry.getValue());
+        }
+        return StringUtils.join(rtn, ",");
+    }
+
+    private static long getLongProperty(final Executor executor, final String key, final long defaultValue) {
+        final String value = (String) executor.getConfig().getPropertyOrDefault(key, null);
+        try {
+            return null == value ? defaultValue : Long.parseLong(value);
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Unable to convert " + key + " into a long", e);
+        }
+    }
 }
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.executor.util;
+
+import uk.gov.gchq.maestro.commonutil.exception.OperationException;
+import uk.gov.gchq.maestro.commonutil.exception.Status;
+import uk.gov.gchq.maestro.executor.Executor;
+import uk.gov.gchq.maestro.operation.Operation;
+import uk.gov.gchq.maestro.operation.OperationChain;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The operations an executor supports when they are not handled locally,
+ * such as those a proxy discovers from its remote executor.
+ * <p>
+ * Once registered for an executor, the operations and their details are
+ * reported in place of the executor's own handlers, and operations can be
+ * validated against them before being sent anywhere.
+ * </p>
+ */
+public final class OperationCapabilities {
+    private static final Map<String, OperationCapabilities> CAPABILITIES = new ConcurrentHashMap<>();
+    private static final String OPERATION_TYPE = "operationType";
+    private static final String FIELDS = "fields";
+    private static final String NAME = "name";
+    private static final String REQUIRED = "required";
+
+    private final Set<String> operations;
+    private final Map<String, Map<String, Object>> operationDetails;
+    private final Map<String, Set<String>> requiredFields;
+
+    /**
+     * @param operations       the ids of the supported operations
+     * @param operationDetails the details of each supported operation, in the
+     *                         form the REST API reports them
+     */
+    public OperationCapabilities(final Collection<String> operations, final List<Map<String, Object>> operationDetails) {
+        this.operations = Collections.unmodifiableSet(new LinkedHashSet<>(operations));
+        final Map<String, Map<String, Object>> details = new LinkedHashMap<>();
+        final Map<String, Set<String>> required = new LinkedHashMap<>();
+        if (null != operationDetails) {
+            for (final Map<String, Object> detail : operationDetails) {
+                final String operationType = (String) detail.get(OPERATION_TYPE);
+                if (null != operationType) {
+                    details.put(operationType, detail);
+                    required.put(operationType, getRequiredFields(detail));
+                }
+            }
+        }
+        this.operationDetails = Collections.unmodifiableMap(details);
+        this.requiredFields = Collections.unmodifiableMap(required);
+    }
+
+    /**
+     * @param executor the executor
+     * @return the capabilities registered for the executor, or null if it
+     * reports its own handlers
+     */
+    public static OperationCapabilities get(final Executor executor) {
+        return CAPABILITIES.get(getKey(executor));
+    }
+
+    public static void set(final Executor executor, final OperationCapabilities capabilities) {
+        CAPABILITIES.put(getKey(executor), capabilities);
+    }
+
+    public static void remove(final Executor executor) {
+        CAPABILITIES.remove(getKey(executor));
+    }
+
+    public Set<String> getOperations() {
+        return operations;
+    }
+
+    public boolean isSupported(final String operationType) {
+        return operations.contains(operationType);
+    }
+
+    public List<Map<String, Object>> getOperationDetails() {
+        return new ArrayList<>(operationDetails.values());
+    }
+
+    public Map<String, Object> getOperationDetails(final String operationType) {
+        return operationDetails.get(operationType);
+    }
+
+    /**
+     * Checks the operation, and any operations it chains, are supported and
+     * that the operation has all its required fields. Fields of chained
+     * operations are not checked, as they may be filled by earlier
+     * operations in the chain.
+     *
+     * @param operation the operation to check
+     * @throws OperationException with a bad request status if the operation
+     *                            is not supported or is missing a field
+     */
+    public void validate(final Operation operation) throws OperationException {
+        validateSupported(operation);
+
+        final Set<String> required = requiredFields.get(operation.getId());
+        if (null != required) {
+            final Set<String> missing = new TreeSet<>();
+            for (final String field : required) {
+                if (null == operation.get(field)) {
+                    missing.add(field);
+                }
+            }
+            if (!missing.isEmpty()) {
+                throw new OperationException("Operation " + operation.getId() + " is missing required fields: " + missing, Status.BAD_REQUEST);
+            }
+        }
+    }
+
+    private void validateSupported(final Operation operation) throws OperationException {
+        if (!isSupported(operation.getId())) {
+            throw new OperationException("Operation " + operation.getId() + " is not supported by the remote executor", Status.BAD_REQUEST);
+        }
+        if (operation instanceof OperationChain) {
+            for (final Operation child : ((OperationChain) operation).getOperations()) {
+                validateSupported(child);
+            }
+        }
+    }
+
+    private static Set<String> getRequiredFields(final Map<String, Object> detail) {
+        final Set<String> required = new LinkedHashSet<>();
+        final Object fields = detail.get(FIELDS);
+        if (fields instanceof Collection) {
+            for (final Object field : (Collection) fields) {
+                if (field instanceof Map && Boolean.TRUE.equals(((Map) field).get(REQUIRED))) {
+                    required.add((String) ((Map) field).get(NAME));
+                }
+            }
+        }
+        return required;
+    }
+
+    private static String getKey(final Executor executor) {
+        return null == executor.getId() ? "" : executor.getId();
+    }
+}
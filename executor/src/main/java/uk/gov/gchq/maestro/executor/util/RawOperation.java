@@ -0,0 +1,168 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.executor.util;
+
+import uk.gov.gchq.maestro.commonutil.ToStringBuilder;
+import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.WireFormat;
+import uk.gov.gchq.maestro.executor.Context;
+import uk.gov.gchq.maestro.operation.Operation;
+import uk.gov.gchq.maestro.operation.OperationChain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A {@code RawOperation} keeps the encoded bytes an {@link Operation} was
+ * decoded from, so a proxy can forward the original bytes rather than
+ * re-serialising the operation.
+ * <p>
+ * A snapshot of the operation is taken when it is decoded. The raw bytes
+ * are only used for an operation that still matches that snapshot, so any
+ * change a hook makes to the operation, its options or its arguments causes
+ * it to be serialised as normal. Argument values are compared by identity,
+ * so a hook that changes an argument in place must replace it.
+ * </p>
+ */
+public class RawOperation {
+    public static final String CONTEXT_KEY = "maestro.rawOperation";
+
+    private final byte[] bytes;
+    private final WireFormat format;
+    private final Operation operation;
+    private final Snapshot snapshot;
+
+    public RawOperation(final byte[] bytes, final WireFormat format, final Operation operation) {
+        this.bytes = bytes;
+        this.format = format;
+        this.operation = operation;
+        this.snapshot = new Snapshot(operation);
+    }
+
+    /**
+     * @param context the context of the operation
+     * @return the raw operation attached to the context, or null if there is none
+     */
+    public static RawOperation from(final Context context) {
+        final Object raw = null == context ? null : context.getConfig(CONTEXT_KEY);
+        return raw instanceof RawOperation ? (RawOperation) raw : null;
+    }
+
+    /**
+     * Attaches the raw operation to a context. The context config is shared
+     * by clones of the context, so the raw operation reaches the handlers.
+     *
+     * @param context the context the operation will be executed with
+     */
+    public void attachTo(final Context context) {
+        context.setConfig(CONTEXT_KEY, this);
+    }
+
+    /**
+     * @param candidate the operation about to be forwarded
+     * @return true if the candidate is unchanged from the operation the raw
+     * bytes were decoded from, or is a chain wrapping only that operation
+     */
+    public boolean matches(final Operation candidate) {
+        if (snapshot.matches(candidate)) {
+            return true;
+        }
+        return candidate instanceof OperationChain
+                && !(operation instanceof OperationChain)
+                && 1 == ((OperationChain) candidate).getOperations().size()
+                && snapshot.matches(((OperationChain) candidate).getOperations().get(0));
+    }
+
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    public WireFormat getFormat() {
+        return format;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("format", format)
+                .append("bytes", bytes.length)
+                .append("operation", null == operation ? null : operation.getId())
+                .toString();
+    }
+
+    private static final class Snapshot {
+        private final String id;
+        private final Map<String, Object> operationArgs;
+        private final Map<String, String> options;
+        private final List<Snapshot> operations;
+
+        private Snapshot(final Operation operation) {
+            id = operation.getId();
+            operationArgs = copy(operation.getOperationArgs());
+            options = copy(operation.getOptions());
+            if (operation instanceof OperationChain) {
+                operations = new ArrayList<>();
+                for (final Operation child : ((OperationChain) operation).getOperations()) {
+                    operations.add(new Snapshot(child));
+                }
+            } else {
+                operations = Collections.emptyList();
+            }
+        }
+
+        private boolean matches(final Operation candidate) {
+            if (null == candidate
+                    || !Objects.equals(id, candidate.getId())
+                    || !options.equals(copy(candidate.getOptions()))) {
+                return false;
+            }
+            final Map<String, Object> candidateArgs = copy(candidate.getOperationArgs());
+            if (operationArgs.size() != candidateArgs.size()) {
+                return false;
+            }
+            for (final Map.Entry<String, Object> entry : operationArgs.entrySet()) {
+                if (entry.getValue() != candidateArgs.get(entry.getKey())) {
+                    return false;
+                }
+            }
+
+            final List<Operation> children = candidate instanceof OperationChain
+                    ? ((OperationChain) candidate).getOperations()
+                    : Collections.emptyList();
+            if (operations.size() != children.size()) {
+                return false;
+            }
+            for (int i = 0; i < operations.size(); i++) {
+                if (!operations.get(i).matches(children.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static <V> Map<String, V> copy(final Map<String, V> map) {
+            return null == map ? new HashMap<>() : new HashMap<>(map);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.executor.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import uk.gov.gchq.maestro.commonutil.CloseableUtil;
+import uk.gov.gchq.maestro.commonutil.StringUtil;
+import uk.gov.gchq.maestro.commonutil.ToStringBuilder;
+import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.WireFormat;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A {@code RawResult} holds a result still in the encoded form a remote
+ * returned it in. When it is serialised it is written out as-is if the
+ * output is JSON and the result is JSON, or otherwise copied token by token
+ * without being bound to objects.
+ * <p>
+ * A result may be held as bytes, or streamed from a {@link JsonParser} so a
+ * large result never needs to be held in memory. A streamed result can only
+ * be written once, and its parser and the resource it reads from are closed
+ * once it has been written or when the result is closed.
+ * </p>
+ */
+@JsonSerialize(using = RawResult.Serialiser.class)
+public class RawResult implements Closeable {
+    private final byte[] bytes;
+    private final JsonParser parser;
+    private final AutoCloseable resource;
+    private final WireFormat format;
+    private boolean closed;
+
+    public RawResult(final byte[] bytes, final WireFormat format) {
+        this.bytes = bytes;
+        this.parser = null;
+        this.resource = null;
+        this.format = format;
+    }
+
+    /**
+     * @param parser   the parser, positioned on the first token of the result
+     * @param format   the format the parser reads
+     * @param resource the resource to close along with the parser, may be null
+     */
+    public RawResult(final JsonParser parser, final WireFormat format, final AutoCloseable resource) {
+        if (null == parser.getCurrentToken()) {
+            throw new IllegalArgumentException("Parser must be positioned on the first token of the result");
+        }
+        this.bytes = null;
+        this.parser = parser;
+        this.resource = resource;
+        this.format = format;
+    }
+
+    /**
+     * @return the bytes of the result, or null if it is streamed
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    public WireFormat getFormat() {
+        return format;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            CloseableUtil.close(parser, resource);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("format", format)
+                .append("bytes", null == bytes ? "streamed" : bytes.length)
+                .toString();
+    }
+
+    public static class Serialiser extends JsonSerializer<RawResult> {
+        @Override
+        public void serialize(final RawResult value, final JsonGenerator gen, final SerializerProvider serializers) throws IOException {
+            if (null != value.parser) {
+                synchronized (value) {
+                    if (value.closed) {
+                        throw new IllegalStateException("A streamed result can only be written once");
+                    }
+                    try {
+                        gen.copyCurrentStructure(value.parser);
+                        // Read to the end of the stream so the resource can be reused
+                        while (null != value.parser.nextToken()) {
+                            value.parser.skipChildren();
+                        }
+                    } finally {
+                        value.close();
+                    }
+                }
+            } else if (WireFormat.JSON == value.format && gen instanceof JsonGeneratorImpl) {
+                gen.writeRawValue(StringUtil.toString(value.bytes));
+            } else {
+                try (JsonParser parser = value.format.createFactory().createParser(value.bytes)) {
+                    parser.nextToken();
+                    gen.copyCurrentStructure(parser);
+                }
+            }
+        }
+    }
+}
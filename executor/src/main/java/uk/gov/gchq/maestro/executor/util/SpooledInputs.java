@@ -0,0 +1,87 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.executor.util;
+
+import uk.gov.gchq.maestro.commonutil.CloseableUtil;
+import uk.gov.gchq.maestro.commonutil.iterable.SpooledCloseableIterable;
+import uk.gov.gchq.maestro.operation.Operation;
+import uk.gov.gchq.maestro.operation.OperationChain;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the inputs of an operation that were spooled to disk while it was
+ * read, so they can be closed, deleting their spool files, once nothing
+ * will read them again.
+ * <p>
+ * The operation a job runs is read after the request that submitted the job
+ * has finished, so the inputs within it belong to the job and are not
+ * returned for the operation that submitted it.
+ * </p>
+ */
+public final class SpooledInputs {
+    /**
+     * The field a job holds the operation it runs in.
+     */
+    public static final String JOB_OPERATION = "OpAsOperation";
+
+    private SpooledInputs() {
+        // private to prevent this class being instantiated.
+        // All methods are static and should be called directly.
+    }
+
+    /**
+     * @param operation the operation to search
+     * @return the spooled inputs of the operation and of the operations
+     * nested within it, other than those of jobs
+     */
+    public static List<SpooledCloseableIterable> find(final Operation operation) {
+        final List<SpooledCloseableIterable> spooled = new ArrayList<>();
+        find(operation, spooled);
+        return spooled;
+    }
+
+    /**
+     * Closes the spooled inputs of the operation and of the operations
+     * nested within it, other than those of jobs.
+     *
+     * @param operation the operation whose inputs are no longer needed
+     */
+    public static void close(final Operation operation) {
+        find(operation).forEach(CloseableUtil::close);
+    }
+
+    private static void find(final Operation operation, final List<SpooledCloseableIterable> spooled) {
+        if (null == operation) {
+            return;
+        }
+        if (operation instanceof OperationChain) {
+            for (final Operation child : ((OperationChain) operation).getOperations()) {
+                find(child, spooled);
+            }
+        }
+        for (final Map.Entry<String, Object> arg : operation.getOperationArgs().entrySet()) {
+            if (arg.getValue() instanceof SpooledCloseableIterable) {
+                spooled.add((SpooledCloseableIterable) arg.getValue());
+            } else if (arg.getValue() instanceof Operation && !JOB_OPERATION.equals(arg.getKey())) {
+                find((Operation) arg.getValue(), spooled);
+            }
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.executor.operation.handler.export.resultcache;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import uk.gov.gchq.maestro.commonutil.exception.OperationException;
+import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.JSONSerialiser;
+import uk.gov.gchq.maestro.executor.Context;
+import uk.gov.gchq.maestro.operation.Operation;
+import uk.gov.gchq.maestro.operation.user.User;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ResultCacheStoreTest {
+    private static final String USER = "user01";
+    private static final String KEY = ExportToResultCacheHandler.DEFAULT_KEY;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private ResultCacheStore store;
+
+    @Before
+    public void before() {
+        store = new ResultCacheStore()
+                .setDirectory(folder.getRoot().getAbsolutePath())
+                .setSegmentSize(3);
+    }
+
+    @Test
+    public void shouldReadPagesAcrossSegments() throws OperationException {
+        // Given
+        store.append(USER, "job1", KEY, range(0, 10));
+        store.append(USER, "job1", KEY, range(10, 12));
+
+        // When / Then
+        assertEquals(range(0, 12), Lists.newArrayList(store.read(USER, "job1", KEY, 0, null)));
+        assertEquals(range(4, 8), Lists.newArrayList(store.read(USER, "job1", KEY, 4, 8)));
+        assertEquals(range(9, 12), Lists.newArrayList(store.read(USER, "job1", KEY, 9, 100)));
+        assertEquals(Collections.emptyList(), Lists.newArrayList(store.read(USER, "job1", KEY, 20, null)));
+    }
+
+    @Test
+    public void shouldKeepResultsPerUserJobAndKey() throws OperationException {
+        // Given
+        store.append(USER, "job1", KEY, range(0, 2));
+        store.append(USER, "job1", "other", range(2, 4));
+        store.append("user02", "job1", KEY, range(4, 6));
+
+        // When / Then
+        assertEquals(range(0, 2), Lists.newArrayList(store.read(USER, "job1", KEY, 0, null)));
+        assertEquals(range(2, 4), Lists.newArrayList(store.read(USER, "job1", "other", 0, null)));
+        assertEquals(range(4, 6), Lists.newArrayList(store.read("user02", "job1", KEY, 0, null)));
+        assertEquals(Collections.emptyList(), Lists.newArrayList(store.read(USER, "job2", KEY, 0, null)));
+    }
+
+    @Test
+    public void shouldReadResultsWrittenByAnotherStore() throws OperationException {
+        // Given
+        store.append(USER, "job1", KEY, range(0, 5));
+
+        // When
+        final ResultCacheStore restarted = new ResultCacheStore()
+                .setDirectory(folder.getRoot().getAbsolutePath());
+
+        // Then
+        assertEquals(range(0, 5), Lists.newArrayList(restarted.read(USER, "job1", KEY, 0, null)));
+        assertEquals(store.getUsage(USER), restarted.getUsage(USER));
+        assertTrue(0 < restarted.getUsage(USER));
+    }
+
+    @Test
+    public void shouldRejectResultsOverTheUserQuotaAndKeepNone() throws OperationException {
+        // Given
+        store.append(USER, "job1", KEY, range(0, 3));
+        final long used = store.getUsage(USER);
+        store.setUserQuota(used + 1);
+
+        // When
+        try {
+            store.append(USER, "job2", KEY, range(0, 30));
+            fail("Exception expected");
+        } catch (final OperationException e) {
+            // Then
+            assertEquals(String.format(ResultCacheStore.QUOTA_EXCEEDED, used + 1, USER), e.getMessage());
+        }
+        assertEquals(used, store.getUsage(USER));
+        assertEquals(Collections.emptyList(), Lists.newArrayList(store.read(USER, "job2", KEY, 0, null)));
+        assertEquals(range(0, 3), Lists.newArrayList(store.read(USER, "job1", KEY, 0, null)));
+    }
+
+    @Test
+    public void shouldRejectResultsBeforeWritingOnceTheUserQuotaIsUsed() throws OperationException {
+        // Given
+        store.append(USER, "job1", KEY, range(0, 3));
+        final long used = store.getUsage(USER);
+        store.setUserQuota(used);
+
+        // When
+        try {
+            store.append(USER, "job2", KEY, range(0, 1));
+            fail("Exception expected");
+        } catch (final OperationException e) {
+            // Then
+            assertEquals(String.format(ResultCacheStore.QUOTA_EXCEEDED, used, USER), e.getMessage());
+        }
+        assertEquals(used, store.getUsage(USER));
+        assertEquals(Collections.emptyList(), Lists.newArrayList(store.read(USER, "job2", KEY, 0, null)));
+    }
+
+    @Test
+    public void shouldReadResultsBackAsTheTypesWritten() throws OperationException {
+        // Given
+        final Map<String, Object> map = new HashMap<>();
+        map.put("count", 5L);
+        final List<Object> results = Arrays.asList(1L, new Date(1000L), map, Sets.newHashSet("a"), new User("user02"));
+
+        // When
+        store.append(USER, "job1", KEY, results);
+
+        // Then
+        assertEquals(results, Lists.newArrayList(store.read(USER, "job1", KEY, 0, null)));
+    }
+
+    @Test
+    public void shouldNotReadBackTypesThatAreNotAllowed() throws OperationException {
+        // Given
+        store.append(USER, "job1", KEY, Collections.singletonList(new File("results")));
+
+        // When
+        try {
+            Lists.newArrayList(store.read(USER, "job1", KEY, 0, null));
+            fail("Exception expected");
+        } catch (final RuntimeException e) {
+            // Then
+            assertTrue(e.getMessage().contains("does not read back values of type: java.io.File"));
+        }
+    }
+
+    @Test
+    public void shouldCreateTheDirectoryReadableOnlyByItsOwner() throws Exception {
+        // Given
+        final Path directory = folder.getRoot().toPath().resolve("cache");
+        store.setDirectory(directory.toString());
+
+        // When
+        store.append(USER, "job1", KEY, range(0, 1));
+
+        // Then
+        assertEquals(PosixFilePermissions.fromString("rwx------"), Files.getPosixFilePermissions(directory));
+    }
+
+    @Test
+    public void shouldEvictTheOldestJobsWhenTheDirectoryIsFull() throws OperationException {
+        // Given
+        store.append(USER, "job1", KEY, range(0, 3));
+        store.setMaxBytes(store.getUsage(USER) + 1);
+
+        // When
+        store.append("user02", "job2", KEY, range(0, 3));
+
+        // Then
+        assertEquals(0, store.getUsage(USER));
+        assertEquals(Collections.emptyList(), Lists.newArrayList(store.read(USER, "job1", KEY, 0, null)));
+        assertEquals(range(0, 3), Lists.newArrayList(store.read("user02", "job2", KEY, 0, null)));
+    }
+
+    @Test
+    public void shouldRemoveExpiredResults() throws Exception {
+        // Given
+        store.append(USER, "job1", KEY, range(0, 3));
+        store.setTimeToLive(1);
+        Thread.sleep(20);
+
+        // When
+        store.cleanUp();
+
+        // Then
+        assertEquals(0, store.getUsage(USER));
+        assertEquals(Collections.emptyList(), Lists.newArrayList(store.read(USER, "job1", KEY, 0, null)));
+    }
+
+    @Test
+    public void shouldExportAndGetResultsWithHandlers() throws OperationException {
+        // Given
+        final ExportToResultCacheHandler exportHandler = new ExportToResultCacheHandler().setStore(store);
+        final GetResultCacheExportHandler getHandler = new GetResultCacheExportHandler().setStore(store);
+        final Context context = new Context(new User(USER));
+        final List<Object> results = range(0, 7);
+
+        // When
+        final Object output = exportHandler._doOperation(new Operation("ExportToResultCache").input(results), context, null);
+        final Iterable<?> page = (Iterable<?>) getHandler._doOperation(new Operation("GetResultCacheExport")
+                .operationArg("jobId", context.getJobId())
+                .operationArg("Start", 2)
+                .operationArg("End", 5), context, null);
+
+        // Then
+        assertEquals(results, Lists.newArrayList((Iterable<?>) output));
+        assertEquals(range(2, 5), Lists.newArrayList(page));
+    }
+
+    @Test
+    public void shouldReturnTheExportedResultsOfAnInputThatCanOnlyBeReadOnce() throws OperationException {
+        // Given
+        final ExportToResultCacheHandler exportHandler = new ExportToResultCacheHandler().setStore(store);
+        final Context context = new Context(new User(USER));
+        final Iterable<Object> once = range(0, 7).stream()::iterator;
+
+        // When
+        final Object output = exportHandler._doOperation(new Operation("ExportToResultCache").input(once), context, null);
+
+        // Then
+        assertEquals(range(0, 7), Lists.newArrayList((Iterable<?>) output));
+    }
+
+    @Test
+    public void shouldJsonSerialiseAndDeserialise() throws Exception {
+        // Given
+        final ExportToResultCacheHandler handler = new ExportToResultCacheHandler().setStore(store.setUserQuota(100));
+
+        // When
+        final byte[] json = JSONSerialiser.serialise(handler);
+
+        // Then
+        assertEquals(handler, JSONSerialiser.deserialise(json, ExportToResultCacheHandler.class));
+    }
+
+    private static List<Object> range(final int start, final int end) {
+        final List<Object> values = new ArrayList<>();
+        for (int i = start; i < end; i++) {
+            values.add(i);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.executor.operation.handler.job.util;
+
+import org.junit.Test;
+
+import uk.gov.gchq.maestro.executor.Context;
+import uk.gov.gchq.maestro.executor.Executor;
+import uk.gov.gchq.maestro.executor.util.Config;
+import uk.gov.gchq.maestro.executor.util.ExecutorPropertiesUtil;
+import uk.gov.gchq.maestro.operation.Operation;
+import uk.gov.gchq.maestro.operation.jobtracker.JobDetail;
+import uk.gov.gchq.maestro.operation.jobtracker.JobPriority;
+import uk.gov.gchq.maestro.operation.jobtracker.JobStatus;
+import uk.gov.gchq.maestro.operation.user.User;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class JobExecutorTest {
+
+    @Test
+    public void shouldGetPriorityFromJobThenOpAuths() {
+        // Given
+        final Executor executor = new Executor(new Config("priority"));
+        final Map<String, JobPriority> auths = new HashMap<>();
+        auths.put("bulk", JobPriority.BATCH);
+        auths.put("analyst", JobPriority.INTERACTIVE);
+        ExecutorPropertiesUtil.setJobPriorityAuths(executor, auths);
+        final Context analyst = new Context(new User("user01", null, new HashSet<>(Arrays.asList("bulk", "analyst"))));
+        final Context bulk = new Context(new User("user02", null, new HashSet<>(Arrays.asList("bulk"))));
+        final JobDetail jobDetail = new JobDetail("job1", "user01", new Operation("op"), JobStatus.RUNNING, null);
+        final JobDetail batchJobDetail = new JobDetail("job2", "user01", new Operation("op"), JobStatus.RUNNING, null);
+        batchJobDetail.setPriority(JobPriority.BATCH);
+
+        // When / Then
+        assertEquals(JobPriority.INTERACTIVE, JobExecutor.getPriority(jobDetail, analyst, executor));
+        assertEquals(JobPriority.BATCH, JobExecutor.getPriority(jobDetail, bulk, executor));
+        assertEquals(JobPriority.NORMAL, JobExecutor.getPriority(jobDetail, new Context(), executor));
+        assertEquals(JobPriority.BATCH, JobExecutor.getPriority(batchJobDetail, analyst, executor));
+    }
+
+    @Test
+    public void shouldLimitRequestedPriorityToWhatOpAuthsAllow() {
+        // Given
+        final Executor executor = new Executor(new Config("priority"));
+        ExecutorPropertiesUtil.setJobPriorityAuths(executor, Collections.singletonMap("analyst", JobPriority.INTERACTIVE));
+        final Context analyst = new Context(new User("user01", null, Collections.singleton("analyst")));
+        final Context other = new Context(new User("user02"));
+
+        // When / Then
+        assertEquals(JobPriority.INTERACTIVE, JobExecutor.limitPriority(JobPriority.INTERACTIVE, analyst, executor));
+        assertEquals(JobPriority.NORMAL, JobExecutor.limitPriority(JobPriority.INTERACTIVE, other, executor));
+        assertEquals(JobPriority.BATCH, JobExecutor.limitPriority(JobPriority.BATCH, other, executor));
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.executor.operation.handler.job.util;
+
+import org.junit.After;
+import org.junit.Test;
+
+import uk.gov.gchq.maestro.operation.jobtracker.JobPriority;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class JobQueueTest {
+    private final List<String> ran = new CopyOnWriteArrayList<>();
+
+    @After
+    public void after() {
+        JobQueue.initialise(50, Collections.emptyMap(), 0);
+    }
+
+    @Test
+    public void shouldStartHigherPriorityJobsFirst() throws Exception {
+        // Given
+        JobQueue.initialise(1, Collections.emptyMap(), 0);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(3);
+        JobQueue.submit(() -> await(release), JobPriority.NORMAL);
+
+        // When
+        JobQueue.submit(record("batch", done), JobPriority.BATCH);
+        JobQueue.submit(record("normal", done), JobPriority.NORMAL);
+        JobQueue.submit(record("interactive", done), JobPriority.INTERACTIVE);
+        release.countDown();
+
+        // Then
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("interactive", "normal", "batch"), ran);
+    }
+
+    @Test
+    public void shouldLimitTheJobsRunningInEachClass() throws Exception {
+        // Given
+        JobQueue.initialise(3, Collections.singletonMap(JobPriority.BATCH, 1), 0);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        JobQueue.submit(() -> await(release), JobPriority.BATCH);
+        JobQueue.submit(() -> await(release), JobPriority.BATCH);
+
+        // When
+        JobQueue.submit(record("interactive", done), JobPriority.INTERACTIVE);
+
+        // Then
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(1, JobQueue.getRunning(JobPriority.BATCH));
+        assertEquals(1, JobQueue.getWaiting());
+        release.countDown();
+        waitFor(() -> 0 == JobQueue.getWaiting() && 0 == JobQueue.getRunning(JobPriority.BATCH));
+    }
+
+    @Test
+    public void shouldStartJobsThatHaveWaitedAsIfTheyWereHigherPriority() throws Exception {
+        // Given
+        JobQueue.initialise(1, Collections.emptyMap(), 50);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(2);
+        JobQueue.submit(() -> await(release), JobPriority.NORMAL);
+        JobQueue.submit(record("batch", done), JobPriority.BATCH);
+        Thread.sleep(150);
+
+        // When
+        JobQueue.submit(record("normal", done), JobPriority.NORMAL);
+        release.countDown();
+
+        // Then
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("batch", "normal"), ran);
+    }
+
+    @Test
+    public void shouldGiveWayToHigherPriorityJobsBetweenSteps() throws Exception {
+        // Given
+        JobQueue.initialise(1, Collections.emptyMap(), 0);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch queued = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(2);
+        JobQueue.submit(() -> {
+            ran.add("batch step 1");
+            started.countDown();
+            await(queued);
+            JobQueue.yieldToHigherPriority();
+            record("batch step 2", done).run();
+        }, JobPriority.BATCH);
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        // When
+        JobQueue.submit(record("interactive", done), JobPriority.INTERACTIVE);
+        queued.countDown();
+
+        // Then
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("batch step 1", "interactive", "batch step 2"), ran);
+    }
+
+    @Test
+    public void shouldNotGiveWayToLowerPriorityJobs() throws Exception {
+        // Given
+        JobQueue.initialise(1, Collections.emptyMap(), 0);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch queued = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(2);
+        JobQueue.submit(() -> {
+            started.countDown();
+            await(queued);
+            JobQueue.yieldToHigherPriority();
+            record("interactive", done).run();
+        }, JobPriority.INTERACTIVE);
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        // When
+        JobQueue.submit(record("batch", done), JobPriority.BATCH);
+        queued.countDown();
+
+        // Then
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("interactive", "batch"), ran);
+    }
+
+    @Test
+    public void shouldKeepTheLimitsOfARunningQueue() throws Exception {
+        // Given
+        JobQueue.initialise(1, Collections.emptyMap(), 0);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        JobQueue.submit(() -> await(release), JobPriority.NORMAL);
+
+        // When
+        final boolean started = JobQueue.initialiseIfDisabled(5, Collections.emptyMap(), 0);
+        JobQueue.submit(record("second", done), JobPriority.INTERACTIVE);
+
+        // Then
+        assertFalse(started);
+        assertFalse(done.await(100, TimeUnit.MILLISECONDS));
+        release.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+
+    private Runnable record(final String name, final CountDownLatch done) {
+        return () -> {
+            ran.add(name);
+            done.countDown();
+        };
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitFor(final BooleanSupplier condition) throws InterruptedException {
+        final long end = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue("Timed out waiting", System.currentTimeMillis() < end);
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.executor.operation.handler.job.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.gov.gchq.maestro.commonutil.cache.CacheServiceLoader;
+import uk.gov.gchq.maestro.commonutil.cache.impl.HashMapCacheService;
+import uk.gov.gchq.maestro.commonutil.cache.util.CacheProperties;
+import uk.gov.gchq.maestro.commonutil.exception.OperationException;
+import uk.gov.gchq.maestro.executor.Context;
+import uk.gov.gchq.maestro.executor.Executor;
+import uk.gov.gchq.maestro.executor.operation.declaration.FieldDeclaration;
+import uk.gov.gchq.maestro.executor.operation.handler.OperationHandler;
+import uk.gov.gchq.maestro.executor.operation.handler.job.CancelScheduledJobHandler;
+import uk.gov.gchq.maestro.executor.util.Config;
+import uk.gov.gchq.maestro.executor.util.ExecutorPropertiesUtil;
+import uk.gov.gchq.maestro.operation.Operation;
+import uk.gov.gchq.maestro.operation.jobtracker.JobDetail;
+import uk.gov.gchq.maestro.operation.jobtracker.JobStatus;
+import uk.gov.gchq.maestro.operation.jobtracker.JobTracker;
+import uk.gov.gchq.maestro.operation.jobtracker.Repeat;
+import uk.gov.gchq.maestro.operation.jobtracker.SchedulePolicy;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class JobSchedulerTest {
+    private static final String RUN = "run";
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final AtomicInteger RUNS = new AtomicInteger();
+    private static volatile CountDownLatch release;
+
+    private Executor executor;
+    private final Context context = new Context();
+
+    @Before
+    public void before() {
+        RUNS.set(0);
+        release = new CountDownLatch(0);
+        final Config config = new Config("scheduler");
+        config.setProperty(CacheProperties.CACHE_SERVICE, HashMapCacheService.class.getName());
+        config.addOperationHandler(RUN, new RunHandler());
+        executor = new Executor(config);
+        JobTracker.clear();
+    }
+
+    @After
+    public void after() {
+        release.countDown();
+        JobScheduler.shutdown();
+    }
+
+    @Test
+    public void shouldRunJobRepeatedlyUntilCancelled() throws Exception {
+        // Given
+        final JobDetail jobDetail = JobExecutor.scheduleJob(job(repeat(10)), context, executor);
+        waitFor(() -> 3 <= RUNS.get());
+
+        // When
+        new CancelScheduledJobHandler()._doOperation(new Operation("CancelScheduledJob")
+                .operationArg("JobId", jobDetail.getJobId()), context, executor);
+        Thread.sleep(50);
+        final int runs = RUNS.get();
+        Thread.sleep(150);
+
+        // Then
+        assertEquals(runs, RUNS.get());
+        assertNull(JobScheduler.getScheduledJob(jobDetail.getJobId()));
+        assertEquals(JobStatus.CANCELLED, JobTracker.getJob(jobDetail.getJobId()).getStatus());
+    }
+
+    @Test
+    public void shouldKeepTheRepeatAndNextRunTimeOfAScheduledJob() {
+        // Given
+        final Repeat repeat = repeat(HOUR);
+
+        // When
+        final JobDetail jobDetail = JobExecutor.scheduleJob(job(repeat), context, executor);
+
+        // Then
+        assertEquals(repeat, JobTracker.getJob(jobDetail.getJobId()).getRepeat());
+        assertEquals(JobStatus.SCHEDULED_PARENT, JobTracker.getJob(jobDetail.getJobId()).getStatus());
+        assertEquals(JobScheduler.getScheduledJob(jobDetail.getJobId()).getNextRunTime(),
+                (long) CacheServiceLoader.getService().getFromCache(JobScheduler.CACHE_NAME, jobDetail.getJobId()));
+    }
+
+    @Test
+    public void shouldSkipRunsThatOverlapARunningJob() throws Exception {
+        // Given
+        release = new CountDownLatch(1);
+
+        // When
+        final JobDetail jobDetail = JobExecutor.scheduleJob(job(repeat(10)), context, executor);
+        final ScheduledJob scheduledJob = JobScheduler.getScheduledJob(jobDetail.getJobId());
+        waitFor(() -> 3 <= scheduledJob.getSkipped());
+
+        // Then
+        assertEquals(1, RUNS.get());
+        assertEquals(0, scheduledJob.getPending());
+    }
+
+    @Test
+    public void shouldQueueRunsThatOverlapARunningJob() throws Exception {
+        // Given
+        release = new CountDownLatch(1);
+        final Repeat repeat = repeat(10);
+        repeat.setOverlapPolicy(SchedulePolicy.QUEUE);
+        repeat.setMisfirePolicy(SchedulePolicy.QUEUE);
+        final JobDetail jobDetail = JobExecutor.scheduleJob(job(repeat), context, executor);
+        final ScheduledJob scheduledJob = JobScheduler.getScheduledJob(jobDetail.getJobId());
+        waitFor(() -> 3 <= scheduledJob.getPending());
+
+        // When
+        JobScheduler.cancel(jobDetail.getJobId());
+        release.countDown();
+
+        // Then
+        waitFor(() -> !scheduledJob.isRunning());
+        assertEquals(1, RUNS.get());
+        assertEquals(0, scheduledJob.getSkipped());
+    }
+
+    @Test
+    public void shouldCoalesceRunsMissedWhileStopped() throws Exception {
+        // Given
+        final JobDetail jobDetail = JobExecutor.scheduleJob(job(repeat(HOUR)), context, executor);
+        JobScheduler.shutdown();
+        JobScheduler.saveNextRunTime(jobDetail.getJobId(), System.currentTimeMillis() - 10 * HOUR + 1000);
+
+        // When
+        executor.startScheduledJobs();
+
+        // Then
+        final ScheduledJob scheduledJob = JobScheduler.getScheduledJob(jobDetail.getJobId());
+        waitFor(() -> 1 == RUNS.get() && !scheduledJob.isRunning());
+        assertEquals(9, scheduledJob.getSkipped());
+        assertTrue(System.currentTimeMillis() < scheduledJob.getNextRunTime());
+    }
+
+    @Test
+    public void shouldQueueRunsMissedWhileStopped() throws Exception {
+        // Given
+        final Repeat repeat = repeat(HOUR);
+        repeat.setMisfirePolicy(SchedulePolicy.QUEUE);
+        final JobDetail jobDetail = JobExecutor.scheduleJob(job(repeat), context, executor);
+        JobScheduler.shutdown();
+        JobScheduler.saveNextRunTime(jobDetail.getJobId(), System.currentTimeMillis() - 3 * HOUR + 1000);
+
+        // When
+        executor.startScheduledJobs();
+
+        // Then
+        waitFor(() -> 3 == RUNS.get());
+        assertEquals(0, JobScheduler.getScheduledJob(jobDetail.getJobId()).getSkipped());
+    }
+
+    @Test
+    public void shouldLimitQueuedRunsMissedWhileStopped() throws Exception {
+        // Given
+        ExecutorPropertiesUtil.setJobSchedulerMaxCatchUp(executor, 2);
+        final Repeat repeat = repeat(HOUR);
+        repeat.setMisfirePolicy(SchedulePolicy.QUEUE);
+        final JobDetail jobDetail = JobExecutor.scheduleJob(job(repeat), context, executor);
+        JobScheduler.shutdown();
+        JobScheduler.saveNextRunTime(jobDetail.getJobId(), System.currentTimeMillis() - 5 * HOUR + 1000);
+
+        // When
+        executor.startScheduledJobs();
+
+        // Then
+        final ScheduledJob scheduledJob = JobScheduler.getScheduledJob(jobDetail.getJobId());
+        waitFor(() -> 2 == RUNS.get() && !scheduledJob.isRunning());
+        assertEquals(3, scheduledJob.getSkipped());
+    }
+
+    @Test
+    public void shouldSkipRunsMissedWhileStopped() throws Exception {
+        // Given
+        final Repeat repeat = repeat(HOUR);
+        repeat.setMisfirePolicy(SchedulePolicy.SKIP);
+        final JobDetail jobDetail = JobExecutor.scheduleJob(job(repeat), context, executor);
+        JobScheduler.shutdown();
+        JobScheduler.saveNextRunTime(jobDetail.getJobId(), System.currentTimeMillis() - 3 * HOUR + 1000);
+
+        // When
+        executor.startScheduledJobs();
+
+        // Then
+        final ScheduledJob scheduledJob = JobScheduler.getScheduledJob(jobDetail.getJobId());
+        waitFor(() -> 3 == scheduledJob.getSkipped());
+        assertEquals(0, RUNS.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectJitterOfAWholePeriod() {
+        // Given
+        final Repeat repeat = repeat(HOUR);
+        repeat.setJitter(HOUR);
+
+        // When
+        JobExecutor.scheduleJob(job(repeat), context, executor);
+    }
+
+    private static JobDetail job(final Repeat repeat) {
+        final JobDetail jobDetail = new JobDetail(null, null, new Operation(RUN), JobStatus.RUNNING, null);
+        jobDetail.setRepeat(repeat);
+        return jobDetail;
+    }
+
+    private static Repeat repeat(final long period) {
+        return new Repeat(0, period, TimeUnit.MILLISECONDS);
+    }
+
+    private static void waitFor(final BooleanSupplier condition) throws InterruptedException {
+        final long end = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue("Timed out waiting", System.currentTimeMillis() < end);
+            Thread.sleep(5);
+        }
+    }
+
+    public static class RunHandler implements OperationHandler {
+        @Override
+        public Object _doOperation(final Operation operation, final Context context, final Executor executor) throws OperationException {
+            RUNS.incrementAndGet();
+            try {
+                release.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }
+
+        @Override
+        public FieldDeclaration getFieldDeclaration() {
+            return new FieldDeclaration();
+        }
+    }
+}
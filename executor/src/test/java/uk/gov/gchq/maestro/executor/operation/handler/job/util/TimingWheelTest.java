@@ -0,0 +1,87 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.executor.operation.handler.job.util;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TimingWheelTest {
+    private final TimingWheel wheel = new TimingWheel("test-wheel", 1, 8);
+
+    @After
+    public void after() {
+        wheel.stop();
+    }
+
+    @Test
+    public void shouldRunTasksInTimeOrderAcrossWheels() throws Exception {
+        // Given
+        final List<Integer> ran = new CopyOnWriteArrayList<>();
+        final CountDownLatch latch = new CountDownLatch(4);
+        final long now = System.currentTimeMillis();
+
+        // When
+        for (final int delay : Arrays.asList(150, 5, 40, 80)) {
+            wheel.schedule(now + delay, () -> {
+                ran.add(delay);
+                latch.countDown();
+            });
+        }
+
+        // Then
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(5, 40, 80, 150), ran);
+    }
+
+    @Test
+    public void shouldRunTasksDueInThePast() throws Exception {
+        // Given
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        // When
+        wheel.schedule(System.currentTimeMillis() - 1000, latch::countDown);
+
+        // Then
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldNotRunCancelledTasks() throws Exception {
+        // Given
+        final List<String> ran = new CopyOnWriteArrayList<>();
+        final CountDownLatch latch = new CountDownLatch(1);
+        final long now = System.currentTimeMillis();
+        final TimingWheel.Timeout cancelled = wheel.schedule(now + 20, () -> ran.add("cancelled"));
+        wheel.schedule(now + 40, latch::countDown);
+
+        // When
+        cancelled.cancel();
+
+        // Then
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(ran.isEmpty());
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.executor.util;
+
+import org.junit.Test;
+
+import uk.gov.gchq.maestro.commonutil.exception.OperationException;
+import uk.gov.gchq.maestro.commonutil.exception.Status;
+import uk.gov.gchq.maestro.operation.Operation;
+import uk.gov.gchq.maestro.operation.OperationChain;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class OperationCapabilitiesTest {
+    private final OperationCapabilities capabilities = new OperationCapabilities(
+            Arrays.asList("OperationChain", "GetAll", "Limit"),
+            Arrays.asList(
+                    detail("GetAll", field("Input", true), field("View", false)),
+                    detail("Limit", field("Input", true), field("ResultLimit", true))));
+
+    @Test
+    public void shouldAcceptSupportedOperationWithRequiredFields() throws Exception {
+        capabilities.validate(new Operation("GetAll").operationArg("Input", "a"));
+    }
+
+    @Test
+    public void shouldRejectUnsupportedOperation() throws Exception {
+        try {
+            capabilities.validate(new Operation("Delete"));
+            fail("Exception expected");
+        } catch (final OperationException e) {
+            assertEquals(Status.BAD_REQUEST, e.getStatus());
+            assertTrue(e.getMessage(), e.getMessage().contains("Delete"));
+        }
+    }
+
+    @Test
+    public void shouldRejectOperationMissingRequiredFields() throws Exception {
+        try {
+            capabilities.validate(new Operation("Limit"));
+            fail("Exception expected");
+        } catch (final OperationException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("[Input, ResultLimit]"));
+        }
+    }
+
+    @Test
+    public void shouldRejectChainContainingUnsupportedOperation() throws Exception {
+        final OperationChain chain = new OperationChain("OperationChain", Arrays.asList(new Operation("GetAll"), new Operation("Delete")),
+                new HashMap<>(), new HashMap<>());
+        try {
+            capabilities.validate(chain);
+            fail("Exception expected");
+        } catch (final OperationException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("Delete"));
+        }
+    }
+
+    @Test
+    public void shouldNotCheckFieldsOfChainedOperations() throws Exception {
+        capabilities.validate(new OperationChain("OperationChain", Arrays.asList(new Operation("GetAll"), new Operation("Limit")),
+                new HashMap<>(), new HashMap<>()));
+    }
+
+    @Test
+    public void shouldReturnOperationDetailsByType() {
+        assertEquals(Arrays.asList("OperationChain", "GetAll", "Limit"), Arrays.asList(capabilities.getOperations().toArray()));
+        assertEquals(2, capabilities.getOperationDetails().size());
+        assertEquals("Limit", capabilities.getOperationDetails("Limit").get("operationType"));
+    }
+
+    private static Map<String, Object> detail(final String operationType, final Map<?, ?>... fields) {
+        final Map<String, Object> detail = new HashMap<>();
+        detail.put("operationType", operationType);
+        final List<Map<?, ?>> fieldList = Arrays.asList(fields);
+        detail.put("fields", fieldList);
+        return detail;
+    }
+
+    private static Map<String, Object> field(final String name, final boolean required) {
+        final Map<String, Object> field = new HashMap<>(Collections.singletonMap("name", name));
+        field.put("required", required);
+        return field;
+    }
+}
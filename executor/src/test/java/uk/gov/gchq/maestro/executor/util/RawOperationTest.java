@@ -0,0 +1,96 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.executor.util;
+
+import org.junit.Test;
+
+import uk.gov.gchq.maestro.commonutil.StringUtil;
+import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.WireFormat;
+import uk.gov.gchq.maestro.executor.Context;
+import uk.gov.gchq.maestro.operation.Operation;
+import uk.gov.gchq.maestro.operation.OperationChain;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RawOperationTest {
+    private static final byte[] BYTES = StringUtil.toBytes("{}");
+
+    @Test
+    public void shouldMatchUnchangedOperationAndWrappingChain() {
+        // Given
+        final Operation operation = new Operation("op").operationArg("key", "value");
+        final RawOperation rawOperation = new RawOperation(BYTES, WireFormat.JSON, operation);
+
+        // Then
+        assertTrue(rawOperation.matches(operation));
+        assertTrue(rawOperation.matches(operation.shallowClone()));
+        assertTrue(rawOperation.matches(OperationChain.wrap("op", operation)));
+    }
+
+    @Test
+    public void shouldNotMatchOnceAHookChangesTheOperation() {
+        // Given
+        final Operation operation = new Operation("op").operationArg("key", "value");
+        final RawOperation rawOperation = new RawOperation(BYTES, WireFormat.JSON, operation);
+
+        // When
+        operation.operationArg("key", new String("value"));
+
+        // Then
+        assertFalse(rawOperation.matches(operation));
+        assertFalse(rawOperation.matches(new Operation("other").operationArg("key", "value")));
+    }
+
+    @Test
+    public void shouldNotMatchOnceOptionsOrNestedOperationsChange() {
+        // Given
+        final Operation first = new Operation("first");
+        final Operation second = new Operation("second");
+        final OperationChain chain = new OperationChain("chain", Arrays.asList(first, second), null, null);
+        final RawOperation rawOperation = new RawOperation(BYTES, WireFormat.JSON, chain);
+        assertTrue(rawOperation.matches(chain));
+
+        // When
+        second.operationArg("added", 1);
+
+        // Then
+        assertFalse(rawOperation.matches(chain));
+        second.getOperationArgs().remove("added");
+        assertTrue(rawOperation.matches(chain));
+        chain.option("option", "value");
+        assertFalse(rawOperation.matches(chain));
+    }
+
+    @Test
+    public void shouldAttachToContextAndSurviveCloning() {
+        // Given
+        final Context context = new Context();
+        final RawOperation rawOperation = new RawOperation(BYTES, WireFormat.JSON, new Operation("op"));
+        assertNull(RawOperation.from(context));
+
+        // When
+        rawOperation.attachTo(context);
+
+        // Then
+        assertSame(rawOperation, RawOperation.from(context.shallowClone()));
+    }
+}
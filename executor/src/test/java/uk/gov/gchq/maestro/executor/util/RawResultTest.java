@@ -0,0 +1,59 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.executor.util;
+
+import org.junit.Test;
+
+import uk.gov.gchq.maestro.commonutil.StringUtil;
+import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.JSONSerialiser;
+import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.WireFormat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class RawResultTest {
+    private static final String RESULT = "{\"a\":[1,2,\"three\"]}";
+
+    @Test
+    public void shouldWriteJsonResultAsIs() throws Exception {
+        // Given
+        final Map<String, Object> response = Collections.singletonMap("result", new RawResult(StringUtil.toBytes(RESULT), WireFormat.JSON));
+
+        // When
+        final byte[] json = JSONSerialiser.serialise(response);
+
+        // Then
+        assertEquals("{\"result\":" + RESULT + "}", StringUtil.toString(json));
+    }
+
+    @Test
+    public void shouldCopyResultIntoEachWireFormat() throws Exception {
+        for (final WireFormat format : WireFormat.values()) {
+            // Given
+            final Map<String, Object> response = Collections.singletonMap("result", new RawResult(StringUtil.toBytes(RESULT), WireFormat.JSON));
+
+            // When
+            final Map<?, ?> decoded = JSONSerialiser.deserialise(JSONSerialiser.serialise(response, format), Map.class, format);
+
+            // Then
+            assertEquals(format.toString(), Collections.singletonMap("a", Arrays.asList(1, 2, "three")), decoded.get("result"));
+        }
+    }
+}
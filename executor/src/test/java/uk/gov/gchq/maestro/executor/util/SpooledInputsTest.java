@@ -0,0 +1,74 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.executor.util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import uk.gov.gchq.maestro.commonutil.iterable.SpooledCloseableIterable;
+import uk.gov.gchq.maestro.operation.Operation;
+import uk.gov.gchq.maestro.operation.OperationChain;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SpooledInputsTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldFindSpooledInputsOfChainStepsAndNestedOperations() throws IOException {
+        final SpooledCloseableIterable<String> first = spool();
+        final SpooledCloseableIterable<String> nested = spool();
+        final OperationChain chain = new OperationChain("OperationChain", Arrays.asList(
+                new Operation("Limit").input(first),
+                new Operation("Wrapper").operationArg("Operation", new Operation("GetAll").input(nested))), null, null);
+
+        assertEquals(Arrays.asList(first, nested), SpooledInputs.find(chain));
+    }
+
+    @Test
+    public void shouldLeaveSpooledInputsOfJobsToTheJob() throws IOException {
+        final SpooledCloseableIterable<String> request = spool();
+        final SpooledCloseableIterable<String> job = spool();
+        final OperationChain chain = new OperationChain("OperationChain", Arrays.asList(
+                new Operation("Limit").input(request),
+                new Operation("Job").operationArg(SpooledInputs.JOB_OPERATION, new Operation("GetAll").input(job))), null, null);
+
+        assertEquals(Arrays.asList(request), SpooledInputs.find(chain));
+        assertEquals(Arrays.asList(job), SpooledInputs.find((Operation) chain.getOperations().get(1).get(SpooledInputs.JOB_OPERATION)));
+    }
+
+    @Test
+    public void shouldDeleteSpoolFilesWhenClosed() throws IOException {
+        final SpooledCloseableIterable<String> input = spool();
+        assertTrue(input.getFile().exists());
+
+        SpooledInputs.close(new Operation("Limit").input(input));
+
+        assertFalse(input.getFile().exists());
+    }
+
+    private SpooledCloseableIterable<String> spool() throws IOException {
+        return new SpooledCloseableIterable<>(folder.newFile(), String.class);
+    }
+}
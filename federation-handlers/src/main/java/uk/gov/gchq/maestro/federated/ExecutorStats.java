@@ -0,0 +1,160 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.federated;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * The latency and error statistics of calls from a federated executor to one
+ * of its sub executors.
+ * </p>
+ * <p>
+ * Latencies are kept in histograms of power of two millisecond buckets, one
+ * for calls that succeeded and one for calls that failed or timed out. Once a
+ * histogram holds {@value #WINDOW} calls its counts are halved, so the
+ * percentiles follow recent calls. After a number of consecutive failures the
+ * executor is excluded from federated calls for a time.
+ * </p>
+ */
+public class ExecutorStats {
+    private static final int WINDOW = 1024;
+    private static final int MIN_SAMPLES = 10;
+
+    private final Histogram latencies = new Histogram();
+    private final Histogram errorLatencies = new Histogram();
+    private long calls;
+    private long errors;
+    private int consecutiveErrors;
+    private long excludedUntil;
+
+    public synchronized void recordSuccess(final long latency) {
+        latencies.record(latency);
+        calls++;
+        consecutiveErrors = 0;
+    }
+
+    /**
+     * Records a failed call, excluding the executor if it has now failed too
+     * many times in a row.
+     *
+     * @param latency          how long the call took, in milliseconds
+     * @param now              the current time in milliseconds
+     * @param failureThreshold the consecutive failures that exclude the
+     *                         executor, or zero to never exclude it
+     * @param exclusionTime    how long, in milliseconds, it is excluded for
+     */
+    public synchronized void recordFailure(final long latency, final long now, final int failureThreshold, final long exclusionTime) {
+        errorLatencies.record(latency);
+        calls++;
+        errors++;
+        consecutiveErrors++;
+        if (0 < failureThreshold && consecutiveErrors >= failureThreshold) {
+            excludedUntil = now + exclusionTime;
+        }
+    }
+
+    /**
+     * @param now the current time in milliseconds
+     * @return true if the executor should not be called now
+     */
+    public synchronized boolean isExcluded(final long now) {
+        return now < excludedUntil;
+    }
+
+    /**
+     * @param percentile the percentile, between 0 and 100
+     * @return the upper bound of the latency of successful calls at the
+     * percentile, or -1 if none have been recorded
+     */
+    public synchronized long getPercentile(final double percentile) {
+        return latencies.getPercentile(percentile);
+    }
+
+    /**
+     * Derives a timeout from the 99th percentile latency of successful calls.
+     * Until enough calls have been recorded the maximum timeout is used.
+     *
+     * @param factor     the multiple of the 99th percentile latency
+     * @param minTimeout the least timeout, in milliseconds
+     * @param maxTimeout the greatest timeout, in milliseconds
+     * @return the timeout in milliseconds
+     */
+    public synchronized long getTimeout(final double factor, final long minTimeout, final long maxTimeout) {
+        if (latencies.count < MIN_SAMPLES) {
+            return maxTimeout;
+        }
+        final long timeout = (long) Math.ceil(latencies.getPercentile(99) * factor);
+        return Math.max(minTimeout, Math.min(maxTimeout, timeout));
+    }
+
+    /**
+     * @param now the current time in milliseconds
+     * @return the statistics, keyed by name
+     */
+    public synchronized Map<String, Object> toMap(final long now) {
+        final Map<String, Object> rtn = new LinkedHashMap<>();
+        rtn.put("calls", calls);
+        rtn.put("errors", errors);
+        rtn.put("consecutiveErrors", consecutiveErrors);
+        rtn.put("p50", latencies.getPercentile(50));
+        rtn.put("p99", latencies.getPercentile(99));
+        rtn.put("errorP50", errorLatencies.getPercentile(50));
+        rtn.put("excluded", isExcluded(now));
+        rtn.put("excludedUntil", excludedUntil);
+        return rtn;
+    }
+
+    // Bucket i counts latencies of less than 2^i milliseconds, the last
+    // bucket counts the rest.
+    private static final class Histogram {
+        private final long[] buckets = new long[24];
+        private long count;
+
+        private void record(final long latency) {
+            int bucket = 0;
+            while (bucket < buckets.length - 1 && latency >= 1L << bucket) {
+                bucket++;
+            }
+            buckets[bucket]++;
+            count++;
+            if (count >= WINDOW) {
+                count = 0;
+                for (int i = 0; i < buckets.length; i++) {
+                    buckets[i] /= 2;
+                    count += buckets[i];
+                }
+            }
+        }
+
+        private long getPercentile(final double percentile) {
+            if (0 == count) {
+                return -1;
+            }
+            final double target = Math.max(1, Math.ceil(percentile / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= target) {
+                    return 1L << i;
+                }
+            }
+            return 1L << (buckets.length - 1);
+        }
+    }
+}
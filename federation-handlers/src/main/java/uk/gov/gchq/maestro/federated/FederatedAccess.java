@@ -26,11 +26,13 @@ import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import uk.gov.gchq.maestro.federated.partition.PartitionDescriptor;
 import uk.gov.gchq.maestro.operation.user.User;
 
 import java.io.Serializable;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Objects;
 import java.util.Set;
 
 import static java.util.Objects.nonNull;
@@ -74,6 +76,7 @@ public class FederatedAccess implements Serializable, Comparable<FederatedAccess
     private Set<String> auths = new HashSet<>();
     private String addingUserId;
     private boolean disabledByDefault;
+    private PartitionDescriptor partition;
 
     public FederatedAccess(final Set<String> auths, final String addingUserId) {
         setAuths(auths);
@@ -93,12 +96,17 @@ public class FederatedAccess implements Serializable, Comparable<FederatedAccess
         this.isPublic = isPublic;
     }
 
-    @JsonCreator
-    public FederatedAccess(@JsonProperty("auths") final Set<String> auths, @JsonProperty("addingUser") final String addingUser, @JsonProperty("isPublic") final boolean isPublic, @JsonProperty("disabledByDefault") final boolean disabledByDefault) {
+    public FederatedAccess(final Set<String> auths, final String addingUser, final boolean isPublic, final boolean disabledByDefault) {
         this(auths, addingUser, isPublic);
         this.disabledByDefault = disabledByDefault;
     }
 
+    @JsonCreator
+    public FederatedAccess(@JsonProperty("auths") final Set<String> auths, @JsonProperty("addingUser") final String addingUser, @JsonProperty("isPublic") final boolean isPublic, @JsonProperty("disabledByDefault") final boolean disabledByDefault, @JsonProperty("partition") final PartitionDescriptor partition) {
+        this(auths, addingUser, isPublic, disabledByDefault);
+        this.partition = partition;
+    }
+
     public String getAddingUserId() {
         return addingUserId;
     }
@@ -111,6 +119,14 @@ public class FederatedAccess implements Serializable, Comparable<FederatedAccess
         return disabledByDefault;
     }
 
+    /**
+     * @return the part of a partitioned dataset held by the executor, or null
+     * if the executor is not partitioned
+     */
+    public PartitionDescriptor getPartition() {
+        return partition;
+    }
+
     /**
      * <table summary="isValidToExecute truth table">
      * <tr><td> hookAuthsEmpty  </td><td> isAddingUser</td><td>
@@ -180,6 +196,7 @@ public class FederatedAccess implements Serializable, Comparable<FederatedAccess
                 .append(auths, that.auths)
                 .append(addingUserId, that.addingUserId)
                 .append(disabledByDefault, that.disabledByDefault)
+                .append(partition, that.partition)
                 .isEquals();
     }
 
@@ -190,6 +207,7 @@ public class FederatedAccess implements Serializable, Comparable<FederatedAccess
                 .append(auths)
                 .append(addingUserId)
                 .append(disabledByDefault)
+                .append(partition)
                 .toHashCode();
     }
 
@@ -215,6 +233,14 @@ public class FederatedAccess implements Serializable, Comparable<FederatedAccess
             }
         }
 
+        if (0 == cb.toComparison() && !Objects.equals(this.partition, that.partition)) {
+            if (null == this.partition || null == that.partition) {
+                cb.append(null != this.partition, null != that.partition);
+            } else {
+                cb.append(this.partition.toString(), that.partition.toString());
+            }
+        }
+
         return cb.toComparison();
     }
 }
@@ -30,17 +30,22 @@ import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import uk.gov.gchq.maestro.commonutil.Pair;
 import uk.gov.gchq.maestro.commonutil.cache.CacheServiceLoader;
 import uk.gov.gchq.maestro.commonutil.exception.CacheOperationException;
 import uk.gov.gchq.maestro.commonutil.exception.MaestroCheckedException;
 import uk.gov.gchq.maestro.commonutil.exception.OverwritingException;
 import uk.gov.gchq.maestro.executor.Executor;
+import uk.gov.gchq.maestro.executor.operation.handler.DefaultHandler;
+import uk.gov.gchq.maestro.executor.operation.handler.OperationHandler;
+import uk.gov.gchq.maestro.federated.partition.PartitionDescriptor;
 import uk.gov.gchq.maestro.operation.user.User;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -49,6 +54,9 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -56,20 +64,36 @@ import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 
 
+/**
+ * The executors of a federated executor, grouped by the {@link FederatedAccess}
+ * that controls who can see them.
+ * <p>
+ * Alongside the grouped storage, which is what is serialised, an index from
+ * executor id to executor and access is kept, so adding, removing and
+ * getting executors by id costs the number of ids involved rather than the
+ * number of executors stored. The ids of the executors supporting each
+ * operation are indexed too, for routing operations to capable executors.
+ * </p>
+ * <p>
+ * Both are held in an immutable snapshot. Reads use whichever snapshot is
+ * current without locking, so a query sees a consistent set of executors
+ * while others are being added or removed. Writes are serialised, build
+ * a new snapshot sharing the unchanged parts of the current one, and then
+ * publish it in one step.
+ * </p>
+ */
 @JsonPropertyOrder(value = {"class", "storage"}, alphabetic = true)
 @JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, include = JsonTypeInfo.As.PROPERTY, property = "class")
 public class FederatedExecutorStorage implements Serializable {
     private static final Logger LOGGER = LoggerFactory.getLogger(FederatedExecutorStorage.class);
     public static final boolean DEFAULT_DISABLED_BY_DEFAULT = false;
+    public static final int DEFAULT_WARM_UP_PARALLELISM = 4;
     public static final String USER_IS_ATTEMPTING_TO_OVERWRITE = "User is attempting to overwrite a executor within FederatedStore. ExecutorId: %s";
     public static final String ACCESS_IS_NULL = "Can not put executor into storage without a FederatedAccess key.";
     public static final String GRAPH_IDS_NOT_VISIBLE = "The following executorIds are not visible or do not exist: %s";
     public static final String ERROR_GETTING_S_FROM_FEDERATED_EXECUTOR_STORAGE_S = "Error getting: %s from FederatedExecutorStorage -> %s";
     private static final long serialVersionUID = -306891755744655032L;
-    @JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, include = JsonTypeInfo.As.PROPERTY, property = "class")
-    @JsonSerialize(keyUsing = MapStorageSerialiser.class)
-    @JsonDeserialize(keyUsing = MapStorageDeserialiser.class)
-    private final TreeMap<FederatedAccess, TreeSet<Executor>> storage = new TreeMap<>();
+    private volatile Snapshot snapshot = new Snapshot();
     private FederatedExecutorCache federatedStoreCache = new FederatedExecutorCache();
     private Boolean isCacheEnabled = false;
     // private ExecutorLibrary executorLibrary; TODO
@@ -79,30 +103,114 @@ public class FederatedExecutorStorage implements Serializable {
     }
 
     @JsonCreator
-    public FederatedExecutorStorage(@JsonProperty("storage") final Map<FederatedAccess, TreeSet<Executor>> storage) {
-        this.storage.putAll(storage);
+    public FederatedExecutorStorage(@JsonProperty("storage") @JsonDeserialize(keyUsing = MapStorageDeserialiser.class) final Map<FederatedAccess, TreeSet<Executor>> storage) {
+        final Snapshot next = new Snapshot();
+        for (final Map.Entry<FederatedAccess, TreeSet<Executor>> entry : storage.entrySet()) {
+            for (final Executor executor : entry.getValue()) {
+                next.add(executor, entry.getKey());
+            }
+        }
+        this.snapshot = next;
     }
 
     @JsonGetter("storage")
+    @JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, include = JsonTypeInfo.As.PROPERTY, property = "class")
+    @JsonSerialize(keyUsing = MapStorageSerialiser.class)
     public Map<FederatedAccess, TreeSet<Executor>> getStorage() {
-        // return Collections.unmodifiableMap(storage);
-        return storage;
+        return Collections.unmodifiableMap(snapshot.storage);
+    }
+
+    /**
+     * Adds all the executors of another storage to this one. Executors that
+     * are already stored with the same access are skipped.
+     *
+     * @param other the storage to add the executors of
+     * @throws MaestroCheckedException if an executor id is already stored
+     *                                 with a different executor or access
+     */
+    public synchronized void putAll(final FederatedExecutorStorage other) throws MaestroCheckedException {
+        final Snapshot next = snapshot.copy();
+        final List<Pair<Executor, FederatedAccess>> added = new ArrayList<>();
+        for (final Map.Entry<FederatedAccess, TreeSet<Executor>> entry : other.snapshot.storage.entrySet()) {
+            for (final Executor executor : entry.getValue()) {
+                final Pair<Executor, FederatedAccess> existing = next.index.get(executor.getId());
+                if (null == existing
+                        || !existing.getSecond().equals(entry.getKey())
+                        || !existing.getFirst().equals(executor)) {
+                    add(next, executor, entry.getKey(), added);
+                }
+            }
+        }
+        publish(next, added);
     }
 
     protected void startCacheServiceLoader() throws MaestroCheckedException {
         if (CacheServiceLoader.isEnabled()) {
             isCacheEnabled = true;
             makeAllExecutorsFromCache();
+            warmUp(DEFAULT_WARM_UP_PARALLELISM);
+        }
+    }
+
+    /**
+     * Materialises, in the background, every {@link LazyExecutor} stored.
+     * An executor that fails to materialise is logged, and is attempted
+     * again when it is first used.
+     *
+     * @param parallelism the number of executors materialised at once.
+     * @return a future completed once every executor has been attempted.
+     */
+    public CompletableFuture<Void> warmUp(final int parallelism) {
+        final List<LazyExecutor> lazyExecutors = new ArrayList<>();
+        for (final Pair<Executor, FederatedAccess> entry : snapshot.index.values()) {
+            if (entry.getFirst() instanceof LazyExecutor && !((LazyExecutor) entry.getFirst()).isMaterialised()) {
+                lazyExecutors.add((LazyExecutor) entry.getFirst());
+            }
+        }
+        if (lazyExecutors.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        final ExecutorService warmUpService = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, lazyExecutors.size())), runnable -> {
+            final Thread thread = new Thread(runnable, "federated-warm-up");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final CompletableFuture[] futures = new CompletableFuture[lazyExecutors.size()];
+        for (int i = 0; i < futures.length; i++) {
+            final LazyExecutor lazyExecutor = lazyExecutors.get(i);
+            futures[i] = CompletableFuture.runAsync(() -> {
+                try {
+                    lazyExecutor.materialise();
+                } catch (final Exception e) {
+                    LOGGER.warn("Failed to warm up executor: {} it will be materialised on first use. {}", lazyExecutor.getId(), e.getMessage());
+                }
+            }, warmUpService);
         }
+        warmUpService.shutdown();
+        return CompletableFuture.allOf(futures);
     }
 
-    public void put(final Collection<Executor> executors, final FederatedAccess access) throws MaestroCheckedException {
+    public synchronized void put(final Collection<Executor> executors, final FederatedAccess access) throws MaestroCheckedException {
+        final Snapshot next = snapshot.copy();
+        final List<Pair<Executor, FederatedAccess>> added = new ArrayList<>();
         for (final Executor executor : executors) {
-            put(executor, access);
+            add(next, executor, access, added);
         }
+        publish(next, added);
     }
 
-    public FederatedExecutorStorage put(final Executor addingExecutor, final FederatedAccess access) throws MaestroCheckedException {
+    public synchronized FederatedExecutorStorage put(final Executor addingExecutor, final FederatedAccess access) throws MaestroCheckedException {
+        final Snapshot next = snapshot.copy();
+        final List<Pair<Executor, FederatedAccess>> added = new ArrayList<>();
+        add(next, addingExecutor, access, added);
+        publish(next, added);
+        return this;
+    }
+
+    // Adds the executor to the unpublished snapshot only, recording it so
+    // the cache is written once every executor has been added.
+    private void add(final Snapshot next, final Executor addingExecutor, final FederatedAccess access, final List<Pair<Executor, FederatedAccess>> added) throws MaestroCheckedException {
         if (nonNull(addingExecutor)) {
             try {
                 if (isNull(access)) {
@@ -113,19 +221,9 @@ public class FederatedExecutorStorage implements Serializable {
                 //     executorLibrary.checkExisting(executorId, addingExecutor.getDeserialisedSchema(), addingExecutor.getDeserialisedProperties());
                 // }
 
-                validateExisting(addingExecutor);
-                if (isCacheEnabled()) {
-                    addToCache(addingExecutor, access);
-                }
-
-                TreeSet<Executor> existingExecutors = storage.get(access);
-                if (null == existingExecutors) {
-                    existingExecutors = new TreeSet<>();
-                    existingExecutors.add(addingExecutor);
-                    storage.put(access, existingExecutors);
-                } else {
-                    existingExecutors.add(addingExecutor);
-                }
+                validateExisting(next, addingExecutor);
+                next.add(addingExecutor, access);
+                added.add(new Pair<>(addingExecutor, access));
             } catch (final Exception e) {
                 final String message = "Error adding addingExecutor id: " + addingExecutor.getId() + " to storage";
                 LOGGER.error(message);
@@ -136,7 +234,6 @@ public class FederatedExecutorStorage implements Serializable {
             LOGGER.error(message);
             throw new MaestroCheckedException(message);
         }
-        return this;
     }
 
 
@@ -176,25 +273,17 @@ public class FederatedExecutorStorage implements Serializable {
      * @return if a executor was removed.
      * @see #isValidToView(User, FederatedAccess)
      */
-    public boolean remove(final String executorId, final User user) {
-        boolean isRemoved = false;
-        for (final Map.Entry<FederatedAccess, TreeSet<Executor>> entry : storage.entrySet()) {
-            if (isValidToView(user, entry.getKey())) {
-                final Set<Executor> executors = entry.getValue();
-                if (null != executors) {
-                    HashSet<Executor> remove = Sets.newHashSet();
-                    for (final Executor executor : executors) {
-                        if (executor.getId().equals(executorId)) {
-                            remove.add(executor);
-                            deleteFromCache(executorId);
-                            isRemoved = true;
-                        }
-                    }
-                    executors.removeAll(remove);
-                }
-            }
+    public synchronized boolean remove(final String executorId, final User user) {
+        final Pair<Executor, FederatedAccess> entry = snapshot.index.get(executorId);
+        if (null == entry || !isValidToView(user, entry.getSecond())) {
+            return false;
         }
-        return isRemoved;
+
+        final Snapshot next = snapshot.copy();
+        next.remove(entry);
+        snapshot = next;
+        deleteFromCache(executorId);
+        return true;
     }
 
     private void deleteFromCache(final String executorId) {
@@ -209,41 +298,89 @@ public class FederatedExecutorStorage implements Serializable {
             return Collections.emptyList();
         }
 
-        try {
-            validateAllGivenExecutorIdsAreVisibleForUser(user, executorIds);
-        } catch (final MaestroCheckedException e) {
-            throw new MaestroCheckedException(String.format(ERROR_GETTING_S_FROM_FEDERATED_EXECUTOR_STORAGE_S, executorIds.toString(), e.getMessage()), e);
+        final Map<String, Pair<Executor, FederatedAccess>> index = snapshot.index;
+        final Set<Executor> rtn = new LinkedHashSet<>();
+        final Set<String> notVisibleIds = Sets.newHashSet();
+        for (final String executorId : executorIds) {
+            final Pair<Executor, FederatedAccess> entry = index.get(executorId);
+            if (null == entry || !isValidToView(user, entry.getSecond())) {
+                notVisibleIds.add(executorId);
+            } else {
+                rtn.add(entry.getFirst());
+            }
         }
-        Stream<Executor> configs = getStream(user, executorIds);
-        if (null != executorIds) {
-            configs = configs.sorted(Comparator.comparingInt(g -> executorIds.indexOf(g.getId())));
+
+        if (!notVisibleIds.isEmpty()) {
+            final IllegalArgumentException e = new IllegalArgumentException(String.format(GRAPH_IDS_NOT_VISIBLE, notVisibleIds));
+            final MaestroCheckedException cause = new MaestroCheckedException(e.getMessage(), e);
+            throw new MaestroCheckedException(String.format(ERROR_GETTING_S_FROM_FEDERATED_EXECUTOR_STORAGE_S, executorIds.toString(), cause.getMessage()), cause);
         }
-        final LinkedHashSet<Executor> rtn = configs.collect(Collectors.toCollection(LinkedHashSet::new));
         return Collections.unmodifiableSet(rtn);
     }
 
+    /**
+     * Returns the executors that are enabled by default, visible to the user
+     * and able to handle the operation, in executor id order. Executors
+     * with their own default handler are assumed to handle any operation.
+     *
+     * @param user        to match visibility against.
+     * @param operationId the id of the operation to be handled.
+     * @return the capable executors.
+     */
+    public Collection<Executor> getCapable(final User user, final String operationId) {
+        final Snapshot current = snapshot;
+        final Set<String> capableIds = new TreeSet<>(current.unrestricted);
+        final Set<String> supportingIds = current.capabilities.get(operationId);
+        if (null != supportingIds) {
+            capableIds.addAll(supportingIds);
+        }
 
-    private void validateAllGivenExecutorIdsAreVisibleForUser(final User user, final Collection<String> executorIds) throws MaestroCheckedException {
-        if (null != executorIds) {
-            final Collection<String> visibleIds = getAllIds(user);
-            if (!visibleIds.containsAll(executorIds)) {
-                final Set<String> notVisibleIds = Sets.newHashSet(executorIds);
-                notVisibleIds.removeAll(visibleIds);
-                final IllegalArgumentException e = new IllegalArgumentException(String.format(GRAPH_IDS_NOT_VISIBLE, notVisibleIds));
-                throw new MaestroCheckedException(e.getMessage(), e);
+        final Set<Executor> rtn = new LinkedHashSet<>();
+        for (final String executorId : capableIds) {
+            final Pair<Executor, FederatedAccess> entry = current.index.get(executorId);
+            if (isValidToView(user, entry.getSecond()) && !entry.getSecond().isDisabledByDefault()) {
+                rtn.add(entry.getFirst());
             }
         }
+        return Collections.unmodifiableSet(rtn);
     }
 
-    private void validateExisting(final Executor addingConfig) {
-        final String addingConfigId = addingConfig.getId();
-        for (final Set<Executor> executors : storage.values()) {
-            for (final Executor e : executors) {
-                if (e.getId().equals(addingConfigId)) {
-                    throw new OverwritingException((String.format(USER_IS_ATTEMPTING_TO_OVERWRITE, addingConfigId)));
+    /**
+     * @param executorId the id of the executor.
+     * @return the partition held by the executor, or null if the executor is
+     * not partitioned or not stored.
+     */
+    public PartitionDescriptor getPartition(final String executorId) {
+        final Pair<Executor, FederatedAccess> entry = snapshot.index.get(executorId);
+        return null == entry ? null : entry.getSecond().getPartition();
+    }
+
+    /**
+     * Returns the operations supported by any of the executors visible to
+     * the user.
+     *
+     * @param user to match visibility against.
+     * @return the merged supported operations.
+     */
+    public Set<String> getSupportedOperations(final User user) {
+        final Snapshot current = snapshot;
+        final Set<String> rtn = new TreeSet<>();
+        for (final Map.Entry<String, TreeSet<String>> entry : current.capabilities.entrySet()) {
+            for (final String executorId : entry.getValue()) {
+                if (isValidToView(user, current.index.get(executorId).getSecond())) {
+                    rtn.add(entry.getKey());
+                    break;
                 }
             }
         }
+        return Collections.unmodifiableSet(rtn);
+    }
+
+    private void validateExisting(final Snapshot next, final Executor addingConfig) {
+        final String addingConfigId = addingConfig.getId();
+        if (next.index.containsKey(addingConfigId)) {
+            throw new OverwritingException((String.format(USER_IS_ATTEMPTING_TO_OVERWRITE, addingConfigId)));
+        }
     }
 
     /**
@@ -257,59 +394,57 @@ public class FederatedExecutorStorage implements Serializable {
         return null != access && access.isValidToExecute(user);
     }
 
-    /**
-     * @param user        to match visibility against.
-     * @param executorIds filter on executorIds
-     * @return a stream of executors for the given executorIds and the user has visibility for.
-     * If executorIds is null then only enabled by default executors are returned that the user can see.
-     */
-    private Stream<Executor> getStream(final User user, final Collection<String> executorIds) {
-        if (null == executorIds) {
-            return storage.entrySet()
-                    .stream()
-                    .filter(entry -> isValidToView(user, entry.getKey()))
-                    .filter(entry -> !entry.getKey().isDisabledByDefault())
-                    .flatMap(entry -> entry.getValue().stream());
-        }
-
-        return storage.entrySet()
-                .stream()
-                .filter(entry -> isValidToView(user, entry.getKey()))
-                .flatMap(entry -> entry.getValue().stream())
-                .filter(config -> executorIds.contains(config.getId()));
-    }
-
-    /**
-     * @param user to match visibility against
-     * @return executors that are enabled by default and the user has visibility of.
-     */
-    private Stream<Executor> getStream(final User user) {
-        return getStream(user, null);
-    }
-
     /**
      * @param user to match visibility against.
      * @return a stream of executors the user has visibility for.
      */
     private Stream<Executor> getAllStream(final User user) {
-        return storage.entrySet()
+        return snapshot.storage.entrySet()
                 .stream()
                 .filter(entry -> isValidToView(user, entry.getKey()))
                 .flatMap(entry -> entry.getValue().stream());
     }
 
-    private void addToCache(final Executor executor, final FederatedAccess access) {
+    // Writes the added executors to the cache, then publishes the snapshot.
+    // If any write fails the executors already written are removed from the
+    // cache again and the snapshot is not published.
+    private void publish(final Snapshot next, final List<Pair<Executor, FederatedAccess>> added) throws MaestroCheckedException {
+        if (isCacheEnabled()) {
+            final List<String> written = new ArrayList<>();
+            for (final Pair<Executor, FederatedAccess> entry : added) {
+                final String executorId = entry.getFirst().getId();
+                try {
+                    if (addToCache(entry.getFirst(), entry.getSecond())) {
+                        written.add(executorId);
+                    }
+                } catch (final Exception e) {
+                    written.forEach(federatedStoreCache::deleteFromCache);
+                    final String message = "Error adding addingExecutor id: " + executorId + " to storage";
+                    LOGGER.error(message);
+                    throw new MaestroCheckedException(message, e);
+                }
+            }
+        }
+        snapshot = next;
+    }
+
+    // Returns true if the executor was written to the cache, or false if the
+    // cache already held it.
+    private boolean addToCache(final Executor executor, final FederatedAccess access) {
         final String executorId = executor.getId();
         if (federatedStoreCache.contains(executorId)) {
             validateSameAsFromCache(executor, executorId);
+            return false;
         } else {
             try {
-                federatedStoreCache.addExecutorToCache(executor, access, false);
+                // Cached as a descriptor, so it is only materialised when used
+                federatedStoreCache.addExecutorToCache(LazyExecutor.of(executor), access, false);
             } catch (final OverwritingException e) {
                 throw new OverwritingException((String.format("User is attempting to overwrite a executor within the cacheService. ExecutorId: %s", executorId)));
             } catch (final CacheOperationException e) {
                 throw new RuntimeException(e);
             }
+            return true;
         }
     }
 
@@ -363,19 +498,102 @@ public class FederatedExecutorStorage implements Serializable {
         return rtn;
     }
 
-    private void makeExecutorFromCache(final String executorId) throws MaestroCheckedException {
-        final Executor executor = federatedStoreCache.getExecutorFromCache(executorId);
-        final FederatedAccess accessFromCache = federatedStoreCache.getAccessFromCache(executorId);
-        put(executor, accessFromCache);
+    // Holds each cached executor as a LazyExecutor, so none are materialised
+    // until used or warmed up, and publishes them in a single snapshot.
+    private synchronized void makeAllExecutorsFromCache() throws MaestroCheckedException {
+        final Snapshot next = snapshot.copy();
+        final List<Pair<Executor, FederatedAccess>> added = new ArrayList<>();
+        for (final Pair<Executor, FederatedAccess> fromCache : federatedStoreCache.getAllFromCache().values()) {
+            add(next, LazyExecutor.of(fromCache.getFirst()), fromCache.getSecond(), added);
+        }
+        publish(next, added);
     }
 
-    private void makeAllExecutorsFromCache() throws MaestroCheckedException {
-        final Set<String> allExecutorIds = federatedStoreCache.getAllExecutorIds();
-        for (final String executorId : allExecutorIds) {
-            makeExecutorFromCache(executorId);
+    // An immutable view of the executors once published. A new snapshot
+    // copies the maps, and only copies a set of executors or executor ids
+    // when that set changes.
+    private static final class Snapshot implements Serializable {
+        private static final long serialVersionUID = 4410273512736846262L;
+        private final TreeMap<FederatedAccess, TreeSet<Executor>> storage;
+        private final Map<String, Pair<Executor, FederatedAccess>> index;
+        private final Map<String, TreeSet<String>> capabilities;
+        private TreeSet<String> unrestricted;
+
+        private Snapshot() {
+            this(new TreeMap<>(), new HashMap<>(), new HashMap<>(), new TreeSet<>());
+        }
+
+        private Snapshot(final TreeMap<FederatedAccess, TreeSet<Executor>> storage, final Map<String, Pair<Executor, FederatedAccess>> index,
+                         final Map<String, TreeSet<String>> capabilities, final TreeSet<String> unrestricted) {
+            this.storage = storage;
+            this.index = index;
+            this.capabilities = capabilities;
+            this.unrestricted = unrestricted;
+        }
+
+        private Snapshot copy() {
+            return new Snapshot(new TreeMap<>(storage), new HashMap<>(index), new HashMap<>(capabilities), unrestricted);
+        }
+
+        private void add(final Executor executor, final FederatedAccess access) {
+            final TreeSet<Executor> existing = storage.get(access);
+            final TreeSet<Executor> executors = null == existing ? new TreeSet<>() : new TreeSet<>(existing);
+            executors.add(executor);
+            storage.put(access, executors);
+            index.put(executor.getId(), new Pair<>(executor, access));
+
+            for (final String operationId : supportedOperations(executor)) {
+                final TreeSet<String> existingIds = capabilities.get(operationId);
+                final TreeSet<String> ids = null == existingIds ? new TreeSet<>() : new TreeSet<>(existingIds);
+                ids.add(executor.getId());
+                capabilities.put(operationId, ids);
+            }
+            if (handlesAnyOperation(executor)) {
+                unrestricted = new TreeSet<>(unrestricted);
+                unrestricted.add(executor.getId());
+            }
         }
-    }
 
+        private void remove(final Pair<Executor, FederatedAccess> entry) {
+            final Executor executor = entry.getFirst();
+            final TreeSet<Executor> existing = storage.get(entry.getSecond());
+            if (null != existing) {
+                final TreeSet<Executor> executors = new TreeSet<>(existing);
+                executors.remove(executor);
+                storage.put(entry.getSecond(), executors);
+            }
+            index.remove(executor.getId());
+
+            for (final String operationId : supportedOperations(executor)) {
+                final TreeSet<String> existingIds = capabilities.get(operationId);
+                if (null != existingIds) {
+                    final TreeSet<String> ids = new TreeSet<>(existingIds);
+                    ids.remove(executor.getId());
+                    if (ids.isEmpty()) {
+                        capabilities.remove(operationId);
+                    } else {
+                        capabilities.put(operationId, ids);
+                    }
+                }
+            }
+            if (unrestricted.contains(executor.getId())) {
+                unrestricted = new TreeSet<>(unrestricted);
+                unrestricted.remove(executor.getId());
+            }
+        }
+
+        // The initialiser is run by the executor itself, not routed to it.
+        private static Set<String> supportedOperations(final Executor executor) {
+            final Set<String> operationIds = new HashSet<>(executor.getSupportedOperations());
+            operationIds.remove(Executor.INITIALISER);
+            return operationIds;
+        }
+
+        private static boolean handlesAnyOperation(final Executor executor) {
+            final OperationHandler defaultHandler = executor.getConfig().getDefaultHandler();
+            return null != defaultHandler && !DefaultHandler.class.equals(defaultHandler.getClass());
+        }
+    }
 
     @Override
     public boolean equals(final Object o) {
@@ -390,17 +608,19 @@ public class FederatedExecutorStorage implements Serializable {
         final FederatedExecutorStorage that = (FederatedExecutorStorage) o;
 
         final EqualsBuilder eb = new EqualsBuilder();
+        final TreeMap<FederatedAccess, TreeSet<Executor>> storage = this.snapshot.storage;
+        final TreeMap<FederatedAccess, TreeSet<Executor>> thatStorage = that.snapshot.storage;
 
-        // eb.append(this.storage, that.storage);
+        // eb.append(this.storage, thatStorage);
 
-        if (eb.append(this.storage.size(), that.storage.size()).isEquals()) {
+        if (eb.append(storage.size(), thatStorage.size()).isEquals()) {
             for (final FederatedAccess thisAccess : storage.keySet()) {
-                if (!eb.append(true, that.storage.containsKey(thisAccess)).isEquals()) {
+                if (!eb.append(true, thatStorage.containsKey(thisAccess)).isEquals()) {
                     break;
                 }
 
                 final TreeSet<Executor> thisValue = storage.get(thisAccess);
-                final TreeSet<Executor> thatValue = that.storage.get(thisAccess);
+                final TreeSet<Executor> thatValue = thatStorage.get(thisAccess);
 
                 if (!eb.append(thisValue.size(), thatValue.size()).isEquals()) {
                     break;
@@ -422,7 +642,7 @@ public class FederatedExecutorStorage implements Serializable {
     @Override
     public int hashCode() {
         return new HashCodeBuilder(17, 37)
-                .append(storage)
+                .append(snapshot.storage)
                 // .append(federatedStoreCache) TODO Examine if/when this is required/used
                 .append(isCacheEnabled)
                 .toHashCode();
@@ -431,7 +651,7 @@ public class FederatedExecutorStorage implements Serializable {
     @Override
     public String toString() {
         return new ToStringBuilder(this)
-                .append("storage", storage)
+                .append("storage", snapshot.storage)
                 // .append("federatedStoreCache", federatedStoreCache)  TODO Examine if/when this is required/used
                 .append("isCacheEnabled", isCacheEnabled)
                 .toString();
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.federated;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import uk.gov.gchq.maestro.commonutil.exception.OperationException;
+import uk.gov.gchq.maestro.executor.Executor;
+import uk.gov.gchq.maestro.executor.util.Config;
+import uk.gov.gchq.maestro.executor.util.Request;
+import uk.gov.gchq.maestro.executor.util.Result;
+
+/**
+ * A sub executor that is held as its {@link Config} alone, and is only
+ * materialised, starting its scheduled jobs and running its initialiser
+ * operation, when it first executes a request or is warmed up. The cache and
+ * executor services are shared, so they are left as the top level executor
+ * set them up.
+ * Its id, config and supported operations are available without
+ * materialising it.
+ */
+public class LazyExecutor extends Executor {
+    private static final long serialVersionUID = -1587318410238652045L;
+    private transient volatile boolean materialised;
+
+    @JsonCreator
+    public LazyExecutor(@JsonProperty("config") final Config config) {
+        super(config, false);
+    }
+
+    /**
+     * @param executor an executor, which may already be materialised
+     * @return the executor if it is lazy, otherwise a lazy executor with its config
+     */
+    public static LazyExecutor of(final Executor executor) {
+        return executor instanceof LazyExecutor ? (LazyExecutor) executor : new LazyExecutor(executor.getConfig());
+    }
+
+    /**
+     * Materialises this executor if it has not been already. If this fails
+     * it is attempted again on the next use.
+     */
+    public void materialise() {
+        if (!materialised) {
+            synchronized (this) {
+                if (!materialised) {
+                    start();
+                    materialised = true;
+                }
+            }
+        }
+    }
+
+    @JsonIgnore
+    public boolean isMaterialised() {
+        return materialised;
+    }
+
+    @Override
+    public <O> Result<O> execute(final Request request) throws OperationException {
+        materialise();
+        return super.execute(request);
+    }
+}
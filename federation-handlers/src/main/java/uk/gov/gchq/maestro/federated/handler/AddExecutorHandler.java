@@ -25,6 +25,7 @@ import uk.gov.gchq.maestro.executor.Context;
 import uk.gov.gchq.maestro.executor.Executor;
 import uk.gov.gchq.maestro.executor.operation.declaration.FieldDeclaration;
 import uk.gov.gchq.maestro.executor.operation.handler.OperationHandler;
+import uk.gov.gchq.maestro.federated.partition.PartitionDescriptor;
 import uk.gov.gchq.maestro.federated.util.AddExecutorsFederatedUtil;
 import uk.gov.gchq.maestro.operation.Operation;
 
@@ -40,6 +41,7 @@ public class AddExecutorHandler implements OperationHandler {
     public static final String AUTHS = "auths";
     public static final String CUSTOM_CONFIG_AUTHS = "customConfigAuths";
     public static final String PARENT_CONFIG_ID = "parentConfigId";
+    public static final String PARTITION = "partition";
 
     @Override
     public Object _doOperation(final Operation operation, final Context context, final Executor executor) throws OperationException {
@@ -58,7 +60,8 @@ public class AddExecutorHandler implements OperationHandler {
                 .fieldOptional(IS_PUBLIC, Boolean.class)
                 .fieldOptional(DISABLED_BY_DEFAULT, Boolean.class)
                 .fieldOptional(AUTHS, Set.class)
-                .fieldOptional(PARENT_CONFIG_ID, String.class);
+                .fieldOptional(PARENT_CONFIG_ID, String.class)
+                .fieldOptional(PARTITION, PartitionDescriptor.class);
     }
 
     @Override
@@ -18,58 +18,314 @@ package uk.gov.gchq.maestro.federated.handler;
 
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import com.google.common.collect.Lists;
+import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 
 import uk.gov.gchq.koryphe.binaryoperator.KorypheBinaryOperator;
+import uk.gov.gchq.maestro.commonutil.Pair;
 import uk.gov.gchq.maestro.commonutil.exception.MaestroCheckedException;
 import uk.gov.gchq.maestro.commonutil.exception.OperationException;
 import uk.gov.gchq.maestro.executor.Context;
 import uk.gov.gchq.maestro.executor.Executor;
 import uk.gov.gchq.maestro.executor.operation.declaration.FieldDeclaration;
 import uk.gov.gchq.maestro.executor.operation.handler.OperationHandler;
+import uk.gov.gchq.maestro.federated.ExecutorStats;
+import uk.gov.gchq.maestro.federated.util.CallsFederatedUtil;
+import uk.gov.gchq.maestro.federated.util.ExecutorStatsFederatedUtil;
+import uk.gov.gchq.maestro.federated.util.FederatedChainPlanner;
 import uk.gov.gchq.maestro.federated.util.GetExecutorsFederatedUtil;
 import uk.gov.gchq.maestro.operation.Operation;
+import uk.gov.gchq.maestro.operation.OperationChain;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+/**
+ * Sends an operation to the sub executors and merges their results.
+ * <p>
+ * If pushdown or reapply operations are set, an {@link OperationChain} is
+ * split by the {@link FederatedChainPlanner}, so only the leading part of
+ * the chain runs on the sub executors and the rest runs on this executor
+ * against the merged results.
+ * </p>
+ * <p>
+ * Sub executors added with a {@link uk.gov.gchq.maestro.federated.partition.PartitionDescriptor} are only called if
+ * their partition may hold something the operation asks for.
+ * </p>
+ * <p>
+ * The latency and errors of each call to a sub executor are recorded in its
+ * {@link ExecutorStats}. If a failure threshold is set, a sub executor that
+ * fails that many times in a row is left out of calls for the exclusion
+ * time, and the ids left out are set in the context variable
+ * {@value #EXCLUDED_EXECUTORS}. If a timeout factor is set, the sub executors
+ * are called in parallel and each call times out after its recent 99th
+ * percentile latency times the factor, bounded by the min and max timeouts.
+ * A call's timeout runs from when it starts. A call still waiting for a
+ * thread after the max timeout fails the operation, but is not recorded as
+ * a failure of the sub executor.
+ * </p>
+ */
 @JsonPropertyOrder(value = {"class"}, alphabetic = true)
 public class FederatedOperationHandler implements OperationHandler {
 
     public static final String IDS = "ids";
     public static final String OPERATION = "operation";
     public static final String MERGE_OPERATION = "mergeOperation";
+    public static final String EXCLUDED_EXECUTORS = "federatedExcludedExecutors";
+    public static final String EXECUTOR_TIMED_OUT = "Executor: %s timed out after %s ms";
+    public static final String EXECUTOR_NOT_STARTED = "Executor: %s was not called within %s ms, all federated call threads were busy";
+    public static final String ERROR_EXECUTING_ON_EXECUTOR = "Error executing on Executor: %s -> %s";
+    public static final long DEFAULT_MIN_TIMEOUT = 100;
+    public static final long DEFAULT_MAX_TIMEOUT = 60000;
+    public static final long DEFAULT_EXCLUSION_TIME = 30000;
+    private Set<String> pushDownOperations;
+    private Set<String> reapplyOperations;
+    private Double timeoutFactor;
+    private Long minTimeout;
+    private Long maxTimeout;
+    private Integer failureThreshold;
+    private Long exclusionTime;
 
     @Override
     public Object _doOperation(final Operation operation, final Context context, final Executor executor) throws OperationException {
-        final List<Executor> executorsFrom = new ArrayList<>();
+        List<Executor> executorsFrom = new ArrayList<>();
         final List<String> ids = (List<String>) operation.get(IDS);
+        final Operation subOperation = (Operation) operation.get(OPERATION);
         final KorypheBinaryOperator mergeOperation = (KorypheBinaryOperator) operation.get(MERGE_OPERATION);
 
-        try {
-            final Collection<Executor> executorsFrom1 = GetExecutorsFederatedUtil.
-                    getExecutorsFrom(executor, context.getUser(), Lists.newArrayList(ids));
-            executorsFrom.addAll(executorsFrom1);
-        } catch (final MaestroCheckedException e) {
-            throw new OperationException(String.format("Error executing FederatedOperation -> %s", e.getMessage()), e);
+        if (null == ids) {
+            // Only send the operation to the executors that can handle it
+            executorsFrom.addAll(GetExecutorsFederatedUtil.getCapableExecutorsFrom(executor, context.getUser(), subOperation.getId()));
+        } else {
+            try {
+                final Collection<Executor> executorsFrom1 = GetExecutorsFederatedUtil.
+                        getExecutorsFrom(executor, context.getUser(), Lists.newArrayList(ids));
+                executorsFrom.addAll(executorsFrom1);
+            } catch (final MaestroCheckedException e) {
+                throw new OperationException(String.format("Error executing FederatedOperation -> %s", e.getMessage()), e);
+            }
+        }
+
+        executorsFrom = GetExecutorsFederatedUtil.prunePartitionsFrom(executor, executorsFrom, subOperation);
+
+        final List<String> excluded = new ArrayList<>();
+        final long now = System.currentTimeMillis();
+        final Iterator<Executor> itr = executorsFrom.iterator();
+        while (itr.hasNext()) {
+            final Executor sub = itr.next();
+            if (ExecutorStatsFederatedUtil.getStats(executor, sub.getId()).isExcluded(now)) {
+                excluded.add(sub.getId());
+                itr.remove();
+            }
+        }
+        if (!excluded.isEmpty()) {
+            context.setVariable(EXCLUDED_EXECUTORS, excluded);
+        }
+
+        final Operation remoteOperation;
+        final OperationChain localChain;
+        if (subOperation instanceof OperationChain && (null != pushDownOperations || null != reapplyOperations)) {
+            final Pair<Operation, OperationChain> plan = FederatedChainPlanner.plan((OperationChain) subOperation, pushDownOperations, reapplyOperations, executorsFrom);
+            remoteOperation = plan.getFirst();
+            localChain = plan.getSecond();
+        } else {
+            remoteOperation = subOperation;
+            localChain = null;
         }
 
         Object state = null;
-        for (final Executor sub : executorsFrom) {
-            final Object execute = sub.execute((Operation) operation.get(OPERATION), context);
+        for (final Object execute : executeOnAll(executorsFrom, remoteOperation, null != localChain, context, executor)) {
             state = mergeOperation.apply(state, execute);
         }
 
+        if (null != localChain && !localChain.getOperations().isEmpty()) {
+            state = executeLocally(localChain, state, context, executor);
+        }
+
         return state;
     }
 
+    private List<Object> executeOnAll(final List<Executor> subs, final Operation remoteOperation, final boolean isPlanned, final Context context, final Executor executor) throws OperationException {
+        final List<Object> results = new ArrayList<>(subs.size());
+        if (null == timeoutFactor || 0 >= timeoutFactor) {
+            for (final Executor sub : subs) {
+                final ExecutorStats stats = ExecutorStatsFederatedUtil.getStats(executor, sub.getId());
+                final long start = System.currentTimeMillis();
+                try {
+                    results.add(sub.execute(getOperationFor(remoteOperation, isPlanned), context));
+                } catch (final OperationException | RuntimeException e) {
+                    recordFailure(stats, System.currentTimeMillis() - start);
+                    throw e;
+                }
+                stats.recordSuccess(System.currentTimeMillis() - start);
+            }
+            return results;
+        }
+
+        final long start = System.currentTimeMillis();
+        final long[] latencies = new long[subs.size()];
+        // Each call's timeout runs from when it starts, not from when it was
+        // queued behind other calls for a thread
+        final long[] callStarts = new long[subs.size()];
+        final CountDownLatch[] started = new CountDownLatch[subs.size()];
+        final ExecutorService calls = CallsFederatedUtil.getCalls(executor);
+        final List<Future<Object>> futures = new ArrayList<>(subs.size());
+        for (int i = 0; i < subs.size(); i++) {
+            final int index = i;
+            final Executor sub = subs.get(i);
+            final Operation subOperation = getOperationFor(remoteOperation, isPlanned);
+            started[i] = new CountDownLatch(1);
+            futures.add(calls.submit(() -> {
+                final long callStart = System.currentTimeMillis();
+                callStarts[index] = callStart;
+                started[index].countDown();
+                try {
+                    return sub.execute(subOperation, context);
+                } finally {
+                    latencies[index] = System.currentTimeMillis() - callStart;
+                }
+            }));
+        }
+
+        try {
+            for (int i = 0; i < subs.size(); i++) {
+                final String subId = subs.get(i).getId();
+                final ExecutorStats stats = ExecutorStatsFederatedUtil.getStats(executor, subId);
+                final long timeout = stats.getTimeout(timeoutFactor, getMinTimeoutOrDefault(), getMaxTimeoutOrDefault());
+                try {
+                    // A call that cannot get a thread within the max timeout
+                    // is given up on, but is not the sub executor's failure
+                    if (!started[i].await(Math.max(0, start + getMaxTimeoutOrDefault() - System.currentTimeMillis()), TimeUnit.MILLISECONDS)) {
+                        throw new OperationException(String.format(EXECUTOR_NOT_STARTED, subId, getMaxTimeoutOrDefault()));
+                    }
+                    results.add(futures.get(i).get(Math.max(0, callStarts[i] + timeout - System.currentTimeMillis()), TimeUnit.MILLISECONDS));
+                } catch (final TimeoutException e) {
+                    recordFailure(stats, timeout);
+                    throw new OperationException(String.format(EXECUTOR_TIMED_OUT, subId, timeout), e);
+                } catch (final ExecutionException e) {
+                    recordFailure(stats, latencies[i]);
+                    throw new OperationException(String.format(ERROR_EXECUTING_ON_EXECUTOR, subId, e.getCause().getMessage()), e.getCause());
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new OperationException(String.format(ERROR_EXECUTING_ON_EXECUTOR, subId, "interrupted"), e);
+                }
+                stats.recordSuccess(latencies[i]);
+            }
+        } finally {
+            for (final Future<Object> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return results;
+    }
+
+    // Each sub executor gets its own copy of a planned chain, so the inputs
+    // it threads through the chain are not seen by the others
+    private static Operation getOperationFor(final Operation remoteOperation, final boolean isPlanned) {
+        return isPlanned ? FederatedChainPlanner.copy(remoteOperation) : remoteOperation;
+    }
+
+    private void recordFailure(final ExecutorStats stats, final long latency) {
+        stats.recordFailure(latency, System.currentTimeMillis(),
+                null == failureThreshold ? 0 : failureThreshold,
+                null == exclusionTime ? DEFAULT_EXCLUSION_TIME : exclusionTime);
+    }
+
+    private long getMinTimeoutOrDefault() {
+        return null == minTimeout ? DEFAULT_MIN_TIMEOUT : minTimeout;
+    }
+
+    private long getMaxTimeoutOrDefault() {
+        return null == maxTimeout ? DEFAULT_MAX_TIMEOUT : maxTimeout;
+    }
+
+    private Object executeLocally(final OperationChain localChain, final Object merged, final Context context, final Executor executor) throws OperationException {
+        final List<Operation> operations = localChain.getOperations();
+        final Operation first = operations.get(0);
+        if (null == first.input()) {
+            first.input(merged);
+        }
+        return 1 == operations.size() ? executor.execute(first, context) : executor.execute(localChain, context);
+    }
+
+    public Set<String> getPushDownOperations() {
+        return pushDownOperations;
+    }
+
+    public FederatedOperationHandler setPushDownOperations(final Set<String> pushDownOperations) {
+        this.pushDownOperations = pushDownOperations;
+        return this;
+    }
+
+    public Set<String> getReapplyOperations() {
+        return reapplyOperations;
+    }
+
+    public FederatedOperationHandler setReapplyOperations(final Set<String> reapplyOperations) {
+        this.reapplyOperations = reapplyOperations;
+        return this;
+    }
+
+    public Double getTimeoutFactor() {
+        return timeoutFactor;
+    }
+
+    public FederatedOperationHandler setTimeoutFactor(final Double timeoutFactor) {
+        this.timeoutFactor = timeoutFactor;
+        return this;
+    }
+
+    public Long getMinTimeout() {
+        return minTimeout;
+    }
+
+    public FederatedOperationHandler setMinTimeout(final Long minTimeout) {
+        this.minTimeout = minTimeout;
+        return this;
+    }
+
+    public Long getMaxTimeout() {
+        return maxTimeout;
+    }
+
+    public FederatedOperationHandler setMaxTimeout(final Long maxTimeout) {
+        this.maxTimeout = maxTimeout;
+        return this;
+    }
+
+    public Integer getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public FederatedOperationHandler setFailureThreshold(final Integer failureThreshold) {
+        this.failureThreshold = failureThreshold;
+        return this;
+    }
+
+    public Long getExclusionTime() {
+        return exclusionTime;
+    }
+
+    public FederatedOperationHandler setExclusionTime(final Long exclusionTime) {
+        this.exclusionTime = exclusionTime;
+        return this;
+    }
+
     @Override
     public FieldDeclaration getFieldDeclaration() {
         return new FieldDeclaration()
                 .fieldRequired(MERGE_OPERATION, KorypheBinaryOperator.class)
                 .fieldRequired(OPERATION, Operation.class)
-                .fieldRequired(IDS, List.class); //whitelist
+                .fieldOptional(IDS, List.class); //whitelist, or every capable executor if omitted
     }
 
 
@@ -78,12 +334,31 @@ public class FederatedOperationHandler implements OperationHandler {
         if (this == o) {
             return true;
         }
-        return o != null && getClass() == o.getClass();
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final FederatedOperationHandler that = (FederatedOperationHandler) o;
+        return new EqualsBuilder()
+                .append(pushDownOperations, that.pushDownOperations)
+                .append(reapplyOperations, that.reapplyOperations)
+                .append(timeoutFactor, that.timeoutFactor)
+                .append(minTimeout, that.minTimeout)
+                .append(maxTimeout, that.maxTimeout)
+                .append(failureThreshold, that.failureThreshold)
+                .append(exclusionTime, that.exclusionTime)
+                .isEquals();
     }
 
     @Override
     public int hashCode() {
         return new HashCodeBuilder(17, 37)
+                .append(pushDownOperations)
+                .append(reapplyOperations)
+                .append(timeoutFactor)
+                .append(minTimeout)
+                .append(maxTimeout)
+                .append(failureThreshold)
+                .append(exclusionTime)
                 .toHashCode();
     }
 }
@@ -21,12 +21,17 @@ import uk.gov.gchq.maestro.executor.Context;
 import uk.gov.gchq.maestro.executor.Executor;
 import uk.gov.gchq.maestro.executor.operation.declaration.FieldDeclaration;
 import uk.gov.gchq.maestro.executor.operation.handler.OperationHandler;
+import uk.gov.gchq.maestro.federated.util.GetExecutorsFederatedUtil;
 import uk.gov.gchq.maestro.operation.Operation;
 
+/**
+ * Returns the operations supported by any of the sub executors visible to
+ * the user, merged into one sorted set.
+ */
 public class GetSupportedOperationHandler implements OperationHandler {
     @Override
     public Object _doOperation(final Operation operation, final Context context, final Executor executor) throws OperationException {
-        return null;
+        return GetExecutorsFederatedUtil.getSupportedOperationsFrom(executor, context.getUser());
     }
 
     @Override
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.federated.merge;
+
+import uk.gov.gchq.maestro.commonutil.iterable.ChainedIterable;
+import uk.gov.gchq.maestro.commonutil.iterable.CloseableIterator;
+
+import java.util.List;
+
+/**
+ * Concatenates the results of sub executors, in the order they were merged,
+ * using a {@link ChainedIterable}.
+ *
+ * @param <T> the type of items in the results.
+ */
+public class ConcatMerge<T> extends IterableMerge<T> {
+
+    @Override
+    protected CloseableIterator<T> iterator(final List<Iterable<T>> results) {
+        return new ChainedIterable<T>(results.toArray(new Iterable[results.size()])).iterator();
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.federated.merge;
+
+import uk.gov.gchq.koryphe.binaryoperator.KorypheBinaryOperator;
+import uk.gov.gchq.maestro.commonutil.CloseableUtil;
+
+/**
+ * Counts the items in the results of sub executors, as a {@link Long}. An
+ * {@link Iterable} result is counted as it is read, a {@link Number} result
+ * is taken to be a count already made by the sub executor, and any other
+ * result counts as one item.
+ */
+public class CountMerge extends KorypheBinaryOperator<Object> {
+
+    @Override
+    public Object apply(final Object state, final Object result) {
+        return _apply(state, result);
+    }
+
+    @Override
+    protected Object _apply(final Object state, final Object result) {
+        return count(state) + count(result);
+    }
+
+    private static long count(final Object value) {
+        long count = 0;
+        if (value instanceof Number) {
+            count = ((Number) value).longValue();
+        } else if (value instanceof Iterable) {
+            try {
+                for (final Object ignored : (Iterable) value) {
+                    count++;
+                }
+            } finally {
+                CloseableUtil.close(value);
+            }
+        } else if (null != value) {
+            count = 1;
+        }
+        return count;
+    }
+}
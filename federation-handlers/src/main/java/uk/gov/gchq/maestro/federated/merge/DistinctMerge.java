@@ -0,0 +1,68 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.federated.merge;
+
+import uk.gov.gchq.maestro.commonutil.CloseableUtil;
+import uk.gov.gchq.maestro.commonutil.iterable.ChainedIterable;
+import uk.gov.gchq.maestro.commonutil.iterable.CloseableIterator;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Concatenates the results of sub executors, skipping any item equal to one
+ * already returned. The items returned are held in a hash set while iterating.
+ *
+ * @param <T> the type of items in the results.
+ */
+public class DistinctMerge<T> extends IterableMerge<T> {
+
+    @Override
+    protected CloseableIterator<T> iterator(final List<Iterable<T>> results) {
+        final CloseableIterator<T> itr = new ChainedIterable<T>(results.toArray(new Iterable[results.size()])).iterator();
+        return new CloseableIterator<T>() {
+            private final Set<T> seen = new HashSet<>();
+            private T next;
+            private boolean hasNext;
+
+            @Override
+            public boolean hasNext() {
+                while (!hasNext && itr.hasNext()) {
+                    next = itr.next();
+                    hasNext = seen.add(next);
+                }
+                return hasNext;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                hasNext = false;
+                return next;
+            }
+
+            @Override
+            public void close() {
+                CloseableUtil.close(itr);
+            }
+        };
+    }
+}
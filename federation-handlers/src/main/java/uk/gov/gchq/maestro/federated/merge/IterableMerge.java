@@ -0,0 +1,92 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.federated.merge;
+
+import uk.gov.gchq.koryphe.binaryoperator.KorypheBinaryOperator;
+import uk.gov.gchq.maestro.commonutil.CloseableUtil;
+import uk.gov.gchq.maestro.commonutil.iterable.CloseableIterable;
+import uk.gov.gchq.maestro.commonutil.iterable.CloseableIterator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>
+ * An {@code IterableMerge} merges the {@link Iterable} results of sub
+ * executors lazily. Applying the merge only records each result, and they are
+ * combined in a stream when the merged {@link CloseableIterable} is iterated,
+ * so no result is materialised and the results are read once however many
+ * executors there are.
+ * </p>
+ * <p>
+ * Closing the merged iterable closes each of the results.
+ * </p>
+ *
+ * @param <T> the type of items in the results.
+ */
+public abstract class IterableMerge<T> extends KorypheBinaryOperator<Iterable<T>> {
+
+    @Override
+    public Iterable<T> apply(final Iterable<T> state, final Iterable<T> result) {
+        if (null == state) {
+            // Even a single result is merged, so it is limited or deduplicated
+            return null == result ? null : new MergedIterable<>(this, Collections.singletonList(result));
+        }
+        return null == result ? state : _apply(state, result);
+    }
+
+    @Override
+    protected Iterable<T> _apply(final Iterable<T> state, final Iterable<T> result) {
+        final List<Iterable<T>> results = new ArrayList<>();
+        if (state instanceof MergedIterable && this.equals(((MergedIterable) state).merge)) {
+            results.addAll(((MergedIterable<T>) state).results);
+        } else {
+            results.add(state);
+        }
+        results.add(result);
+        return new MergedIterable<>(this, results);
+    }
+
+    /**
+     * @param results the results to merge, in the order they were applied.
+     * @return an iterator over the merged results.
+     */
+    protected abstract CloseableIterator<T> iterator(List<Iterable<T>> results);
+
+    private static final class MergedIterable<T> implements CloseableIterable<T> {
+        private final IterableMerge<T> merge;
+        private final List<Iterable<T>> results;
+
+        private MergedIterable(final IterableMerge<T> merge, final List<Iterable<T>> results) {
+            this.merge = merge;
+            this.results = results;
+        }
+
+        @Override
+        public CloseableIterator<T> iterator() {
+            return merge.iterator(results);
+        }
+
+        @Override
+        public void close() {
+            for (final Iterable<T> result : results) {
+                CloseableUtil.close(result);
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.federated.merge;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+
+import uk.gov.gchq.maestro.commonutil.CloseableUtil;
+import uk.gov.gchq.maestro.commonutil.iterable.CloseableIterator;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Merges results of sub executors that are each already sorted into a single
+ * sorted stream, holding only the next item of each result in a heap. Items
+ * are compared by their natural order, or its reverse if reversed is set.
+ *
+ * @param <T> the type of items in the results.
+ */
+public class SortedMerge<T> extends IterableMerge<T> {
+    private boolean reversed;
+
+    @Override
+    protected CloseableIterator<T> iterator(final List<Iterable<T>> results) {
+        final Comparator<T> comparator = getComparator(reversed);
+        final PriorityQueue<Head<T>> heads = new PriorityQueue<>(Math.max(1, results.size()), (a, b) -> comparator.compare(a.item, b.item));
+        for (final Iterable<T> result : results) {
+            Head.offer(heads, result.iterator());
+        }
+        return new CloseableIterator<T>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                final Head<T> head = heads.poll();
+                if (null == head) {
+                    throw new NoSuchElementException();
+                }
+                Head.offer(heads, head.itr);
+                return head.item;
+            }
+
+            @Override
+            public void close() {
+                for (final Head<T> head : heads) {
+                    CloseableUtil.close(head.itr);
+                }
+                heads.clear();
+            }
+        };
+    }
+
+    public boolean isReversed() {
+        return reversed;
+    }
+
+    public SortedMerge<T> reversed(final boolean reversed) {
+        this.reversed = reversed;
+        return this;
+    }
+
+    public void setReversed(final boolean reversed) {
+        this.reversed = reversed;
+    }
+
+    static <T> Comparator<T> getComparator(final boolean reversed) {
+        final Comparator<T> natural = (Comparator<T>) Comparator.naturalOrder();
+        return reversed ? natural.reversed() : natural;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (null == obj || getClass() != obj.getClass()) {
+            return false;
+        }
+        return new EqualsBuilder()
+                .append(reversed, ((SortedMerge) obj).reversed)
+                .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder(17, 37)
+                .append(getClass())
+                .append(reversed)
+                .toHashCode();
+    }
+
+    // The next item of a result, with the rest of that result
+    private static final class Head<T> {
+        private final T item;
+        private final Iterator<T> itr;
+
+        private Head(final T item, final Iterator<T> itr) {
+            this.item = item;
+            this.itr = itr;
+        }
+
+        private static <T> void offer(final PriorityQueue<Head<T>> heads, final Iterator<T> itr) {
+            if (itr.hasNext()) {
+                heads.offer(new Head<>(itr.next(), itr));
+            } else {
+                CloseableUtil.close(itr);
+            }
+        }
+    }
+}
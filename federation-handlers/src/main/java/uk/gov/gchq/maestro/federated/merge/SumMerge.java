@@ -0,0 +1,71 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.federated.merge;
+
+import uk.gov.gchq.koryphe.binaryoperator.KorypheBinaryOperator;
+import uk.gov.gchq.maestro.commonutil.CloseableUtil;
+
+/**
+ * Sums the results of sub executors. A result may be a {@link Number}, or an
+ * {@link Iterable} of numbers which is summed as it is read. The sum is a
+ * {@link Long} unless any number is a floating point number, when it is a
+ * {@link Double}.
+ */
+public class SumMerge extends KorypheBinaryOperator<Object> {
+
+    @Override
+    public Object apply(final Object state, final Object result) {
+        return _apply(state, result);
+    }
+
+    @Override
+    protected Object _apply(final Object state, final Object result) {
+        return add(sum(state), sum(result));
+    }
+
+    private static Number sum(final Object value) {
+        Number total = 0L;
+        if (value instanceof Number) {
+            total = (Number) value;
+        } else if (value instanceof Iterable) {
+            try {
+                for (final Object item : (Iterable) value) {
+                    total = add(total, (Number) item);
+                }
+            } finally {
+                CloseableUtil.close(value);
+            }
+        } else if (null != value) {
+            throw new IllegalArgumentException("Unable to sum result of type: " + value.getClass().getName());
+        }
+        return total;
+    }
+
+    private static Number add(final Number a, final Number b) {
+        if (null == b) {
+            return a;
+        }
+        if (isIntegral(a) && isIntegral(b)) {
+            return a.longValue() + b.longValue();
+        }
+        return a.doubleValue() + b.doubleValue();
+    }
+
+    private static boolean isIntegral(final Number number) {
+        return number instanceof Long || number instanceof Integer || number instanceof Short || number instanceof Byte;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.federated.merge;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+
+import uk.gov.gchq.maestro.commonutil.iterable.CloseableIterator;
+import uk.gov.gchq.maestro.commonutil.iterable.LimitedInMemorySortedIterable;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Merges the results of sub executors into the first k items by natural order,
+ * or its reverse if reversed is set. Only k items are held in memory, in a
+ * {@link LimitedInMemorySortedIterable}, however many items the results have.
+ *
+ * @param <T> the type of items in the results.
+ */
+public class TopKMerge<T> extends IterableMerge<T> {
+    private int k = 1;
+    private boolean reversed;
+
+    @Override
+    protected CloseableIterator<T> iterator(final List<Iterable<T>> results) {
+        final LimitedInMemorySortedIterable<T> top = new LimitedInMemorySortedIterable<>(SortedMerge.getComparator(reversed), k);
+        for (final Iterable<T> result : results) {
+            top.addAll(result);
+        }
+        final Iterator<T> itr = top.iterator();
+        return new CloseableIterator<T>() {
+            @Override
+            public boolean hasNext() {
+                return itr.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return itr.next();
+            }
+
+            @Override
+            public void close() {
+                // The results are held in memory, closing the merged iterable closes them
+            }
+        };
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    public TopKMerge<T> k(final int k) {
+        setK(k);
+        return this;
+    }
+
+    public void setK(final int k) {
+        if (1 > k) {
+            throw new IllegalArgumentException("k must be at least 1");
+        }
+        this.k = k;
+    }
+
+    public boolean isReversed() {
+        return reversed;
+    }
+
+    public TopKMerge<T> reversed(final boolean reversed) {
+        this.reversed = reversed;
+        return this;
+    }
+
+    public void setReversed(final boolean reversed) {
+        this.reversed = reversed;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (null == obj || getClass() != obj.getClass()) {
+            return false;
+        }
+        final TopKMerge that = (TopKMerge) obj;
+        return new EqualsBuilder()
+                .append(k, that.k)
+                .append(reversed, that.reversed)
+                .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder(17, 37)
+                .append(getClass())
+                .append(k)
+                .append(reversed)
+                .toHashCode();
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.federated.partition;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+
+import uk.gov.gchq.maestro.commonutil.ToStringBuilder;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A partition holding the values of the argument that hash to one of a set of
+ * buckets. A value's bucket is the hash code of its string form modulo the
+ * number of buckets, so the data must be partitioned the same way. Ranges
+ * cannot be pruned by hash, so may match any hash partition.
+ */
+public class HashPartition extends PartitionDescriptor {
+    private static final long serialVersionUID = 3188154405763128921L;
+    private int buckets;
+    private Set<Integer> bucketIds = new TreeSet<>();
+
+    public HashPartition() {
+    }
+
+    public HashPartition(final String argument, final int buckets, final Set<Integer> bucketIds) {
+        setArgument(argument);
+        setBuckets(buckets);
+        setBucketIds(bucketIds);
+    }
+
+    /**
+     * @param value   a value of the argument
+     * @param buckets the number of buckets
+     * @return the bucket the value is held in
+     */
+    public static int getBucket(final Object value, final int buckets) {
+        return Math.floorMod(String.valueOf(value).hashCode(), buckets);
+    }
+
+    @Override
+    protected boolean contains(final Object value) {
+        return bucketIds.contains(getBucket(value, buckets));
+    }
+
+    @Override
+    protected boolean intersects(final Object from, final Object to) {
+        return true;
+    }
+
+    public int getBuckets() {
+        return buckets;
+    }
+
+    public void setBuckets(final int buckets) {
+        if (1 > buckets) {
+            throw new IllegalArgumentException("buckets must be at least 1");
+        }
+        this.buckets = buckets;
+    }
+
+    public Set<Integer> getBucketIds() {
+        return bucketIds;
+    }
+
+    public void setBucketIds(final Set<Integer> bucketIds) {
+        this.bucketIds = null == bucketIds ? new TreeSet<>() : new TreeSet<>(bucketIds);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final HashPartition that = (HashPartition) o;
+        return new EqualsBuilder()
+                .append(getArgument(), that.getArgument())
+                .append(buckets, that.buckets)
+                .append(bucketIds, that.bucketIds)
+                .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder(17, 37)
+                .append(getArgument())
+                .append(buckets)
+                .append(bucketIds)
+                .toHashCode();
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("argument", getArgument())
+                .append("buckets", buckets)
+                .append("bucketIds", bucketIds)
+                .toString();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.federated.partition;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+
+import uk.gov.gchq.maestro.commonutil.ToStringBuilder;
+
+/**
+ * A partition holding the values of the argument from an inclusive start key
+ * up to an exclusive end key. Either key may be null for an unbounded range.
+ */
+public class KeyRangePartition extends PartitionDescriptor {
+    private static final long serialVersionUID = -3527946602378925142L;
+    private Object start;
+    private Object end;
+
+    public KeyRangePartition() {
+    }
+
+    public KeyRangePartition(final String argument, final Object start, final Object end) {
+        setArgument(argument);
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    protected boolean contains(final Object value) {
+        return (null == start || 0 <= compare(value, start)) && (null == end || 0 > compare(value, end));
+    }
+
+    @Override
+    protected boolean intersects(final Object from, final Object to) {
+        return (null == to || null == start || 0 < compare(to, start)) && (null == from || null == end || 0 > compare(from, end));
+    }
+
+    public Object getStart() {
+        return start;
+    }
+
+    public void setStart(final Object start) {
+        this.start = start;
+    }
+
+    public Object getEnd() {
+        return end;
+    }
+
+    public void setEnd(final Object end) {
+        this.end = end;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final KeyRangePartition that = (KeyRangePartition) o;
+        return new EqualsBuilder()
+                .append(getArgument(), that.getArgument())
+                .append(start, that.start)
+                .append(end, that.end)
+                .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder(17, 37)
+                .append(getArgument())
+                .append(start)
+                .append(end)
+                .toHashCode();
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("argument", getArgument())
+                .append("start", start)
+                .append("end", end)
+                .toString();
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.federated.partition;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+import uk.gov.gchq.maestro.operation.Operation;
+import uk.gov.gchq.maestro.operation.OperationChain;
+
+import java.io.Serializable;
+import java.time.DateTimeException;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * <p>
+ * Describes the part of a partitioned dataset held by a sub executor, by the
+ * values of one operation argument. It lets a federated operation skip the
+ * sub executors that cannot hold anything the operation asks for.
+ * </p>
+ * <p>
+ * The argument of an operation, or of the first operation in a chain that has
+ * it, may be a single value, a {@link Collection} of values any of which may
+ * match, or a {@link Map} describing a range of values with an inclusive
+ * {@value #FROM} and an exclusive {@value #TO}, either of which may be left
+ * out. An operation without the argument may match any partition.
+ * </p>
+ */
+@JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, include = JsonTypeInfo.As.PROPERTY, property = "class")
+@JsonPropertyOrder(value = {"class", "argument"}, alphabetic = true)
+public abstract class PartitionDescriptor implements Serializable {
+    public static final String FROM = "from";
+    public static final String TO = "to";
+    private static final long serialVersionUID = 6250829375108461236L;
+    private String argument;
+
+    public String getArgument() {
+        return argument;
+    }
+
+    public void setArgument(final String argument) {
+        this.argument = argument;
+    }
+
+    /**
+     * @param operation the operation to be sent to the sub executor
+     * @return false if the partition cannot hold anything the operation asks
+     * for, or true if it may, or if the value of the argument cannot be
+     * compared with the partition
+     */
+    public boolean mayContain(final Operation operation) {
+        final Object value = findArgument(operation);
+        if (null == value) {
+            return true;
+        }
+        try {
+            return mayContain(value);
+        } catch (final ClassCastException | DateTimeException e) {
+            // The sub executor is left to reject a value of the wrong type
+            return true;
+        }
+    }
+
+    private boolean mayContain(final Object value) {
+        if (value instanceof Map) {
+            return intersects(((Map) value).get(FROM), ((Map) value).get(TO));
+        }
+        if (value instanceof Collection) {
+            for (final Object item : (Collection) value) {
+                if (contains(item)) {
+                    return true;
+                }
+            }
+            return ((Collection) value).isEmpty();
+        }
+        return contains(value);
+    }
+
+    /**
+     * @param value a value of the argument
+     * @return true if the partition holds the value
+     */
+    protected abstract boolean contains(Object value);
+
+    /**
+     * @param from the inclusive start of the range, or null if unbounded
+     * @param to   the exclusive end of the range, or null if unbounded
+     * @return true if the partition may hold a value in the range
+     */
+    protected abstract boolean intersects(Object from, Object to);
+
+    private Object findArgument(final Operation operation) {
+        if (null == operation) {
+            return null;
+        }
+        Object value = operation.get(argument);
+        if (null == value && operation instanceof OperationChain) {
+            for (final Operation child : ((OperationChain) operation).getOperations()) {
+                value = findArgument(child);
+                if (null != value) {
+                    break;
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Compares two values, comparing numbers of any type by value.
+     *
+     * @param a the first value
+     * @param b the second value
+     * @return the comparison of the values
+     */
+    protected static int compare(final Object a, final Object b) {
+        if (a instanceof Number && b instanceof Number) {
+            return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+        }
+        return ((Comparable) a).compareTo(b);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.federated.partition;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+
+import uk.gov.gchq.maestro.commonutil.ToStringBuilder;
+
+import java.time.Instant;
+import java.util.Date;
+
+/**
+ * A partition holding the values of the argument that are times within a
+ * window, from an inclusive start to an exclusive end in epoch milliseconds.
+ * Either end may be null for an open window. Times in the operation may be
+ * epoch milliseconds, {@link Date}s or ISO-8601 instants.
+ */
+public class TimeWindowPartition extends PartitionDescriptor {
+    private static final long serialVersionUID = -5802786391523946372L;
+    private Long start;
+    private Long end;
+
+    public TimeWindowPartition() {
+    }
+
+    public TimeWindowPartition(final String argument, final Long start, final Long end) {
+        setArgument(argument);
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    protected boolean contains(final Object value) {
+        final long time = toMillis(value);
+        return (null == start || time >= start) && (null == end || time < end);
+    }
+
+    @Override
+    protected boolean intersects(final Object from, final Object to) {
+        return (null == to || null == start || toMillis(to) > start) && (null == from || null == end || toMillis(from) < end);
+    }
+
+    private static long toMillis(final Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Date) {
+            return ((Date) value).getTime();
+        }
+        return Instant.parse(value.toString()).toEpochMilli();
+    }
+
+    public Long getStart() {
+        return start;
+    }
+
+    public void setStart(final Long start) {
+        this.start = start;
+    }
+
+    public Long getEnd() {
+        return end;
+    }
+
+    public void setEnd(final Long end) {
+        this.end = end;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final TimeWindowPartition that = (TimeWindowPartition) o;
+        return new EqualsBuilder()
+                .append(getArgument(), that.getArgument())
+                .append(start, that.start)
+                .append(end, that.end)
+                .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder(17, 37)
+                .append(getArgument())
+                .append(start)
+                .append(end)
+                .toHashCode();
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("argument", getArgument())
+                .append("start", start)
+                .append("end", end)
+                .toString();
+    }
+}
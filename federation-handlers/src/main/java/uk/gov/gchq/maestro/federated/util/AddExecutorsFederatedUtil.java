@@ -26,6 +26,7 @@ import uk.gov.gchq.maestro.executor.Executor;
 import uk.gov.gchq.maestro.federated.FederatedAccess;
 import uk.gov.gchq.maestro.federated.FederatedExecutorStorage;
 import uk.gov.gchq.maestro.federated.handler.AddExecutorHandler;
+import uk.gov.gchq.maestro.federated.partition.PartitionDescriptor;
 import uk.gov.gchq.maestro.operation.Operation;
 
 import java.util.Set;
@@ -52,8 +53,9 @@ public final class AddExecutorsFederatedUtil {
         final boolean isPublic = (boolean) addExecutorOperation.getOrDefault(AddExecutorHandler.IS_PUBLIC, false);
         final boolean disabledByDefault = (boolean) addExecutorOperation.getOrDefault(AddExecutorHandler.DISABLED_BY_DEFAULT, false);
         final Executor subExecutor = (Executor) addExecutorOperation.get(AddExecutorHandler.EXECUTOR);
+        final PartitionDescriptor partition = (PartitionDescriptor) addExecutorOperation.get(AddExecutorHandler.PARTITION);
 
-        return addExecutorTo(receivingExecutor, context.getUser().getUserId(), auths, isPublic, disabledByDefault, subExecutor);
+        return addExecutorTo(receivingExecutor, context.getUser().getUserId(), auths, isPublic, disabledByDefault, partition, subExecutor);
     }
 
     public static Executor addExecutorTo(final Executor receivingExecutor,
@@ -62,13 +64,23 @@ public final class AddExecutorsFederatedUtil {
                                          final boolean isPublic,
                                          final boolean disabledByDefault,
                                          final Executor subExecutor) throws MaestroCheckedException {
+        return addExecutorTo(receivingExecutor, userId, auths, isPublic, disabledByDefault, null, subExecutor);
+    }
+
+    public static Executor addExecutorTo(final Executor receivingExecutor,
+                                         final String userId,
+                                         final Set<String> auths,
+                                         final boolean isPublic,
+                                         final boolean disabledByDefault,
+                                         final PartitionDescriptor partition,
+                                         final Executor subExecutor) throws MaestroCheckedException {
         requireNonNull(receivingExecutor, "executor", ERROR_ADDING_EXECUTOR);
         requireNonNull(userId, "userId", ERROR_ADDING_EXECUTOR);
         if (isNull(subExecutor)) {
             LOGGER.warn("Executor to be added is null");
         }
 
-        final FederatedAccess federatedAccess = new FederatedAccess(auths, userId, isPublic, disabledByDefault);
+        final FederatedAccess federatedAccess = new FederatedAccess(auths, userId, isPublic, disabledByDefault, partition);
 
         final FederatedExecutorStorage storage = getStorage(subExecutor, federatedAccess);
 
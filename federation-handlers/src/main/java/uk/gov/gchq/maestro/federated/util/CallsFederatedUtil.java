@@ -0,0 +1,79 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package uk.gov.gchq.maestro.federated.util;
+
+import uk.gov.gchq.maestro.executor.Executor;
+import uk.gov.gchq.maestro.executor.util.ExecutorPropertiesUtil;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static uk.gov.gchq.maestro.commonutil.exception.MaestroObjectsUtil.requireNonNull;
+
+/**
+ * Holds the threads each federated executor calls its sub executors on,
+ * bounded by {@link ExecutorPropertiesUtil#FEDERATED_THREADS}. The threads
+ * end once they have been idle for a minute, so the pool of a federated
+ * executor that is no longer used holds no threads.
+ */
+public final class CallsFederatedUtil {
+    public static final String ERROR_GETTING_CALLS = "Error getting the federated call threads";
+    private static final long KEEP_ALIVE = 60;
+    private static final Map<String, ThreadPoolExecutor> CALLS = new ConcurrentHashMap<>();
+
+    private CallsFederatedUtil() {
+        //No instance
+    }
+
+    /**
+     * @param executor the federated executor
+     * @return the threads to call the sub executors on, created if there are
+     * none and resized if the thread property of the executor has changed
+     */
+    public static ExecutorService getCalls(final Executor executor) {
+        requireNonNull(executor, "Executor", ERROR_GETTING_CALLS);
+        final int threads = Math.max(1, ExecutorPropertiesUtil.getFederatedThreads(executor));
+        final ThreadPoolExecutor calls = CALLS.computeIfAbsent(executor.getId(), id -> createCalls(threads));
+        if (calls.getMaximumPoolSize() != threads) {
+            synchronized (calls) {
+                if (threads > calls.getMaximumPoolSize()) {
+                    calls.setMaximumPoolSize(threads);
+                    calls.setCorePoolSize(threads);
+                } else {
+                    calls.setCorePoolSize(threads);
+                    calls.setMaximumPoolSize(threads);
+                }
+            }
+        }
+        return calls;
+    }
+
+    private static ThreadPoolExecutor createCalls(final int threads) {
+        final ThreadPoolExecutor calls = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            final Thread thread = new Thread(runnable, "federated-call");
+            thread.setDaemon(true);
+            return thread;
+        });
+        calls.allowCoreThreadTimeOut(true);
+        return calls;
+    }
+}
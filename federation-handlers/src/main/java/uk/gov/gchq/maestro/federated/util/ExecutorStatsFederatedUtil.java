@@ -0,0 +1,67 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.federated.util;
+
+import uk.gov.gchq.maestro.executor.Executor;
+import uk.gov.gchq.maestro.federated.ExecutorStats;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static uk.gov.gchq.maestro.commonutil.exception.MaestroObjectsUtil.requireNonNull;
+
+/**
+ * Holds the {@link ExecutorStats} of each sub executor, per federated executor.
+ */
+public final class ExecutorStatsFederatedUtil {
+    public static final String ERROR_GETTING_EXECUTOR_STATS = "Error getting ExecutorStats";
+    private static final Map<String, Map<String, ExecutorStats>> STATS = new ConcurrentHashMap<>();
+
+    private ExecutorStatsFederatedUtil() {
+        //No instance
+    }
+
+    /**
+     * @param executor   the federated executor
+     * @param executorId the id of the sub executor
+     * @return the stats of calls to the sub executor, created if there are none
+     */
+    public static ExecutorStats getStats(final Executor executor, final String executorId) {
+        requireNonNull(executor, "Executor", ERROR_GETTING_EXECUTOR_STATS);
+        return STATS.computeIfAbsent(getKey(executor), id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(executorId, id -> new ExecutorStats());
+    }
+
+    /**
+     * Forgets the stats of a sub executor, so one added again later with the
+     * same id starts afresh.
+     *
+     * @param executor   the federated executor
+     * @param executorId the id of the removed sub executor
+     */
+    public static void removeStats(final Executor executor, final String executorId) {
+        requireNonNull(executor, "Executor", ERROR_GETTING_EXECUTOR_STATS);
+        final Map<String, ExecutorStats> stats = STATS.get(getKey(executor));
+        if (null != stats && null != executorId) {
+            stats.remove(executorId);
+        }
+    }
+
+    private static String getKey(final Executor executor) {
+        return null == executor.getId() ? "" : executor.getId();
+    }
+}
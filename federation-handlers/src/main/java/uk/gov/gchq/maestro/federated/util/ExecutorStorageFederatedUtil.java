@@ -23,11 +23,9 @@ import uk.gov.gchq.maestro.commonutil.exception.MaestroObjectsUtil;
 import uk.gov.gchq.maestro.commonutil.exception.MaestroRuntimeException;
 import uk.gov.gchq.maestro.executor.Executor;
 import uk.gov.gchq.maestro.executor.util.Config;
-import uk.gov.gchq.maestro.federated.FederatedAccess;
 import uk.gov.gchq.maestro.federated.FederatedExecutorStorage;
 
 import java.util.Map;
-import java.util.TreeSet;
 
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
@@ -64,17 +62,7 @@ public final class ExecutorStorageFederatedUtil {
                     receivingFEStorage = new FederatedExecutorStorage();
                     setExecutorStorage(receivingConfig, receivingFEStorage);
                 }
-                final Map<FederatedAccess, TreeSet<Executor>> recievingStorage = receivingFEStorage.getStorage();
-                for (final Map.Entry<FederatedAccess, TreeSet<Executor>> addingEntry : storageToAdd.getStorage().entrySet()) {
-                    final FederatedAccess addingKey = addingEntry.getKey();
-                    final TreeSet<Executor> addingValue = addingEntry.getValue();
-
-                    if (recievingStorage.containsKey(addingKey)) {
-                        recievingStorage.get(addingKey).addAll(addingValue);
-                    } else {
-                        recievingStorage.put(addingKey, addingValue);
-                    }
-                }
+                receivingFEStorage.putAll(storageToAdd);
             }
         } catch (final Exception e) {
             final String message = String.format(ERROR_MERGING_AND_ADDING_FEDERATED_EXECUTOR_STORAGE_TO_PROPERTIES_S, e.getMessage());
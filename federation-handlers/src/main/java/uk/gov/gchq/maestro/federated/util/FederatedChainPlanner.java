@@ -0,0 +1,140 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.federated.util;
+
+import uk.gov.gchq.maestro.commonutil.Pair;
+import uk.gov.gchq.maestro.executor.Executor;
+import uk.gov.gchq.maestro.operation.Operation;
+import uk.gov.gchq.maestro.operation.OperationChain;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Splits an {@link OperationChain} into the part that is run on each sub
+ * executor and the part that is run on the merged results.
+ * <p>
+ * The first operation of the chain always runs on the sub executors. It is
+ * followed there by as many of the next operations as are pushed down, for
+ * example filters and transforms, or are reapplied, for example limits,
+ * sorts and partial aggregates. Operations to reapply are also run again on
+ * the merged results. Once an operation to reapply has been pushed down only
+ * further operations to reapply follow it, so each run of them must be safe
+ * to apply to each sub executor's results and then to the merged results,
+ * such as a sort followed by a limit. Everything after the pushed down
+ * prefix runs on the merged results.
+ * </p>
+ * <p>
+ * An operation is only pushed down if every sub executor supports it, and
+ * more than one operation is only pushed down if every sub executor
+ * supports the chain itself.
+ * </p>
+ */
+public final class FederatedChainPlanner {
+
+    private FederatedChainPlanner() {
+        //No instance
+    }
+
+    /**
+     * @param chain              the chain to split
+     * @param pushDownOperations the ids of operations that can run on the
+     *                           sub executors alone
+     * @param reapplyOperations  the ids of operations that can run on the
+     *                           sub executors and again on the merged results
+     * @param executors          the sub executors the chain is sent to
+     * @return the operation to run on each sub executor, and the chain to run
+     * on the merged results, which may be empty
+     */
+    public static Pair<Operation, OperationChain> plan(final OperationChain chain, final Set<String> pushDownOperations, final Set<String> reapplyOperations, final Collection<Executor> executors) {
+        final Set<String> pushDown = null == pushDownOperations ? Collections.emptySet() : pushDownOperations;
+        final Set<String> reapply = null == reapplyOperations ? Collections.emptySet() : reapplyOperations;
+        final List<Operation> operations = chain.getOperations();
+        if (operations.isEmpty()) {
+            return new Pair<>(chain, localChain(chain, new ArrayList<>()));
+        }
+
+        final List<Operation> remote = new ArrayList<>();
+        final List<Operation> local = new ArrayList<>();
+        remote.add(operations.get(0));
+        boolean reapplying = false;
+        int next = 1;
+        for (; next < operations.size(); next++) {
+            final Operation operation = operations.get(next);
+            final boolean isReapplied = reapply.contains(operation.getId());
+            final boolean isPushedDown = isReapplied || (!reapplying && pushDown.contains(operation.getId()));
+            if (!isPushedDown || !isSupportedByAll(executors, operation.getId())) {
+                break;
+            }
+            remote.add(operation);
+            if (isReapplied) {
+                reapplying = true;
+                local.add(copy(operation));
+            }
+        }
+
+        if (remote.size() > 1 && !isSupportedByAll(executors, chain.getId())) {
+            // The sub executors can only run the first operation
+            remote.subList(1, remote.size()).clear();
+            local.clear();
+            next = 1;
+        }
+        local.addAll(operations.subList(next, operations.size()));
+
+        final Operation remoteOperation = 1 == remote.size()
+                ? remote.get(0)
+                : new OperationChain(chain.getId(), remote, chain.getOperationArgs(), chain.getOptions());
+        return new Pair<>(remoteOperation, localChain(chain, local));
+    }
+
+    private static OperationChain localChain(final OperationChain chain, final List<Operation> operations) {
+        return new OperationChain(chain.getId(), operations, chain.getOperationArgs(), chain.getOptions());
+    }
+
+    /**
+     * Copies an operation and its args, and those of any operations in it if
+     * it is a chain, so the input given to one copy is not seen by another.
+     *
+     * @param operation the operation to copy
+     * @return the copy
+     */
+    public static Operation copy(final Operation operation) {
+        final Map<String, Object> operationArgs = null == operation.getOperationArgs() ? null : new HashMap<>(operation.getOperationArgs());
+        if (operation instanceof OperationChain) {
+            final List<Operation> operations = new ArrayList<>();
+            for (final Operation child : ((OperationChain) operation).getOperations()) {
+                operations.add(copy(child));
+            }
+            return new OperationChain(operation.getId(), operations, operationArgs, operation.getOptions());
+        }
+        return new Operation(operation.getId(), operationArgs, operation.getOptions());
+    }
+
+    private static boolean isSupportedByAll(final Collection<Executor> executors, final String operationId) {
+        for (final Executor executor : executors) {
+            if (!executor.isSupported(operationId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
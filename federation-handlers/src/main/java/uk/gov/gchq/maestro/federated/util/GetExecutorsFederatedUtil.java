@@ -25,10 +25,15 @@ import uk.gov.gchq.maestro.commonutil.exception.MaestroRuntimeException;
 import uk.gov.gchq.maestro.executor.Executor;
 import uk.gov.gchq.maestro.executor.util.Config;
 import uk.gov.gchq.maestro.federated.FederatedExecutorStorage;
+import uk.gov.gchq.maestro.federated.partition.PartitionDescriptor;
+import uk.gov.gchq.maestro.operation.Operation;
 import uk.gov.gchq.maestro.operation.user.User;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Supplier;
 
 import static uk.gov.gchq.maestro.commonutil.exception.MaestroObjectsUtil.DUE_TO;
@@ -53,6 +58,50 @@ public final class GetExecutorsFederatedUtil {
         return getExecutorsFrom(executor.getConfig(), user, executorIds);
     }
 
+    /**
+     * @param executor    the federated executor
+     * @param user        to match visibility against
+     * @param operationId the id of the operation to be handled
+     * @return the sub executors, enabled by default and visible to the user,
+     * that can handle the operation
+     */
+    public static Collection<Executor> getCapableExecutorsFrom(final Executor executor, final User user, final String operationId) {
+        requireNonNull(executor, "Executor", ERROR_GETTING_EXECUTORS);
+        final FederatedExecutorStorage executorStorage = ExecutorStorageFederatedUtil.getExecutorStorage(executor.getConfig());
+        return null == executorStorage ? Collections.emptyList() : executorStorage.getCapable(user, operationId);
+    }
+
+    /**
+     * @param executor the federated executor
+     * @param user     to match visibility against
+     * @return the operations supported by any sub executor visible to the user
+     */
+    public static Set<String> getSupportedOperationsFrom(final Executor executor, final User user) {
+        requireNonNull(executor, "Executor", ERROR_GETTING_EXECUTORS);
+        final FederatedExecutorStorage executorStorage = ExecutorStorageFederatedUtil.getExecutorStorage(executor.getConfig());
+        return null == executorStorage ? Collections.emptySet() : executorStorage.getSupportedOperations(user);
+    }
+
+    /**
+     * @param executor  the federated executor
+     * @param executors the sub executors the operation would be sent to
+     * @param operation the operation to be sent
+     * @return the sub executors whose partitions may hold something the
+     * operation asks for, in the same order
+     */
+    public static List<Executor> prunePartitionsFrom(final Executor executor, final Collection<Executor> executors, final Operation operation) {
+        requireNonNull(executor, "Executor", ERROR_GETTING_EXECUTORS);
+        final FederatedExecutorStorage executorStorage = ExecutorStorageFederatedUtil.getExecutorStorage(executor.getConfig());
+        final List<Executor> rtn = new ArrayList<>(executors.size());
+        for (final Executor sub : executors) {
+            final PartitionDescriptor partition = null == executorStorage ? null : executorStorage.getPartition(sub.getId());
+            if (null == partition || partition.mayContain(operation)) {
+                rtn.add(sub);
+            }
+        }
+        return rtn;
+    }
+
     private static Collection<Executor> getExecutorsFrom(final Config config, final User user, final List<String> executorIds) throws MaestroCheckedException {
         requireNonNull(config, "config", getErrorPrefix(executorIds));
         final FederatedExecutorStorage executorStorage;
@@ -61,7 +61,11 @@ public final class RemoveExecutorsFederatedUtil {
     private static boolean removeExecutorsFrom(final Executor executor,
                                                final String executorId, final User user) throws MaestroCheckedException {
         requireNonNull(executor, "Executor", getErrorPrefix(executorId));
-        return removeExecutorsFrom(executor.getConfig(), executorId, user);
+        final boolean hasRemoved = removeExecutorsFrom(executor.getConfig(), executorId, user);
+        if (hasRemoved) {
+            ExecutorStatsFederatedUtil.removeStats(executor, executorId);
+        }
+        return hasRemoved;
     }
 
     private static boolean removeExecutorsFrom(final Config config, final String executorId, final User user) throws MaestroCheckedException {
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.federated;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ExecutorStatsTest {
+
+    @Test
+    public void shouldReportPercentilesAsBucketUpperBounds() {
+        // Given
+        final ExecutorStats stats = new ExecutorStats();
+
+        // When
+        for (int i = 0; i < 99; i++) {
+            stats.recordSuccess(10);
+        }
+        stats.recordSuccess(1000);
+
+        // Then
+        assertEquals(16, stats.getPercentile(50));
+        assertEquals(16, stats.getPercentile(99));
+        assertEquals(1024, stats.getPercentile(100));
+    }
+
+    @Test
+    public void shouldDeriveTimeoutFromRecentLatencies() {
+        // Given
+        final ExecutorStats stats = new ExecutorStats();
+
+        // When / Then
+        assertEquals(5000, stats.getTimeout(3, 100, 5000));
+        for (int i = 0; i < 20; i++) {
+            stats.recordSuccess(200);
+        }
+        assertEquals(768, stats.getTimeout(3, 100, 5000));
+        assertEquals(500, stats.getTimeout(3, 100, 500));
+    }
+
+    @Test
+    public void shouldExcludeAfterConsecutiveFailuresForExclusionTime() {
+        // Given
+        final ExecutorStats stats = new ExecutorStats();
+
+        // When
+        stats.recordFailure(10, 1000, 2, 500);
+        stats.recordSuccess(10);
+        stats.recordFailure(10, 1000, 2, 500);
+        assertFalse(stats.isExcluded(1000));
+        stats.recordFailure(10, 1000, 2, 500);
+
+        // Then
+        assertTrue(stats.isExcluded(1499));
+        assertFalse(stats.isExcluded(1500));
+        assertEquals(3L, stats.toMap(1000).get("errors"));
+        assertEquals(true, stats.toMap(1000).get("excluded"));
+    }
+}
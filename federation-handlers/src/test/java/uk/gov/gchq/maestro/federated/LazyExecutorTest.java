@@ -0,0 +1,142 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.federated;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.gov.gchq.maestro.commonutil.cache.CacheServiceLoader;
+import uk.gov.gchq.maestro.commonutil.cache.ICacheService;
+import uk.gov.gchq.maestro.commonutil.cache.impl.HashMapCacheService;
+import uk.gov.gchq.maestro.commonutil.cache.util.CacheProperties;
+import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.JSONSerialiser;
+import uk.gov.gchq.maestro.executor.Context;
+import uk.gov.gchq.maestro.executor.Executor;
+import uk.gov.gchq.maestro.executor.helper.TestHandler;
+import uk.gov.gchq.maestro.executor.operation.declaration.FieldDeclaration;
+import uk.gov.gchq.maestro.executor.operation.handler.OperationHandler;
+import uk.gov.gchq.maestro.executor.util.Config;
+import uk.gov.gchq.maestro.operation.Operation;
+import uk.gov.gchq.maestro.operation.user.User;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LazyExecutorTest {
+    private static final AtomicInteger INITIALISED = new AtomicInteger();
+
+    @Before
+    public void before() {
+        INITIALISED.set(0);
+    }
+
+    @Test
+    public void shouldOnlyMaterialiseOnFirstExecute() throws Exception {
+        // Given
+        final LazyExecutor executor = new LazyExecutor(getConfig("lazy"));
+
+        // When / Then
+        assertEquals(0, INITIALISED.get());
+        assertTrue(executor.getSupportedOperations().contains("test"));
+        assertFalse(executor.isMaterialised());
+
+        executor.execute(new Operation("test").operationArg(TestHandler.FIELD, "a"), new Context());
+        executor.execute(new Operation("test").operationArg(TestHandler.FIELD, "b"), new Context());
+        assertTrue(executor.isMaterialised());
+        assertEquals(1, INITIALISED.get());
+    }
+
+    @Test
+    public void shouldDeserialiseWithoutMaterialising() throws Exception {
+        // Given
+        final byte[] json = JSONSerialiser.serialise(new LazyExecutor(getConfig("lazy")));
+
+        // When
+        final Executor executor = JSONSerialiser.deserialise(json, Executor.class);
+
+        // Then
+        assertTrue(executor instanceof LazyExecutor);
+        assertEquals("lazy", executor.getId());
+        assertEquals(0, INITIALISED.get());
+    }
+
+    @Test
+    public void shouldWarmUpLazyExecutorsInStorage() throws Exception {
+        // Given
+        final FederatedExecutorStorage storage = new FederatedExecutorStorage();
+        final FederatedAccess access = new FederatedAccess(null, "user");
+        for (int i = 0; i < 5; i++) {
+            storage.put(new LazyExecutor(getConfig("lazy" + i)), access);
+        }
+        storage.put(new Executor(new Config("eager")), access);
+
+        // When
+        storage.warmUp(2).get(10, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals(5, INITIALISED.get());
+        for (final Executor executor : storage.getAll(new User("user"))) {
+            assertTrue(!(executor instanceof LazyExecutor) || ((LazyExecutor) executor).isMaterialised());
+        }
+    }
+
+    @Test
+    public void shouldNotReplaceTheCacheServiceWhenMaterialising() throws Exception {
+        // Given
+        final Map<String, Object> properties = new HashMap<>();
+        properties.put(CacheProperties.CACHE_SERVICE, HashMapCacheService.class.getName());
+        CacheServiceLoader.initialise(properties);
+        try {
+            final ICacheService service = CacheServiceLoader.getService();
+            final LazyExecutor executor = new LazyExecutor(getConfig("lazy").setProperties(new HashMap<>(properties)));
+
+            // When
+            executor.materialise();
+
+            // Then
+            assertEquals(1, INITIALISED.get());
+            assertSame(service, CacheServiceLoader.getService());
+        } finally {
+            CacheServiceLoader.shutdown();
+        }
+    }
+
+    private static Config getConfig(final String id) {
+        return new Config(id)
+                .addOperationHandler(Executor.INITIALISER, new CountingInitialiser())
+                .addOperationHandler("test", new TestHandler());
+    }
+
+    public static class CountingInitialiser implements OperationHandler {
+        @Override
+        public Object _doOperation(final Operation operation, final Context context, final Executor executor) {
+            return INITIALISED.incrementAndGet();
+        }
+
+        @Override
+        public FieldDeclaration getFieldDeclaration() {
+            return new FieldDeclaration();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.federated.merge;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+import uk.gov.gchq.maestro.commonutil.iterable.CloseableIterable;
+import uk.gov.gchq.maestro.commonutil.iterable.WrappedCloseableIterable;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConcatMergeTest {
+
+    @Test
+    public void shouldConcatenateResultsInOrder() {
+        // Given
+        final ConcatMerge<Integer> merge = new ConcatMerge<>();
+
+        // When
+        Iterable<Integer> state = null;
+        state = merge.apply(state, Arrays.asList(1, 2));
+        state = merge.apply(state, Collections.emptyList());
+        state = merge.apply(state, Arrays.asList(3));
+        state = merge.apply(state, null);
+
+        // Then
+        assertEquals(Arrays.asList(1, 2, 3), Lists.newArrayList(state));
+    }
+
+    @Test
+    public void shouldCloseResultsWhenClosed() {
+        // Given
+        final ConcatMerge<Integer> merge = new ConcatMerge<>();
+        final boolean[] closed = new boolean[1];
+        final CloseableIterable<Integer> result = new WrappedCloseableIterable<Integer>(Arrays.asList(1)) {
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+
+        // When
+        ((CloseableIterable) merge.apply(merge.apply(null, Arrays.asList(0)), result)).close();
+
+        // Then
+        assertTrue(closed[0]);
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.federated.merge;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+public class CountMergeTest {
+
+    @Test
+    public void shouldCountItemsAcrossExecutors() {
+        // Given
+        final CountMerge merge = new CountMerge();
+
+        // When
+        Object state = merge.apply(null, Arrays.asList("a", "b", "c"));
+        state = merge.apply(state, Collections.emptyList());
+        state = merge.apply(state, 5L);
+        state = merge.apply(state, "d");
+
+        // Then
+        assertEquals(9L, state);
+    }
+}
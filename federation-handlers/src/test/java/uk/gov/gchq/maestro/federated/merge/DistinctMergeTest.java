@@ -0,0 +1,41 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.federated.merge;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+public class DistinctMergeTest {
+
+    @Test
+    public void shouldSkipItemsAlreadyReturnedByAnyExecutor() {
+        // Given
+        final DistinctMerge<String> merge = new DistinctMerge<>();
+
+        // When
+        Iterable<String> state = merge.apply(null, Arrays.asList("a", "b", "a"));
+        state = merge.apply(state, Arrays.asList("c", "b"));
+
+        // Then
+        assertEquals(Arrays.asList("a", "b", "c"), Lists.newArrayList(state));
+        assertEquals(Arrays.asList("a", "b", "c"), Lists.newArrayList(state));
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.federated.merge;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.JSONSerialiser;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+public class SortedMergeTest {
+
+    @Test
+    public void shouldMergeSortedResultsIntoSortedResult() {
+        // Given
+        final SortedMerge<Integer> merge = new SortedMerge<>();
+
+        // When
+        Iterable<Integer> state = merge.apply(null, Arrays.asList(1, 4, 7));
+        state = merge.apply(state, Arrays.asList(2, 5, 8, 9));
+        state = merge.apply(state, Arrays.asList(3, 6));
+
+        // Then
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9), Lists.newArrayList(state));
+    }
+
+    @Test
+    public void shouldMergeResultsSortedInReverse() {
+        // Given
+        final SortedMerge<Integer> merge = new SortedMerge<Integer>().reversed(true);
+
+        // When
+        final Iterable<Integer> state = merge.apply(merge.apply(null, Arrays.asList(9, 3)), Arrays.asList(8, 4, 1));
+
+        // Then
+        assertEquals(Arrays.asList(9, 8, 4, 3, 1), Lists.newArrayList(state));
+    }
+
+    @Test
+    public void shouldJsonSerialiseAndDeserialise() throws Exception {
+        // Given
+        final SortedMerge<Integer> merge = new SortedMerge<Integer>().reversed(true);
+
+        // When
+        final byte[] json = JSONSerialiser.serialise(merge);
+
+        // Then
+        assertEquals(merge, JSONSerialiser.deserialise(json, SortedMerge.class));
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.federated.merge;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+public class SumMergeTest {
+
+    @Test
+    public void shouldSumNumbersAndIterablesOfNumbers() {
+        // Given
+        final SumMerge merge = new SumMerge();
+
+        // When
+        Object state = merge.apply(null, Arrays.asList(1, 2, 3));
+        state = merge.apply(state, 4);
+
+        // Then
+        assertEquals(10L, state);
+        assertEquals(10.5, merge.apply(state, 0.5));
+    }
+}
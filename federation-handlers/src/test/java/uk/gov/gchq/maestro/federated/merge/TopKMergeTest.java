@@ -0,0 +1,67 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.federated.merge;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+import uk.gov.gchq.koryphe.binaryoperator.KorypheBinaryOperator;
+import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.JSONSerialiser;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+public class TopKMergeTest {
+
+    @Test
+    public void shouldKeepTopKItemsAcrossExecutors() {
+        // Given
+        final TopKMerge<Integer> merge = new TopKMerge<Integer>().k(3).reversed(true);
+
+        // When
+        Iterable<Integer> state = merge.apply(null, Arrays.asList(5, 1, 9));
+        state = merge.apply(state, Arrays.asList(7, 8, 2));
+
+        // Then
+        assertEquals(Arrays.asList(9, 8, 7), Lists.newArrayList(state));
+    }
+
+    @Test
+    public void shouldLimitSingleResult() {
+        // Given
+        final TopKMerge<Integer> merge = new TopKMerge<Integer>().k(2);
+
+        // When
+        final Iterable<Integer> state = merge.apply(null, Arrays.asList(3, 2, 1));
+
+        // Then
+        assertEquals(Arrays.asList(1, 2), Lists.newArrayList(state));
+    }
+
+    @Test
+    public void shouldJsonSerialiseAndDeserialise() throws Exception {
+        // Given
+        final TopKMerge<Integer> merge = new TopKMerge<Integer>().k(10).reversed(true);
+
+        // When
+        final byte[] json = JSONSerialiser.serialise(merge);
+
+        // Then
+        assertEquals(merge, JSONSerialiser.deserialise(json, KorypheBinaryOperator.class));
+    }
+}
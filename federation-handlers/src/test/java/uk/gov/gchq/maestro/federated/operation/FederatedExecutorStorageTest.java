@@ -16,15 +16,40 @@
 package uk.gov.gchq.maestro.federated.operation;
 
 import com.google.common.collect.Sets;
+import org.junit.Test;
 
+import uk.gov.gchq.maestro.commonutil.cache.CacheServiceLoader;
+import uk.gov.gchq.maestro.commonutil.cache.impl.HashMapCacheService;
+import uk.gov.gchq.maestro.commonutil.cache.util.CacheProperties;
+import uk.gov.gchq.maestro.commonutil.exception.MaestroCheckedException;
+import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.JSONSerialiser;
 import uk.gov.gchq.maestro.executor.Executor;
+import uk.gov.gchq.maestro.executor.helper.TestHandler;
 import uk.gov.gchq.maestro.executor.util.Config;
 import uk.gov.gchq.maestro.federated.FederatedAccess;
+import uk.gov.gchq.maestro.federated.FederatedExecutorCache;
 import uk.gov.gchq.maestro.federated.FederatedExecutorStorage;
 import uk.gov.gchq.maestro.federated.operation.handler.AddExecutorHandlerBasicTest;
 import uk.gov.gchq.maestro.operation.helper.MaestroObjectTest;
+import uk.gov.gchq.maestro.operation.user.User;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 
 public class FederatedExecutorStorageTest extends MaestroObjectTest<FederatedExecutorStorage> {
@@ -101,4 +126,173 @@ public class FederatedExecutorStorageTest extends MaestroObjectTest<FederatedExe
 
         return federatedExecutorStorage;
     }
+
+    @Test
+    public void shouldGetExecutorsInRequestedOrder() throws Exception {
+        // Given
+        final FederatedExecutorStorage storage = getFullyPopulatedTestObject();
+        final User user = new User("testUser3", Collections.emptySet(), Sets.newHashSet("one"));
+
+        // When
+        final List<Executor> executors = new ArrayList<>(storage.get(user, Arrays.asList(
+                AddExecutorHandlerBasicTest.INNER_EXECUTOR_ID + 3, AddExecutorHandlerBasicTest.INNER_EXECUTOR_ID + 1)));
+
+        // Then
+        assertEquals(2, executors.size());
+        assertEquals(AddExecutorHandlerBasicTest.INNER_EXECUTOR_ID + 3, executors.get(0).getId());
+        assertEquals(AddExecutorHandlerBasicTest.INNER_EXECUTOR_ID + 1, executors.get(1).getId());
+    }
+
+    @Test
+    public void shouldNotGetExecutorsTheUserCannotSee() throws Exception {
+        // Given
+        final FederatedExecutorStorage storage = getFullyPopulatedTestObject();
+
+        // When / Then
+        try {
+            storage.get(new User("testUser1"), Arrays.asList(AddExecutorHandlerBasicTest.INNER_EXECUTOR_ID + 1, AddExecutorHandlerBasicTest.INNER_EXECUTOR_ID + 2));
+            fail("Exception expected");
+        } catch (final MaestroCheckedException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("[" + AddExecutorHandlerBasicTest.INNER_EXECUTOR_ID + 2 + "]"));
+        }
+    }
+
+    @Test
+    public void shouldRemoveExecutorOnlyIfVisible() throws Exception {
+        // Given
+        final FederatedExecutorStorage storage = getFullyPopulatedTestObject();
+
+        // When / Then
+        assertFalse(storage.remove(AddExecutorHandlerBasicTest.INNER_EXECUTOR_ID + 2, new User("testUser1")));
+        assertTrue(storage.remove(AddExecutorHandlerBasicTest.INNER_EXECUTOR_ID + 2, new User("testUser2")));
+        assertFalse(storage.getAllIds(new User("testUser2")).contains(AddExecutorHandlerBasicTest.INNER_EXECUTOR_ID + 2));
+        storage.put(new Executor(new Config().id(AddExecutorHandlerBasicTest.INNER_EXECUTOR_ID + 2)), new FederatedAccess(null, "testUser1"));
+    }
+
+    @Test
+    public void shouldRejectDuplicateExecutorIdUnderAnyAccess() throws Exception {
+        // Given
+        final FederatedExecutorStorage storage = getFullyPopulatedTestObject();
+
+        // When / Then
+        try {
+            storage.put(new Executor(new Config().id(AddExecutorHandlerBasicTest.INNER_EXECUTOR_ID + 3)), new FederatedAccess(null, "testUser1"));
+            fail("Exception expected");
+        } catch (final MaestroCheckedException e) {
+            assertTrue(e.getCause().getMessage(), e.getCause().getMessage().contains("overwrite"));
+        }
+    }
+
+    @Test
+    public void shouldIndexDeserialisedStorageAndSkipRepeatedPuts() throws Exception {
+        // Given
+        final FederatedExecutorStorage storage = JSONSerialiser.deserialise(getJSONString(), FederatedExecutorStorage.class);
+
+        // When
+        storage.putAll(getFullyPopulatedTestObject());
+
+        // Then
+        assertEquals(getFullyPopulatedTestObject(), storage);
+        assertEquals(1, storage.get(new User("testUser2"), Collections.singletonList(AddExecutorHandlerBasicTest.INNER_EXECUTOR_ID + 3)).size());
+    }
+
+    @Test
+    public void shouldIndexCapabilitiesOnPutAndRemove() throws Exception {
+        // Given
+        final FederatedExecutorStorage storage = new FederatedExecutorStorage();
+        final FederatedAccess access = new FederatedAccess(null, "testUser1");
+        final User user = new User("testUser1");
+        storage.put(new Executor(new Config().id("a").addOperationHandler("opA", new TestHandler())), access);
+        storage.put(new Executor(new Config().id("b").addOperationHandler("opA", new TestHandler())
+                .addOperationHandler("opB", new TestHandler())), access);
+        storage.put(new Executor(new Config().id("any").setDefaultHandler(new TestHandler())), access);
+
+        // When
+        storage.remove("b", user);
+
+        // Then
+        assertEquals(Collections.singleton("opA"), storage.getSupportedOperations(user));
+        assertEquals(Arrays.asList("a", "any"), getIds(storage.getCapable(user, "opA")));
+        assertEquals(Collections.singletonList("any"), getIds(storage.getCapable(user, "opB")));
+        assertTrue(storage.getSupportedOperations(new User("testUser2")).isEmpty());
+    }
+
+    @Test
+    public void shouldReadConsistentSnapshotsWhileExecutorsAreAdded() throws Exception {
+        // Given
+        final FederatedExecutorStorage storage = new FederatedExecutorStorage();
+        final FederatedAccess access = new FederatedAccess(null, "testUser1", true);
+        final User user = new User("testUser1");
+        final ExecutorService threads = Executors.newFixedThreadPool(4);
+
+        // When
+        final Future<?> writer = threads.submit(() -> {
+            for (int i = 0; i < 200; i++) {
+                storage.put(new Executor(new Config().id("executor" + i)), access);
+            }
+            return null;
+        });
+        final List<Future<Integer>> readers = new ArrayList<>();
+        for (int r = 0; r < 3; r++) {
+            readers.add(threads.submit(() -> {
+                int last = 0;
+                while (!writer.isDone()) {
+                    final int size = storage.getAll(user).size();
+                    assertTrue(size >= last);
+                    last = size;
+                }
+                return last;
+            }));
+        }
+
+        // Then
+        writer.get(30, TimeUnit.SECONDS);
+        for (final Future<Integer> reader : readers) {
+            reader.get(30, TimeUnit.SECONDS);
+        }
+        threads.shutdown();
+        assertEquals(200, storage.getAll(user).size());
+    }
+
+    @Test
+    public void shouldNotCacheExecutorsWhenALaterExecutorFailsToBeAdded() throws Exception {
+        // Given
+        final Map<String, Object> properties = new HashMap<>();
+        properties.put(CacheProperties.CACHE_SERVICE, HashMapCacheService.class.getName());
+        CacheServiceLoader.initialise(properties);
+        try {
+            final FederatedExecutorStorage storage = new CachedStorage();
+            final FederatedAccess access = new FederatedAccess(null, "testUser1");
+            storage.put(new Executor(new Config().id("b")), access);
+
+            // When
+            try {
+                storage.put(Arrays.asList(new Executor(new Config().id("a")),
+                        new Executor(new Config().id("b").addOperationHandler("opA", new TestHandler()))), access);
+                fail("Exception expected");
+            } catch (final MaestroCheckedException e) {
+                // Then
+                assertEquals(Collections.singletonList("b"), new ArrayList<>(storage.getAllIds(new User("testUser1"))));
+                assertEquals(Collections.singleton("b"), new FederatedExecutorCache().getAllExecutorIds());
+            }
+        } finally {
+            CacheServiceLoader.shutdown();
+        }
+    }
+
+    private static List<String> getIds(final Collection<Executor> executors) {
+        final List<String> ids = new ArrayList<>();
+        for (final Executor executor : executors) {
+            ids.add(executor.getId());
+        }
+        return ids;
+    }
+
+    private static final class CachedStorage extends FederatedExecutorStorage {
+        private static final long serialVersionUID = 1L;
+
+        private CachedStorage() throws MaestroCheckedException {
+            startCacheServiceLoader();
+        }
+    }
 }
@@ -81,7 +81,8 @@ public class AddExecutorHandlerBasicTest extends MaestroHandlerBasicTest<AddExec
                 "      \"disabledByDefault\" : \"java.lang.Boolean\",\n" +
                 "      \"executor\" : \"uk.gov.gchq.maestro.executor.Executor\",\n" +
                 "      \"isPublic\" : \"java.lang.Boolean\",\n" +
-                "      \"parentConfigId\" : \"java.lang.String\"\n" +
+                "      \"parentConfigId\" : \"java.lang.String\",\n" +
+                "      \"partition\" : \"uk.gov.gchq.maestro.federated.partition.PartitionDescriptor\"\n" +
                 "    }\n" +
                 "  }\n" +
                 "}";
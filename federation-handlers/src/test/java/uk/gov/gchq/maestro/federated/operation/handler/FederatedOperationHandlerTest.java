@@ -16,22 +16,44 @@
 
 package uk.gov.gchq.maestro.federated.operation.handler;
 
+import com.google.common.collect.Sets;
 import org.junit.Before;
+import org.junit.Test;
 
+import uk.gov.gchq.koryphe.binaryoperator.KorypheBinaryOperator;
 import uk.gov.gchq.koryphe.impl.binaryoperator.StringConcat;
 import uk.gov.gchq.maestro.commonutil.exception.OperationException;
+import uk.gov.gchq.maestro.executor.Context;
 import uk.gov.gchq.maestro.executor.Executor;
 import uk.gov.gchq.maestro.executor.helper.MaestroHandlerBasicTest;
 import uk.gov.gchq.maestro.executor.helper.TestHandler;
+import uk.gov.gchq.maestro.executor.operation.declaration.FieldDeclaration;
+import uk.gov.gchq.maestro.executor.operation.handler.OperationHandler;
+import uk.gov.gchq.maestro.executor.operation.handler.chain.OperationChainHandler;
 import uk.gov.gchq.maestro.executor.util.Config;
+import uk.gov.gchq.maestro.executor.util.ExecutorPropertiesUtil;
+import uk.gov.gchq.maestro.federated.FederatedAccess;
+import uk.gov.gchq.maestro.federated.FederatedExecutorStorage;
 import uk.gov.gchq.maestro.federated.handler.AddExecutorHandler;
 import uk.gov.gchq.maestro.federated.handler.FederatedOperationHandler;
+import uk.gov.gchq.maestro.federated.handler.GetExecutorStatsHandler;
+import uk.gov.gchq.maestro.federated.handler.GetSupportedOperationHandler;
+import uk.gov.gchq.maestro.federated.partition.PartitionDescriptor;
+import uk.gov.gchq.maestro.federated.partition.TimeWindowPartition;
+import uk.gov.gchq.maestro.federated.util.ExecutorStorageFederatedUtil;
 import uk.gov.gchq.maestro.operation.Operation;
+import uk.gov.gchq.maestro.operation.OperationChain;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class FederatedOperationHandlerTest extends MaestroHandlerBasicTest<FederatedOperationHandler> {
 
@@ -88,6 +110,148 @@ public class FederatedOperationHandlerTest extends MaestroHandlerBasicTest<Feder
         assertEquals("AHandler,OpField,CHandler,OpField,BHandler,OpField", value);
     }
 
+    @Test
+    public void shouldRouteOnlyToCapableExecutorsWhenIdsOmitted() throws Exception {
+        // Given
+        final Operation operation = getBasicOp();
+        operation.getOperationArgs().remove(FederatedOperationHandler.IDS);
+
+        // When
+        final Object value = getTestHandler().doOperation(operation, context, testExecutor);
+
+        // Then
+        assertEquals("AHandler,OpField,BHandler,OpField,CHandler,OpField", value);
+    }
+
+    @Test
+    public void shouldGetMergedSupportedOperations() throws Exception {
+        // When
+        final Object value = new GetSupportedOperationHandler().doOperation(new Operation("getSupportedOperations"), context, testExecutor);
+
+        // Then
+        assertEquals(Collections.singleton(TEST_OPERATION), value);
+    }
+
+    @Test
+    public void shouldOnlyMergeTopRowsFromEachExecutorForTopRowsQuery() throws Exception {
+        // Given
+        final FederatedExecutorStorage storage = new FederatedExecutorStorage();
+        for (int i = 0; i < 8; i++) {
+            storage.put(new Executor(rowsConfig("rows" + i).addOperationHandler("getRows", new RowsHandler(i * 100))),
+                    new FederatedAccess(null, testUser.getUserId()));
+        }
+        final Executor federated = new Executor(rowsConfig("federated"));
+        ExecutorStorageFederatedUtil.setExecutorStorage(federated, storage);
+        final List<Integer> mergedSizes = new ArrayList<>();
+        final FederatedOperationHandler handler = new FederatedOperationHandler()
+                .setReapplyOperations(Sets.newHashSet("sort", "limit"));
+        final Operation operation = new Operation("federatedOperation")
+                .operationArg(FederatedOperationHandler.OPERATION, new OperationChain("chain", Arrays.asList(
+                        new Operation("getRows"), new Operation("sort"), new Operation("limit").operationArg("count", 10)), null, null))
+                .operationArg(FederatedOperationHandler.MERGE_OPERATION, new RecordingConcat(mergedSizes));
+
+        // When
+        final Object value = handler.doOperation(operation, new Context(testUser), federated);
+
+        // Then
+        assertEquals(Arrays.asList(799, 798, 797, 796, 795, 794, 793, 792, 791, 790), value);
+        assertEquals(Collections.nCopies(8, 10), mergedSizes);
+    }
+
+    @Test
+    public void shouldTimeOutSlowExecutorThenExcludeIt() throws Exception {
+        // Given
+        final FederatedExecutorStorage storage = new FederatedExecutorStorage();
+        final FederatedAccess access = new FederatedAccess(null, testUser.getUserId());
+        storage.put(new Executor(new Config("fast").addOperationHandler(TEST_OPERATION, new TestHandler().handlerField("fast"))), access);
+        storage.put(new Executor(new Config("slow").addOperationHandler(TEST_OPERATION, new SleepHandler())), access);
+        final Executor federated = new Executor(new Config("timeoutFederated"));
+        ExecutorStorageFederatedUtil.setExecutorStorage(federated, storage);
+        final FederatedOperationHandler handler = new FederatedOperationHandler()
+                .setTimeoutFactor(3.0)
+                .setMaxTimeout(200L)
+                .setFailureThreshold(1);
+        final Operation operation = new Operation("federatedOperation")
+                .operationArg(FederatedOperationHandler.OPERATION, new Operation(TEST_OPERATION).operationArg("field", "OpField"))
+                .operationArg(FederatedOperationHandler.MERGE_OPERATION, new StringConcat());
+
+        // When / Then
+        try {
+            handler.doOperation(operation, new Context(testUser), federated);
+            fail("Exception expected");
+        } catch (final OperationException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(String.format(FederatedOperationHandler.EXECUTOR_TIMED_OUT, "slow", 200)));
+        }
+
+        final Context context = new Context(testUser);
+        assertEquals("fast,OpField", handler.doOperation(operation, context, federated));
+        assertEquals(Collections.singletonList("slow"), context.getVariable(FederatedOperationHandler.EXCLUDED_EXECUTORS));
+
+        final Map<String, Map<String, Object>> stats = (Map) new GetExecutorStatsHandler().doOperation(new Operation("getExecutorStats"), context, federated);
+        assertEquals(Sets.newHashSet("fast", "slow"), stats.keySet());
+        assertEquals(true, stats.get("slow").get("excluded"));
+        assertEquals(2L, stats.get("fast").get("calls"));
+    }
+
+    @Test
+    public void shouldNotCountTimeWaitingForACallThreadTowardsTheTimeout() throws Exception {
+        // Given
+        final FederatedExecutorStorage storage = new FederatedExecutorStorage();
+        final FederatedAccess access = new FederatedAccess(null, testUser.getUserId());
+        storage.put(new Executor(new Config("first").addOperationHandler(TEST_OPERATION, new SleepHandler(150))), access);
+        storage.put(new Executor(new Config("second").addOperationHandler(TEST_OPERATION, new SleepHandler(150))), access);
+        final Executor federated = new Executor(new Config("queuedFederated"));
+        ExecutorPropertiesUtil.setFederatedThreads(federated, 1);
+        ExecutorStorageFederatedUtil.setExecutorStorage(federated, storage);
+        final FederatedOperationHandler handler = new FederatedOperationHandler()
+                .setTimeoutFactor(3.0)
+                .setMaxTimeout(250L);
+        final Operation operation = new Operation("federatedOperation")
+                .operationArg(FederatedOperationHandler.OPERATION, new Operation(TEST_OPERATION))
+                .operationArg(FederatedOperationHandler.MERGE_OPERATION, new StringConcat());
+
+        // When
+        final Object value = handler.doOperation(operation, new Context(testUser), federated);
+
+        // Then
+        assertEquals("slow,slow", value);
+    }
+
+    @Test
+    public void shouldOnlySendOperationToExecutorsWithMatchingPartitions() throws Exception {
+        // Given
+        final FederatedExecutorStorage storage = new FederatedExecutorStorage();
+        storage.put(new Executor(new Config("a2019").addOperationHandler(TEST_OPERATION, new TestHandler().handlerField("a2019"))),
+                new FederatedAccess(null, testUser.getUserId(), false, false, new TimeWindowPartition("time", 0L, 100L)));
+        storage.put(new Executor(new Config("b2020").addOperationHandler(TEST_OPERATION, new TestHandler().handlerField("b2020"))),
+                new FederatedAccess(null, testUser.getUserId(), false, false, new TimeWindowPartition("time", 100L, 200L)));
+        storage.put(new Executor(new Config("shared").addOperationHandler(TEST_OPERATION, new TestHandler().handlerField("shared"))),
+                new FederatedAccess(null, testUser.getUserId()));
+        final Executor federated = new Executor(new Config("partitionedFederated"));
+        ExecutorStorageFederatedUtil.setExecutorStorage(federated, storage);
+        final Map<String, Object> range = new HashMap<>();
+        range.put(PartitionDescriptor.FROM, 150L);
+        range.put(PartitionDescriptor.TO, 250L);
+        final Operation operation = new Operation("federatedOperation")
+                .operationArg(FederatedOperationHandler.OPERATION, new Operation(TEST_OPERATION)
+                        .operationArg("field", "OpField")
+                        .operationArg("time", range))
+                .operationArg(FederatedOperationHandler.MERGE_OPERATION, new StringConcat());
+
+        // When
+        final Object value = new FederatedOperationHandler().doOperation(operation, new Context(testUser), federated);
+
+        // Then
+        assertEquals("b2020,OpField,shared,OpField", value);
+    }
+
+    private static Config rowsConfig(final String id) {
+        return new Config(id)
+                .addOperationHandler("chain", new InputChainHandler())
+                .addOperationHandler("sort", new SortHandler())
+                .addOperationHandler("limit", new LimitHandler());
+    }
+
     private void addConfigToExecutor(final AddExecutorHandler addExecutorHandler, final Operation addExecutor, final String id) throws OperationException {
         final Config inner = new Config()
                 .id(AddExecutorHandlerBasicTest.INNER_EXECUTOR_ID + id)
@@ -114,4 +278,130 @@ public class FederatedOperationHandlerTest extends MaestroHandlerBasicTest<Feder
                 "  }\n" +
                 "}";
     }
+
+    // Passes each result on as the input of the next operation
+    public static class InputChainHandler extends OperationChainHandler {
+        @Override
+        protected void updateOperationInput(final Operation op, final Object result) {
+            if (null == op.input()) {
+                op.input(result);
+            }
+        }
+    }
+
+    public static class SleepHandler implements OperationHandler {
+        private long millis = 2000;
+
+        public SleepHandler() {
+        }
+
+        SleepHandler(final long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public Object _doOperation(final Operation operation, final Context context, final Executor executor) {
+            try {
+                Thread.sleep(millis);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "slow";
+        }
+
+        @Override
+        public FieldDeclaration getFieldDeclaration() {
+            return new FieldDeclaration();
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        public void setMillis(final long millis) {
+            this.millis = millis;
+        }
+    }
+
+    public static class RowsHandler implements OperationHandler {
+        private int first;
+
+        public RowsHandler() {
+        }
+
+        RowsHandler(final int first) {
+            this.first = first;
+        }
+
+        @Override
+        public Object _doOperation(final Operation operation, final Context context, final Executor executor) {
+            final List<Integer> rows = new ArrayList<>();
+            for (int i = first; i < first + 100; i++) {
+                rows.add(i);
+            }
+            return rows;
+        }
+
+        @Override
+        public FieldDeclaration getFieldDeclaration() {
+            return new FieldDeclaration();
+        }
+
+        public int getFirst() {
+            return first;
+        }
+
+        public void setFirst(final int first) {
+            this.first = first;
+        }
+    }
+
+    public static class SortHandler implements OperationHandler {
+        @Override
+        public Object _doOperation(final Operation operation, final Context context, final Executor executor) {
+            final List<Integer> rows = new ArrayList<>((List<Integer>) operation.input());
+            rows.sort(Collections.reverseOrder());
+            return rows;
+        }
+
+        @Override
+        public FieldDeclaration getFieldDeclaration() {
+            return new FieldDeclaration();
+        }
+    }
+
+    public static class LimitHandler implements OperationHandler {
+        @Override
+        public Object _doOperation(final Operation operation, final Context context, final Executor executor) {
+            final List<Integer> rows = (List<Integer>) operation.input();
+            return new ArrayList<>(rows.subList(0, Math.min((int) operation.get("count"), rows.size())));
+        }
+
+        @Override
+        public FieldDeclaration getFieldDeclaration() {
+            return new FieldDeclaration();
+        }
+    }
+
+    // Concatenates the results, recording the size of each one merged
+    private static class RecordingConcat extends KorypheBinaryOperator<List<Integer>> {
+        private final List<Integer> sizes;
+
+        RecordingConcat(final List<Integer> sizes) {
+            this.sizes = sizes;
+        }
+
+        @Override
+        public List<Integer> apply(final List<Integer> state, final List<Integer> result) {
+            sizes.add(result.size());
+            return super.apply(state, result);
+        }
+
+        @Override
+        protected List<Integer> _apply(final List<Integer> state, final List<Integer> result) {
+            final List<Integer> merged = new ArrayList<>(state);
+            merged.addAll(result);
+            return merged;
+        }
+    }
 }
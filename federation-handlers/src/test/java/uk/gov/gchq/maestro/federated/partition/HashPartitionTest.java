@@ -0,0 +1,72 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.federated.partition;
+
+import com.google.common.collect.Sets;
+import org.junit.Test;
+
+import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.JSONSerialiser;
+import uk.gov.gchq.maestro.operation.Operation;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HashPartitionTest {
+
+    @Test
+    public void shouldOnlyMatchValuesInItsBuckets() {
+        // Given
+        final int bucket = HashPartition.getBucket("user1", 4);
+        final HashPartition partition = new HashPartition("userId", 4, Sets.newHashSet(bucket));
+        final HashPartition other = new HashPartition("userId", 4, Sets.newHashSet((bucket + 1) % 4));
+
+        // Then
+        assertTrue(partition.mayContain(new Operation("get").operationArg("userId", "user1")));
+        assertFalse(other.mayContain(new Operation("get").operationArg("userId", "user1")));
+        assertTrue(other.mayContain(new Operation("get").operationArg("userId", Arrays.asList("user1", "user2", "user3", "user4", "user5"))));
+    }
+
+    @Test
+    public void shouldMatchAnyRange() {
+        // Given
+        final HashPartition partition = new HashPartition("userId", 4, Sets.newHashSet());
+
+        // Then
+        assertTrue(partition.mayContain(new Operation("get").operationArg("userId", new HashMap<>())));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectFewerThanOneBucket() {
+        new HashPartition("userId", 0, null);
+    }
+
+    @Test
+    public void shouldJsonSerialiseAndDeserialise() throws Exception {
+        // Given
+        final HashPartition partition = new HashPartition("userId", 8, Sets.newHashSet(1, 5));
+
+        // When
+        final byte[] json = JSONSerialiser.serialise(partition);
+
+        // Then
+        assertEquals(partition, JSONSerialiser.deserialise(json, PartitionDescriptor.class));
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.federated.partition;
+
+import org.junit.Test;
+
+import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.JSONSerialiser;
+import uk.gov.gchq.maestro.operation.Operation;
+import uk.gov.gchq.maestro.operation.OperationChain;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class KeyRangePartitionTest {
+    private final KeyRangePartition partition = new KeyRangePartition("key", "h", "p");
+
+    @Test
+    public void shouldMatchKeysFromStartUntilEnd() {
+        assertTrue(partition.mayContain(new Operation("get").operationArg("key", "h")));
+        assertTrue(partition.mayContain(new Operation("get").operationArg("key", "orange")));
+        assertFalse(partition.mayContain(new Operation("get").operationArg("key", "p")));
+        assertFalse(partition.mayContain(new Operation("get").operationArg("key", "apple")));
+    }
+
+    @Test
+    public void shouldMatchAnyOfManyKeys() {
+        assertTrue(partition.mayContain(new Operation("get").operationArg("key", Arrays.asList("apple", "kiwi"))));
+        assertFalse(partition.mayContain(new Operation("get").operationArg("key", Arrays.asList("apple", "zebra"))));
+    }
+
+    @Test
+    public void shouldMatchOverlappingRanges() {
+        assertTrue(partition.mayContain(new Operation("get").operationArg("key", range("a", "i"))));
+        assertTrue(partition.mayContain(new Operation("get").operationArg("key", range("o", null))));
+        assertFalse(partition.mayContain(new Operation("get").operationArg("key", range("a", "h"))));
+        assertFalse(partition.mayContain(new Operation("get").operationArg("key", range("p", null))));
+    }
+
+    @Test
+    public void shouldCompareNumbersOfDifferentTypes() {
+        final KeyRangePartition numbers = new KeyRangePartition("id", 10L, null);
+
+        assertTrue(numbers.mayContain(new Operation("get").operationArg("id", 10)));
+        assertFalse(numbers.mayContain(new Operation("get").operationArg("id", 9.5)));
+    }
+
+    @Test
+    public void shouldMatchKeysThatCannotBeCompared() {
+        assertTrue(partition.mayContain(new Operation("get").operationArg("key", 5L)));
+    }
+
+    @Test
+    public void shouldMatchOperationsWithoutTheArgument() {
+        assertTrue(partition.mayContain(new Operation("get")));
+    }
+
+    @Test
+    public void shouldFindTheArgumentInAChain() {
+        final OperationChain chain = new OperationChain("chain", Arrays.asList(
+                new Operation("get").operationArg("key", "zebra"), new Operation("limit")), null, null);
+
+        assertFalse(partition.mayContain(chain));
+    }
+
+    @Test
+    public void shouldJsonSerialiseAndDeserialise() throws Exception {
+        // When
+        final byte[] json = JSONSerialiser.serialise(partition);
+
+        // Then
+        assertEquals(partition, JSONSerialiser.deserialise(json, PartitionDescriptor.class));
+    }
+
+    private static Map<String, Object> range(final Object from, final Object to) {
+        final Map<String, Object> range = new HashMap<>();
+        range.put(PartitionDescriptor.FROM, from);
+        range.put(PartitionDescriptor.TO, to);
+        return range;
+    }
+}
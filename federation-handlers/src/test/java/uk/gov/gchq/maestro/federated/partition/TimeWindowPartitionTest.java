@@ -0,0 +1,72 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.federated.partition;
+
+import org.junit.Test;
+
+import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.JSONSerialiser;
+import uk.gov.gchq.maestro.operation.Operation;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TimeWindowPartitionTest {
+    private static final long START = Instant.parse("2019-01-01T00:00:00Z").toEpochMilli();
+    private static final long END = Instant.parse("2020-01-01T00:00:00Z").toEpochMilli();
+    private final TimeWindowPartition partition = new TimeWindowPartition("time", START, END);
+
+    @Test
+    public void shouldMatchTimesOfAnyTypeInTheWindow() {
+        assertTrue(partition.mayContain(new Operation("get").operationArg("time", START)));
+        assertTrue(partition.mayContain(new Operation("get").operationArg("time", new Date(START + 1))));
+        assertTrue(partition.mayContain(new Operation("get").operationArg("time", "2019-06-01T12:00:00Z")));
+        assertFalse(partition.mayContain(new Operation("get").operationArg("time", END)));
+        assertFalse(partition.mayContain(new Operation("get").operationArg("time", "2018-12-31T23:59:59Z")));
+    }
+
+    @Test
+    public void shouldMatchOverlappingWindows() {
+        final Map<String, Object> overlapping = new HashMap<>();
+        overlapping.put(PartitionDescriptor.FROM, "2019-12-01T00:00:00Z");
+        final Map<String, Object> later = new HashMap<>();
+        later.put(PartitionDescriptor.FROM, END);
+        later.put(PartitionDescriptor.TO, END + 1000L);
+
+        assertTrue(partition.mayContain(new Operation("get").operationArg("time", overlapping)));
+        assertFalse(partition.mayContain(new Operation("get").operationArg("time", later)));
+    }
+
+    @Test
+    public void shouldMatchTimesThatCannotBeParsed() {
+        assertTrue(partition.mayContain(new Operation("get").operationArg("time", "yesterday")));
+    }
+
+    @Test
+    public void shouldJsonSerialiseAndDeserialise() throws Exception {
+        // When
+        final byte[] json = JSONSerialiser.serialise(partition);
+
+        // Then
+        assertEquals(partition, JSONSerialiser.deserialise(json, PartitionDescriptor.class));
+    }
+}
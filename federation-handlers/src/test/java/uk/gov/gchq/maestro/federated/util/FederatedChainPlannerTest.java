@@ -0,0 +1,139 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.federated.util;
+
+import com.google.common.collect.Sets;
+import org.junit.Test;
+
+import uk.gov.gchq.maestro.commonutil.Pair;
+import uk.gov.gchq.maestro.executor.Executor;
+import uk.gov.gchq.maestro.executor.helper.TestHandler;
+import uk.gov.gchq.maestro.executor.operation.handler.chain.OperationChainHandler;
+import uk.gov.gchq.maestro.executor.util.Config;
+import uk.gov.gchq.maestro.operation.Operation;
+import uk.gov.gchq.maestro.operation.OperationChain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FederatedChainPlannerTest {
+    private static final Set<String> PUSH_DOWN = Sets.newHashSet("filter", "transform");
+    private static final Set<String> REAPPLY = Sets.newHashSet("sort", "limit");
+
+    @Test
+    public void shouldPushDownFiltersAndReapplyLimitLocally() {
+        // Given
+        final OperationChain chain = chain("getAll", "filter", "sort", "limit", "toCsv");
+
+        // When
+        final Pair<Operation, OperationChain> plan = FederatedChainPlanner.plan(chain, PUSH_DOWN, REAPPLY, executors(true, "getAll", "filter", "sort", "limit", "toCsv"));
+
+        // Then
+        assertEquals(Arrays.asList("getAll", "filter", "sort", "limit"), ids(((OperationChain) plan.getFirst()).getOperations()));
+        assertEquals(Arrays.asList("sort", "limit", "toCsv"), ids(plan.getSecond().getOperations()));
+    }
+
+    @Test
+    public void shouldStopPushingDownAfterOperationToReapply() {
+        // Given
+        final OperationChain chain = chain("getAll", "limit", "filter", "limit");
+
+        // When
+        final Pair<Operation, OperationChain> plan = FederatedChainPlanner.plan(chain, PUSH_DOWN, REAPPLY, executors(true, "getAll", "filter", "limit"));
+
+        // Then
+        assertEquals(Arrays.asList("getAll", "limit"), ids(((OperationChain) plan.getFirst()).getOperations()));
+        assertEquals(Arrays.asList("limit", "filter", "limit"), ids(plan.getSecond().getOperations()));
+    }
+
+    @Test
+    public void shouldNotPushDownOperationsAnExecutorDoesNotSupport() {
+        // Given
+        final OperationChain chain = chain("getAll", "filter", "transform");
+        final List<Executor> executors = new ArrayList<>(executors(true, "getAll", "filter", "transform"));
+        executors.addAll(executors(true, "getAll", "filter"));
+
+        // When
+        final Pair<Operation, OperationChain> plan = FederatedChainPlanner.plan(chain, PUSH_DOWN, REAPPLY, executors);
+
+        // Then
+        assertEquals(Arrays.asList("getAll", "filter"), ids(((OperationChain) plan.getFirst()).getOperations()));
+        assertEquals(Collections.singletonList("transform"), ids(plan.getSecond().getOperations()));
+    }
+
+    @Test
+    public void shouldOnlySendFirstOperationIfExecutorsCannotRunChains() {
+        // Given
+        final OperationChain chain = chain("getAll", "filter", "limit");
+
+        // When
+        final Pair<Operation, OperationChain> plan = FederatedChainPlanner.plan(chain, PUSH_DOWN, REAPPLY, executors(false, "getAll", "filter", "limit"));
+
+        // Then
+        assertSame(chain.getOperations().get(0), plan.getFirst());
+        assertEquals(Arrays.asList("filter", "limit"), ids(plan.getSecond().getOperations()));
+    }
+
+    @Test
+    public void shouldRunWholeChainLocallyAfterFirstOperationWithoutPushDown() {
+        // Given
+        final OperationChain chain = chain("getAll", "filter");
+
+        // When
+        final Pair<Operation, OperationChain> plan = FederatedChainPlanner.plan(chain, null, null, executors(true, "getAll", "filter"));
+
+        // Then
+        assertSame(chain.getOperations().get(0), plan.getFirst());
+        assertEquals(Collections.singletonList("filter"), ids(plan.getSecond().getOperations()));
+        assertTrue(FederatedChainPlanner.plan(chain("getAll"), PUSH_DOWN, REAPPLY, executors(true, "getAll")).getSecond().getOperations().isEmpty());
+    }
+
+    private static OperationChain chain(final String... operationIds) {
+        final List<Operation> operations = new ArrayList<>();
+        for (final String operationId : operationIds) {
+            operations.add(new Operation(operationId));
+        }
+        return new OperationChain("chain", operations, null, null);
+    }
+
+    private static Collection<Executor> executors(final boolean supportsChains, final String... operationIds) {
+        final Config config = new Config("sub");
+        for (final String operationId : operationIds) {
+            config.addOperationHandler(operationId, new TestHandler());
+        }
+        if (supportsChains) {
+            config.addOperationHandler("chain", new OperationChainHandler());
+        }
+        return Collections.singletonList(new Executor(config));
+    }
+
+    private static List<String> ids(final List<Operation> operations) {
+        final List<String> ids = new ArrayList<>();
+        for (final Operation operation : operations) {
+            ids.add(operation.getId());
+        }
+        return ids;
+    }
+}
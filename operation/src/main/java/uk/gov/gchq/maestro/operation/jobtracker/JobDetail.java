@@ -36,6 +36,7 @@ public class JobDetail implements Serializable {
     private static final long serialVersionUID = 8649921413344868572L;
     private String parentJobId;
     private Repeat repeat;
+    private JobPriority priority;
     private String jobId;
     private String userId;
     private JobStatus status;
@@ -55,6 +56,7 @@ public class JobDetail implements Serializable {
         this.status = getNewOrOld(oldJobDetail.status, newJobDetail.status);
         this.parentJobId = getNewOrOld(oldJobDetail.parentJobId, newJobDetail.parentJobId);
         this.repeat = getNewOrOld(oldJobDetail.repeat, newJobDetail.repeat);
+        this.priority = getNewOrOld(oldJobDetail.priority, newJobDetail.priority);
 
         if (null == oldJobDetail.startTime) {
             this.startTime = System.currentTimeMillis();
@@ -180,6 +182,14 @@ public class JobDetail implements Serializable {
         this.repeat = repeat;
     }
 
+    public JobPriority getPriority() {
+        return priority;
+    }
+
+    public void setPriority(final JobPriority priority) {
+        this.priority = priority;
+    }
+
     @Override
     public boolean equals(final Object obj) {
         if (this == obj) {
@@ -199,6 +209,7 @@ public class JobDetail implements Serializable {
                 .append(description, jobDetail.description)
                 .append(parentJobId, jobDetail.parentJobId)
                 .append(repeat, jobDetail.repeat)
+                .append(priority, jobDetail.priority)
                 .isEquals();
     }
 
@@ -214,6 +225,7 @@ public class JobDetail implements Serializable {
                 .append(description)
                 .append(parentJobId)
                 .append(repeat)
+                .append(priority)
                 .toHashCode();
     }
 
@@ -229,6 +241,7 @@ public class JobDetail implements Serializable {
                 .append("description", description)
                 .append("parentJobId", parentJobId)
                 .append("repeat", repeat)
+                .append("priority", priority)
                 .toString();
     }
 
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.operation.jobtracker;
+
+import uk.gov.gchq.maestro.commonutil.cache.ICacheService;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * The secondary indexes of the {@link JobTracker}, by user id, status and
+ * start time, so jobs can be queried and paged without fetching every job.
+ * Each index is ordered newest first, so a page of a query only visits the
+ * jobs before and on that page. Finished jobs that are not yet archived are
+ * also indexed by end time, for archiving the oldest.
+ * <p>
+ * The index is held in memory for the cache service it was built from.
+ * Writes are serialised; reads do not lock.
+ * </p>
+ */
+final class JobIndex {
+    private static final Set<JobStatus> FINISHED_STATUSES = EnumSet.of(JobStatus.FINISHED, JobStatus.FAILED, JobStatus.CANCELLED);
+    private static final Comparator<Entry> NEWEST_FIRST = Comparator.comparingLong((Entry entry) -> entry.startTime).reversed()
+            .thenComparing(entry -> entry.jobId);
+    private static final Comparator<Entry> FIRST_FINISHED = Comparator.comparingLong((Entry entry) -> entry.endTime)
+            .thenComparing(entry -> entry.jobId);
+
+    private final ICacheService service;
+    private final Map<String, Entry> byId = new ConcurrentHashMap<>();
+    private final NavigableSet<Entry> all = new ConcurrentSkipListSet<>(NEWEST_FIRST);
+    private final Map<String, NavigableSet<Entry>> byUser = new ConcurrentHashMap<>();
+    private final Map<JobStatus, NavigableSet<Entry>> byStatus = new ConcurrentHashMap<>();
+    private final Map<String, NavigableSet<Entry>> byUserAndStatus = new ConcurrentHashMap<>();
+    private final NavigableSet<Entry> finished = new ConcurrentSkipListSet<>(FIRST_FINISHED);
+
+    JobIndex(final ICacheService service) {
+        this.service = service;
+    }
+
+    ICacheService getService() {
+        return service;
+    }
+
+    synchronized void put(final JobDetail jobDetail, final boolean archived) {
+        remove(jobDetail.getJobId());
+        final Entry entry = new Entry(jobDetail, archived);
+        byId.put(entry.jobId, entry);
+        all.add(entry);
+        if (null != entry.userId) {
+            byUser.computeIfAbsent(entry.userId, key -> newSet()).add(entry);
+        }
+        if (null != entry.status) {
+            byStatus.computeIfAbsent(entry.status, key -> newSet()).add(entry);
+            if (null != entry.userId) {
+                byUserAndStatus.computeIfAbsent(userAndStatus(entry.userId, entry.status), key -> newSet()).add(entry);
+            }
+            if (!archived && FINISHED_STATUSES.contains(entry.status)) {
+                finished.add(entry);
+            }
+        }
+    }
+
+    synchronized void remove(final String jobId) {
+        final Entry entry = byId.remove(jobId);
+        if (null != entry) {
+            all.remove(entry);
+            finished.remove(entry);
+            removeFrom(byUser, entry.userId, entry);
+            removeFrom(byStatus, entry.status, entry);
+            if (null != entry.userId && null != entry.status) {
+                removeFrom(byUserAndStatus, userAndStatus(entry.userId, entry.status), entry);
+            }
+        }
+    }
+
+    boolean isArchived(final String jobId) {
+        final Entry entry = byId.get(jobId);
+        return null != entry && entry.archived;
+    }
+
+    /**
+     * @param finishedBefore the exclusive latest end time, in epoch milliseconds
+     * @return the ids of the unarchived finished jobs that ended before the
+     * time, oldest first
+     */
+    List<String> getFinishedBefore(final long finishedBefore) {
+        final List<String> jobIds = new ArrayList<>();
+        for (final Entry entry : finished) {
+            if (entry.endTime >= finishedBefore) {
+                break;
+            }
+            jobIds.add(entry.jobId);
+        }
+        return jobIds;
+    }
+
+    /**
+     * @param query the filters and page
+     * @return the ids of the jobs on the page, in order
+     */
+    List<String> query(final JobQuery query) {
+        NavigableSet<Entry> candidates = getCandidates(query);
+        if (null != query.getStartedTo()) {
+            candidates = candidates.tailSet(new Entry(query.getStartedTo() - 1), true);
+        }
+        if (null != query.getStartedFrom()) {
+            candidates = candidates.headSet(new Entry(query.getStartedFrom() - 1), false);
+        }
+
+        final int limit = null == query.getLimit() ? Integer.MAX_VALUE : query.getLimit();
+        final List<String> jobIds = new ArrayList<>();
+        int skip = query.getOffset();
+        final Iterator<Entry> itr = query.isOldestFirst() ? candidates.descendingIterator() : candidates.iterator();
+        while (itr.hasNext() && jobIds.size() < limit) {
+            final Entry entry = itr.next();
+            if (!query.isIncludeArchived() && entry.archived) {
+                continue;
+            }
+            if (0 < skip) {
+                skip--;
+            } else {
+                jobIds.add(entry.jobId);
+            }
+        }
+        return jobIds;
+    }
+
+    private NavigableSet<Entry> getCandidates(final JobQuery query) {
+        final NavigableSet<Entry> candidates;
+        if (null != query.getUserId() && null != query.getStatus()) {
+            candidates = byUserAndStatus.get(userAndStatus(query.getUserId(), query.getStatus()));
+        } else if (null != query.getUserId()) {
+            candidates = byUser.get(query.getUserId());
+        } else if (null != query.getStatus()) {
+            candidates = byStatus.get(query.getStatus());
+        } else {
+            candidates = all;
+        }
+        return null == candidates ? newSet() : candidates;
+    }
+
+    private static <K> void removeFrom(final Map<K, NavigableSet<Entry>> index, final K key, final Entry entry) {
+        if (null != key) {
+            final NavigableSet<Entry> entries = index.get(key);
+            if (null != entries) {
+                entries.remove(entry);
+            }
+        }
+    }
+
+    private static String userAndStatus(final String userId, final JobStatus status) {
+        return status.name() + ':' + userId;
+    }
+
+    private static NavigableSet<Entry> newSet() {
+        return new ConcurrentSkipListSet<>(NEWEST_FIRST);
+    }
+
+    private static final class Entry {
+        private final String jobId;
+        private final String userId;
+        private final JobStatus status;
+        private final long startTime;
+        private final long endTime;
+        private final boolean archived;
+
+        // A bound for range queries, ordered before every job started at the time.
+        private Entry(final long startTime) {
+            this.jobId = "";
+            this.userId = null;
+            this.status = null;
+            this.startTime = startTime;
+            this.endTime = startTime;
+            this.archived = false;
+        }
+
+        private Entry(final JobDetail jobDetail, final boolean archived) {
+            this.jobId = jobDetail.getJobId();
+            this.userId = jobDetail.getUserId();
+            this.status = jobDetail.getStatus();
+            this.startTime = null == jobDetail.getStartTime() ? Long.MIN_VALUE : jobDetail.getStartTime();
+            this.endTime = null == jobDetail.getEndTime() ? startTime : jobDetail.getEndTime();
+            this.archived = archived;
+        }
+    }
+}
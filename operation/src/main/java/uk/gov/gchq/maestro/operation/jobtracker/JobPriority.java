@@ -0,0 +1,39 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.operation.jobtracker;
+
+/**
+ * The priority class of a job, from the highest to the lowest. Waiting jobs
+ * of a higher class are started first, and running jobs of a lower class
+ * give way to them between the steps of their operation chains.
+ */
+public enum JobPriority {
+    /**
+     * Jobs a user is waiting on.
+     */
+    INTERACTIVE,
+
+    /**
+     * The default.
+     */
+    NORMAL,
+
+    /**
+     * Bulk jobs, such as large exports, that can wait.
+     */
+    BATCH
+}
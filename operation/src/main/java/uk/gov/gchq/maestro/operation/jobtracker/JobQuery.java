@@ -0,0 +1,176 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.operation.jobtracker;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+
+import uk.gov.gchq.maestro.commonutil.ToStringBuilder;
+
+import java.io.Serializable;
+
+/**
+ * A {@code JobQuery} filters and pages the jobs held by the {@link JobTracker}.
+ * Jobs are returned newest first by start time unless oldest first is set.
+ * Archived jobs are left out unless asked for.
+ */
+public class JobQuery implements Serializable {
+    private static final long serialVersionUID = -2983615032584921795L;
+    private String userId;
+    private JobStatus status;
+    private Long startedFrom;
+    private Long startedTo;
+    private boolean includeArchived;
+    private boolean oldestFirst;
+    private int offset;
+    private Integer limit;
+
+    public JobQuery userId(final String userId) {
+        this.userId = userId;
+        return this;
+    }
+
+    public JobQuery status(final JobStatus status) {
+        this.status = status;
+        return this;
+    }
+
+    /**
+     * @param startedFrom the inclusive earliest start time, in epoch milliseconds
+     * @return this query
+     */
+    public JobQuery startedFrom(final Long startedFrom) {
+        this.startedFrom = startedFrom;
+        return this;
+    }
+
+    /**
+     * @param startedTo the exclusive latest start time, in epoch milliseconds
+     * @return this query
+     */
+    public JobQuery startedTo(final Long startedTo) {
+        this.startedTo = startedTo;
+        return this;
+    }
+
+    public JobQuery includeArchived(final boolean includeArchived) {
+        this.includeArchived = includeArchived;
+        return this;
+    }
+
+    public JobQuery oldestFirst(final boolean oldestFirst) {
+        this.oldestFirst = oldestFirst;
+        return this;
+    }
+
+    public JobQuery offset(final int offset) {
+        if (0 > offset) {
+            throw new IllegalArgumentException("offset must not be negative");
+        }
+        this.offset = offset;
+        return this;
+    }
+
+    public JobQuery limit(final Integer limit) {
+        if (null != limit && 0 > limit) {
+            throw new IllegalArgumentException("limit must not be negative");
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public JobStatus getStatus() {
+        return status;
+    }
+
+    public Long getStartedFrom() {
+        return startedFrom;
+    }
+
+    public Long getStartedTo() {
+        return startedTo;
+    }
+
+    public boolean isIncludeArchived() {
+        return includeArchived;
+    }
+
+    public boolean isOldestFirst() {
+        return oldestFirst;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public Integer getLimit() {
+        return limit;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (null == obj || getClass() != obj.getClass()) {
+            return false;
+        }
+        final JobQuery that = (JobQuery) obj;
+        return new EqualsBuilder()
+                .append(userId, that.userId)
+                .append(status, that.status)
+                .append(startedFrom, that.startedFrom)
+                .append(startedTo, that.startedTo)
+                .append(includeArchived, that.includeArchived)
+                .append(oldestFirst, that.oldestFirst)
+                .append(offset, that.offset)
+                .append(limit, that.limit)
+                .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder(17, 37)
+                .append(userId)
+                .append(status)
+                .append(startedFrom)
+                .append(startedTo)
+                .append(includeArchived)
+                .append(oldestFirst)
+                .append(offset)
+                .append(limit)
+                .toHashCode();
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("userId", userId)
+                .append("status", status)
+                .append("startedFrom", startedFrom)
+                .append("startedTo", startedTo)
+                .append("includeArchived", includeArchived)
+                .append("oldestFirst", oldestFirst)
+                .append("offset", offset)
+                .append("limit", limit)
+                .toString();
+    }
+}
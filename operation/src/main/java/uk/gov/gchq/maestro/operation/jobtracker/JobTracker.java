@@ -17,22 +17,32 @@
 package uk.gov.gchq.maestro.operation.jobtracker;
 
 import uk.gov.gchq.maestro.commonutil.cache.CacheServiceLoader;
+import uk.gov.gchq.maestro.commonutil.cache.ICacheService;
 import uk.gov.gchq.maestro.commonutil.exception.CacheOperationException;
 import uk.gov.gchq.maestro.commonutil.iterable.CloseableIterable;
 import uk.gov.gchq.maestro.commonutil.iterable.WrappedCloseableIterable;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Objects;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 /**
  * A {@code JobTracker} is an entry in a Maestro cache service which is used to store
  * details of jobs submitted to the Executor.
+ * <p>
+ * Jobs are indexed by user id, status and start time, so they can be queried
+ * and paged with a {@link JobQuery} at the cost of the page rather than the
+ * whole job history. The index is built from the cache the first time it is
+ * needed. Finished jobs can be archived into a separate cache, which keeps
+ * them out of queries unless asked for.
+ * </p>
  */
 public final class JobTracker {
 
     private static final String CACHE_NAME = "JobTracker";
+    private static final String ARCHIVE_CACHE_NAME = "JobTrackerArchive";
+    private static volatile JobIndex index;
 
     private JobTracker() {
         // private constructor to prevent instantiation
@@ -45,11 +55,37 @@ public final class JobTracker {
      */
     public static void addOrUpdateJob(final JobDetail jobDetail) {
         validateJobDetail(jobDetail);
+        final JobIndex jobIndex = getIndex();
+        final boolean archived = jobIndex.isArchived(jobDetail.getJobId());
         try {
-            CacheServiceLoader.getService().putInCache(CACHE_NAME, jobDetail.getJobId(), jobDetail);
+            jobIndex.getService().putInCache(archived ? ARCHIVE_CACHE_NAME : CACHE_NAME, jobDetail.getJobId(), jobDetail);
         } catch (final CacheOperationException e) {
             throw new RuntimeException("Failed to add jobDetail " + jobDetail.toString() + " to the cache", e);
         }
+        jobIndex.put(jobDetail, archived);
+    }
+
+    /**
+     * Add the job details, or merge them into the details already held for
+     * the job, as one atomic operation.
+     *
+     * @param jobDetail the job details to add or merge
+     * @return the job details held after the merge
+     * @see JobDetail#JobDetail(JobDetail, JobDetail)
+     */
+    public static JobDetail mergeJob(final JobDetail jobDetail) {
+        validateJobDetail(jobDetail);
+        final JobIndex jobIndex = getIndex();
+        final boolean archived = jobIndex.isArchived(jobDetail.getJobId());
+        try {
+            return jobIndex.getService().computeInCache(archived ? ARCHIVE_CACHE_NAME : CACHE_NAME, jobDetail.getJobId(), (final String jobId, final JobDetail existing) -> {
+                final JobDetail merged = null == existing ? jobDetail : new JobDetail(existing, jobDetail);
+                jobIndex.put(merged, archived);
+                return merged;
+            });
+        } catch (final CacheOperationException e) {
+            throw new RuntimeException("Failed to merge jobDetail " + jobDetail.toString() + " into the cache", e);
+        }
     }
 
     /**
@@ -68,34 +104,112 @@ public final class JobTracker {
      * @return the {@link JobDetail} object for the requested job
      */
     public static JobDetail getJob(final String jobId) {
-        return CacheServiceLoader.getService().getFromCache(CACHE_NAME, jobId);
+        final ICacheService service = CacheServiceLoader.getService();
+        final JobDetail jobDetail = service.getFromCache(CACHE_NAME, jobId);
+        return null != jobDetail ? jobDetail : service.getFromCache(ARCHIVE_CACHE_NAME, jobId);
     }
 
     /**
-     * Get all jobs from the job tracker cache.
+     * Get all unarchived jobs from the job tracker cache, newest first.
      *
      * @return a {@link CloseableIterable} containing all of the job details
      */
     public static CloseableIterable<JobDetail> getAllJobs() {
-        final Set<String> jobIds = CacheServiceLoader.getService().getAllKeysFromCache(CACHE_NAME);
-        final List<JobDetail> jobs = jobIds.stream()
-                .filter(Objects::nonNull)
-                .map(jobId -> getJob(jobId))
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+        return getJobs(new JobQuery());
+    }
+
+    /**
+     * Get a page of the jobs matching a query.
+     *
+     * @param query the filters and page of jobs to get
+     * @return a {@link CloseableIterable} containing the matching job details
+     */
+    public static CloseableIterable<JobDetail> getJobs(final JobQuery query) {
+        if (null == query) {
+            throw new IllegalArgumentException("JobQuery is required");
+        }
+        final JobIndex jobIndex = getIndex();
+        final List<String> jobIds = jobIndex.query(query);
+        final Map<String, JobDetail> found = new HashMap<>(jobIndex.getService().getAllFromCache(CACHE_NAME, jobIds));
+        if (found.size() < jobIds.size()) {
+            final List<String> missing = new ArrayList<>();
+            for (final String jobId : jobIds) {
+                if (!found.containsKey(jobId)) {
+                    missing.add(jobId);
+                }
+            }
+            found.putAll(jobIndex.getService().getAllFromCache(ARCHIVE_CACHE_NAME, missing));
+        }
+        final List<JobDetail> jobs = new ArrayList<>(jobIds.size());
+        for (final String jobId : jobIds) {
+            final JobDetail jobDetail = found.get(jobId);
+            if (null != jobDetail) {
+                jobs.add(jobDetail);
+            }
+        }
 
         return new WrappedCloseableIterable<>(jobs);
     }
 
     /**
-     * Clear the job tracker cache.
+     * Move the finished, failed and cancelled jobs that ended before a time
+     * into the archive cache.
+     *
+     * @param finishedBefore the exclusive latest end time, in epoch milliseconds
+     * @return the number of jobs archived
+     */
+    public static int archiveJobs(final long finishedBefore) {
+        final JobIndex jobIndex = getIndex();
+        final ICacheService service = jobIndex.getService();
+        final Map<String, JobDetail> jobs = service.getAllFromCache(CACHE_NAME, jobIndex.getFinishedBefore(finishedBefore));
+        try {
+            service.putAllInCache(ARCHIVE_CACHE_NAME, jobs);
+        } catch (final CacheOperationException e) {
+            throw new RuntimeException("Failed to archive " + jobs.size() + " jobs", e);
+        }
+        service.removeAllFromCache(CACHE_NAME, jobs.keySet());
+        for (final JobDetail jobDetail : jobs.values()) {
+            jobIndex.put(jobDetail, true);
+        }
+        return jobs.size();
+    }
+
+    /**
+     * Clear the job tracker and archive caches.
      */
     public static void clear() {
         try {
             CacheServiceLoader.getService().clearCache(CACHE_NAME);
+            CacheServiceLoader.getService().clearCache(ARCHIVE_CACHE_NAME);
         } catch (final CacheOperationException e) {
             throw new RuntimeException("Failed to clear job tracker cache", e);
         }
+        index = null;
+    }
+
+    private static JobIndex getIndex() {
+        final ICacheService service = CacheServiceLoader.getService();
+        JobIndex current = index;
+        if (null == current || current.getService() != service) {
+            synchronized (JobTracker.class) {
+                current = index;
+                if (null == current || current.getService() != service) {
+                    current = new JobIndex(service);
+                    addToIndex(current, CACHE_NAME, false);
+                    addToIndex(current, ARCHIVE_CACHE_NAME, true);
+                    index = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static void addToIndex(final JobIndex jobIndex, final String cacheName, final boolean archived) {
+        for (final Object jobDetail : jobIndex.getService().getAllValuesFromCache(cacheName)) {
+            if (jobDetail instanceof JobDetail && null != ((JobDetail) jobDetail).getJobId()) {
+                jobIndex.put((JobDetail) jobDetail, archived);
+            }
+        }
     }
 
     private static void validateJobDetail(final JobDetail jobDetail) {
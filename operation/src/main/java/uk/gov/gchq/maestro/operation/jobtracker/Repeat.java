@@ -27,6 +27,9 @@ public class Repeat {
     private long initialDelay;
     private long repeatPeriod;
     private TimeUnit timeUnit = TimeUnit.SECONDS;
+    private long jitter;
+    private SchedulePolicy overlapPolicy = SchedulePolicy.SKIP;
+    private SchedulePolicy misfirePolicy = SchedulePolicy.COALESCE;
 
     public Repeat() {
     }
@@ -61,6 +64,41 @@ public class Repeat {
         this.timeUnit = timeUnit;
     }
 
+    /**
+     * @return the most each run may be randomly delayed by, in the time unit,
+     * to spread out jobs with the same period
+     */
+    public long getJitter() {
+        return jitter;
+    }
+
+    public void setJitter(final long jitter) {
+        this.jitter = jitter;
+    }
+
+    /**
+     * @return what to do with a run that is due while the previous run is
+     * still going
+     */
+    public SchedulePolicy getOverlapPolicy() {
+        return overlapPolicy;
+    }
+
+    public void setOverlapPolicy(final SchedulePolicy overlapPolicy) {
+        this.overlapPolicy = overlapPolicy;
+    }
+
+    /**
+     * @return what to do with the runs missed while the job could not be run
+     */
+    public SchedulePolicy getMisfirePolicy() {
+        return misfirePolicy;
+    }
+
+    public void setMisfirePolicy(final SchedulePolicy misfirePolicy) {
+        this.misfirePolicy = misfirePolicy;
+    }
+
     @Override
     public boolean equals(final Object obj) {
         if (this == obj) {
@@ -74,6 +112,9 @@ public class Repeat {
                 .append(initialDelay, repeat.initialDelay)
                 .append(repeatPeriod, repeat.repeatPeriod)
                 .append(timeUnit, repeat.timeUnit)
+                .append(jitter, repeat.jitter)
+                .append(overlapPolicy, repeat.overlapPolicy)
+                .append(misfirePolicy, repeat.misfirePolicy)
                 .isEquals();
     }
 
@@ -83,6 +124,9 @@ public class Repeat {
                 .append(initialDelay)
                 .append(repeatPeriod)
                 .append(timeUnit)
+                .append(jitter)
+                .append(overlapPolicy)
+                .append(misfirePolicy)
                 .toHashCode();
     }
 
@@ -92,6 +136,9 @@ public class Repeat {
                 .append("initialDelay", initialDelay)
                 .append("repeatPeriod", repeatPeriod)
                 .append("timeUnit", timeUnit)
+                .append("jitter", jitter)
+                .append("overlapPolicy", overlapPolicy)
+                .append("misfirePolicy", misfirePolicy)
                 .toString();
     }
 }
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.operation.jobtracker;
+
+/**
+ * What a scheduled job does with a run that is due while a previous run is
+ * still going, or that was missed, for example while Maestro was stopped.
+ */
+public enum SchedulePolicy {
+    /**
+     * Drop the run.
+     */
+    SKIP,
+
+    /**
+     * Keep every run, and start each once the previous one has finished.
+     */
+    QUEUE,
+
+    /**
+     * Keep at most one run, and start it once the previous one has finished.
+     */
+    COALESCE
+}
@@ -43,7 +43,10 @@ public class JobTest extends OperationTest {
                 "      \"class\" : \"uk.gov.gchq.maestro.operation.jobtracker.Repeat\",\n" +
                 "      \"initialDelay\" : 0,\n" +
                 "      \"repeatPeriod\" : 0,\n" +
-                "      \"timeUnit\" : \"SECONDS\"\n" +
+                "      \"timeUnit\" : \"SECONDS\",\n" +
+                "      \"jitter\" : 0,\n" +
+                "      \"overlapPolicy\" : \"SKIP\",\n" +
+                "      \"misfirePolicy\" : \"COALESCE\"\n" +
                 "    }\n" +
                 "  }\n" +
                 "}";
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.operation.jobtracker;
+
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.gov.gchq.maestro.commonutil.cache.CacheServiceLoader;
+import uk.gov.gchq.maestro.commonutil.cache.impl.HashMapCacheService;
+import uk.gov.gchq.maestro.commonutil.cache.util.CacheProperties;
+import uk.gov.gchq.maestro.operation.Operation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class JobTrackerTest {
+
+    @Before
+    public void before() {
+        final Map<String, Object> properties = new HashMap<>();
+        properties.put(CacheProperties.CACHE_SERVICE, HashMapCacheService.class.getName());
+        CacheServiceLoader.initialise(properties);
+        JobTracker.clear();
+    }
+
+    @Test
+    public void shouldGetJobsNewestFirst() {
+        // Given
+        addJob("job1", "user1", JobStatus.RUNNING, 100L, null);
+        addJob("job2", "user2", JobStatus.FINISHED, 300L, 400L);
+        addJob("job3", "user1", JobStatus.RUNNING, 200L, null);
+
+        // When
+        final List<JobDetail> jobs = Lists.newArrayList(JobTracker.getAllJobs());
+
+        // Then
+        assertEquals(Arrays.asList("job2", "job3", "job1"), getIds(jobs));
+    }
+
+    @Test
+    public void shouldPageJobsForUserWithStatus() {
+        // Given
+        for (int i = 0; i < 10; i++) {
+            addJob("running" + i, "user1", JobStatus.RUNNING, (long) i, null);
+            addJob("failed" + i, "user1", JobStatus.FAILED, (long) i, 20L);
+            addJob("other" + i, "user2", JobStatus.RUNNING, (long) i, null);
+        }
+
+        // When
+        final List<JobDetail> jobs = Lists.newArrayList(JobTracker.getJobs(new JobQuery()
+                .userId("user1")
+                .status(JobStatus.RUNNING)
+                .offset(2)
+                .limit(3)));
+
+        // Then
+        assertEquals(Arrays.asList("running7", "running6", "running5"), getIds(jobs));
+    }
+
+    @Test
+    public void shouldGetJobsStartedWithinTimesOldestFirst() {
+        // Given
+        for (int i = 0; i < 10; i++) {
+            addJob("job" + i, "user1", JobStatus.RUNNING, i * 10L, null);
+        }
+
+        // When
+        final List<JobDetail> jobs = Lists.newArrayList(JobTracker.getJobs(new JobQuery()
+                .startedFrom(30L)
+                .startedTo(60L)
+                .oldestFirst(true)));
+
+        // Then
+        assertEquals(Arrays.asList("job3", "job4", "job5"), getIds(jobs));
+    }
+
+    @Test
+    public void shouldReindexUpdatedJobs() {
+        // Given
+        addJob("job1", "user1", JobStatus.RUNNING, 100L, null);
+
+        // When
+        addJob("job1", "user1", JobStatus.FINISHED, 100L, 200L);
+
+        // Then
+        assertEquals(0, getIds(Lists.newArrayList(JobTracker.getJobs(new JobQuery().status(JobStatus.RUNNING)))).size());
+        assertEquals(Arrays.asList("job1"), getIds(Lists.newArrayList(JobTracker.getJobs(new JobQuery().status(JobStatus.FINISHED)))));
+    }
+
+    @Test
+    public void shouldMergeJobIntoExistingDetails() {
+        // Given
+        addJob("job1", "user1", JobStatus.RUNNING, 100L, null);
+        final JobDetail update = new JobDetail("job1", null, new Operation("op"), JobStatus.FINISHED, null);
+
+        // When
+        final JobDetail merged = JobTracker.mergeJob(update);
+
+        // Then
+        assertEquals(JobStatus.FINISHED, merged.getStatus());
+        assertEquals("user1", merged.getUserId());
+        assertEquals(Long.valueOf(100L), merged.getStartTime());
+        assertEquals(merged, JobTracker.getJob("job1"));
+        assertEquals(Arrays.asList("job1"), getIds(Lists.newArrayList(JobTracker.getJobs(new JobQuery().userId("user1").status(JobStatus.FINISHED)))));
+    }
+
+    @Test
+    public void shouldArchiveJobsFinishedBeforeTime() {
+        // Given
+        addJob("old", "user1", JobStatus.FINISHED, 100L, 200L);
+        addJob("recent", "user1", JobStatus.FAILED, 100L, 500L);
+        addJob("running", "user1", JobStatus.RUNNING, 100L, null);
+
+        // When
+        final int archived = JobTracker.archiveJobs(300L);
+
+        // Then
+        assertEquals(1, archived);
+        assertEquals(Arrays.asList("recent", "running"), getIds(Lists.newArrayList(JobTracker.getAllJobs())));
+        assertEquals(Arrays.asList("old", "recent", "running"), getIds(Lists.newArrayList(JobTracker.getJobs(new JobQuery().includeArchived(true)))));
+        assertNotNull(JobTracker.getJob("old"));
+        assertEquals(0, JobTracker.archiveJobs(300L));
+    }
+
+    @Test
+    public void shouldBuildIndexFromJobsAlreadyInCache() throws Exception {
+        // Given
+        final JobDetail jobDetail = new JobDetail("cached", "user1", new Operation("op"), JobStatus.RUNNING, null);
+        CacheServiceLoader.getService().putInCache("JobTracker", jobDetail.getJobId(), jobDetail);
+
+        // When
+        final List<JobDetail> jobs = Lists.newArrayList(JobTracker.getJobs(new JobQuery().userId("user1")));
+
+        // Then
+        assertEquals(Arrays.asList("cached"), getIds(jobs));
+    }
+
+    private static void addJob(final String jobId, final String userId, final JobStatus status, final Long startTime, final Long endTime) {
+        final JobDetail jobDetail = new JobDetail(jobId, userId, new Operation("op"), status, null);
+        jobDetail.setStartTime(startTime);
+        jobDetail.setEndTime(endTime);
+        JobTracker.addOrUpdateJob(jobDetail);
+    }
+
+    private static List<String> getIds(final List<JobDetail> jobs) {
+        final List<String> ids = new ArrayList<>();
+        for (final JobDetail job : jobs) {
+            ids.add(job.getJobId());
+        }
+        return ids;
+    }
+}
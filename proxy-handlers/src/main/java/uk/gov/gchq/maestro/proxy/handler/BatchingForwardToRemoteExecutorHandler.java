@@ -0,0 +1,188 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.proxy.handler;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+
+import uk.gov.gchq.maestro.commonutil.exception.Error;
+import uk.gov.gchq.maestro.commonutil.exception.MaestroWrappedErrorRuntimeException;
+import uk.gov.gchq.maestro.commonutil.exception.OperationException;
+import uk.gov.gchq.maestro.commonutil.exception.SerialisationException;
+import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.JSONSerialiser;
+import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.WireFormat;
+import uk.gov.gchq.maestro.executor.Context;
+import uk.gov.gchq.maestro.executor.Executor;
+import uk.gov.gchq.maestro.executor.util.ExecutorPropertiesUtil;
+import uk.gov.gchq.maestro.operation.Operation;
+import uk.gov.gchq.maestro.operation.serialisation.TypeReferenceImpl;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A {@link ForwardToRemoteExecutorHandler} that coalesces operations
+ * forwarded close together into one request to the remote batch execute
+ * endpoint, cutting the number of round trips for chatty workloads.
+ * <p>
+ * Operations are held for up to {@code batchDelay} milliseconds, or until
+ * {@code maxBatchSize} operations are waiting. Each operation is executed
+ * independently by the remote, so one failing operation only fails its own
+ * caller. Each batch is sent to one remote chosen from the executor's
+ * {@link RemoteEndpointPool}, so it is load balanced and counted by the
+ * remote's circuit breaker like any other forward. Batches are always
+ * re-serialised, so {@code passThrough} and hedging do not apply.
+ * </p>
+ */
+@JsonPropertyOrder(value = {"class"}, alphabetic = true)
+public class BatchingForwardToRemoteExecutorHandler extends ForwardToRemoteExecutorHandler {
+    public static final long DEFAULT_BATCH_DELAY = 10;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+    private static final String BATCH_EXECUTE_PATH = EXECUTE_PATH + "/batch";
+    private static final TypeReference<List<Map<String, Object>>> BATCH_RESULTS_TYPE = new TypeReference<List<Map<String, Object>>>() {
+    };
+
+    // Weak keys are compared by identity, so executors that share an id do
+    // not share a batcher
+    private final Cache<Executor, OperationBatcher> batchers = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+    private long batchDelay = DEFAULT_BATCH_DELAY;
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+
+    @Override
+    public Object _doOperation(final Operation operation, final Context context, final Executor executor) throws OperationException {
+        validate(executor, operation);
+        final OperationBatcher batcher = getBatcher(executor);
+
+        final long timeout = batchDelay + ExecutorPropertiesUtil.getConnectTimeout(executor) + ExecutorPropertiesUtil.getReadTimeout(executor);
+        final Object entry;
+        try {
+            entry = batcher.submit(operation).get(timeout, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OperationException("Interrupted waiting for batched operation: " + operation.getId(), e);
+        } catch (final TimeoutException e) {
+            throw new OperationException("Timed out waiting for batched operation: " + operation.getId(), e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof OperationException) {
+                throw (OperationException) e.getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new OperationException(e.getCause().getMessage(), e.getCause());
+        }
+
+        return toResult((Map<?, ?>) entry, (TypeReference) operation.getOrDefault(OUTPUT_TYPE_REFERENCE, new TypeReferenceImpl.Map()));
+    }
+
+    public List<Map<String, Object>> executeBatchViaUrl(final Executor executor, final List<Operation> operations) throws OperationException {
+        final WireFormat format = ExecutorPropertiesUtil.getWireFormat(executor);
+        final byte[] body;
+        try {
+            // An array keeps the element type, so each operation is written with its type id
+            body = JSONSerialiser.serialise(operations.toArray(new Operation[operations.size()]), format);
+        } catch (final SerialisationException e) {
+            throw new OperationException("Unable to serialise batch of operations into " + format + ".", e);
+        }
+
+        final RemoteEndpoint endpoint = RemoteEndpointPool.getPool(executor).choose(null);
+        if (null == endpoint) {
+            throw new OperationException("The circuit to every remote executor is open: " + ExecutorPropertiesUtil.getMaestroEndpoints(executor));
+        }
+        setClient(ProxyClientRegistry.getClient(executor));
+        return callEndpoint(endpoint, BATCH_EXECUTE_PATH, url -> doPost(url, body, format, BATCH_RESULTS_TYPE, null));
+    }
+
+    public long getBatchDelay() {
+        return batchDelay;
+    }
+
+    public BatchingForwardToRemoteExecutorHandler setBatchDelay(final long batchDelay) {
+        this.batchDelay = batchDelay;
+        batchers.invalidateAll();
+        return this;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public BatchingForwardToRemoteExecutorHandler setMaxBatchSize(final int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+        batchers.invalidateAll();
+        return this;
+    }
+
+    // The sender holds its executor weakly, so the batcher does not keep its
+    // own key alive. Callers hold the executor until their batch is sent.
+    private OperationBatcher getBatcher(final Executor executor) {
+        final WeakReference<Executor> executorRef = new WeakReference<>(executor);
+        try {
+            return batchers.get(executor, () -> new OperationBatcher(batchDelay, maxBatchSize,
+                    operations -> executeBatchViaUrl(executorRef.get(), operations)));
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException("Unable to create operation batcher", e.getCause());
+        }
+    }
+
+    // Each entry holds the operation's result or the error it failed with.
+    // Results are returned in the same shape as an unbatched forward.
+    private Object toResult(final Map<?, ?> entry, final TypeReference outputTypeReference) {
+        final Object error = entry.get("error");
+        if (null != error) {
+            throw new MaestroWrappedErrorRuntimeException(JSONSerialiser.getMapper().convertValue(error, Error.class));
+        }
+        return JSONSerialiser.getMapper().convertValue(entry, outputTypeReference);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        final BatchingForwardToRemoteExecutorHandler that = (BatchingForwardToRemoteExecutorHandler) o;
+
+        return new EqualsBuilder()
+                .appendSuper(super.equals(o))
+                .append(batchDelay, that.batchDelay)
+                .append(maxBatchSize, that.maxBatchSize)
+                .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder(17, 37)
+                .appendSuper(super.hashCode())
+                .append(batchDelay)
+                .append(maxBatchSize)
+                .toHashCode();
+    }
+}
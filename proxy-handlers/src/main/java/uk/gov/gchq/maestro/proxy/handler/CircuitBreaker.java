@@ -0,0 +1,106 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.proxy.handler;
+
+import uk.gov.gchq.maestro.commonutil.ToStringBuilder;
+
+/**
+ * A circuit breaker for requests to one remote executor.
+ * <p>
+ * The circuit opens after {@code failureThreshold} consecutive failures,
+ * and requests are refused straight away rather than each waiting for the
+ * remote to time out. Once {@code openTime} milliseconds have passed a
+ * single probe request is let through: if it succeeds the circuit closes,
+ * otherwise it opens again.
+ * </p>
+ */
+public class CircuitBreaker {
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openTime;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+
+    /**
+     * @param failureThreshold the consecutive failures that open the
+     *                         circuit, or zero to never open it
+     * @param openTime         how long, in milliseconds, the circuit stays
+     *                         open before a probe is let through
+     */
+    public CircuitBreaker(final int failureThreshold, final long openTime) {
+        this.failureThreshold = failureThreshold;
+        this.openTime = openTime;
+    }
+
+    /**
+     * @param now the current time in milliseconds
+     * @return true if a request would be let through now
+     */
+    public synchronized boolean allowsRequest(final long now) {
+        return State.CLOSED == state || (State.OPEN == state && now - openedAt >= openTime);
+    }
+
+    /**
+     * Lets a request through if the circuit allows it. A request let
+     * through must be followed by a call to {@link #recordSuccess()} or
+     * {@link #recordFailure(long)}.
+     *
+     * @param now the current time in milliseconds
+     * @return true if the request may be sent
+     */
+    public synchronized boolean tryAcquire(final long now) {
+        if (State.CLOSED == state) {
+            return true;
+        }
+        if (State.OPEN == state && now - openedAt >= openTime) {
+            state = State.HALF_OPEN;
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        state = State.CLOSED;
+    }
+
+    public synchronized void recordFailure(final long now) {
+        consecutiveFailures++;
+        if (State.HALF_OPEN == state || (0 < failureThreshold && consecutiveFailures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAt = now;
+            consecutiveFailures = 0;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return new ToStringBuilder(this)
+                .append("state", state)
+                .append("consecutiveFailures", consecutiveFailures)
+                .append("openedAt", openedAt)
+                .toString();
+    }
+}
@@ -23,16 +23,23 @@ import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import uk.gov.gchq.maestro.commonutil.CommonConstants;
+import uk.gov.gchq.maestro.commonutil.CloseableUtil;
+import uk.gov.gchq.maestro.commonutil.StringUtil;
+import uk.gov.gchq.maestro.commonutil.exception.MaestroWrappedErrorRuntimeException;
 import uk.gov.gchq.maestro.commonutil.exception.OperationException;
 import uk.gov.gchq.maestro.commonutil.exception.SerialisationException;
 import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.JSONSerialiser;
+import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.WireFormat;
 import uk.gov.gchq.maestro.executor.Context;
 import uk.gov.gchq.maestro.executor.Executor;
 import uk.gov.gchq.maestro.executor.operation.declaration.FieldDeclaration;
 import uk.gov.gchq.maestro.executor.operation.handler.OperationHandler;
 import uk.gov.gchq.maestro.executor.util.ExecutorPropertiesUtil;
+import uk.gov.gchq.maestro.executor.util.OperationCapabilities;
+import uk.gov.gchq.maestro.executor.util.RawOperation;
+import uk.gov.gchq.maestro.executor.util.RawResult;
 import uk.gov.gchq.maestro.operation.Operation;
+import uk.gov.gchq.maestro.operation.OperationChain;
 import uk.gov.gchq.maestro.operation.serialisation.TypeReferenceImpl;
 
 import javax.ws.rs.client.Client;
@@ -40,35 +47,176 @@ import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.Invocation;
 import javax.ws.rs.core.Response;
 
-import java.io.UnsupportedEncodingException;
 import java.net.URL;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 
 @JsonPropertyOrder(value = {"class"}, alphabetic = true)
 public class ForwardToRemoteExecutorHandler implements OperationHandler {
     private static final Logger LOGGER = LoggerFactory.getLogger(ForwardToRemoteExecutorHandler.class);
     public static final String OUTPUT_TYPE_REFERENCE = "outputTypeReference";
-    private Client client;
+    protected static final String EXECUTE_PATH = "executor/operations/execute";
+    private static final int MIN_HEDGE_SAMPLES = 20;
 
+    private Client client;
+    private boolean passThrough;
+    private double hedgePercentile;
+    private Set<String> idempotentOperations;
 
     @Override
     public Object _doOperation(final Operation operation, final Context context, final Executor executor) throws OperationException {
-        client = ProxyUtil.createClient(executor);
+        client = ProxyClientRegistry.getClient(executor);
+        validate(executor, operation);
 
         return executeOpChainViaUrl(executor, operation, context);
     }
 
+    /**
+     * Rejects an operation the remote is known not to support, so it is not
+     * sent just to fail there.
+     *
+     * @param executor  the proxy executor
+     * @param operation the operation to forward
+     * @throws OperationException if the operation is not supported
+     */
+    protected void validate(final Executor executor, final Operation operation) throws OperationException {
+        final OperationCapabilities capabilities = OperationCapabilities.get(executor);
+        if (null != capabilities) {
+            capabilities.validate(operation);
+        }
+    }
+
+    /**
+     * Forwards the operation to one of the remotes of the executor, skipping
+     * remotes whose circuit is open. If hedging is enabled and the operation
+     * is idempotent, a second attempt is sent to another remote once the
+     * first has taken longer than the hedge percentile of recent requests,
+     * or the minimum hedge delay if that is longer, and whichever replies
+     * first is used. If the first attempt fails before then, the operation
+     * is sent to another remote instead. Each hedged attempt is sent with
+     * its own clone of the context, on the bounded worker threads of the
+     * executor's {@link RemoteEndpointPool}.
+     *
+     * @param executor  the proxy executor
+     * @param operation the operation to forward
+     * @param context   the context of the operation
+     * @return the result from the remote
+     * @throws OperationException if the remote could not be reached
+     */
     public Object executeOpChainViaUrl(final Executor executor, final Operation operation, final Context context) throws OperationException {
-        final String opChainJson;
+        final RemoteEndpointPool pool = RemoteEndpointPool.getPool(executor);
+        final String affinityKey = getAffinityKey(operation);
+        final RemoteEndpoint primary = pool.choose(affinityKey);
+        if (null == primary) {
+            throw new OperationException("The circuit to every remote executor is open: " + ExecutorPropertiesUtil.getMaestroEndpoints(executor));
+        }
+
+        final long hedgeDelay = getHedgeDelay(executor, pool, operation);
+        if (hedgeDelay < 0) {
+            return executeOnEndpoint(pool, primary, executor, operation, context);
+        }
+
+        final CompletableFuture<Object> first = executeOnEndpointAsync(pool, primary, executor, operation, context.shallowClone());
         try {
-            opChainJson = new String(JSONSerialiser.serialise(operation), CommonConstants.UTF_8);
-        } catch (final UnsupportedEncodingException | SerialisationException e) {
-            throw new OperationException("Unable to serialise operation chain into JSON.", e);
+            return first.get(hedgeDelay, TimeUnit.MILLISECONDS);
+        } catch (final TimeoutException e) {
+            // The first attempt is slower than usual, so it is hedged below
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OperationException("Interrupted waiting for remote executor", e);
+        } catch (final ExecutionException e) {
+            // The remote is up if it rejected the operation, so it would be rejected again
+            final RemoteEndpoint failover = getCause(e) instanceof MaestroWrappedErrorRuntimeException ? null : pool.choose(affinityKey, primary);
+            if (null == failover) {
+                throw unwrap(e);
+            }
+            LOGGER.debug("Failing over operation {} from {} to {}", operation.getId(), primary.getEndpoint(), failover.getEndpoint());
+            return executeOnEndpoint(pool, failover, executor, operation, context);
+        }
+
+        final RemoteEndpoint secondary = pool.choose(affinityKey, primary);
+        if (null == secondary) {
+            return await(first);
         }
+        LOGGER.debug("Hedging operation {} on {} after {}ms", operation.getId(), secondary.getEndpoint(), hedgeDelay);
+        return await(firstResponse(first, executeOnEndpointAsync(pool, secondary, executor, operation, context.shallowClone())));
+    }
+
+    /**
+     * @param operation the operation being forwarded
+     * @return the key to route the operation by, or null to route it to the
+     * least loaded remote
+     */
+    protected String getAffinityKey(final Operation operation) {
+        return null;
+    }
+
+    protected Object executeOnEndpoint(final RemoteEndpointPool pool, final RemoteEndpoint endpoint, final Executor executor,
+                                       final Operation operation, final Context context) throws OperationException {
+        return callEndpoint(endpoint, EXECUTE_PATH, url -> {
+            final long start = System.currentTimeMillis();
+            final Object result = executeOpChainViaUrl(url, executor, operation, context);
+            pool.getLatencies().record(System.currentTimeMillis() - start);
+            return result;
+        });
+    }
 
+    /**
+     * Makes a call to a remote, recording on the remote's circuit breaker
+     * whether it responded.
+     *
+     * @param endpoint the remote to call
+     * @param path     the path on the remote to call
+     * @param call     the call to make
+     * @param <O>      the type returned by the call
+     * @return the result of the call
+     * @throws OperationException if the circuit is open or the call fails
+     */
+    protected <O> O callEndpoint(final RemoteEndpoint endpoint, final String path, final RemoteCall<O> call) throws OperationException {
+        if (!endpoint.tryStart()) {
+            throw new OperationException("The circuit to remote executor " + endpoint.getEndpoint() + " is open");
+        }
 
-        final URL url = ExecutorPropertiesUtil.getMaestroUrl(executor, "executor/operations/execute");
+        boolean responded = false;
         try {
-            return doPost(url, opChainJson, (TypeReference) operation.getOrDefault(OUTPUT_TYPE_REFERENCE, new TypeReferenceImpl.Map()), context); //TODO outputTypeReference DEMO CHEAT High priority
+            final O result = call.call(endpoint.getUrl(path));
+            responded = true;
+            return result;
+        } catch (final MaestroWrappedErrorRuntimeException e) {
+            // The remote is up, it just rejected the operation
+            responded = true;
+            throw e;
+        } finally {
+            if (responded) {
+                endpoint.succeeded();
+            } else {
+                endpoint.failed();
+            }
+        }
+    }
+
+    protected Object executeOpChainViaUrl(final URL url, final Executor executor, final Operation operation, final Context context) throws OperationException {
+        final RawOperation rawOperation = passThrough ? RawOperation.from(context) : null;
+        if (null != rawOperation && rawOperation.matches(operation)) {
+            return doPostRaw(url, rawOperation, context);
+        }
+
+        final WireFormat format = ExecutorPropertiesUtil.getWireFormat(executor);
+        final byte[] opChainBytes;
+        try {
+            opChainBytes = JSONSerialiser.serialise(operation, format);
+        } catch (final SerialisationException e) {
+            throw new OperationException("Unable to serialise operation chain into " + format + ".", e);
+        }
+
+        try {
+            return doPost(url, opChainBytes, format, (TypeReference) operation.getOrDefault(OUTPUT_TYPE_REFERENCE, new TypeReferenceImpl.Map()), context); //TODO outputTypeReference DEMO CHEAT High priority
         } catch (final OperationException e) {
             throw new OperationException(e.getMessage(), e);
         }
@@ -77,11 +225,17 @@ public class ForwardToRemoteExecutorHandler implements OperationHandler {
     protected <O> O doPost(final URL url, final String jsonBody,
                            final TypeReference<O> clazz,
                            final Context context) throws OperationException {
+        return doPost(url, StringUtil.toBytes(jsonBody), WireFormat.JSON, clazz, context);
+    }
+
+    protected <O> O doPost(final URL url, final byte[] body, final WireFormat format,
+                           final TypeReference<O> clazz,
+                           final Context context) throws OperationException {
 
-        final Invocation.Builder request = ProxyUtil.createRequest(jsonBody, url, context, client);
+        final Invocation.Builder request = ProxyUtil.createRequest(url, client, format);
         final Response response;
         try {
-            response = request.post(Entity.json(jsonBody));
+            response = request.post(Entity.entity(body, format.getMediaType()));
         } catch (final Exception e) {
             throw new OperationException("Failed to execute post via " +
                     "the maestro URL " + url.toExternalForm(), e);
@@ -91,6 +245,172 @@ public class ForwardToRemoteExecutorHandler implements OperationHandler {
     }
 
 
+    /**
+     * Posts the bytes an operation was received as, and returns the result
+     * without decoding it. The result is requested as JSON and streamed from
+     * the response, so it can be written straight back out to a JSON client.
+     *
+     * @param url          the url to post to
+     * @param rawOperation the operation as it was received
+     * @param context      the context of the operation
+     * @return the undecoded result
+     * @throws OperationException if the post fails or the remote returns an error
+     */
+    protected RawResult doPostRaw(final URL url, final RawOperation rawOperation, final Context context) throws OperationException {
+        final Invocation.Builder request = ProxyUtil.createRequest(url, client, WireFormat.JSON);
+        final Response response;
+        try {
+            response = request.post(Entity.entity(rawOperation.getBytes(), rawOperation.getFormat().getMediaType()));
+        } catch (final Exception e) {
+            throw new OperationException("Failed to execute post via " +
+                    "the maestro URL " + url.toExternalForm(), e);
+        }
+
+        return ProxyUtil.handleRawResponse(response, LOGGER);
+    }
+
+    public boolean isPassThrough() {
+        return passThrough;
+    }
+
+    /**
+     * @param passThrough true to forward an operation as the bytes it was
+     *                    received as, when no hook has changed it since.
+     *                    The REST API must be capturing request bodies, see
+     *                    {@code maestro.rest-api.passThrough.maxBytes}.
+     * @return this handler
+     */
+    public ForwardToRemoteExecutorHandler setPassThrough(final boolean passThrough) {
+        this.passThrough = passThrough;
+        return this;
+    }
+
+    public double getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    /**
+     * @param hedgePercentile the percentile of recent request latencies after
+     *                        which an idempotent operation is sent to a second
+     *                        remote, or zero to disable hedging
+     * @return this handler
+     */
+    public ForwardToRemoteExecutorHandler setHedgePercentile(final double hedgePercentile) {
+        this.hedgePercentile = hedgePercentile;
+        return this;
+    }
+
+    public Set<String> getIdempotentOperations() {
+        return idempotentOperations;
+    }
+
+    /**
+     * @param idempotentOperations the ids of the operations that are safe to
+     *                             execute twice, and so may be hedged
+     * @return this handler
+     */
+    public ForwardToRemoteExecutorHandler setIdempotentOperations(final Set<String> idempotentOperations) {
+        this.idempotentOperations = idempotentOperations;
+        return this;
+    }
+
+    private CompletableFuture<Object> executeOnEndpointAsync(final RemoteEndpointPool pool, final RemoteEndpoint endpoint, final Executor executor,
+                                                             final Operation operation, final Context context) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return executeOnEndpoint(pool, endpoint, executor, operation, context);
+            } catch (final OperationException e) {
+                throw new CompletionException(e);
+            }
+        }, pool.getWorkers());
+    }
+
+    private long getHedgeDelay(final Executor executor, final RemoteEndpointPool pool, final Operation operation) {
+        if (0 >= hedgePercentile
+                || pool.getEndpoints().size() < 2
+                || pool.getLatencies().getCount() < MIN_HEDGE_SAMPLES
+                || !isIdempotent(operation)) {
+            return -1;
+        }
+        return Math.max(pool.getLatencies().getPercentile(hedgePercentile), ExecutorPropertiesUtil.getProxyMinHedgeDelay(executor));
+    }
+
+    private boolean isIdempotent(final Operation operation) {
+        if (null == idempotentOperations || !idempotentOperations.contains(operation.getId())) {
+            return false;
+        }
+        if (operation instanceof OperationChain) {
+            for (final Operation child : ((OperationChain) operation).getOperations()) {
+                if (!isIdempotent(child)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // Completes with whichever attempt gets a response first, closing the
+    // result of the slower one. Fails only once both attempts have failed.
+    private static CompletableFuture<Object> firstResponse(final CompletableFuture<Object> first, final CompletableFuture<Object> second) {
+        final CompletableFuture<Object> response = new CompletableFuture<>();
+        final AtomicInteger failures = new AtomicInteger();
+        final BiConsumer<Object, Throwable> complete = (result, error) -> {
+            if (null == error) {
+                if (!response.complete(result)) {
+                    CloseableUtil.close(result);
+                }
+            } else if (getCause(error) instanceof MaestroWrappedErrorRuntimeException || 2 == failures.incrementAndGet()) {
+                response.completeExceptionally(getCause(error));
+            }
+        };
+        first.whenComplete(complete);
+        second.whenComplete(complete);
+        return response;
+    }
+
+    private static Object await(final CompletableFuture<Object> future) throws OperationException {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OperationException("Interrupted waiting for remote executor", e);
+        } catch (final ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private static OperationException unwrap(final ExecutionException e) {
+        final Throwable cause = getCause(e);
+        if (cause instanceof OperationException) {
+            return (OperationException) cause;
+        } else if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        return new OperationException(cause.getMessage(), cause);
+    }
+
+    private static Throwable getCause(final Throwable e) {
+        Throwable cause = e;
+        while ((cause instanceof ExecutionException || cause instanceof CompletionException) && null != cause.getCause()) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    /**
+     * A call to a single remote.
+     *
+     * @param <O> the type returned by the call
+     */
+    @FunctionalInterface
+    protected interface RemoteCall<O> {
+        O call(final URL url) throws OperationException;
+    }
+
+    protected void setClient(final Client client) {
+        this.client = client;
+    }
+
     @Override
     public FieldDeclaration getFieldDeclaration() {
         return new FieldDeclaration()
@@ -111,6 +431,9 @@ public class ForwardToRemoteExecutorHandler implements OperationHandler {
 
         return new EqualsBuilder()
                 //Don't compare client
+                .append(passThrough, that.passThrough)
+                .append(hedgePercentile, that.hedgePercentile)
+                .append(idempotentOperations, that.idempotentOperations)
                 .isEquals();
     }
 
@@ -118,6 +441,9 @@ public class ForwardToRemoteExecutorHandler implements OperationHandler {
     public int hashCode() {
         return new HashCodeBuilder(17, 37)
                 //Don't compare client
+                .append(passThrough)
+                .append(hedgePercentile)
+                .append(idempotentOperations)
                 .toHashCode();
     }
 }
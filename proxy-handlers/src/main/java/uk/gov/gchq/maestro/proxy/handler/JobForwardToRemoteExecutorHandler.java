@@ -0,0 +1,258 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.proxy.handler;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.gov.gchq.maestro.commonutil.exception.OperationException;
+import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.JSONSerialiser;
+import uk.gov.gchq.maestro.executor.Context;
+import uk.gov.gchq.maestro.executor.Executor;
+import uk.gov.gchq.maestro.operation.Operation;
+import uk.gov.gchq.maestro.operation.jobtracker.JobDetail;
+import uk.gov.gchq.maestro.operation.jobtracker.JobStatus;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link ForwardToRemoteExecutorHandler} for long running operations.
+ * Rather than holding a connection open until the remote has finished, the
+ * operation is submitted to the remote as a {@code Job} and the remote's
+ * {@link JobDetail} is returned straight away.
+ * <p>
+ * The caller can then poll with {@code GetJobDetails} and collect the
+ * output with {@code GetJobResults}. If this handler is also registered for
+ * those operations, they are sent to the remote that is running the job,
+ * which is remembered by the executor's {@link RemoteEndpointPool} so any
+ * instance of this handler can find it. In process callers can use
+ * {@link #awaitJob(Executor, String, Context)} instead, which polls with
+ * back off without holding a thread between polls.
+ * </p>
+ */
+@JsonPropertyOrder(value = {"class"}, alphabetic = true)
+public class JobForwardToRemoteExecutorHandler extends ForwardToRemoteExecutorHandler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JobForwardToRemoteExecutorHandler.class);
+    public static final String JOB = "Job";
+    public static final String GET_JOB_DETAILS = "GetJobDetails";
+    public static final String GET_JOB_RESULTS = "GetJobResults";
+    public static final String OP_AS_OPERATION = "OpAsOperation";
+    public static final String JOB_ID = "JobId";
+    public static final String KEY_OR_DEFAULT = "KeyOrDefault";
+    public static final long DEFAULT_POLL_INTERVAL = 100L;
+    public static final long DEFAULT_MAX_POLL_INTERVAL = 5000L;
+    // Only times the polls, which are made on the executor's proxy workers
+    private static final ScheduledExecutorService POLL_TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "proxy-job-poll-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private long pollInterval = DEFAULT_POLL_INTERVAL;
+    private long maxPollInterval = DEFAULT_MAX_POLL_INTERVAL;
+
+    @Override
+    public Object _doOperation(final Operation operation, final Context context, final Executor executor) throws OperationException {
+        if (operation.getIdComparison(GET_JOB_DETAILS) || operation.getIdComparison(GET_JOB_RESULTS)) {
+            return executeForJob(executor, (String) operation.get(JOB_ID), operation, context);
+        }
+        return submitJob(executor, operation, context);
+    }
+
+    /**
+     * Submits the operation to a remote as a job.
+     *
+     * @param executor  the proxy executor
+     * @param operation the operation to run on the remote
+     * @param context   the context of the operation
+     * @return the details of the job on the remote
+     * @throws OperationException if the job could not be submitted
+     */
+    public JobDetail submitJob(final Executor executor, final Operation operation, final Context context) throws OperationException {
+        setClient(ProxyClientRegistry.getClient(executor));
+        final Operation job = new Operation(JOB).operationArg(OP_AS_OPERATION, operation);
+        validate(executor, operation);
+        validate(executor, job);
+
+        final RemoteEndpointPool pool = RemoteEndpointPool.getPool(executor);
+        final RemoteEndpoint endpoint = pool.choose(getAffinityKey(operation));
+        if (null == endpoint) {
+            throw new OperationException("The circuit to every remote executor is open");
+        }
+
+        final JobDetail jobDetail = toJobDetail(executeOnEndpoint(pool, endpoint, executor, job, context));
+        if (null != jobDetail.getJobId()) {
+            pool.addJob(jobDetail.getJobId(), endpoint);
+        }
+        LOGGER.debug("Submitted operation {} to {} as job {}", operation.getId(), endpoint.getEndpoint(), jobDetail.getJobId());
+        return jobDetail;
+    }
+
+    /**
+     * @param executor the proxy executor
+     * @param jobId    the id of a job submitted by this handler
+     * @param context  the context of the caller
+     * @return the current details of the job on the remote
+     * @throws OperationException if the remote could not be reached
+     */
+    public JobDetail getJobDetails(final Executor executor, final String jobId, final Context context) throws OperationException {
+        final Operation getJobDetails = new Operation(GET_JOB_DETAILS).operationArg(JOB_ID, jobId);
+        return toJobDetail(executeForJob(executor, jobId, getJobDetails, context));
+    }
+
+    /**
+     * @param executor the proxy executor
+     * @param jobId    the id of a job submitted by this handler
+     * @param key      the export key the results were stored under, or null
+     * @param context  the context of the caller
+     * @return the results of the job, as returned by the remote
+     * @throws OperationException if the remote could not be reached
+     */
+    public Object getJobResults(final Executor executor, final String jobId, final String key, final Context context) throws OperationException {
+        final Operation getJobResults = new Operation(GET_JOB_RESULTS).operationArg(JOB_ID, jobId);
+        if (null != key) {
+            getJobResults.operationArg(KEY_OR_DEFAULT, key);
+        }
+        return executeForJob(executor, jobId, getJobResults, context);
+    }
+
+    /**
+     * Polls the remote until the job has finished, failed or been cancelled.
+     * Polls start at the poll interval and double up to the max poll
+     * interval. No thread is held between polls.
+     *
+     * @param executor the proxy executor
+     * @param jobId    the id of a job submitted by this handler
+     * @param context  the context of the caller
+     * @return a future of the final details of the job
+     */
+    public CompletableFuture<JobDetail> awaitJob(final Executor executor, final String jobId, final Context context) {
+        final CompletableFuture<JobDetail> future = new CompletableFuture<>();
+        schedulePoll(future, executor, jobId, context, pollInterval);
+        return future;
+    }
+
+    public long getPollInterval() {
+        return pollInterval;
+    }
+
+    public JobForwardToRemoteExecutorHandler setPollInterval(final long pollInterval) {
+        this.pollInterval = pollInterval;
+        return this;
+    }
+
+    public long getMaxPollInterval() {
+        return maxPollInterval;
+    }
+
+    public JobForwardToRemoteExecutorHandler setMaxPollInterval(final long maxPollInterval) {
+        this.maxPollInterval = maxPollInterval;
+        return this;
+    }
+
+    private void schedulePoll(final CompletableFuture<JobDetail> future, final Executor executor, final String jobId,
+                              final Context context, final long delay) {
+        POLL_TIMER.schedule(() -> {
+            try {
+                RemoteEndpointPool.getPool(executor).getWorkers().execute(() -> poll(future, executor, jobId, context, delay));
+            } catch (final RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }, Math.max(delay, 1), TimeUnit.MILLISECONDS);
+    }
+
+    private void poll(final CompletableFuture<JobDetail> future, final Executor executor, final String jobId,
+                      final Context context, final long delay) {
+        if (future.isDone()) {
+            return;
+        }
+        try {
+            final JobDetail jobDetail = getJobDetails(executor, jobId, context);
+            if (isComplete(jobDetail.getStatus())) {
+                future.complete(jobDetail);
+            } else {
+                schedulePoll(future, executor, jobId, context, Math.min(delay * 2, Math.max(maxPollInterval, 1)));
+            }
+        } catch (final Exception e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    // Sends the operation to the remote running the job, falling back to
+    // normal routing for jobs not submitted through this executor.
+    private Object executeForJob(final Executor executor, final String jobId, final Operation operation,
+                                 final Context context) throws OperationException {
+        setClient(ProxyClientRegistry.getClient(executor));
+        final RemoteEndpointPool pool = RemoteEndpointPool.getPool(executor);
+        final RemoteEndpoint endpoint = pool.getJobEndpoint(jobId);
+        if (null != endpoint) {
+            return executeOnEndpoint(pool, endpoint, executor, operation, context);
+        }
+        return executeOpChainViaUrl(executor, operation, context);
+    }
+
+    private static boolean isComplete(final JobStatus status) {
+        return JobStatus.FINISHED == status || JobStatus.FAILED == status || JobStatus.CANCELLED == status;
+    }
+
+    private static JobDetail toJobDetail(final Object response) throws OperationException {
+        final Object jobDetail = response instanceof Map ? ((Map) response).get("result") : response;
+        if (jobDetail instanceof JobDetail) {
+            return (JobDetail) jobDetail;
+        }
+        try {
+            return JSONSerialiser.getMapper().convertValue(jobDetail, JobDetail.class);
+        } catch (final IllegalArgumentException e) {
+            throw new OperationException("Unable to read the job details returned by the remote executor", e);
+        }
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        final JobForwardToRemoteExecutorHandler that = (JobForwardToRemoteExecutorHandler) o;
+
+        return new EqualsBuilder()
+                .appendSuper(super.equals(o))
+                .append(pollInterval, that.pollInterval)
+                .append(maxPollInterval, that.maxPollInterval)
+                .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder(17, 37)
+                .appendSuper(super.hashCode())
+                .append(pollInterval)
+                .append(maxPollInterval)
+                .toHashCode();
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.proxy.handler;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the most recent request latencies, in milliseconds, so percentiles
+ * of them can be read cheaply. Percentiles are recalculated after every
+ * {@value #REFRESH_INTERVAL} new samples rather than on every read.
+ */
+public class LatencyTracker {
+    private static final int REFRESH_INTERVAL = 32;
+
+    private final long[] samples;
+    private int next;
+    private int count;
+    private long[] sorted;
+    private int sinceSorted;
+
+    public LatencyTracker(final int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Size must be at least 1 but was: " + size);
+        }
+        samples = new long[size];
+    }
+
+    public synchronized void record(final long latency) {
+        samples[next] = latency;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+        sinceSorted++;
+    }
+
+    /**
+     * @param percentile the percentile, between 0 and 100
+     * @return the latency at the percentile, or -1 if none have been recorded
+     */
+    public synchronized long getPercentile(final double percentile) {
+        if (0 == count) {
+            return -1;
+        }
+        if (null == sorted || sinceSorted >= REFRESH_INTERVAL || (0 < sinceSorted && count <= REFRESH_INTERVAL)) {
+            sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            sinceSorted = 0;
+        }
+        final int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    public synchronized int getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.proxy.handler;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+
+import uk.gov.gchq.maestro.operation.Operation;
+
+/**
+ * A {@link ForwardToRemoteExecutorHandler} for spreading operations across
+ * the remote executors listed in {@code maestro.endpoints}.
+ * <p>
+ * If an {@code affinityArg} is set, operations with that operation arg are
+ * routed by its value, so repeated requests for the same value reach the
+ * same remote and can reuse its caches.
+ * </p>
+ */
+@JsonPropertyOrder(value = {"class"}, alphabetic = true)
+public class LoadBalancedForwardToRemoteExecutorHandler extends ForwardToRemoteExecutorHandler {
+    private String affinityArg;
+
+    public String getAffinityArg() {
+        return affinityArg;
+    }
+
+    public LoadBalancedForwardToRemoteExecutorHandler setAffinityArg(final String affinityArg) {
+        this.affinityArg = affinityArg;
+        return this;
+    }
+
+    @Override
+    protected String getAffinityKey(final Operation operation) {
+        final Object value = null == affinityArg ? null : operation.get(affinityArg);
+        return null == value ? null : String.valueOf(value);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        final LoadBalancedForwardToRemoteExecutorHandler that = (LoadBalancedForwardToRemoteExecutorHandler) o;
+
+        return new EqualsBuilder()
+                .appendSuper(super.equals(o))
+                .append(affinityArg, that.affinityArg)
+                .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder(17, 37)
+                .appendSuper(super.hashCode())
+                .append(affinityArg)
+                .toHashCode();
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.proxy.handler;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import uk.gov.gchq.maestro.commonutil.exception.OperationException;
+import uk.gov.gchq.maestro.executor.Executor;
+import uk.gov.gchq.maestro.executor.util.ExecutorPropertiesUtil;
+
+import java.net.URL;
+
+/**
+ * A {@link ProxyInitialiseHandler} for a proxy executor with several
+ * remotes. It creates the {@link RemoteEndpointPool} of the executor and
+ * runs the status check against each remote, at start up and then every
+ * {@code maestro.proxy.health-check-interval} milliseconds. Start up fails
+ * only if none of the remotes are healthy. The remotes are expected to be
+ * alike, so supported operations are fetched from any one of them.
+ */
+@JsonPropertyOrder(value = {"class"}, alphabetic = true)
+public class LoadBalancedProxyInitialiseHandler extends ProxyInitialiseHandler {
+    @Override
+    protected void checkDelegateExecutorStatus(final Executor executor) throws OperationException {
+        final RemoteEndpointPool pool = RemoteEndpointPool.createPool(executor,
+                endpoint -> checkDelegateExecutorStatus(endpoint.getUrl(STATUS_PATH)));
+        for (final RemoteEndpoint endpoint : pool.getEndpoints()) {
+            if (endpoint.isHealthy()) {
+                return;
+            }
+        }
+        throw new OperationException("None of the remote executors are healthy: " + ExecutorPropertiesUtil.getMaestroEndpoints(executor));
+    }
+
+    @Override
+    protected URL getCapabilitiesUrl(final Executor executor, final String path) throws OperationException {
+        final RemoteEndpoint endpoint = RemoteEndpointPool.getPool(executor).choose(null);
+        if (null == endpoint) {
+            throw new OperationException("The circuit to every remote executor is open");
+        }
+        return endpoint.getUrl(path);
+    }
+}
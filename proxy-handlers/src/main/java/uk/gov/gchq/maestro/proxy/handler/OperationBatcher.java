@@ -0,0 +1,166 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.proxy.handler;
+
+import uk.gov.gchq.maestro.commonutil.exception.OperationException;
+import uk.gov.gchq.maestro.operation.Operation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An {@code OperationBatcher} coalesces operations submitted close together
+ * into a single batch. A batch is sent once it holds the maximum number of
+ * operations, or once the oldest operation in it has waited for the batch
+ * delay, whichever comes first. Each submitter is completed with the entry
+ * at its own position in the batch results.
+ * <p>
+ * A full batch is sent on the thread that filled it. A batch flushed by the
+ * delay is sent on a thread owned by this batcher, so a slow remote only
+ * holds up its own batches. The shared timer just triggers the flush.
+ * </p>
+ */
+public class OperationBatcher {
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        final Thread thread = new Thread(r, "operation-batcher-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final long SENDER_KEEP_ALIVE = 60;
+
+    private final long batchDelay;
+    private final int maxBatchSize;
+    private final BatchSender sender;
+    private final ThreadPoolExecutor sendThread;
+
+    private List<Pending> batch = new ArrayList<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    public OperationBatcher(final long batchDelay, final int maxBatchSize, final BatchSender sender) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be at least 1, but was: " + maxBatchSize);
+        }
+        this.batchDelay = batchDelay;
+        this.maxBatchSize = maxBatchSize;
+        this.sender = sender;
+        // The thread is only kept while batches are being flushed, so an
+        // idle batcher does not need closing
+        this.sendThread = new ThreadPoolExecutor(1, 1, SENDER_KEEP_ALIVE, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            final Thread thread = new Thread(r, "operation-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.sendThread.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Adds an operation to the current batch.
+     *
+     * @param operation the operation to send
+     * @return a future completed with the operation's entry in the batch
+     * results, or exceptionally if the batch could not be sent
+     */
+    public CompletableFuture<Object> submit(final Operation operation) {
+        final Pending pending = new Pending(operation);
+        List<Pending> full = null;
+        synchronized (this) {
+            batch.add(pending);
+            if (batch.size() >= maxBatchSize) {
+                full = takeBatch();
+            } else if (1 == batch.size()) {
+                scheduledFlush = TIMER.schedule(() -> sendThread.execute(this::flush), batchDelay, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        if (null != full) {
+            send(full);
+        }
+        return pending.future;
+    }
+
+    /**
+     * Sends the current batch straight away.
+     */
+    public void flush() {
+        final List<Pending> toSend;
+        synchronized (this) {
+            toSend = takeBatch();
+        }
+        send(toSend);
+    }
+
+    private List<Pending> takeBatch() {
+        final List<Pending> taken = batch;
+        batch = new ArrayList<>();
+        if (null != scheduledFlush) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        return taken;
+    }
+
+    private void send(final List<Pending> toSend) {
+        if (toSend.isEmpty()) {
+            return;
+        }
+
+        final List<Operation> operations = new ArrayList<>(toSend.size());
+        for (final Pending pending : toSend) {
+            operations.add(pending.operation);
+        }
+
+        try {
+            final List<?> results = sender.send(operations);
+            if (null == results || results.size() != toSend.size()) {
+                throw new OperationException("Batch of " + toSend.size() + " operations returned "
+                        + (null == results ? "no" : String.valueOf(results.size())) + " results");
+            }
+            for (int i = 0; i < toSend.size(); i++) {
+                toSend.get(i).future.complete(results.get(i));
+            }
+        } catch (final Exception e) {
+            for (final Pending pending : toSend) {
+                pending.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Sends a batch of operations, returning one result per operation in
+     * the same order.
+     */
+    @FunctionalInterface
+    public interface BatchSender {
+        List<?> send(final List<Operation> operations) throws OperationException;
+    }
+
+    private static final class Pending {
+        private final Operation operation;
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+
+        private Pending(final Operation operation) {
+            this.operation = operation;
+        }
+    }
+}
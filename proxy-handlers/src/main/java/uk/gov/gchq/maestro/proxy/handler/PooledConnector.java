@@ -0,0 +1,309 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.proxy.handler;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.ClientRequest;
+import org.glassfish.jersey.client.ClientResponse;
+import org.glassfish.jersey.client.spi.AsyncConnectorCallback;
+import org.glassfish.jersey.client.spi.Connector;
+import org.glassfish.jersey.message.internal.Statuses;
+
+import uk.gov.gchq.maestro.commonutil.CloseableUtil;
+import uk.gov.gchq.maestro.executor.Executor;
+import uk.gov.gchq.maestro.executor.util.ExecutorPropertiesUtil;
+
+import javax.net.ssl.SSLContext;
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.core.HttpHeaders;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A Jersey {@link Connector} that sends requests over a pool of keep-alive
+ * connections, so a proxy executor reuses its TCP and TLS sessions to the
+ * remote Maestro REST API rather than opening a connection per operation.
+ * <p>
+ * The pool limits, keep-alive and idle eviction are taken from the
+ * {@link Executor} properties. Connections are not tied to the TLS principal
+ * that opened them, so client-certificate connections are reused too.
+ * Asynchronous requests are sent on threads owned by the connector, so the
+ * caller is not held while waiting for a connection or a response.
+ * The pool is shut down when the owning client is closed.
+ * </p>
+ */
+public class PooledConnector implements Connector {
+    private static final int DRAIN_BUFFER_SIZE = 8192;
+    private static final int MAX_DRAIN_READS = 8;
+    private static final long ASYNC_THREAD_KEEP_ALIVE = 60;
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    private final ThreadPoolExecutor asyncRequests;
+
+    public PooledConnector(final Executor executor, final SSLContext sslContext) {
+        this(ExecutorPropertiesUtil.getProxyMaxConnections(executor), ExecutorPropertiesUtil.getProxyMaxConnectionsPerRoute(executor),
+                ExecutorPropertiesUtil.getProxyKeepAlive(executor), ExecutorPropertiesUtil.getProxyIdleTimeout(executor), sslContext);
+    }
+
+    /**
+     * @param maxConnections         the most connections to hold open
+     * @param maxConnectionsPerRoute the most connections to hold open to one remote
+     * @param keepAlive              how long, in milliseconds, to keep an idle
+     *                               connection alive when the remote does not say
+     * @param idleTimeout            how long, in milliseconds, before idle
+     *                               connections are evicted
+     * @param sslContext             the context for https connections
+     */
+    public PooledConnector(final int maxConnections, final int maxConnectionsPerRoute, final long keepAlive,
+                           final long idleTimeout, final SSLContext sslContext) {
+        final Registry<ConnectionSocketFactory> socketFactories = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", new SSLConnectionSocketFactory(sslContext))
+                .build();
+        connectionManager = new PoolingHttpClientConnectionManager(socketFactories);
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy((response, context) -> {
+                    final long remoteKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return remoteKeepAlive > 0 ? Math.min(remoteKeepAlive, keepAlive) : keepAlive;
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(idleTimeout, TimeUnit.MILLISECONDS)
+                .disableConnectionState()
+                .disableCookieManagement()
+                .disableRedirectHandling()
+                .build();
+
+        // Asynchronous requests wait for a connection on these threads rather
+        // than the caller's, so there is no point having more than connections
+        final int threads = Math.max(1, maxConnections);
+        asyncRequests = new ThreadPoolExecutor(threads, threads, ASYNC_THREAD_KEEP_ALIVE, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            final Thread thread = new Thread(runnable, "proxy-async-request");
+            thread.setDaemon(true);
+            return thread;
+        });
+        asyncRequests.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public ClientResponse apply(final ClientRequest request) {
+        final HttpUriRequest httpRequest = toHttpRequest(request);
+        final CloseableHttpResponse httpResponse;
+        try {
+            httpResponse = httpClient.execute(httpRequest);
+        } catch (final IOException e) {
+            throw new ProcessingException("Failed to send request to " + request.getUri(), e);
+        }
+
+        final ClientResponse response = new ClientResponse(
+                Statuses.from(httpResponse.getStatusLine().getStatusCode(), httpResponse.getStatusLine().getReasonPhrase()),
+                request);
+        for (final Header header : httpResponse.getAllHeaders()) {
+            response.getHeaders().add(header.getName(), header.getValue());
+        }
+
+        // Closing the entity stream, which Jersey does once the entity is
+        // read, hands the connection back to the pool
+        final HttpEntity entity = httpResponse.getEntity();
+        try {
+            if (null == entity) {
+                httpResponse.close();
+                response.setEntityStream(new ByteArrayInputStream(new byte[0]));
+            } else {
+                response.setEntityStream(new ReleasingInputStream(entity.getContent(), httpResponse));
+            }
+        } catch (final IOException e) {
+            CloseableUtil.close(httpResponse);
+            throw new ProcessingException("Failed to read response from " + request.getUri(), e);
+        }
+        return response;
+    }
+
+    @Override
+    public Future<?> apply(final ClientRequest request, final AsyncConnectorCallback callback) {
+        return asyncRequests.submit(() -> {
+            try {
+                callback.response(apply(request));
+            } catch (final Throwable e) {
+                callback.failure(e);
+            }
+        });
+    }
+
+    @Override
+    public String getName() {
+        return "Maestro pooled connector";
+    }
+
+    @Override
+    public void close() {
+        asyncRequests.shutdownNow();
+        CloseableUtil.close(httpClient);
+        connectionManager.shutdown();
+    }
+
+    public PoolingHttpClientConnectionManager getConnectionManager() {
+        return connectionManager;
+    }
+
+    private HttpUriRequest toHttpRequest(final ClientRequest request) {
+        final int connectTimeout = request.resolveProperty(ClientProperties.CONNECT_TIMEOUT, 0);
+        final RequestBuilder builder = RequestBuilder.create(request.getMethod())
+                .setUri(request.getUri())
+                .setConfig(RequestConfig.custom()
+                        .setConnectTimeout(connectTimeout)
+                        .setConnectionRequestTimeout(connectTimeout)
+                        .setSocketTimeout(request.resolveProperty(ClientProperties.READ_TIMEOUT, 0))
+                        .build());
+
+        // The entity is written straight to the connection as the request is
+        // sent, so its headers, such as its content type, are taken before
+        if (request.hasEntity()) {
+            builder.setEntity(new StreamingEntity(request));
+        }
+
+        for (final Map.Entry<String, List<String>> header : request.getStringHeaders().entrySet()) {
+            if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(header.getKey())) {
+                for (final String value : header.getValue()) {
+                    builder.addHeader(header.getKey(), value);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    // Writes the entity of a Jersey request chunked, as its length is not
+    // known until it has been written. It can only be written once, so the
+    // request is not retried.
+    private static final class StreamingEntity extends AbstractHttpEntity {
+        private final ClientRequest request;
+
+        private StreamingEntity(final ClientRequest request) {
+            this.request = request;
+            setChunked(true);
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return false;
+        }
+
+        @Override
+        public long getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public InputStream getContent() {
+            throw new UnsupportedOperationException("The entity of a request can only be written");
+        }
+
+        @Override
+        public void writeTo(final OutputStream outputStream) throws IOException {
+            request.setStreamProvider(contentLength -> outputStream);
+            request.writeEntity();
+        }
+
+        @Override
+        public boolean isStreaming() {
+            return false;
+        }
+    }
+
+    private static final class ReleasingInputStream extends InputStream {
+        private final InputStream delegate;
+        private final CloseableHttpResponse response;
+        private boolean eof;
+
+        private ReleasingInputStream(final InputStream delegate, final CloseableHttpResponse response) {
+            this.delegate = delegate;
+            this.response = response;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = delegate.read();
+            eof = -1 == b;
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            final int read = delegate.read(b, off, len);
+            eof = -1 == read;
+            return read;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return delegate.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            // A fully read connection goes back to the pool. One abandoned
+            // part way through a large body is dropped rather than drained.
+            try {
+                if (eof || drain()) {
+                    delegate.close();
+                }
+            } finally {
+                response.close();
+            }
+        }
+
+        private boolean drain() throws IOException {
+            final byte[] buffer = new byte[DRAIN_BUFFER_SIZE];
+            for (int i = 0; i < MAX_DRAIN_READS; i++) {
+                if (-1 == delegate.read(buffer)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
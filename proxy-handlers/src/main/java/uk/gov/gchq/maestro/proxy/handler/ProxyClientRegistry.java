@@ -0,0 +1,116 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.proxy.handler;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.gov.gchq.maestro.executor.Executor;
+
+import javax.ws.rs.client.Client;
+
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Holds one pooled {@link Client} per proxy {@link Executor} instance, so
+ * every operation forwarded by an executor shares its keep-alive
+ * connections. Executors are told apart by identity rather than by id, so
+ * executors that share an id, or have none, do not share or close each
+ * other's clients. Clients are created by the {@link ProxyInitialiseHandler}
+ * and closed with {@link #close(Executor)}, once their executor has been
+ * garbage collected, or when the JVM shuts down.
+ */
+public final class ProxyClientRegistry {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProxyClientRegistry.class);
+    // Weak keys are compared by identity
+    private static final Cache<Executor, Client> CLIENTS = CacheBuilder.newBuilder()
+            .weakKeys()
+            .removalListener((RemovalListener<Executor, Client>) removal -> close(removal.getValue()))
+            .build();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(ProxyClientRegistry::closeAll, "proxy-client-shutdown"));
+    }
+
+    private ProxyClientRegistry() {
+        // Private constructor to prevent instantiation.
+    }
+
+    /**
+     * Creates the client for an executor, closing any client it already had.
+     *
+     * @param executor the proxy executor
+     * @return the new client
+     */
+    public static Client createClient(final Executor executor) {
+        final Client client = ProxyUtil.createClient(executor);
+        // Replacing a client closes it through the removal listener
+        CLIENTS.put(executor, client);
+        return client;
+    }
+
+    /**
+     * Gets the client for an executor, creating one if the executor has not
+     * been initialised.
+     *
+     * @param executor the proxy executor
+     * @return the shared client
+     */
+    public static Client getClient(final Executor executor) {
+        try {
+            return CLIENTS.get(executor, () -> ProxyUtil.createClient(executor));
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException("Unable to create proxy client", e.getCause());
+        }
+    }
+
+    /**
+     * @param executor the proxy executor
+     * @return the client for the executor, or null if it has none
+     */
+    public static Client getClientIfPresent(final Executor executor) {
+        return CLIENTS.getIfPresent(executor);
+    }
+
+    /**
+     * Closes the client for an executor, releasing its pooled connections,
+     * and stops refreshing the operations its remote supports.
+     *
+     * @param executor the proxy executor
+     */
+    public static void close(final Executor executor) {
+        ProxyInitialiseHandler.cancelCapabilityRefresh(executor);
+        CLIENTS.invalidate(executor);
+    }
+
+    public static void closeAll() {
+        CLIENTS.invalidateAll();
+    }
+
+    private static void close(final Client client) {
+        if (null != client) {
+            try {
+                client.close();
+            } catch (final Exception e) {
+                LOGGER.warn("Failed to close proxy client", e);
+            }
+        }
+    }
+}
@@ -18,17 +18,22 @@ package uk.gov.gchq.maestro.proxy.handler;
 
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import uk.gov.gchq.maestro.commonutil.exception.OperationException;
+import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.WireFormat;
 import uk.gov.gchq.maestro.executor.Context;
 import uk.gov.gchq.maestro.executor.Executor;
 import uk.gov.gchq.maestro.executor.operation.declaration.FieldDeclaration;
 import uk.gov.gchq.maestro.executor.operation.handler.InitialiserHandler;
 import uk.gov.gchq.maestro.executor.util.ExecutorPropertiesUtil;
+import uk.gov.gchq.maestro.executor.util.OperationCapabilities;
 import uk.gov.gchq.maestro.operation.Operation;
 import uk.gov.gchq.maestro.operation.serialisation.TypeReferenceImpl;
 
@@ -36,25 +41,125 @@ import javax.ws.rs.client.Client;
 import javax.ws.rs.client.Invocation;
 import javax.ws.rs.core.Response;
 
+import java.lang.ref.WeakReference;
 import java.net.URL;
 import java.util.LinkedHashMap;
-
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Initialises a proxy executor by checking the status of its remote.
+ * <p>
+ * If {@code maestro.proxy.capabilities-refresh-interval} is set, the
+ * operations the remote supports and their details are also fetched, and
+ * then refreshed in the background. The proxy reports these as its own
+ * operations, and rejects operations the remote does not support without
+ * forwarding them. If the remote cannot be reached for a refresh, the last
+ * operations fetched are kept.
+ * </p>
+ */
 @JsonPropertyOrder(value = {"class"}, alphabetic = true)
 public class ProxyInitialiseHandler implements InitialiserHandler {
     private static final Logger LOGGER = LoggerFactory.getLogger(ProxyInitialiseHandler.class);
+    protected static final String STATUS_PATH = "/executor/status";
+    protected static final String OPERATIONS_PATH = "/executor/operations";
+    protected static final String OPERATION_DETAILS_PATH = "/executor/operations/details";
+    private static final TypeReference<List<String>> OPERATIONS_TYPE = new TypeReference<List<String>>() {
+    };
+    private static final TypeReference<List<Map<String, Object>>> OPERATION_DETAILS_TYPE = new TypeReference<List<Map<String, Object>>>() {
+    };
+    // Weak keys are compared by identity, and a refresh is cancelled once
+    // its executor has been garbage collected
+    private static final Cache<Executor, ScheduledFuture<?>> REFRESHES = CacheBuilder.newBuilder()
+            .weakKeys()
+            .removalListener((RemovalListener<Executor, ScheduledFuture<?>>) removal -> removal.getValue().cancel(false))
+            .build();
+    private static final ScheduledExecutorService CAPABILITY_REFRESHES = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "proxy-capabilities");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     private Client client;
 
     @Override
     public Object _doOperation(final Operation ignore, final Context context, final Executor executor) throws OperationException {
-        client = ProxyUtil.createClient(executor);
+        client = ProxyClientRegistry.createClient(executor);
         checkDelegateExecutorStatus(executor);
+        discoverCapabilities(executor);
         return null;
     }
 
+    protected void discoverCapabilities(final Executor executor) {
+        cancelCapabilityRefresh(executor);
+
+        final int interval = ExecutorPropertiesUtil.getProxyCapabilitiesRefreshInterval(executor);
+        if (interval < 0) {
+            OperationCapabilities.remove(executor);
+            return;
+        }
+
+        refreshCapabilities(executor);
+        if (interval > 0) {
+            final CapabilityRefresh refresh = new CapabilityRefresh(this, executor);
+            refresh.future = CAPABILITY_REFRESHES.scheduleWithFixedDelay(refresh, interval, interval, TimeUnit.MILLISECONDS);
+            REFRESHES.put(executor, refresh.future);
+        }
+    }
+
+    /**
+     * Fetches the operations the remote supports, using the executor's
+     * current client from the {@link ProxyClientRegistry}. Nothing is fetched
+     * if the executor's client has been closed.
+     *
+     * @param executor the proxy executor
+     */
+    protected void refreshCapabilities(final Executor executor) {
+        final Client currentClient = ProxyClientRegistry.getClientIfPresent(executor);
+        if (null == currentClient) {
+            LOGGER.debug("Not fetching the operations supported by the remote executor, as its client is closed");
+            return;
+        }
+        try {
+            final List<String> operations = doGet(currentClient, getCapabilitiesUrl(executor, OPERATIONS_PATH), OPERATIONS_TYPE);
+            final List<Map<String, Object>> details = doGet(currentClient, getCapabilitiesUrl(executor, OPERATION_DETAILS_PATH), OPERATION_DETAILS_TYPE);
+            OperationCapabilities.set(executor, new OperationCapabilities(operations, details));
+            LOGGER.debug("Remote executor supports operations: {}", operations);
+        } catch (final Exception e) {
+            LOGGER.warn("Unable to fetch the operations supported by the remote executor: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Stops refreshing the operations the remote of an executor supports.
+     *
+     * @param executor the proxy executor
+     */
+    public static void cancelCapabilityRefresh(final Executor executor) {
+        // Removing the refresh cancels it through the removal listener
+        REFRESHES.invalidate(executor);
+    }
+
+    /**
+     * @param executor the proxy executor
+     * @param path     the path to fetch
+     * @return the url of a remote to fetch supported operations from
+     * @throws OperationException if there is no remote to fetch from
+     */
+    protected URL getCapabilitiesUrl(final Executor executor, final String path) throws OperationException {
+        return ExecutorPropertiesUtil.getMaestroUrl(executor, path);
+    }
+
 
     protected void checkDelegateExecutorStatus(final Executor executor) throws OperationException {
-        final URL url = ExecutorPropertiesUtil.getMaestroUrl(executor, "/executor/status");
+        checkDelegateExecutorStatus(ExecutorPropertiesUtil.getMaestroUrl(executor, STATUS_PATH));
+    }
+
+    protected void checkDelegateExecutorStatus(final URL url) throws OperationException {
         final LinkedHashMap status = doGet(url, new TypeReferenceImpl.Map(), null);
         LOGGER.info("ProxyUtil REST API status: {}", status.get("description"));
     }
@@ -62,7 +167,13 @@ public class ProxyInitialiseHandler implements InitialiserHandler {
     protected <O> O doGet(final URL url,
                           final TypeReference<O> outputTypeReference, final Context context)
             throws OperationException {
-        final Invocation.Builder request = ProxyUtil.createRequest(null, url, context, client);
+        return doGet(client, url, outputTypeReference);
+    }
+
+    protected <O> O doGet(final Client client, final URL url,
+                          final TypeReference<O> outputTypeReference)
+            throws OperationException {
+        final Invocation.Builder request = ProxyUtil.createRequest(url, client, WireFormat.JSON);
         final Response response;
         try {
             response = request.get();
@@ -103,4 +214,29 @@ public class ProxyInitialiseHandler implements InitialiserHandler {
                 //Don't compare client
                 .toHashCode();
     }
+
+    // Refreshes the capabilities of an executor without keeping it alive, and
+    // stops once the executor has been garbage collected or its client closed
+    private static final class CapabilityRefresh implements Runnable {
+        private final ProxyInitialiseHandler handler;
+        private final WeakReference<Executor> executor;
+        private volatile ScheduledFuture<?> future;
+
+        private CapabilityRefresh(final ProxyInitialiseHandler handler, final Executor executor) {
+            this.handler = handler;
+            this.executor = new WeakReference<>(executor);
+        }
+
+        @Override
+        public void run() {
+            final Executor current = executor.get();
+            if (null == current || null == ProxyClientRegistry.getClientIfPresent(current)) {
+                if (null != future) {
+                    future.cancel(false);
+                }
+                return;
+            }
+            handler.refreshCapabilities(current);
+        }
+    }
 }
@@ -16,20 +16,25 @@
 
 package uk.gov.gchq.maestro.proxy.handler;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.glassfish.jersey.client.ClientConfig;
 import org.glassfish.jersey.client.ClientProperties;
 import org.slf4j.Logger;
 
-import uk.gov.gchq.maestro.commonutil.CommonConstants;
 import uk.gov.gchq.maestro.commonutil.StringUtil;
 import uk.gov.gchq.maestro.commonutil.exception.Error;
 import uk.gov.gchq.maestro.commonutil.exception.MaestroWrappedErrorRuntimeException;
 import uk.gov.gchq.maestro.commonutil.exception.OperationException;
-import uk.gov.gchq.maestro.commonutil.exception.SerialisationException;
+import uk.gov.gchq.maestro.commonutil.iterable.StreamingCloseableIterable;
 import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.JSONSerialiser;
-import uk.gov.gchq.maestro.executor.Context;
+import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.WireFormat;
 import uk.gov.gchq.maestro.executor.Executor;
 import uk.gov.gchq.maestro.executor.util.ExecutorPropertiesUtil;
+import uk.gov.gchq.maestro.executor.util.RawResult;
 
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
@@ -37,69 +42,215 @@ import javax.ws.rs.client.Invocation;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
-import java.io.UnsupportedEncodingException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
 
 public final class ProxyUtil {
+    private static final int MAX_ERROR_BYTES = 64 * 1024;
 
     private ProxyUtil() {
     }
 
+    /**
+     * Creates a client that sends requests over a {@link PooledConnector}.
+     * Clients hold open connections, so they should be shared through the
+     * {@link ProxyClientRegistry} and closed when no longer needed.
+     *
+     * @param executor the proxy executor, configuring the timeouts and pool
+     * @return the client
+     */
     protected static Client createClient(final Executor executor) {
-        final Client client = ClientBuilder.newClient();
-        client.property(ClientProperties.CONNECT_TIMEOUT, ExecutorPropertiesUtil.getConnectTimeout(executor));
-        client.property(ClientProperties.READ_TIMEOUT, ExecutorPropertiesUtil.getReadTimeout(executor));
-        return client;
+        // The connector is created later, so the settings are read now rather
+        // than holding on to the executor
+        final int maxConnections = ExecutorPropertiesUtil.getProxyMaxConnections(executor);
+        final int maxConnectionsPerRoute = ExecutorPropertiesUtil.getProxyMaxConnectionsPerRoute(executor);
+        final int keepAlive = ExecutorPropertiesUtil.getProxyKeepAlive(executor);
+        final int idleTimeout = ExecutorPropertiesUtil.getProxyIdleTimeout(executor);
+        final ClientConfig config = new ClientConfig()
+                .connectorProvider((client, runtimeConfig) -> new PooledConnector(maxConnections, maxConnectionsPerRoute,
+                        keepAlive, idleTimeout, client.getSslContext()))
+                .property(ClientProperties.CONNECT_TIMEOUT, ExecutorPropertiesUtil.getConnectTimeout(executor))
+                .property(ClientProperties.READ_TIMEOUT, ExecutorPropertiesUtil.getReadTimeout(executor));
+        return ClientBuilder.newClient(config);
     }
 
+    /**
+     * Decodes a response straight from its stream. If the output type is
+     * {@link Iterable} or a {@link uk.gov.gchq.maestro.commonutil.iterable.CloseableIterable}
+     * and the result is an array, a lazy
+     * {@link StreamingCloseableIterable} is returned which closes the response
+     * once it is exhausted or closed. Otherwise the response is decoded and
+     * closed straight away.
+     *
+     * @param response            the response from the remote
+     * @param outputTypeReference the type to decode the result into
+     * @param logger              the logger of the calling handler
+     * @param <O>                 the output type
+     * @return the decoded result
+     * @throws OperationException if the remote returned an unreadable error or result
+     */
     protected static <O> O handleResponse(final Response response,
                                           final TypeReference<O> outputTypeReference, final Logger logger)
             throws OperationException {
-        final String outputJson = response.hasEntity() ? response.readEntity(String.class) : null;
+        // The remote chooses the encoding from our Accept header, so decode whatever it says it sent
+        final WireFormat format = getWireFormat(response);
+        checkStatus(response, format, logger);
+
+        if (!response.hasEntity()) {
+            response.close();
+            return null;
+        }
+
+        final ObjectMapper mapper = JSONSerialiser.getMapper(format);
+        final JavaType outputType = mapper.getTypeFactory().constructType(outputTypeReference);
+        boolean streaming = false;
+        try {
+            final JsonParser parser = mapper.getFactory().createParser(response.readEntity(InputStream.class));
+            if (isLazyIterable(outputType)) {
+                final JsonToken token = moveToResult(parser);
+                if (JsonToken.START_ARRAY == token) {
+                    final JavaType[] elementType = mapper.getTypeFactory().findTypeParameters(outputType, Iterable.class);
+                    streaming = true;
+                    return (O) new StreamingCloseableIterable<>(parser, mapper,
+                            null == elementType || 0 == elementType.length ? mapper.constructType(Object.class) : elementType[0],
+                            response::close);
+                } else if (null == token) {
+                    return null;
+                }
+            }
+            return mapper.readValue(parser, outputType);
+        } catch (final IOException e) {
+            throw new OperationException(e.getMessage(), e);
+        } finally {
+            if (!streaming) {
+                response.close();
+            }
+        }
+    }
+
+    /**
+     * Reads a response without decoding its result. The response is read up
+     * to the start of the result value, and returned as a {@link RawResult}
+     * that streams the rest of the result straight from the response when
+     * the REST layer writes it back out. The response is closed once the
+     * result has been written or is closed.
+     *
+     * @param response the response from the remote
+     * @param logger   the logger of the calling handler
+     * @return the raw result, or null if the remote returned no result
+     * @throws OperationException if the remote returned an unreadable error or result
+     */
+    protected static RawResult handleRawResponse(final Response response, final Logger logger) throws OperationException {
+        final WireFormat format = getWireFormat(response);
+        checkStatus(response, format, logger);
+
+        if (!response.hasEntity()) {
+            response.close();
+            return null;
+        }
+
+        boolean streaming = false;
+        try {
+            final JsonParser parser = format.createFactory().createParser(response.readEntity(InputStream.class));
+            final JsonToken token = moveToResult(parser);
+            if (null == token || JsonToken.VALUE_NULL == token) {
+                return null;
+            }
+            streaming = true;
+            return new RawResult(parser, format, response::close);
+        } catch (final IOException e) {
+            throw new OperationException(e.getMessage(), e);
+        } finally {
+            if (!streaming) {
+                response.close();
+            }
+        }
+    }
+
+    private static void checkStatus(final Response response, final WireFormat format, final Logger logger) throws OperationException {
         if (Response.Status.Family.SUCCESSFUL != response.getStatusInfo().getFamily()) {
+            final byte[] output = response.hasEntity() ? readError(response) : null;
             final Error error;
             try {
-                error = JSONSerialiser.deserialise(StringUtil.toBytes(outputJson), Error.class);
+                error = JSONSerialiser.deserialise(output, Error.class, format);
             } catch (final Exception e) {
-                logger.warn("Maestro bad status {}. Detail: {}", response.getStatus(), outputJson);
-                throw new OperationException("ProxyUtil Executor returned status: " + response.getStatus() + ". Response content was: " + outputJson);
+                final String detail = format.isBinary() ? format + " content" : StringUtil.toString(output);
+                logger.warn("Maestro bad status {}. Detail: {}", response.getStatus(), detail);
+                throw new OperationException("ProxyUtil Executor returned status: " + response.getStatus() + ". Response content was: " + detail);
             }
             throw new MaestroWrappedErrorRuntimeException(error);
         }
+    }
 
-        O output = null;
-        if (null != outputJson) {
-            try {
-                output = deserialise(outputJson, outputTypeReference); //TODO outputTypeReference high priority
-            } catch (final SerialisationException e) {
-                throw new OperationException(e.getMessage(), e);
+    // Reads at most MAX_ERROR_BYTES of an error response, as a misbehaving
+    // remote may send a large body with an error status.
+    private static byte[] readError(final Response response) {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (InputStream input = response.readEntity(InputStream.class)) {
+            final byte[] buffer = new byte[4096];
+            int read;
+            while (output.size() < MAX_ERROR_BYTES
+                    && -1 != (read = input.read(buffer, 0, Math.min(buffer.length, MAX_ERROR_BYTES - output.size())))) {
+                output.write(buffer, 0, read);
             }
+        } catch (final IOException e) {
+            // The error is reported with whatever could be read
+        } finally {
+            response.close();
         }
+        return output.toByteArray();
+    }
 
-        return output;
+    // Only Iterable and CloseableIterable can be satisfied lazily, a request
+    // for a concrete collection type is decoded in full.
+    private static boolean isLazyIterable(final JavaType type) {
+        return Iterable.class.isAssignableFrom(type.getRawClass())
+                && type.getRawClass().isAssignableFrom(StreamingCloseableIterable.class);
     }
 
-    protected static Invocation.Builder createRequest(final String body, final URL url, final Context context, final Client client) {
-        final Invocation.Builder request = client.target(url.toString())
-                .request();
-        if (null != body) {
-            request.header("Content", MediaType.APPLICATION_JSON_TYPE);
-            request.build(body);
+    // Moves the parser to the result value, returning its first token or null
+    // if there is no result. Results may be returned bare or wrapped in an
+    // object under the "result" field.
+    private static JsonToken moveToResult(final JsonParser parser) throws IOException {
+        final JsonToken token = parser.nextToken();
+        if (JsonToken.START_OBJECT != token) {
+            return token;
         }
-        return request;
+        while (JsonToken.FIELD_NAME == parser.nextToken()) {
+            final String field = parser.getCurrentName();
+            final JsonToken value = parser.nextToken();
+            if ("result".equals(field)) {
+                return value;
+            }
+            parser.skipChildren();
+        }
+        return null;
     }
 
-    protected static <O> O deserialise(final String jsonString,
-                                       final TypeReference<O> outputTypeReference)
-            throws SerialisationException {
-        final byte[] jsonBytes;
-        try {
-            jsonBytes = jsonString.getBytes(CommonConstants.UTF_8);
-        } catch (final UnsupportedEncodingException e) {
-            throw new SerialisationException(
-                    "Unable to deserialise JSON: " + jsonString, e);
-        }
+    protected static WireFormat getWireFormat(final Response response) {
+        final MediaType mediaType = response.getMediaType();
+        return null == mediaType ? WireFormat.JSON : WireFormat.fromMediaType(mediaType.getType() + '/' + mediaType.getSubtype());
+    }
 
-        return JSONSerialiser.deserialise(jsonBytes, outputTypeReference);
+    /**
+     * Creates a request that asks for the given format, accepting JSON as a
+     * fallback for remotes that cannot produce it.
+     *
+     * @param url    the url to request
+     * @param client the client to send the request with
+     * @param format the preferred response format
+     * @return the request builder
+     */
+    protected static Invocation.Builder createRequest(final URL url, final Client client, final WireFormat format) {
+        final Invocation.Builder request = client.target(url.toString())
+                .request();
+        if (format.isBinary()) {
+            request.accept(format.getMediaType(), MediaType.APPLICATION_JSON + ";q=0.9");
+        } else {
+            request.accept(MediaType.APPLICATION_JSON_TYPE);
+        }
+        return request;
     }
 }
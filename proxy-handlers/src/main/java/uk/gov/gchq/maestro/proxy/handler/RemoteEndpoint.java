@@ -0,0 +1,136 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.proxy.handler;
+
+import org.apache.commons.lang3.StringUtils;
+
+import uk.gov.gchq.maestro.commonutil.ToStringBuilder;
+import uk.gov.gchq.maestro.executor.Executor;
+import uk.gov.gchq.maestro.executor.util.ExecutorPropertiesUtil;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One of the remote Maestro REST APIs behind a proxy, tracking the requests
+ * in flight to it and whether it is fit to receive more.
+ * <p>
+ * An endpoint is unavailable while its last health check failed, or while
+ * its {@link CircuitBreaker} is open after too many consecutive failed
+ * requests.
+ * </p>
+ */
+public class RemoteEndpoint {
+    // The url of the REST API root, so the endpoint does not hold on to its
+    // executor and keep it from being garbage collected
+    private final URL root;
+    private final String endpoint;
+    private final CircuitBreaker circuitBreaker;
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private volatile boolean healthy = true;
+
+    /**
+     * @param executor         the proxy executor
+     * @param endpoint         the host:port of the remote
+     * @param failureThreshold the consecutive failures that open the circuit
+     * @param openTime         how long, in milliseconds, the circuit stays open
+     */
+    public RemoteEndpoint(final Executor executor, final String endpoint, final int failureThreshold, final long openTime) {
+        this.root = ExecutorPropertiesUtil.getMaestroEndpointUrl(executor, endpoint, null);
+        this.endpoint = endpoint;
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, openTime);
+    }
+
+    public URL getUrl(final String suffix) {
+        if (StringUtils.isEmpty(suffix)) {
+            return root;
+        }
+        try {
+            return new URL(root, root.getPath() + (suffix.startsWith("/") ? "" : "/") + suffix);
+        } catch (final MalformedURLException e) {
+            throw new IllegalArgumentException("Could not create url from: " + root + " and: " + suffix, e);
+        }
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    public void setHealthy(final boolean healthy) {
+        this.healthy = healthy;
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    /**
+     * @param now the current time in milliseconds
+     * @return true if the circuit would let a request through now
+     */
+    public boolean allowsRequest(final long now) {
+        return circuitBreaker.allowsRequest(now);
+    }
+
+    public boolean isAvailable(final long now) {
+        return healthy && allowsRequest(now);
+    }
+
+    /**
+     * Records the start of a request to this endpoint, if its circuit lets
+     * the request through. Every successful call must be followed by a call
+     * to {@link #succeeded()} or {@link #failed()}.
+     *
+     * @return true if the request may be sent
+     */
+    public boolean tryStart() {
+        if (!circuitBreaker.tryAcquire(System.currentTimeMillis())) {
+            return false;
+        }
+        outstanding.incrementAndGet();
+        return true;
+    }
+
+    public void succeeded() {
+        outstanding.decrementAndGet();
+        circuitBreaker.recordSuccess();
+    }
+
+    public void failed() {
+        outstanding.decrementAndGet();
+        circuitBreaker.recordFailure(System.currentTimeMillis());
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("endpoint", endpoint)
+                .append("outstanding", outstanding.get())
+                .append("healthy", healthy)
+                .append("circuitBreaker", circuitBreaker)
+                .toString();
+    }
+}
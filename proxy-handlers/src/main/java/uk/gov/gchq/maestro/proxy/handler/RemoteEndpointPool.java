@@ -0,0 +1,374 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.proxy.handler;
+
+import com.google.common.base.Charsets;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalListener;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.gov.gchq.maestro.executor.Executor;
+import uk.gov.gchq.maestro.executor.util.ExecutorPropertiesUtil;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link RemoteEndpoint}s a proxy executor spreads its requests across,
+ * with one pool held per proxy executor, along with the latencies of its
+ * recent requests.
+ * <p>
+ * Requests are sent to the less loaded of two available endpoints chosen at
+ * random. A request with an affinity key is instead sent to the first
+ * available endpoint on a consistent hash ring, so requests for the same key
+ * keep going to the same remote and adding or removing a remote only moves
+ * a share of the keys. If every endpoint has failed its health check the
+ * pool routes across all of them rather than trusting the checks, but an
+ * endpoint with an open circuit is never chosen.
+ * </p>
+ * <p>
+ * Each pool also remembers which endpoint each job was submitted to, and
+ * has a bounded set of worker threads for waiting on its endpoints away
+ * from the caller's thread.
+ * </p>
+ * <p>
+ * Pools are held per executor instance, told apart by identity like the
+ * clients of the {@link ProxyClientRegistry}, and are dropped once their
+ * executor has been garbage collected. A pool that is replaced, because
+ * the endpoint properties of its executor changed, stops its health checks
+ * but is left to finish the work of callers still using it; its worker
+ * threads end once they have been idle for the keep alive time.
+ * </p>
+ */
+public class RemoteEndpointPool implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RemoteEndpointPool.class);
+    // Weak keys are compared by identity
+    private static final Cache<Executor, RemoteEndpointPool> POOLS = CacheBuilder.newBuilder()
+            .weakKeys()
+            .removalListener((RemovalListener<Executor, RemoteEndpointPool>) removal -> {
+                if (RemovalCause.EXPLICIT != removal.getCause() && null != removal.getValue()) {
+                    removal.getValue().retire();
+                }
+            })
+            .build();
+    private static final HashFunction HASH = Hashing.murmur3_32();
+    private static final int VIRTUAL_NODES = 100;
+    private static final int LATENCY_SAMPLES = 1000;
+    private static final int MAX_TRACKED_JOBS = 10000;
+    private static final long WORKER_KEEP_ALIVE = 60;
+    private static final ScheduledExecutorService HEALTH_CHECKS = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "proxy-health-check");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final List<RemoteEndpoint> endpoints;
+    private final NavigableMap<Integer, RemoteEndpoint> ring = new TreeMap<>();
+    private final LatencyTracker latencies = new LatencyTracker(LATENCY_SAMPLES);
+    // The endpoint each job was submitted to, as only that endpoint knows of it
+    private final Cache<String, RemoteEndpoint> jobEndpoints = CacheBuilder.newBuilder()
+            .maximumSize(MAX_TRACKED_JOBS)
+            .expireAfterAccess(1, TimeUnit.DAYS)
+            .build();
+    private final ThreadPoolExecutor workers;
+    private String spec;
+    private ScheduledFuture<?> healthChecks;
+
+    public RemoteEndpointPool(final List<RemoteEndpoint> endpoints) {
+        this(endpoints, ExecutorPropertiesUtil.DEFAULT_PROXY_THREADS);
+    }
+
+    public RemoteEndpointPool(final List<RemoteEndpoint> endpoints, final int threads) {
+        if (endpoints.isEmpty()) {
+            throw new IllegalArgumentException("At least one remote endpoint is required");
+        }
+        this.endpoints = Collections.unmodifiableList(new ArrayList<>(endpoints));
+        for (final RemoteEndpoint endpoint : endpoints) {
+            for (int i = 0; i < VIRTUAL_NODES; i++) {
+                ring.put(hash(endpoint.getEndpoint() + '#' + i), endpoint);
+            }
+        }
+        this.workers = new ThreadPoolExecutor(threads, threads, WORKER_KEEP_ALIVE, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            final Thread thread = new Thread(runnable, "proxy-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.workers.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * @param executor the proxy executor
+     * @return the pool of the executor, created without health checks if it
+     * has not been initialised by a {@link LoadBalancedProxyInitialiseHandler}.
+     * The pool is replaced if the endpoint properties of the executor change.
+     */
+    public static RemoteEndpointPool getPool(final Executor executor) {
+        final String spec = getSpec(executor);
+        final RemoteEndpointPool pool = POOLS.getIfPresent(executor);
+        if (null != pool && spec.equals(pool.spec)) {
+            return pool;
+        }
+
+        // Checked again under the lock, so concurrent callers share the one
+        // new pool
+        synchronized (POOLS) {
+            final RemoteEndpointPool current = POOLS.getIfPresent(executor);
+            if (null != current && spec.equals(current.spec)) {
+                return current;
+            }
+            final RemoteEndpointPool created = create(executor);
+            POOLS.put(executor, created);
+            return created;
+        }
+    }
+
+    /**
+     * Creates a new pool for the executor, replacing any existing one, and
+     * checks the health of each endpoint now and then periodically.
+     *
+     * @param executor    the proxy executor
+     * @param healthCheck the check to run against each endpoint
+     * @return the new pool
+     */
+    public static RemoteEndpointPool createPool(final Executor executor, final HealthCheck healthCheck) {
+        final RemoteEndpointPool pool = create(executor);
+        pool.checkHealth(healthCheck);
+        final int interval = ExecutorPropertiesUtil.getProxyHealthCheckInterval(executor);
+        if (0 < interval) {
+            pool.healthChecks = HEALTH_CHECKS.scheduleWithFixedDelay(() -> pool.checkHealth(healthCheck), interval, interval, TimeUnit.MILLISECONDS);
+        }
+
+        synchronized (POOLS) {
+            POOLS.put(executor, pool);
+        }
+        return pool;
+    }
+
+    /**
+     * Removes the pool of the executor and closes it, once the work already
+     * handed to its workers has finished.
+     *
+     * @param executor the proxy executor
+     */
+    public static void closePool(final Executor executor) {
+        final RemoteEndpointPool pool;
+        synchronized (POOLS) {
+            pool = POOLS.getIfPresent(executor);
+            POOLS.invalidate(executor);
+        }
+        if (null != pool) {
+            pool.close();
+        }
+    }
+
+    /**
+     * @param affinityKey the key to route by, or null to route to the least
+     *                    loaded endpoint
+     * @return the endpoint to send the request to, or null if the circuit
+     * of every endpoint is open
+     */
+    public RemoteEndpoint choose(final String affinityKey) {
+        return choose(affinityKey, null);
+    }
+
+    /**
+     * @param affinityKey the key to route by, or null to route to the least
+     *                    loaded endpoint
+     * @param exclude     an endpoint not to choose, or null
+     * @return the endpoint to send the request to, or null if there is no
+     * other endpoint with a closed circuit
+     */
+    public RemoteEndpoint choose(final String affinityKey, final RemoteEndpoint exclude) {
+        final long now = System.currentTimeMillis();
+        if (null != affinityKey) {
+            return chooseByKey(affinityKey, exclude, now);
+        }
+
+        final List<RemoteEndpoint> available = new ArrayList<>(endpoints.size());
+        final List<RemoteEndpoint> allowed = new ArrayList<>(endpoints.size());
+        for (final RemoteEndpoint endpoint : endpoints) {
+            if (endpoint != exclude && endpoint.allowsRequest(now)) {
+                allowed.add(endpoint);
+                if (endpoint.isHealthy()) {
+                    available.add(endpoint);
+                }
+            }
+        }
+        return chooseLeastLoaded(available.isEmpty() ? allowed : available);
+    }
+
+    /**
+     * Runs the health check against each endpoint, marking those that fail
+     * it as unhealthy until they pass it again.
+     *
+     * @param healthCheck the check to run
+     */
+    public void checkHealth(final HealthCheck healthCheck) {
+        for (final RemoteEndpoint endpoint : endpoints) {
+            boolean healthy;
+            try {
+                healthCheck.check(endpoint);
+                healthy = true;
+            } catch (final Exception e) {
+                healthy = false;
+                if (endpoint.isHealthy()) {
+                    LOGGER.warn("Remote executor {} failed its health check: {}", endpoint.getEndpoint(), e.getMessage());
+                }
+            }
+            endpoint.setHealthy(healthy);
+        }
+    }
+
+    public List<RemoteEndpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    public LatencyTracker getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * @return the bounded pool of threads for waiting on the endpoints away
+     * from the caller's thread
+     */
+    public ExecutorService getWorkers() {
+        return workers;
+    }
+
+    /**
+     * Remembers the endpoint a job was submitted to.
+     *
+     * @param jobId    the id of the job on the endpoint
+     * @param endpoint the endpoint running the job
+     */
+    public void addJob(final String jobId, final RemoteEndpoint endpoint) {
+        jobEndpoints.put(jobId, endpoint);
+    }
+
+    /**
+     * @param jobId the id of a job
+     * @return the endpoint the job was submitted to, or null if it was not
+     * submitted through this pool
+     */
+    public RemoteEndpoint getJobEndpoint(final String jobId) {
+        return null == jobId ? null : jobEndpoints.getIfPresent(jobId);
+    }
+
+    @Override
+    public synchronized void close() {
+        retire();
+        // Work already handed over is left to finish
+        workers.shutdown();
+    }
+
+    // Stops the health checks of a pool that has been replaced, leaving its
+    // workers to any callers still using it
+    private synchronized void retire() {
+        if (null != healthChecks) {
+            healthChecks.cancel(false);
+            healthChecks = null;
+        }
+    }
+
+    private RemoteEndpoint chooseByKey(final String affinityKey, final RemoteEndpoint exclude, final long now) {
+        final int hash = hash(affinityKey);
+        RemoteEndpoint allowed = null;
+        for (final Collection<RemoteEndpoint> arc : Arrays.asList(ring.tailMap(hash, true).values(), ring.headMap(hash, false).values())) {
+            for (final RemoteEndpoint endpoint : arc) {
+                if (endpoint != exclude && endpoint.allowsRequest(now)) {
+                    if (endpoint.isHealthy()) {
+                        return endpoint;
+                    }
+                    if (null == allowed) {
+                        allowed = endpoint;
+                    }
+                }
+            }
+        }
+        return allowed;
+    }
+
+    // Power of two choices: nearly as good as always picking the least
+    // loaded endpoint, without every proxy piling on to the same one.
+    private static RemoteEndpoint chooseLeastLoaded(final List<RemoteEndpoint> candidates) {
+        if (candidates.size() < 2) {
+            return candidates.isEmpty() ? null : candidates.get(0);
+        }
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final int first = random.nextInt(candidates.size());
+        final int second = (first + 1 + random.nextInt(candidates.size() - 1)) % candidates.size();
+        final RemoteEndpoint a = candidates.get(first);
+        final RemoteEndpoint b = candidates.get(second);
+        return b.getOutstanding() < a.getOutstanding() ? b : a;
+    }
+
+    private static RemoteEndpointPool create(final Executor executor) {
+        final int failureThreshold = ExecutorPropertiesUtil.getProxyEjectionFailures(executor);
+        final int openTime = ExecutorPropertiesUtil.getProxyEjectionTime(executor);
+        final List<RemoteEndpoint> endpoints = new ArrayList<>();
+        for (final String endpoint : ExecutorPropertiesUtil.getMaestroEndpoints(executor)) {
+            endpoints.add(new RemoteEndpoint(executor, endpoint, failureThreshold, openTime));
+        }
+        final RemoteEndpointPool pool = new RemoteEndpointPool(endpoints, ExecutorPropertiesUtil.getProxyThreads(executor));
+        pool.spec = getSpec(executor);
+        return pool;
+    }
+
+    // The properties a pool is built from, so a stale pool can be spotted
+    private static String getSpec(final Executor executor) {
+        return ExecutorPropertiesUtil.getMaestroEndpoints(executor)
+                + ExecutorPropertiesUtil.getGafferContextRoot(executor)
+                + ':' + ExecutorPropertiesUtil.getProxyEjectionFailures(executor)
+                + ':' + ExecutorPropertiesUtil.getProxyEjectionTime(executor)
+                + ':' + ExecutorPropertiesUtil.getProxyThreads(executor);
+    }
+
+    private static int hash(final String value) {
+        return HASH.hashString(value, Charsets.UTF_8).asInt();
+    }
+
+    /**
+     * Checks whether a remote endpoint is fit to receive requests.
+     */
+    @FunctionalInterface
+    public interface HealthCheck {
+        /**
+         * @param endpoint the endpoint to check
+         * @throws Exception if the endpoint is not healthy
+         */
+        void check(RemoteEndpoint endpoint) throws Exception;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.proxy.handler;
+
+import org.junit.Test;
+
+import uk.gov.gchq.maestro.commonutil.exception.OperationException;
+import uk.gov.gchq.maestro.executor.Executor;
+import uk.gov.gchq.maestro.executor.helper.MaestroHandlerBasicTest;
+import uk.gov.gchq.maestro.executor.util.Config;
+import uk.gov.gchq.maestro.executor.util.ExecutorPropertiesUtil;
+import uk.gov.gchq.maestro.operation.Operation;
+
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BatchingForwardToRemoteExecutorHandlerTest extends MaestroHandlerBasicTest<BatchingForwardToRemoteExecutorHandler> {
+    private static final String KEY = "batchedKey";
+    private static final String VALUE = "batchedValue";
+
+    @Override
+    protected BatchingForwardToRemoteExecutorHandler getTestHandler() throws Exception {
+        return new BatchingForwardToRemoteExecutorHandler()
+                .setBatchDelay(20)
+                .setMaxBatchSize(5);
+    }
+
+    @Override
+    protected Operation getBasicOp() throws Exception {
+        return put(KEY, VALUE);
+    }
+
+    @Override
+    protected Config getExecutorConfig() throws Exception {
+        final Config config = super.getExecutorConfig()
+                .addOperationHandler(getBasicOp().getId(), null)
+                .setDefaultHandler(getTestHandler());
+        config.addOperationHandler(Executor.INITIALISER, new SingleProxyInitialiseHandler());
+        return config;
+    }
+
+    @Override
+    protected void inspectReturnFromExecute(final Object value) throws Exception {
+        assertNotNull(value);
+    }
+
+    @Override
+    protected void inspectFields() throws Exception {
+        final Object value = testExecutor.execute(get(KEY), context);
+        assertEquals(VALUE, ((Map) value).get("result"));
+    }
+
+    @Override
+    protected Class<BatchingForwardToRemoteExecutorHandler> getTestObjectClass() {
+        return BatchingForwardToRemoteExecutorHandler.class;
+    }
+
+    @Override
+    protected String getJSONString() {
+        return "{\n" +
+                "  \"class\" : \"uk.gov.gchq.maestro.proxy.handler.BatchingForwardToRemoteExecutorHandler\",\n" +
+                "  \"batchDelay\" : 20,\n" +
+                "  \"fieldDeclaration\" : {\n" +
+                "    \"class\" : \"uk.gov.gchq.maestro.executor.operation.declaration.FieldDeclaration\",\n" +
+                "    \"fields\" : {\n" +
+                "      \"outputTypeReference\" : \"com.fasterxml.jackson.core.type.TypeReference\"\n" +
+                "    }\n" +
+                "  },\n" +
+                "  \"hedgePercentile\" : 0.0,\n" +
+                "  \"maxBatchSize\" : 5,\n" +
+                "  \"passThrough\" : false\n" +
+                "}";
+    }
+
+    @Test
+    public void shouldDemultiplexConcurrentOperationsAndOnlyFailTheFailingOne() throws Exception {
+        // Given
+        final ExecutorService callers = Executors.newFixedThreadPool(8);
+        final List<Future<Object>> puts = new ArrayList<>();
+        try {
+            for (int i = 0; i < 8; i++) {
+                final Operation put = put(KEY + i, VALUE + i);
+                puts.add(callers.submit(() -> testExecutor.execute(put, context)));
+            }
+            final Future<Object> failing = callers.submit(() -> testExecutor.execute(new Operation("test"), context));
+
+            // When
+            for (final Future<Object> put : puts) {
+                assertNotNull(put.get());
+            }
+
+            // Then
+            try {
+                failing.get();
+                fail("Exception expected");
+            } catch (final ExecutionException e) {
+                assertTrue(e.getCause() instanceof OperationException);
+                assertTrue(e.getCause().getMessage(), e.getCause().getMessage().contains("Thrown from the Remote Executor Default Handler"));
+            }
+            for (int i = 0; i < 8; i++) {
+                final Object value = testExecutor.execute(get(KEY + i), context);
+                assertEquals(VALUE + i, ((Map) value).get("result"));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldNotShareABatcherBetweenExecutorsWithTheSameId() throws Exception {
+        // Given
+        final BatchingForwardToRemoteExecutorHandler handler = getTestHandler();
+        final Executor other = new Executor(new Config(EXECUTOR_ID));
+        other.setProperty(ExecutorPropertiesUtil.MAESTRO_PORT, String.valueOf(freePort()));
+        assertNotNull(handler.doOperation(put(KEY, VALUE), context, testExecutor));
+
+        // When / Then
+        try {
+            handler.doOperation(put(KEY, VALUE), context, other);
+            fail("Exception expected");
+        } catch (final OperationException e) {
+            assertNotNull(e.getMessage());
+        } finally {
+            ProxyClientRegistry.close(other);
+        }
+    }
+
+    private static Operation put(final String key, final String value) {
+        return new Operation(HashMapHandlerTest.ID)
+                .operationArg(HashMapHandler.MAP_COMMAND, HashMapHandler.COMMAND_PUT)
+                .operationArg(HashMapHandler.MAP_KEY, key)
+                .operationArg(HashMapHandler.MAP_VALUE, value);
+    }
+
+    private static Operation get(final String key) {
+        return new Operation(HashMapHandlerTest.ID)
+                .operationArg(HashMapHandler.MAP_COMMAND, HashMapHandler.COMMAND_GET)
+                .operationArg(HashMapHandler.MAP_KEY, key);
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
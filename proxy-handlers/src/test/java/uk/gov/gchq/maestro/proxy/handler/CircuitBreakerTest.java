@@ -0,0 +1,115 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.proxy.handler;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CircuitBreakerTest {
+    private static final long OPEN_TIME = 1000;
+
+    @Test
+    public void shouldOpenAfterConsecutiveFailures() {
+        // Given
+        final CircuitBreaker breaker = new CircuitBreaker(2, OPEN_TIME);
+
+        // When
+        assertTrue(breaker.tryAcquire(0));
+        breaker.recordFailure(0);
+        assertTrue(breaker.tryAcquire(0));
+        breaker.recordSuccess();
+        assertTrue(breaker.tryAcquire(0));
+        breaker.recordFailure(0);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire(0));
+        breaker.recordFailure(0);
+
+        // Then
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowsRequest(OPEN_TIME - 1));
+        assertFalse(breaker.tryAcquire(OPEN_TIME - 1));
+    }
+
+    @Test
+    public void shouldLetOneProbeThroughOnceOpenTimeHasPassed() {
+        // Given
+        final CircuitBreaker breaker = open();
+
+        // When
+        assertTrue(breaker.allowsRequest(OPEN_TIME));
+        assertTrue(breaker.tryAcquire(OPEN_TIME));
+
+        // Then
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.allowsRequest(OPEN_TIME));
+        assertFalse(breaker.tryAcquire(OPEN_TIME));
+    }
+
+    @Test
+    public void shouldCloseWhenProbeSucceeds() {
+        // Given
+        final CircuitBreaker breaker = open();
+        assertTrue(breaker.tryAcquire(OPEN_TIME));
+
+        // When
+        breaker.recordSuccess();
+
+        // Then
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire(OPEN_TIME));
+    }
+
+    @Test
+    public void shouldReopenWhenProbeFails() {
+        // Given
+        final CircuitBreaker breaker = open();
+        assertTrue(breaker.tryAcquire(OPEN_TIME));
+
+        // When
+        breaker.recordFailure(OPEN_TIME);
+
+        // Then
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire(2 * OPEN_TIME - 1));
+        assertTrue(breaker.tryAcquire(2 * OPEN_TIME));
+    }
+
+    @Test
+    public void shouldNeverOpenWithZeroThreshold() {
+        // Given
+        final CircuitBreaker breaker = new CircuitBreaker(0, OPEN_TIME);
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            assertTrue(breaker.tryAcquire(0));
+            breaker.recordFailure(0);
+        }
+
+        // Then
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    private static CircuitBreaker open() {
+        final CircuitBreaker breaker = new CircuitBreaker(1, OPEN_TIME);
+        assertTrue(breaker.tryAcquire(0));
+        breaker.recordFailure(0);
+        return breaker;
+    }
+}
@@ -21,9 +21,11 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import uk.gov.gchq.maestro.commonutil.exception.OperationException;
+import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.WireFormat;
 import uk.gov.gchq.maestro.executor.Executor;
 import uk.gov.gchq.maestro.executor.helper.MaestroHandlerBasicTest;
 import uk.gov.gchq.maestro.executor.util.Config;
+import uk.gov.gchq.maestro.executor.util.ExecutorPropertiesUtil;
 import uk.gov.gchq.maestro.operation.Operation;
 
 
@@ -72,7 +74,9 @@ public class ForwardToRemoteExecutorHandlerTest extends MaestroHandlerBasicTest<
                 "    \"fields\" : {\n" +
                 "      \"outputTypeReference\" : \"com.fasterxml.jackson.core.type.TypeReference\"\n" +
                 "    }\n" +
-                "  }\n" +
+                "  },\n" +
+                "  \"hedgePercentile\" : 0.0,\n" +
+                "  \"passThrough\" : false\n" +
                 "}";
     }
 
@@ -89,4 +93,17 @@ public class ForwardToRemoteExecutorHandlerTest extends MaestroHandlerBasicTest<
         super.shouldExecuteABasicExample();
         //TODO improve
     }
+
+    @Test
+    public void shouldForwardAndDecodeRemoteErrorsInEachWireFormat() throws Exception {
+        for (final WireFormat format : WireFormat.values()) {
+            ExecutorPropertiesUtil.setWireFormat(testExecutor, format);
+            try {
+                testExecutor.execute(getBasicOp(), context);
+                Assert.fail("Exception expected");
+            } catch (final OperationException e) {
+                Assert.assertTrue(format + ": " + e.getMessage(), e.getMessage().contains("Thrown from the Remote Executor Default Handler"));
+            }
+        }
+    }
 }
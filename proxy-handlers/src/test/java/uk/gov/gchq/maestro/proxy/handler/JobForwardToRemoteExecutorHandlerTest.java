@@ -0,0 +1,183 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.proxy.handler;
+
+import org.glassfish.grizzly.http.server.HttpHandler;
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.grizzly.http.server.Request;
+import org.glassfish.grizzly.http.server.Response;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.JSONSerialiser;
+import uk.gov.gchq.maestro.executor.Context;
+import uk.gov.gchq.maestro.executor.Executor;
+import uk.gov.gchq.maestro.executor.util.Config;
+import uk.gov.gchq.maestro.executor.util.ExecutorPropertiesUtil;
+import uk.gov.gchq.maestro.operation.Operation;
+import uk.gov.gchq.maestro.operation.jobtracker.JobDetail;
+import uk.gov.gchq.maestro.operation.jobtracker.JobStatus;
+
+import javax.ws.rs.core.MediaType;
+
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class JobForwardToRemoteExecutorHandlerTest {
+    private static final int POLLS_UNTIL_FINISHED = 3;
+    private final Map<String, List<String>> submitted = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> polls = new ConcurrentHashMap<>();
+    private HttpServer first;
+    private HttpServer second;
+    private Executor executor;
+    private final Context context = new Context();
+
+    @Before
+    public void before() throws Exception {
+        final int firstPort = freePort();
+        final int secondPort = freePort();
+        first = startServer("first", firstPort);
+        second = startServer("second", secondPort);
+        executor = new Executor(new Config("jobProxy"));
+        ExecutorPropertiesUtil.setMaestroEndpoints(executor, "localhost:" + firstPort, "localhost:" + secondPort);
+        ExecutorPropertiesUtil.setProxyHealthCheckInterval(executor, 0);
+    }
+
+    @After
+    public void after() {
+        RemoteEndpointPool.closePool(executor);
+        ProxyClientRegistry.close(executor);
+        first.shutdownNow();
+        second.shutdownNow();
+    }
+
+    @Test
+    public void shouldSubmitOperationAsJobAndReturnJobDetail() throws Exception {
+        // Given
+        final JobForwardToRemoteExecutorHandler handler = new JobForwardToRemoteExecutorHandler();
+
+        // When
+        final JobDetail jobDetail = (JobDetail) handler._doOperation(new Operation("longQuery"), context, executor);
+
+        // Then
+        assertEquals(JobStatus.RUNNING, jobDetail.getStatus());
+        assertEquals("longQuery", submitted.get(jobDetail.getDescription()).get(0));
+    }
+
+    @Test
+    public void shouldSendJobQueriesToTheRemoteRunningTheJob() throws Exception {
+        // Given - separate instances, as when the handlers are loaded from JSON
+        final JobForwardToRemoteExecutorHandler jobHandler = new JobForwardToRemoteExecutorHandler();
+        final JobForwardToRemoteExecutorHandler detailsHandler = new JobForwardToRemoteExecutorHandler();
+        final JobDetail jobDetail = (JobDetail) jobHandler._doOperation(new Operation("longQuery"), context, executor);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            final Object details = detailsHandler._doOperation(new Operation("GetJobDetails")
+                    .operationArg("JobId", jobDetail.getJobId()), context, executor);
+
+            // Then
+            assertEquals(jobDetail.getDescription(), ((Map) ((Map) details).get("result")).get("description"));
+        }
+    }
+
+    @Test
+    public void shouldPollUntilJobFinishesThenFetchResults() throws Exception {
+        // Given
+        final JobForwardToRemoteExecutorHandler handler = new JobForwardToRemoteExecutorHandler()
+                .setPollInterval(10)
+                .setMaxPollInterval(50);
+        final JobDetail jobDetail = handler.submitJob(executor, new Operation("longQuery"), context);
+
+        // When
+        final JobDetail finished = handler.awaitJob(executor, jobDetail.getJobId(), context).get(10, TimeUnit.SECONDS);
+        final Object results = handler.getJobResults(executor, jobDetail.getJobId(), null, context);
+
+        // Then
+        assertEquals(JobStatus.FINISHED, finished.getStatus());
+        assertEquals(POLLS_UNTIL_FINISHED, polls.get(jobDetail.getJobId()).get());
+        assertEquals(Arrays.asList(1, 2, 3), ((Map) results).get("result"));
+    }
+
+    @Test
+    public void shouldJsonSerialiseAndDeserialise() throws Exception {
+        // Given
+        final JobForwardToRemoteExecutorHandler handler = new JobForwardToRemoteExecutorHandler()
+                .setPollInterval(200)
+                .setMaxPollInterval(2000);
+
+        // When
+        final byte[] json = JSONSerialiser.serialise(handler);
+
+        // Then
+        assertEquals(handler, JSONSerialiser.deserialise(json, JobForwardToRemoteExecutorHandler.class));
+    }
+
+    // A remote that runs each job for a few polls, and describes each job
+    // by the name of the remote it was submitted to.
+    private HttpServer startServer(final String name, final int port) throws Exception {
+        final HttpServer server = HttpServer.createSimpleServer(null, "localhost", port);
+        server.getServerConfiguration().addHttpHandler(new HttpHandler() {
+            @Override
+            public void service(final Request request, final Response response) throws Exception {
+                response.setContentType(MediaType.APPLICATION_JSON);
+                final Map operation = JSONSerialiser.deserialise(request.getInputStream(), Map.class);
+                final Map args = (Map) operation.get("operationArgs");
+                switch ((String) operation.get("id")) {
+                    case "Job":
+                        final String jobId = name + "-" + submitted.size();
+                        submitted.computeIfAbsent(name, key -> new ArrayList<>())
+                                .add((String) ((Map) args.get("OpAsOperation")).get("id"));
+                        polls.put(jobId, new AtomicInteger());
+                        response.getWriter().write(jobDetail(jobId, name, "RUNNING"));
+                        break;
+                    case "GetJobDetails":
+                        final String polledId = (String) args.get("JobId");
+                        final int count = polls.get(polledId).incrementAndGet();
+                        response.getWriter().write(jobDetail(polledId, name, count < POLLS_UNTIL_FINISHED ? "RUNNING" : "FINISHED"));
+                        break;
+                    case "GetJobResults":
+                        response.getWriter().write("{\"result\":[1,2,3]}");
+                        break;
+                    default:
+                        response.setStatus(400);
+                }
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    private static String jobDetail(final String jobId, final String name, final String status) {
+        return "{\"result\":{\"jobId\":\"" + jobId + "\",\"description\":\"" + name + "\",\"status\":\"" + status + "\"}}";
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.proxy.handler;
+
+import org.glassfish.grizzly.http.server.HttpHandler;
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.grizzly.http.server.Request;
+import org.glassfish.grizzly.http.server.Response;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.gov.gchq.maestro.commonutil.exception.OperationException;
+import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.JSONSerialiser;
+import uk.gov.gchq.maestro.executor.Context;
+import uk.gov.gchq.maestro.executor.Executor;
+import uk.gov.gchq.maestro.executor.util.Config;
+import uk.gov.gchq.maestro.executor.util.ExecutorPropertiesUtil;
+import uk.gov.gchq.maestro.operation.Operation;
+
+import javax.ws.rs.core.MediaType;
+
+import java.net.ServerSocket;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LoadBalancedForwardToRemoteExecutorHandlerTest {
+    private final Map<String, AtomicLong> delays = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private int firstPort;
+    private HttpServer first;
+    private HttpServer second;
+    private Executor executor;
+    private final Context context = new Context();
+
+    @Before
+    public void before() throws Exception {
+        firstPort = freePort();
+        final int secondPort = freePort();
+        first = startServer("first", firstPort);
+        second = startServer("second", secondPort);
+        executor = new Executor(new Config("loadBalancedProxy"));
+        ExecutorPropertiesUtil.setMaestroEndpoints(executor, "localhost:" + firstPort, "localhost:" + secondPort);
+        ExecutorPropertiesUtil.setProxyHealthCheckInterval(executor, 0);
+        ExecutorPropertiesUtil.setProxyEjectionFailures(executor, 1);
+        ExecutorPropertiesUtil.setConnectTimeout(executor, 1000);
+    }
+
+    @After
+    public void after() {
+        RemoteEndpointPool.closePool(executor);
+        ProxyClientRegistry.close(executor);
+        first.shutdownNow();
+        second.shutdownNow();
+    }
+
+    @Test
+    public void shouldSpreadOperationsAcrossRemotes() throws Exception {
+        // Given
+        final LoadBalancedForwardToRemoteExecutorHandler handler = new LoadBalancedForwardToRemoteExecutorHandler();
+        final Set<Object> remotes = new HashSet<>();
+
+        // When
+        for (int i = 0; i < 20; i++) {
+            remotes.add(forward(handler, new Operation("test")));
+        }
+
+        // Then
+        assertEquals(2, remotes.size());
+    }
+
+    @Test
+    public void shouldRouteByAffinityArg() throws Exception {
+        // Given
+        final LoadBalancedForwardToRemoteExecutorHandler handler = new LoadBalancedForwardToRemoteExecutorHandler()
+                .setAffinityArg("key");
+        final Set<Object> remotes = new HashSet<>();
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            remotes.add(forward(handler, new Operation("test").operationArg("key", "sameKey")));
+        }
+
+        // Then
+        assertEquals(1, remotes.size());
+    }
+
+    @Test
+    public void shouldEjectRemoteThatStopsResponding() throws Exception {
+        // Given
+        final LoadBalancedForwardToRemoteExecutorHandler handler = new LoadBalancedForwardToRemoteExecutorHandler();
+        second.shutdownNow();
+        int failures = 0;
+
+        // When
+        for (int i = 0; i < 20; i++) {
+            try {
+                assertEquals("first", forward(handler, new Operation("test")));
+            } catch (final OperationException e) {
+                failures++;
+            }
+        }
+
+        // Then
+        assertTrue("failures: " + failures, failures <= 1);
+    }
+
+    @Test
+    public void shouldSkipRemotesFailingHealthCheckOnInitialise() throws Exception {
+        // Given
+        second.shutdownNow();
+
+        // When
+        new LoadBalancedProxyInitialiseHandler()._doOperation(null, context, executor);
+
+        // Then
+        assertFalse(RemoteEndpointPool.getPool(executor).getEndpoints().get(1).isHealthy());
+        final LoadBalancedForwardToRemoteExecutorHandler handler = new LoadBalancedForwardToRemoteExecutorHandler();
+        for (int i = 0; i < 10; i++) {
+            assertEquals("first", forward(handler, new Operation("test")));
+        }
+    }
+
+    @Test(expected = OperationException.class)
+    public void shouldFailToInitialiseWhenNoRemoteIsHealthy() throws Exception {
+        // Given
+        first.shutdownNow();
+        second.shutdownNow();
+
+        // When
+        new LoadBalancedProxyInitialiseHandler()._doOperation(null, context, executor);
+    }
+
+    @Test
+    public void shouldHedgeSlowIdempotentOperationsOnAnotherRemote() throws Exception {
+        // Given
+        final LoadBalancedForwardToRemoteExecutorHandler handler = (LoadBalancedForwardToRemoteExecutorHandler) new LoadBalancedForwardToRemoteExecutorHandler()
+                .setHedgePercentile(90)
+                .setIdempotentOperations(Collections.singleton("read"));
+        for (int i = 0; i < 40; i++) {
+            forward(handler, new Operation("read"));
+        }
+        delays.get("first").set(5000);
+
+        // When
+        final long start = System.currentTimeMillis();
+        for (int i = 0; i < 5; i++) {
+            assertEquals("second", forward(handler, new Operation("read")));
+        }
+
+        // Then
+        assertTrue(System.currentTimeMillis() - start < 5000);
+    }
+
+    @Test
+    public void shouldNotHedgeSoonerThanTheMinimumHedgeDelay() throws Exception {
+        // Given
+        ExecutorPropertiesUtil.setProxyMinHedgeDelay(executor, 1000);
+        final LoadBalancedForwardToRemoteExecutorHandler handler = (LoadBalancedForwardToRemoteExecutorHandler) new LoadBalancedForwardToRemoteExecutorHandler()
+                .setHedgePercentile(50)
+                .setIdempotentOperations(Collections.singleton("read"));
+        for (int i = 0; i < 40; i++) {
+            forward(handler, new Operation("read"));
+        }
+        delays.get("first").set(200);
+        delays.get("second").set(200);
+        final int before = requests.get("first").get() + requests.get("second").get();
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            forward(handler, new Operation("read"));
+        }
+
+        // Then
+        assertEquals(before + 5, requests.get("first").get() + requests.get("second").get());
+    }
+
+    @Test
+    public void shouldFailOverIdempotentOperationsWhenARemoteFailsFast() throws Exception {
+        // Given
+        ExecutorPropertiesUtil.setProxyEjectionFailures(executor, 100);
+        final LoadBalancedForwardToRemoteExecutorHandler handler = (LoadBalancedForwardToRemoteExecutorHandler) new LoadBalancedForwardToRemoteExecutorHandler()
+                .setHedgePercentile(90)
+                .setIdempotentOperations(Collections.singleton("read"));
+        for (int i = 0; i < 40; i++) {
+            forward(handler, new Operation("read"));
+        }
+        second.shutdownNow();
+
+        // When / Then
+        for (int i = 0; i < 10; i++) {
+            assertEquals("first", forward(handler, new Operation("read")));
+        }
+    }
+
+    @Test
+    public void shouldNotHedgeOperationsThatAreNotIdempotent() throws Exception {
+        // Given
+        final LoadBalancedForwardToRemoteExecutorHandler handler = (LoadBalancedForwardToRemoteExecutorHandler) new LoadBalancedForwardToRemoteExecutorHandler()
+                .setHedgePercentile(50)
+                .setIdempotentOperations(Collections.singleton("read"));
+        for (int i = 0; i < 40; i++) {
+            forward(handler, new Operation("write"));
+        }
+        delays.get("first").set(200);
+        delays.get("second").set(200);
+        final int before = requests.get("first").get() + requests.get("second").get();
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            forward(handler, new Operation("write"));
+        }
+
+        // Then
+        assertEquals(before + 5, requests.get("first").get() + requests.get("second").get());
+    }
+
+    @Test
+    public void shouldShedRequestsWhileCircuitIsOpenThenProbe() throws Exception {
+        // Given
+        ExecutorPropertiesUtil.setMaestroEndpoints(executor, "localhost:" + firstPort);
+        ExecutorPropertiesUtil.setProxyEjectionFailures(executor, 2);
+        ExecutorPropertiesUtil.setProxyEjectionTime(executor, 500);
+        final ForwardToRemoteExecutorHandler handler = new ForwardToRemoteExecutorHandler();
+        first.shutdownNow();
+        for (int i = 0; i < 2; i++) {
+            try {
+                forward(handler, new Operation("test"));
+                fail("Exception expected");
+            } catch (final OperationException e) {
+                assertFalse(e.getMessage().contains("circuit"));
+            }
+        }
+
+        // When / Then
+        try {
+            forward(handler, new Operation("test"));
+            fail("Exception expected");
+        } catch (final OperationException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("circuit"));
+        }
+
+        // When
+        first = startServer("first", firstPort);
+        Thread.sleep(600);
+
+        // Then
+        assertEquals("first", forward(handler, new Operation("test")));
+        assertEquals(CircuitBreaker.State.CLOSED, RemoteEndpointPool.getPool(executor).getEndpoints().get(0).getCircuitState());
+    }
+
+    @Test
+    public void shouldJsonSerialiseAndDeserialise() throws Exception {
+        // Given
+        final LoadBalancedForwardToRemoteExecutorHandler handler = new LoadBalancedForwardToRemoteExecutorHandler()
+                .setAffinityArg("key");
+
+        // When
+        final byte[] json = JSONSerialiser.serialise(handler);
+
+        // Then
+        assertEquals(handler, JSONSerialiser.deserialise(json, LoadBalancedForwardToRemoteExecutorHandler.class));
+    }
+
+    private Object forward(final ForwardToRemoteExecutorHandler handler, final Operation operation) throws OperationException {
+        return ((Map) handler._doOperation(operation, context, executor)).get("result");
+    }
+
+    private HttpServer startServer(final String name, final int port) throws Exception {
+        final AtomicLong delay = delays.computeIfAbsent(name, key -> new AtomicLong());
+        final AtomicInteger count = requests.computeIfAbsent(name, key -> new AtomicInteger());
+        final HttpServer server = HttpServer.createSimpleServer(null, "localhost", port);
+        server.getServerConfiguration().addHttpHandler(new HttpHandler() {
+            @Override
+            public void service(final Request request, final Response response) throws Exception {
+                response.setContentType(MediaType.APPLICATION_JSON);
+                if (request.getRequestURI().endsWith("/executor/status")) {
+                    response.getWriter().write("{\"description\":\"" + name + " is up\"}");
+                } else {
+                    count.incrementAndGet();
+                    Thread.sleep(delay.get());
+                    response.getWriter().write("{\"result\":\"" + name + "\"}");
+                }
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
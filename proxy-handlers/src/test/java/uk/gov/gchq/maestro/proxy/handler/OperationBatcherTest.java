@@ -0,0 +1,124 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.proxy.handler;
+
+import org.junit.Test;
+
+import uk.gov.gchq.maestro.commonutil.exception.OperationException;
+import uk.gov.gchq.maestro.operation.Operation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class OperationBatcherTest {
+    private final List<List<Operation>> sentBatches = new CopyOnWriteArrayList<>();
+
+    @Test
+    public void shouldSendBatchAsSoonAsItIsFull() throws Exception {
+        // Given
+        final OperationBatcher batcher = new OperationBatcher(60000, 3, this::echoIds);
+
+        // When
+        final CompletableFuture<Object> first = batcher.submit(new Operation("a"));
+        final CompletableFuture<Object> second = batcher.submit(new Operation("b"));
+        final CompletableFuture<Object> third = batcher.submit(new Operation("c"));
+
+        // Then
+        assertEquals("a", first.get(1, TimeUnit.SECONDS));
+        assertEquals("b", second.get(1, TimeUnit.SECONDS));
+        assertEquals("c", third.get(1, TimeUnit.SECONDS));
+        assertEquals(1, sentBatches.size());
+    }
+
+    @Test
+    public void shouldSendPartialBatchAfterDelay() throws Exception {
+        // Given
+        final OperationBatcher batcher = new OperationBatcher(20, 100, this::echoIds);
+
+        // When
+        final CompletableFuture<Object> first = batcher.submit(new Operation("a"));
+        final CompletableFuture<Object> second = batcher.submit(new Operation("b"));
+
+        // Then
+        assertEquals("a", first.get(1, TimeUnit.SECONDS));
+        assertEquals("b", second.get(1, TimeUnit.SECONDS));
+        assertEquals(1, sentBatches.size());
+        assertEquals(2, sentBatches.get(0).size());
+    }
+
+    @Test
+    public void shouldFailEveryOperationInBatchWhenSendFails() throws Exception {
+        // Given
+        final OperationException failure = new OperationException("remote unavailable");
+        final OperationBatcher batcher = new OperationBatcher(60000, 2, operations -> {
+            throw failure;
+        });
+
+        // When
+        final CompletableFuture<Object> first = batcher.submit(new Operation("a"));
+        final CompletableFuture<Object> second = batcher.submit(new Operation("b"));
+
+        // Then
+        assertFailedWith(failure, first);
+        assertFailedWith(failure, second);
+    }
+
+    @Test
+    public void shouldFailBatchWhenResultCountDoesNotMatch() throws Exception {
+        // Given
+        final OperationBatcher batcher = new OperationBatcher(60000, 2, operations -> new ArrayList<>());
+
+        // When
+        final CompletableFuture<Object> first = batcher.submit(new Operation("a"));
+        batcher.submit(new Operation("b"));
+
+        // Then
+        try {
+            first.get(1, TimeUnit.SECONDS);
+            fail("Exception expected");
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof OperationException);
+        }
+    }
+
+    private List<Object> echoIds(final List<Operation> operations) {
+        sentBatches.add(operations);
+        final List<Object> ids = new ArrayList<>();
+        for (final Operation operation : operations) {
+            ids.add(operation.getId());
+        }
+        return ids;
+    }
+
+    private static void assertFailedWith(final Exception expected, final CompletableFuture<Object> future) throws Exception {
+        try {
+            future.get(1, TimeUnit.SECONDS);
+            fail("Exception expected");
+        } catch (final ExecutionException e) {
+            assertSame(expected, e.getCause());
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.proxy.handler;
+
+import org.glassfish.grizzly.http.server.HttpHandler;
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.grizzly.http.server.Request;
+import org.glassfish.grizzly.http.server.Response;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.gov.gchq.maestro.executor.Executor;
+import uk.gov.gchq.maestro.executor.util.Config;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.InvocationCallback;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
+
+import java.net.ServerSocket;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class PooledConnectorTest {
+    private final Set<Integer> clientPorts = new HashSet<>();
+    private int port;
+    private HttpServer server;
+    private Executor executor;
+
+    @Before
+    public void before() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        server = HttpServer.createSimpleServer(null, "localhost", port);
+        server.getServerConfiguration().addHttpHandler(new HttpHandler() {
+            @Override
+            public void service(final Request request, final Response response) throws Exception {
+                synchronized (clientPorts) {
+                    clientPorts.add(request.getRemotePort());
+                }
+                response.setContentType(MediaType.TEXT_PLAIN);
+                if (request.getRequestURI().endsWith("/length")) {
+                    long length = 0;
+                    final byte[] buffer = new byte[8192];
+                    int read;
+                    while (-1 != (read = request.getInputStream().read(buffer))) {
+                        length += read;
+                    }
+                    response.getWriter().write(length + ":" + request.getContentType() + ":" + request.getHeader("Transfer-Encoding"));
+                } else {
+                    response.getWriter().write("echo:" + request.getMethod().getMethodString());
+                }
+            }
+        });
+        server.start();
+        executor = new Executor(new Config("pooledConnectorTest"));
+    }
+
+    @After
+    public void after() {
+        ProxyClientRegistry.close(executor);
+        server.shutdownNow();
+    }
+
+    @Test
+    public void shouldReuseOneConnectionForSequentialRequests() {
+        // Given
+        final Client client = ProxyClientRegistry.getClient(executor);
+        final String url = "http://localhost:" + port + "/";
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            assertEquals("echo:GET", client.target(url).request().get(String.class));
+            assertEquals("echo:POST", client.target(url).request().post(Entity.text("body"), String.class));
+        }
+
+        // Then
+        assertEquals(1, clientPorts.size());
+    }
+
+    @Test
+    public void shouldStreamRequestEntityChunked() {
+        // Given
+        final Client client = ProxyClientRegistry.getClient(executor);
+        final int length = 5 * 1024 * 1024;
+        final StreamingOutput body = output -> {
+            final byte[] chunk = new byte[1024];
+            for (int i = 0; i < length / chunk.length; i++) {
+                output.write(chunk);
+            }
+        };
+
+        // When
+        final String received = client.target("http://localhost:" + port + "/length").request()
+                .post(Entity.entity(body, MediaType.APPLICATION_OCTET_STREAM), String.class);
+
+        // Then
+        assertEquals(length + ":" + MediaType.APPLICATION_OCTET_STREAM + ":chunked", received);
+    }
+
+    @Test
+    public void shouldShareClientUntilReinitialised() {
+        // Given
+        final Client client = ProxyClientRegistry.getClient(executor);
+
+        // When
+        final Client shared = ProxyClientRegistry.getClient(executor);
+        final Client reinitialised = ProxyClientRegistry.createClient(executor);
+
+        // Then
+        assertSame(client, shared);
+        assertNotSame(client, reinitialised);
+        assertSame(reinitialised, ProxyClientRegistry.getClient(executor));
+    }
+
+    @Test
+    public void shouldNotShareClientBetweenExecutorsWithTheSameId() {
+        // Given
+        final Executor sameId = new Executor(new Config("pooledConnectorTest"));
+        final Client client = ProxyClientRegistry.getClient(executor);
+
+        // When
+        final Client other = ProxyClientRegistry.getClient(sameId);
+        ProxyClientRegistry.close(sameId);
+
+        // Then
+        assertNotSame(client, other);
+        assertSame(client, ProxyClientRegistry.getClient(executor));
+        assertEquals("echo:GET", client.target("http://localhost:" + port + "/").request().get(String.class));
+    }
+
+    @Test
+    public void shouldSendAsyncRequestsOffTheCallersThread() throws Exception {
+        // Given
+        final Client client = ProxyClientRegistry.getClient(executor);
+        final String caller = Thread.currentThread().getName();
+        final CompletableFuture<String> thread = new CompletableFuture<>();
+
+        // When
+        final Future<String> response = client.target("http://localhost:" + port + "/").request().async()
+                .get(new InvocationCallback<String>() {
+                    @Override
+                    public void completed(final String result) {
+                        thread.complete(Thread.currentThread().getName());
+                    }
+
+                    @Override
+                    public void failed(final Throwable throwable) {
+                        thread.completeExceptionally(throwable);
+                    }
+                });
+
+        // Then
+        assertEquals("echo:GET", response.get(10, TimeUnit.SECONDS));
+        assertNotEquals(caller, thread.get(10, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.proxy.handler;
+
+import org.glassfish.grizzly.http.server.HttpHandler;
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.grizzly.http.server.Request;
+import org.glassfish.grizzly.http.server.Response;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.gov.gchq.maestro.commonutil.exception.OperationException;
+import uk.gov.gchq.maestro.executor.Context;
+import uk.gov.gchq.maestro.executor.Executor;
+import uk.gov.gchq.maestro.executor.util.Config;
+import uk.gov.gchq.maestro.executor.util.ExecutorPropertiesUtil;
+import uk.gov.gchq.maestro.executor.util.OperationCapabilities;
+import uk.gov.gchq.maestro.operation.Operation;
+
+import javax.ws.rs.core.MediaType;
+
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ProxyInitialiseHandlerTest {
+    private final AtomicReference<String> operations = new AtomicReference<>("[\"GetAll\",\"Limit\"]");
+    private final AtomicInteger executeRequests = new AtomicInteger();
+    private HttpServer server;
+    private Executor executor;
+    private final Context context = new Context();
+
+    @Before
+    public void before() throws Exception {
+        final int port = freePort();
+        server = startServer(port);
+        executor = new Executor(new Config("capabilitiesProxy"));
+        executor.setProperty(ExecutorPropertiesUtil.MAESTRO_HOST, "localhost");
+        executor.setProperty(ExecutorPropertiesUtil.MAESTRO_PORT, String.valueOf(port));
+    }
+
+    @After
+    public void after() {
+        ExecutorPropertiesUtil.setProxyCapabilitiesRefreshInterval(executor, -1);
+        new ProxyInitialiseHandler().discoverCapabilities(executor);
+        RemoteEndpointPool.closePool(executor);
+        ProxyClientRegistry.close(executor);
+        server.shutdownNow();
+    }
+
+    @Test
+    public void shouldNotDiscoverCapabilitiesByDefault() throws Exception {
+        // When
+        new ProxyInitialiseHandler()._doOperation(null, context, executor);
+
+        // Then
+        assertNull(OperationCapabilities.get(executor));
+    }
+
+    @Test
+    public void shouldRejectUnsupportedOperationsWithoutForwarding() throws Exception {
+        // Given
+        ExecutorPropertiesUtil.setProxyCapabilitiesRefreshInterval(executor, 0);
+        new ProxyInitialiseHandler()._doOperation(null, context, executor);
+        final ForwardToRemoteExecutorHandler handler = new ForwardToRemoteExecutorHandler();
+
+        // When
+        try {
+            handler._doOperation(new Operation("Delete"), context, executor);
+            fail("Exception expected");
+        } catch (final OperationException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("not supported"));
+        }
+        try {
+            handler._doOperation(new Operation("Limit"), context, executor);
+            fail("Exception expected");
+        } catch (final OperationException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("ResultLimit"));
+        }
+        final Object result = handler._doOperation(new Operation("Limit").operationArg("ResultLimit", 1), context, executor);
+
+        // Then
+        assertEquals("ok", ((Map) result).get("result"));
+        assertEquals(1, executeRequests.get());
+        assertEquals(2, OperationCapabilities.get(executor).getOperationDetails().size());
+    }
+
+    @Test
+    public void shouldRefreshCapabilities() throws Exception {
+        // Given
+        ExecutorPropertiesUtil.setProxyCapabilitiesRefreshInterval(executor, 50);
+        new ProxyInitialiseHandler()._doOperation(null, context, executor);
+
+        // When
+        operations.set("[\"GetAll\",\"Limit\",\"Delete\"]");
+        Thread.sleep(500);
+
+        // Then
+        assertTrue(OperationCapabilities.get(executor).isSupported("Delete"));
+    }
+
+    @Test
+    public void shouldRefreshCapabilitiesWithTheExecutorsCurrentClient() throws Exception {
+        // Given
+        ExecutorPropertiesUtil.setProxyCapabilitiesRefreshInterval(executor, 50);
+        new ProxyInitialiseHandler()._doOperation(null, context, executor);
+
+        // When
+        ProxyClientRegistry.createClient(executor);
+        operations.set("[\"GetAll\",\"Limit\",\"Delete\"]");
+        Thread.sleep(500);
+
+        // Then
+        assertTrue(OperationCapabilities.get(executor).isSupported("Delete"));
+    }
+
+    @Test
+    public void shouldStopRefreshingCapabilitiesWhenTheClientIsClosed() throws Exception {
+        // Given
+        ExecutorPropertiesUtil.setProxyCapabilitiesRefreshInterval(executor, 50);
+        new ProxyInitialiseHandler()._doOperation(null, context, executor);
+
+        // When
+        ProxyClientRegistry.close(executor);
+        operations.set("[\"GetAll\",\"Limit\",\"Delete\"]");
+        Thread.sleep(300);
+
+        // Then
+        assertFalse(OperationCapabilities.get(executor).isSupported("Delete"));
+    }
+
+    @Test
+    public void shouldKeepLastCapabilitiesWhenRemoteIsUnreachable() throws Exception {
+        // Given
+        ExecutorPropertiesUtil.setProxyCapabilitiesRefreshInterval(executor, 50);
+        new ProxyInitialiseHandler()._doOperation(null, context, executor);
+
+        // When
+        server.shutdownNow();
+        Thread.sleep(300);
+
+        // Then
+        assertEquals(Arrays.asList("GetAll", "Limit"), Arrays.asList(OperationCapabilities.get(executor).getOperations().toArray()));
+    }
+
+    private HttpServer startServer(final int port) throws Exception {
+        final HttpServer httpServer = HttpServer.createSimpleServer(null, "localhost", port);
+        httpServer.getServerConfiguration().addHttpHandler(new HttpHandler() {
+            @Override
+            public void service(final Request request, final Response response) throws Exception {
+                response.setContentType(MediaType.APPLICATION_JSON);
+                final String uri = request.getRequestURI();
+                if (uri.endsWith("/executor/status")) {
+                    response.getWriter().write("{\"description\":\"up\"}");
+                } else if (uri.endsWith("/executor/operations")) {
+                    response.getWriter().write(operations.get());
+                } else if (uri.endsWith("/executor/operations/details")) {
+                    response.getWriter().write("[{\"operationType\":\"GetAll\",\"fields\":[]},"
+                            + "{\"operationType\":\"Limit\",\"fields\":[{\"name\":\"ResultLimit\",\"required\":true}]}]");
+                } else {
+                    executeRequests.incrementAndGet();
+                    response.getWriter().write("{\"result\":\"ok\"}");
+                }
+            }
+        });
+        httpServer.start();
+        return httpServer;
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
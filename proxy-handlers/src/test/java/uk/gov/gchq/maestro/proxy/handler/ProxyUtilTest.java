@@ -0,0 +1,176 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.proxy.handler;
+
+import org.glassfish.grizzly.http.server.HttpHandler;
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.grizzly.http.server.Request;
+import org.glassfish.grizzly.http.server.Response;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.gov.gchq.maestro.commonutil.StringUtil;
+import uk.gov.gchq.maestro.commonutil.iterable.CloseableIterable;
+import uk.gov.gchq.maestro.commonutil.iterable.CloseableIterator;
+import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.JSONSerialiser;
+import uk.gov.gchq.maestro.executor.Executor;
+import uk.gov.gchq.maestro.executor.util.Config;
+import uk.gov.gchq.maestro.executor.util.RawResult;
+import uk.gov.gchq.maestro.operation.serialisation.TypeReferenceImpl;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.core.MediaType;
+
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ProxyUtilTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProxyUtilTest.class);
+    private static final int LARGE_RESULT_SIZE = 100000;
+
+    private final Set<Integer> clientPorts = new HashSet<>();
+    private int port;
+    private HttpServer server;
+    private Executor executor;
+    private Client client;
+
+    @Before
+    public void before() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        server = HttpServer.createSimpleServer(null, "localhost", port);
+        server.getServerConfiguration().addHttpHandler(new HttpHandler() {
+            @Override
+            public void service(final Request request, final Response response) throws Exception {
+                synchronized (clientPorts) {
+                    clientPorts.add(request.getRemotePort());
+                }
+                final int size = Integer.parseInt(request.getParameter("size"));
+                response.setContentType(MediaType.APPLICATION_JSON);
+                response.getWriter().write("{\"result\":[");
+                for (int i = 0; i < size; i++) {
+                    response.getWriter().write((0 == i ? "" : ",") + i);
+                }
+                response.getWriter().write("]}");
+            }
+        });
+        server.start();
+        executor = new Executor(new Config("proxyUtilTest"));
+        client = ProxyClientRegistry.getClient(executor);
+    }
+
+    @After
+    public void after() {
+        ProxyClientRegistry.close(executor);
+        server.shutdownNow();
+    }
+
+    @Test
+    public void shouldStreamIterableResultAndReuseConnectionOnceExhausted() throws Exception {
+        // When
+        final List<Object> results = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            try (CloseableIterable<?> iterable = get(3)) {
+                iterable.forEach(results::add);
+            }
+        }
+
+        // Then
+        assertEquals(Arrays.asList(0, 1, 2, 0, 1, 2, 0, 1, 2), results);
+        assertEquals(1, clientPorts.size());
+    }
+
+    @Test
+    public void shouldReleaseLargeResultClosedPartWayThrough() throws Exception {
+        // Given
+        final CloseableIterable<?> iterable = get(LARGE_RESULT_SIZE);
+        final CloseableIterator<?> iterator = iterable.iterator();
+
+        // When
+        assertEquals(0, iterator.next());
+        iterable.close();
+
+        // Then
+        final List<Object> results = new ArrayList<>();
+        get(2).forEach(results::add);
+        assertEquals(Arrays.asList(0, 1), results);
+        assertEquals("abandoned connection should be dropped, not drained and reused", 2, clientPorts.size());
+    }
+
+    @Test
+    public void shouldDecodeNonIterableResultFromStream() throws Exception {
+        // When
+        final LinkedHashMap result = ProxyUtil.handleResponse(
+                client.target(url(2)).request().get(), new TypeReferenceImpl.Map(), LOGGER);
+
+        // Then
+        assertEquals(Arrays.asList(0, 1), result.get("result"));
+        get(1).forEach(item -> assertEquals(0, item));
+        assertEquals(1, clientPorts.size());
+    }
+
+    @Test
+    public void shouldStreamRawResultOutOfResponseWithoutDecoding() throws Exception {
+        // Given
+        final RawResult result = ProxyUtil.handleRawResponse(client.target(url(3)).request().get(), LOGGER);
+
+        // When
+        final byte[] json = JSONSerialiser.serialise(Collections.singletonMap("result", result));
+
+        // Then
+        assertNull(result.getBytes());
+        assertEquals("{\"result\":[0,1,2]}", StringUtil.toString(json));
+        get(1).forEach(item -> assertEquals(0, item));
+        assertEquals(1, clientPorts.size());
+    }
+
+    @Test
+    public void shouldReleaseRawResultClosedWithoutBeingWritten() throws Exception {
+        // Given
+        final RawResult result = ProxyUtil.handleRawResponse(client.target(url(LARGE_RESULT_SIZE)).request().get(), LOGGER);
+
+        // When
+        result.close();
+
+        // Then
+        final List<Object> results = new ArrayList<>();
+        get(2).forEach(results::add);
+        assertEquals(Arrays.asList(0, 1), results);
+    }
+
+    private CloseableIterable<?> get(final int size) throws Exception {
+        return (CloseableIterable<?>) ProxyUtil.handleResponse(
+                client.target(url(size)).request().get(), new TypeReferenceImpl.IterableObject(), LOGGER);
+    }
+
+    private String url(final int size) {
+        return "http://localhost:" + port + "/?size=" + size;
+    }
+}
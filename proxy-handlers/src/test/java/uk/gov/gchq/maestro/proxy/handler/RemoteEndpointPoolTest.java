@@ -0,0 +1,238 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.proxy.handler;
+
+import org.junit.Test;
+
+import uk.gov.gchq.maestro.executor.Executor;
+import uk.gov.gchq.maestro.executor.util.Config;
+import uk.gov.gchq.maestro.executor.util.ExecutorPropertiesUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RemoteEndpointPoolTest {
+    private static final int FAILURE_THRESHOLD = 3;
+    private final Executor executor = new Executor(new Config("remoteEndpointPoolTest"));
+
+    @Test
+    public void shouldPreferLessLoadedEndpoint() {
+        // Given
+        final RemoteEndpointPool pool = createPool(2);
+        final RemoteEndpoint busy = pool.getEndpoints().get(0);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(busy.tryStart());
+        }
+
+        // Then
+        for (int i = 0; i < 20; i++) {
+            assertSame(pool.getEndpoints().get(1), pool.choose(null));
+        }
+    }
+
+    @Test
+    public void shouldRouteSameKeyToSameEndpointAndSpreadKeys() {
+        // Given
+        final RemoteEndpointPool pool = createPool(3);
+        final Set<RemoteEndpoint> chosen = new HashSet<>();
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            final RemoteEndpoint endpoint = pool.choose("key" + i);
+            assertSame(endpoint, pool.choose("key" + i));
+            chosen.add(endpoint);
+        }
+
+        // Then
+        assertEquals(3, chosen.size());
+    }
+
+    @Test
+    public void shouldMoveOnlyTheKeysOfAnUnavailableEndpoint() {
+        // Given
+        final RemoteEndpointPool pool = createPool(3);
+        final List<RemoteEndpoint> before = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            before.add(pool.choose("key" + i));
+        }
+
+        // When
+        final RemoteEndpoint down = pool.getEndpoints().get(0);
+        down.setHealthy(false);
+
+        // Then
+        for (int i = 0; i < 100; i++) {
+            final RemoteEndpoint after = pool.choose("key" + i);
+            if (down == before.get(i)) {
+                assertNotSame(down, after);
+            } else {
+                assertSame(before.get(i), after);
+            }
+        }
+    }
+
+    @Test
+    public void shouldEjectEndpointAfterConsecutiveFailures() {
+        // Given
+        final RemoteEndpointPool pool = createPool(2);
+        final RemoteEndpoint failing = pool.getEndpoints().get(0);
+
+        // When
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            assertTrue(failing.isAvailable(System.currentTimeMillis()));
+            assertTrue(failing.tryStart());
+            failing.failed();
+        }
+
+        // Then
+        assertFalse(failing.isAvailable(System.currentTimeMillis()));
+        assertFalse(failing.tryStart());
+        for (int i = 0; i < 20; i++) {
+            assertSame(pool.getEndpoints().get(1), pool.choose(null));
+            assertSame(pool.getEndpoints().get(1), pool.choose("key" + i));
+        }
+    }
+
+    @Test
+    public void shouldNotChooseEndpointsWithOpenCircuits() {
+        // Given
+        final RemoteEndpointPool pool = createPool(2);
+        for (final RemoteEndpoint endpoint : pool.getEndpoints()) {
+            for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+                assertTrue(endpoint.tryStart());
+                endpoint.failed();
+            }
+        }
+
+        // Then
+        assertNull(pool.choose(null));
+        assertNull(pool.choose("key"));
+    }
+
+    @Test
+    public void shouldChooseAnotherEndpointToHedgeWith() {
+        // Given
+        final RemoteEndpointPool pool = createPool(2);
+
+        // Then
+        for (int i = 0; i < 20; i++) {
+            final RemoteEndpoint first = pool.choose("key" + i);
+            assertNotSame(first, pool.choose("key" + i, first));
+            assertNotSame(first, pool.choose(null, first));
+        }
+        final RemoteEndpointPool single = createPool(1);
+        assertNull(single.choose(null, single.getEndpoints().get(0)));
+    }
+
+    @Test
+    public void shouldMarkEndpointsFailingHealthCheckUnhealthy() {
+        // Given
+        final RemoteEndpointPool pool = createPool(2);
+
+        // When
+        pool.checkHealth(endpoint -> {
+            if (endpoint == pool.getEndpoints().get(0)) {
+                throw new IllegalStateException("down");
+            }
+        });
+
+        // Then
+        assertFalse(pool.getEndpoints().get(0).isHealthy());
+        assertTrue(pool.getEndpoints().get(1).isHealthy());
+    }
+
+    @Test
+    public void shouldRouteAcrossAllEndpointsWhenNoneAreAvailable() {
+        // Given
+        final RemoteEndpointPool pool = createPool(2);
+        pool.getEndpoints().forEach(endpoint -> endpoint.setHealthy(false));
+        final Set<RemoteEndpoint> chosen = new HashSet<>();
+
+        // When
+        for (int i = 0; i < 50; i++) {
+            chosen.add(pool.choose(null));
+        }
+
+        // Then
+        assertEquals(new HashSet<>(pool.getEndpoints()), chosen);
+    }
+
+    @Test
+    public void shouldHoldPoolsPerExecutorInstance() {
+        // Given
+        final Executor other = new Executor(new Config("remoteEndpointPoolTest"));
+        try {
+            // When
+            final RemoteEndpointPool pool = RemoteEndpointPool.getPool(executor);
+
+            // Then
+            assertSame(pool, RemoteEndpointPool.getPool(executor));
+            assertNotSame(pool, RemoteEndpointPool.getPool(other));
+        } finally {
+            RemoteEndpointPool.closePool(executor);
+            RemoteEndpointPool.closePool(other);
+        }
+    }
+
+    @Test
+    public void shouldLeaveAReplacedPoolToFinishItsWork() throws Exception {
+        try {
+            // Given
+            final RemoteEndpointPool pool = RemoteEndpointPool.getPool(executor);
+
+            // When
+            ExecutorPropertiesUtil.setProxyThreads(executor, 2);
+            final RemoteEndpointPool replacement = RemoteEndpointPool.getPool(executor);
+
+            // Then
+            assertNotSame(pool, replacement);
+            assertEquals("done", pool.getWorkers().submit(() -> "done").get(10, TimeUnit.SECONDS));
+        } finally {
+            RemoteEndpointPool.closePool(executor);
+        }
+    }
+
+    @Test
+    public void shouldBuildEndpointUrlsFromTheRestApiRoot() {
+        // Given
+        final RemoteEndpoint endpoint = createPool(1).getEndpoints().get(0);
+
+        // Then
+        assertEquals(ExecutorPropertiesUtil.getMaestroEndpointUrl(executor, "host1:8080", "graph/status"), endpoint.getUrl("graph/status"));
+        assertEquals(ExecutorPropertiesUtil.getMaestroEndpointUrl(executor, "host1:8080", "/graph/status"), endpoint.getUrl("/graph/status"));
+        assertEquals(ExecutorPropertiesUtil.getMaestroEndpointUrl(executor, "host1:8080", null), endpoint.getUrl(null));
+    }
+
+    private RemoteEndpointPool createPool(final int size) {
+        final List<RemoteEndpoint> endpoints = new ArrayList<>();
+        for (final String endpoint : Arrays.asList("host1:8080", "host2:8080", "host3:8080").subList(0, size)) {
+            endpoints.add(new RemoteEndpoint(executor, endpoint, FAILURE_THRESHOLD, 60000));
+        }
+        return new RemoteEndpointPool(endpoints);
+    }
+}
@@ -27,6 +27,9 @@ public final class ServiceConstants {
     public static final String JOB_ID_HEADER = "job-id";
     public static final String JOB_ID_HEADER_DESCRIPTION = "The job execution ID.";
 
+    // Media types
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
     // REST status error messages
     public static final String OK = "OK";
     public static final String BAD_REQUEST = "Error while processing request body";
@@ -44,6 +47,10 @@ public final class ServiceConstants {
     public static final String JOB_NOT_FOUND = "Job was not found";
     public static final String JOB_SERVICE_UNAVAILABLE = "The job service is not available";
 
+    public static final String CURSOR_CREATED = "A new cursor was opened over the operation results";
+    public static final String CURSOR_NOT_FOUND = "Cursor was not found, it may have expired or been exhausted";
+    public static final String TOO_MANY_CURSORS = "The current user already has the maximum number of open cursors";
+
     static {
         final String apiVersion = System.getProperty(SystemProperty.REST_API_VERSION, SystemProperty.CORE_VERSION);
         MAESTRO_MEDIA_TYPE = "maestro.v" + apiVersion.charAt(0) + "; format=json";
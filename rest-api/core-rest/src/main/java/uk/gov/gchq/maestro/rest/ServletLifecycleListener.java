@@ -21,6 +21,8 @@ import org.slf4j.LoggerFactory;
 
 import uk.gov.gchq.maestro.commonutil.ExecutorService;
 import uk.gov.gchq.maestro.commonutil.cache.CacheServiceLoader;
+import uk.gov.gchq.maestro.executor.operation.handler.job.util.JobQueue;
+import uk.gov.gchq.maestro.executor.operation.handler.job.util.JobScheduler;
 
 import javax.servlet.ServletContextEvent;
 import javax.servlet.ServletContextListener;
@@ -63,7 +65,9 @@ public class ServletLifecycleListener implements ServletContextListener {
     @Override
     public void contextDestroyed(final ServletContextEvent servletContextEvent) {
         LOGGER.info("Server shutting down - releasing resources");
+        JobScheduler.shutdown();
         CacheServiceLoader.shutdown();
         ExecutorService.shutdown();
+        JobQueue.shutdown();
     }
 }
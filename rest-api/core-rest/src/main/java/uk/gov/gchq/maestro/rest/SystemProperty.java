@@ -45,6 +45,34 @@ public abstract class SystemProperty {
     public static final String JSON_SERIALISER_CLASS = JSONSerialiser.JSON_SERIALISER_CLASS_KEY;
     public static final String JSON_SERIALISER_MODULES = JSONSerialiser.JSON_SERIALISER_MODULES;
     public static final String REST_DEBUG = DebugUtil.DEBUG;
+    /**
+     * The number of results written to a chunked response between flushes.
+     */
+    public static final String CHUNKED_BATCH_SIZE = "maestro.rest-api.chunked.batchSize";
+    /**
+     * Operation input arrays with more elements than this are spooled to
+     * disk and bound lazily rather than as a list.
+     */
+    public static final String LAZY_INPUT_THRESHOLD = "maestro.rest-api.lazyInput.threshold";
+    /**
+     * Server-side cursors that are not read for this many milliseconds are
+     * closed.
+     */
+    public static final String CURSOR_IDLE_TIMEOUT = "maestro.rest-api.cursors.idleTimeout";
+    /**
+     * The maximum number of cursors a single user may hold open.
+     */
+    public static final String CURSOR_MAX_PER_USER = "maestro.rest-api.cursors.maxPerUser";
+    /**
+     * The largest page that may be requested from a cursor.
+     */
+    public static final String CURSOR_MAX_PAGE_SIZE = "maestro.rest-api.cursors.maxPageSize";
+    /**
+     * The largest request body, in bytes, kept alongside the decoded
+     * operation so a pass-through proxy handler can forward it unchanged.
+     * Zero, the default, disables capturing request bodies.
+     */
+    public static final String PASS_THROUGH_MAX_BYTES = "maestro.rest-api.passThrough.maxBytes";
 
     // Exposed Property Keys
     /**
@@ -81,6 +109,12 @@ public abstract class SystemProperty {
     public static final String EXECUTOR_FACTORY_CLASS_DEFAULT = DefaultExecutorFactory.class.getName();
     public static final String USER_FACTORY_CLASS_DEFAULT = UnknownUserFactory.class.getName();
     public static final String REST_DEBUG_DEFAULT = DebugUtil.DEBUG_DEFAULT;
+    public static final String CHUNKED_BATCH_SIZE_DEFAULT = "100";
+    public static final String LAZY_INPUT_THRESHOLD_DEFAULT = "10000";
+    public static final String CURSOR_IDLE_TIMEOUT_DEFAULT = "60000";
+    public static final String CURSOR_MAX_PER_USER_DEFAULT = "10";
+    public static final String CURSOR_MAX_PAGE_SIZE_DEFAULT = "10000";
+    public static final String PASS_THROUGH_MAX_BYTES_DEFAULT = "0";
     public static final String APP_TITLE_DEFAULT = "Maestro REST";
     public static final String APP_DESCRIPTION_DEFAULT = "The Maestro REST service.";
     public static final String APP_DOCUMENTATION_URL_DEFAULT = "https://gchq.github.io/maestro-doc/";
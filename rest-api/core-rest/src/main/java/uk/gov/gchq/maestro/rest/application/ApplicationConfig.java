@@ -27,8 +27,10 @@ import uk.gov.gchq.maestro.rest.mapper.MaestroRuntimeExceptionMapper;
 import uk.gov.gchq.maestro.rest.mapper.ProcessingExceptionMapper;
 import uk.gov.gchq.maestro.rest.mapper.UnauthorisedExceptionMapper;
 import uk.gov.gchq.maestro.rest.mapper.WebApplicationExceptionMapper;
+import uk.gov.gchq.maestro.rest.serialisation.RawOperationInterceptor;
 import uk.gov.gchq.maestro.rest.serialisation.RestJsonProvider;
 import uk.gov.gchq.maestro.rest.serialisation.TextMessageBodyWriter;
+import uk.gov.gchq.maestro.rest.serialisation.WireFormatMessageBodyProvider;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -54,6 +56,8 @@ public abstract class ApplicationConfig extends ResourceConfig {
         resources.add(SwaggerSerializers.class);
         resources.add(RestJsonProvider.class);
         resources.add(TextMessageBodyWriter.class);
+        resources.add(WireFormatMessageBodyProvider.class);
+        resources.add(RawOperationInterceptor.class);
     }
 
     protected void addExceptionMappers() {
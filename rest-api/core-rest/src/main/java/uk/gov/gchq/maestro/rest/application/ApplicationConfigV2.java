@@ -23,6 +23,8 @@ import uk.gov.gchq.maestro.rest.service.v2.ExecutorConfigurationServiceV2;
 import uk.gov.gchq.maestro.rest.service.v2.OperationServiceV2;
 import uk.gov.gchq.maestro.rest.service.v2.PropertiesServiceV2;
 import uk.gov.gchq.maestro.rest.service.v2.StatusServiceV2;
+import uk.gov.gchq.maestro.rest.service.v2.cursor.CursorBinder;
+import uk.gov.gchq.maestro.rest.service.v2.cursor.CursorServiceV2;
 import uk.gov.gchq.maestro.rest.service.v2.example.ExampleBinder;
 import uk.gov.gchq.maestro.rest.service.v2.example.ExamplesServiceV2;
 
@@ -43,6 +45,7 @@ public class ApplicationConfigV2 extends ApplicationConfig {
     public ApplicationConfigV2() {
         super();
         register(new ExampleBinder());
+        register(new CursorBinder());
     }
 
     @Override
@@ -71,6 +74,7 @@ public class ApplicationConfigV2 extends ApplicationConfig {
         resources.add(ExecutorConfigurationServiceV2.class);
         resources.add(ExamplesServiceV2.class);
         resources.add(PropertiesServiceV2.class);
+        resources.add(CursorServiceV2.class);
     }
 
 }
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.rest.serialisation;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.deser.ContextualDeserializer;
+import com.fasterxml.jackson.databind.deser.ResolvableDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.jsontype.TypeDeserializer;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.gov.gchq.maestro.commonutil.iterable.SpooledCloseableIterable;
+import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.JSONSerialiser;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Deserialises the {@code input} operation arg of an operation in a request
+ * body. Arrays with no more than the threshold number of elements are bound
+ * exactly as before by the wrapped deserialiser. Larger arrays are copied,
+ * one element at a time, from the request stream to a spool file and bound
+ * as a {@link SpooledCloseableIterable}, so the elements are only decoded
+ * when the first handler in the chain iterates over them.
+ * <p>
+ * Collections anywhere else in the request are passed straight to the
+ * wrapped deserialiser.
+ * </p>
+ */
+public class LazyInputDeserializer extends StdDeserializer<Object> implements ContextualDeserializer, ResolvableDeserializer {
+    private static final long serialVersionUID = -5052213916584357317L;
+    private static final Logger LOGGER = LoggerFactory.getLogger(LazyInputDeserializer.class);
+    private static final String INPUT = "input";
+    private static final String OPERATION_ARGS = "operationArgs";
+    private static final String SPOOL_FILE_PREFIX = "maestro-input-";
+
+    private final JsonDeserializer<Object> delegate;
+    private final JavaType type;
+    private final JavaType contentType;
+    private final int threshold;
+
+    @SuppressWarnings("unchecked")
+    public LazyInputDeserializer(final JsonDeserializer<?> delegate, final JavaType type, final int threshold) {
+        super(type);
+        this.delegate = (JsonDeserializer<Object>) delegate;
+        this.type = type;
+        this.contentType = type.getContentType();
+        this.threshold = threshold;
+    }
+
+    @Override
+    public Object deserialize(final JsonParser p, final DeserializationContext ctxt) throws IOException {
+        if (JsonToken.START_ARRAY != p.getCurrentToken() || !isOperationInput(p.getParsingContext())) {
+            return delegate.deserialize(p, ctxt);
+        }
+
+        final TokenBuffer buffer = new TokenBuffer(p);
+        buffer.writeStartArray();
+        int count = 0;
+        while (JsonToken.END_ARRAY != p.nextToken()) {
+            if (count == threshold) {
+                return spool(p, buffer);
+            }
+            buffer.copyCurrentStructure(p);
+            count++;
+        }
+        buffer.writeEndArray();
+
+        final JsonParser bufferParser = buffer.asParser(p.getCodec());
+        bufferParser.nextToken();
+        return delegate.deserialize(bufferParser, ctxt);
+    }
+
+    @Override
+    public Object deserialize(final JsonParser p, final DeserializationContext ctxt, final Object intoValue) throws IOException {
+        return delegate.deserialize(p, ctxt, intoValue);
+    }
+
+    @Override
+    public Object deserializeWithType(final JsonParser p, final DeserializationContext ctxt, final TypeDeserializer typeDeserializer) throws IOException {
+        return typeDeserializer.deserializeTypedFromArray(p, ctxt);
+    }
+
+    @Override
+    public JsonDeserializer<?> createContextual(final DeserializationContext ctxt, final BeanProperty property) throws JsonMappingException {
+        if (delegate instanceof ContextualDeserializer) {
+            final JsonDeserializer<?> contextual = ((ContextualDeserializer) delegate).createContextual(ctxt, property);
+            if (contextual != delegate) {
+                return new LazyInputDeserializer(contextual, type, threshold);
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public void resolve(final DeserializationContext ctxt) throws JsonMappingException {
+        if (delegate instanceof ResolvableDeserializer) {
+            ((ResolvableDeserializer) delegate).resolve(ctxt);
+        }
+    }
+
+    @Override
+    public boolean isCachable() {
+        return delegate.isCachable();
+    }
+
+    private SpooledCloseableIterable<Object> spool(final JsonParser p, final TokenBuffer buffer) throws IOException {
+        // The file is deleted when the spooled input is closed
+        final File file = File.createTempFile(SPOOL_FILE_PREFIX, ".smile");
+        long count = 0;
+        try (final JsonGenerator generator = JSONSerialiser.getMapper(SpooledCloseableIterable.SPOOL_FORMAT).getFactory().createGenerator(file, JsonEncoding.UTF8)) {
+            final JsonParser bufferParser = buffer.asParser(p.getCodec());
+            bufferParser.nextToken();
+            while (null != bufferParser.nextToken()) {
+                generator.copyCurrentStructure(bufferParser);
+                count++;
+            }
+            do {
+                generator.copyCurrentStructure(p);
+                count++;
+            } while (JsonToken.END_ARRAY != p.nextToken());
+        } catch (final IOException | RuntimeException e) {
+            if (!file.delete()) {
+                LOGGER.warn("Unable to delete spool file {}", file);
+            }
+            throw e;
+        }
+
+        LOGGER.debug("Spooled {} input elements to {}", count, file);
+        @SuppressWarnings("unchecked")
+        final Class<Object> type = (Class<Object>) contentType.getRawClass();
+        return new SpooledCloseableIterable<>(file, type);
+    }
+
+    // The array is the operation input if the nearest enclosing object is
+    // the operation args and the array is stored under the input key,
+    // either directly or wrapped with its type id.
+    private static boolean isOperationInput(final JsonStreamContext arrayContext) {
+        JsonStreamContext context = arrayContext.getParent();
+        if (null != context && context.inArray()) {
+            context = context.getParent();
+        }
+        if (null == context || !context.inObject() || !INPUT.equalsIgnoreCase(context.getCurrentName())) {
+            return false;
+        }
+        final JsonStreamContext operation = context.getParent();
+        return null != operation && operation.inObject() && OPERATION_ARGS.equals(operation.getCurrentName());
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.rest.serialisation;
+
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.type.CollectionType;
+
+import uk.gov.gchq.maestro.rest.SystemProperty;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * A Jackson module that binds large operation input arrays in REST request
+ * bodies lazily, using a {@link LazyInputDeserializer}. Only untyped
+ * collections that an {@link ArrayList} could be bound to are affected, so
+ * handlers that expect an {@link Iterable} input see no difference other
+ * than the laziness.
+ */
+public class LazyInputModule extends SimpleModule {
+    private static final long serialVersionUID = 3327914376052957093L;
+    private static final Map<ObjectMapper, ObjectMapper> READER_MAPPERS = new WeakHashMap<>();
+
+    public LazyInputModule(final int threshold) {
+        super(LazyInputModule.class.getSimpleName());
+        setDeserializerModifier(new BeanDeserializerModifier() {
+            @Override
+            public JsonDeserializer<?> modifyCollectionDeserializer(final DeserializationConfig config,
+                                                                    final CollectionType type,
+                                                                    final BeanDescription beanDesc,
+                                                                    final JsonDeserializer<?> deserializer) {
+                if (Object.class == type.getContentType().getRawClass()
+                        && type.getRawClass().isAssignableFrom(ArrayList.class)) {
+                    return new LazyInputDeserializer(deserializer, type, threshold);
+                }
+                return deserializer;
+            }
+        });
+    }
+
+    /**
+     * @param mapper the mapper configured by the JSONSerialiser
+     * @return a copy of the mapper with lazy input binding, created once per mapper
+     */
+    public static ObjectMapper getReaderMapper(final ObjectMapper mapper) {
+        synchronized (READER_MAPPERS) {
+            return READER_MAPPERS.computeIfAbsent(mapper, m -> m.copy().registerModule(new LazyInputModule(getThreshold())));
+        }
+    }
+
+    private static int getThreshold() {
+        final String threshold = System.getProperty(SystemProperty.LAZY_INPUT_THRESHOLD, SystemProperty.LAZY_INPUT_THRESHOLD_DEFAULT);
+        try {
+            return Integer.parseInt(threshold);
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Unable to convert " + SystemProperty.LAZY_INPUT_THRESHOLD + " into an integer: " + threshold, e);
+        }
+    }
+}
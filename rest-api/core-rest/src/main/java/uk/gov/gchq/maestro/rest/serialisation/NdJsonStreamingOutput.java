@@ -0,0 +1,132 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.rest.serialisation;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.gov.gchq.maestro.commonutil.CloseableUtil;
+import uk.gov.gchq.maestro.commonutil.exception.Error;
+import uk.gov.gchq.maestro.commonutil.exception.ErrorFactory;
+import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.JSONSerialiser;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.StreamingOutput;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A {@link StreamingOutput} that writes each element of an {@link Iterable}
+ * result as a line of newline delimited JSON, flushing to the client after
+ * every batch of elements. Any other result is written as a single line.
+ * <p>
+ * Elements are written with blocking writes to the container's output stream,
+ * so a slow client holds back the iteration rather than the results being
+ * buffered on the server. The result is closed once it has been written, or
+ * as soon as a write fails because the client has disconnected.
+ * </p>
+ * <p>
+ * If an element cannot be serialised, or the result fails while it is being
+ * iterated, the failure is logged and an {@link Error} is written as the
+ * last line, so the client can tell that the stream is incomplete.
+ * </p>
+ */
+public class NdJsonStreamingOutput implements StreamingOutput {
+    private static final Logger LOGGER = LoggerFactory.getLogger(NdJsonStreamingOutput.class);
+    private static final char NEW_LINE = '\n';
+
+    private final Object result;
+    private final int batchSize;
+
+    public NdJsonStreamingOutput(final Object result, final int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1, but was: " + batchSize);
+        }
+        this.result = result;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void write(final OutputStream output) throws IOException, WebApplicationException {
+        final ObjectWriter writer = JSONSerialiser.getMapper()
+                .writer(JSONSerialiser.getFilterProvider())
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        final JsonGenerator generator = JSONSerialiser.getMapper().getFactory().createGenerator(output, JsonEncoding.UTF8);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // An element left partly written by a failure is not closed off after the error line
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+        // Lines are separated by writing a new line after each value, not by the default root separator
+        generator.setRootValueSeparator(null);
+        long count = 0;
+        try {
+            if (result instanceof Iterable) {
+                for (final Object item : (Iterable<?>) result) {
+                    writeLine(writer, generator, item);
+                    if (++count % batchSize == 0) {
+                        generator.flush();
+                    }
+                }
+            } else if (null != result) {
+                writeLine(writer, generator, result);
+                count++;
+            }
+            generator.flush();
+        } catch (final JsonProcessingException | RuntimeException e) {
+            LOGGER.error("Stopped streaming results after {} elements", count);
+            writeError(writer, generator, ErrorFactory.from(e));
+        } catch (final IOException e) {
+            LOGGER.debug("Stopped streaming results after {} elements, the client may have disconnected", count, e);
+        } finally {
+            CloseableUtil.close(result);
+            CloseableUtil.close(generator);
+        }
+    }
+
+    public Object getResult() {
+        return result;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    private static void writeLine(final ObjectWriter writer, final JsonGenerator generator, final Object item) throws IOException {
+        writer.writeValue(generator, item);
+        generator.writeRaw(NEW_LINE);
+    }
+
+    // Writes the error on a line of its own, ending any element that was
+    // only partly written
+    private static void writeError(final ObjectWriter writer, final JsonGenerator generator, final Error error) {
+        try {
+            if (!generator.getOutputContext().inRoot()) {
+                generator.writeRaw(NEW_LINE);
+            }
+            generator.writeRaw(writer.writeValueAsString(error));
+            generator.writeRaw(NEW_LINE);
+            generator.flush();
+        } catch (final IOException e) {
+            LOGGER.debug("Unable to write the error to the stream, the client may have disconnected", e);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.rest.serialisation;
+
+import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.WireFormat;
+import uk.gov.gchq.maestro.executor.util.RawOperation;
+import uk.gov.gchq.maestro.operation.Operation;
+import uk.gov.gchq.maestro.rest.SystemProperty;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.ReaderInterceptor;
+import javax.ws.rs.ext.ReaderInterceptorContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Keeps a copy of the body of a request for a single {@link Operation}, as
+ * a {@link RawOperation} request property, so the operation can be forwarded
+ * to a remote executor without being serialised again. Bodies larger than
+ * {@link SystemProperty#PASS_THROUGH_MAX_BYTES} are not kept.
+ */
+@Provider
+public class RawOperationInterceptor implements ReaderInterceptor {
+    @Override
+    public Object aroundReadFrom(final ReaderInterceptorContext context) throws IOException, WebApplicationException {
+        final int maxBytes = Integer.parseInt(System.getProperty(SystemProperty.PASS_THROUGH_MAX_BYTES, SystemProperty.PASS_THROUGH_MAX_BYTES_DEFAULT));
+        if (maxBytes <= 0 || !Operation.class.isAssignableFrom(context.getType())) {
+            return context.proceed();
+        }
+
+        final CapturingInputStream capture = new CapturingInputStream(context.getInputStream(), maxBytes);
+        context.setInputStream(capture);
+        final Object entity = context.proceed();
+        final byte[] bytes = capture.getBytes();
+        if (entity instanceof Operation && null != bytes) {
+            context.setProperty(RawOperation.CONTEXT_KEY, new RawOperation(bytes, toWireFormat(context.getMediaType()), (Operation) entity));
+        }
+        return entity;
+    }
+
+    private static WireFormat toWireFormat(final MediaType mediaType) {
+        return null == mediaType ? WireFormat.JSON : WireFormat.fromMediaType(mediaType.getType() + '/' + mediaType.getSubtype());
+    }
+
+    // Copies the bytes read through it, giving up once there are too many.
+    private static final class CapturingInputStream extends FilterInputStream {
+        private final int maxBytes;
+        private ByteArrayOutputStream captured = new ByteArrayOutputStream();
+
+        private CapturingInputStream(final InputStream in, final int maxBytes) {
+            super(in);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if (-1 != b) {
+                capture(new byte[]{(byte) b}, 0, 1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            final int read = super.read(b, off, len);
+            if (0 < read) {
+                capture(b, off, read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            captured = null;
+            return super.skip(n);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void capture(final byte[] b, final int off, final int len) {
+            if (null != captured) {
+                if (captured.size() + len > maxBytes) {
+                    captured = null;
+                } else {
+                    captured.write(b, off, len);
+                }
+            }
+        }
+
+        private byte[] getBytes() {
+            return null == captured ? null : captured.toByteArray();
+        }
+    }
+}
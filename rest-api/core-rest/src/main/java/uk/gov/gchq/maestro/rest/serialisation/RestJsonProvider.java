@@ -38,6 +38,6 @@ public class RestJsonProvider implements ContextResolver<ObjectMapper> {
 
     @Override
     public ObjectMapper getContext(final Class<?> aClass) {
-        return JSONSerialiser.getMapper();
+        return LazyInputModule.getReaderMapper(JSONSerialiser.getMapper());
     }
 }
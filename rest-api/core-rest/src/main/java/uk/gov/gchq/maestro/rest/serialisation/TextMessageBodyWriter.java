@@ -16,6 +16,7 @@
 
 package uk.gov.gchq.maestro.rest.serialisation;
 
+import com.fasterxml.jackson.core.JsonEncoding;
 
 import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.JSONSerialiser;
 
@@ -56,7 +57,8 @@ public class TextMessageBodyWriter implements MessageBodyWriter<Object> {
                         final MultivaluedMap<String, Object> httpHeaders,
                         final OutputStream entityStream)
             throws IOException, WebApplicationException {
-        entityStream.write(JSONSerialiser.serialise(object));
+        // Write straight to the entity stream rather than building the whole body as a byte array first
+        JSONSerialiser.serialise(object, JSONSerialiser.getMapper().getFactory().createGenerator(entityStream, JsonEncoding.UTF8), false);
         entityStream.flush();
         entityStream.close();
     }
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.rest.serialisation;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.JSONSerialiser;
+import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.WireFormat;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+/**
+ * Reads and writes request and response bodies in the binary
+ * {@link WireFormat}s, using the same mapper configuration as the
+ * {@link RestJsonProvider}. Clients opt in by sending a Smile or CBOR
+ * Content-Type or Accept header; all other requests continue to use JSON.
+ */
+@Provider
+@Consumes({WireFormat.SMILE_MEDIA_TYPE, WireFormat.CBOR_MEDIA_TYPE})
+@Produces({WireFormat.SMILE_MEDIA_TYPE, WireFormat.CBOR_MEDIA_TYPE})
+public class WireFormatMessageBodyProvider implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+    @Override
+    public boolean isReadable(final Class<?> type, final Type genericType,
+                              final Annotation[] annotations, final MediaType mediaType) {
+        return isBinary(mediaType);
+    }
+
+    @Override
+    public Object readFrom(final Class<Object> type, final Type genericType,
+                           final Annotation[] annotations, final MediaType mediaType,
+                           final MultivaluedMap<String, String> httpHeaders,
+                           final InputStream entityStream)
+            throws IOException, WebApplicationException {
+        final ObjectMapper mapper = LazyInputModule.getReaderMapper(JSONSerialiser.getMapper(toWireFormat(mediaType)));
+        return mapper.readerFor(mapper.getTypeFactory().constructType(genericType))
+                .without(JsonParser.Feature.AUTO_CLOSE_SOURCE)
+                .readValue(entityStream);
+    }
+
+    @Override
+    public boolean isWriteable(final Class<?> type, final Type genericType,
+                               final Annotation[] annotations, final MediaType mediaType) {
+        return isBinary(mediaType);
+    }
+
+    @Override
+    public long getSize(final Object object, final Class<?> type,
+                        final Type genericType, final Annotation[] annotations,
+                        final MediaType mediaType) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(final Object object, final Class<?> type,
+                        final Type genericType, final Annotation[] annotations,
+                        final MediaType mediaType,
+                        final MultivaluedMap<String, Object> httpHeaders,
+                        final OutputStream entityStream)
+            throws IOException, WebApplicationException {
+        JSONSerialiser.getMapper(toWireFormat(mediaType))
+                .writer(JSONSerialiser.getFilterProvider())
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .writeValue(entityStream, object);
+    }
+
+    private static boolean isBinary(final MediaType mediaType) {
+        return null != mediaType && toWireFormat(mediaType).isBinary();
+    }
+
+    private static WireFormat toWireFormat(final MediaType mediaType) {
+        return WireFormat.fromMediaType(mediaType.getType() + '/' + mediaType.getSubtype());
+    }
+}
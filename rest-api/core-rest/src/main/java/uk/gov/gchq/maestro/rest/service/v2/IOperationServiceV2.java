@@ -33,8 +33,13 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.Response;
 
+import java.util.List;
+
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 import static javax.ws.rs.core.MediaType.TEXT_PLAIN;
+import static uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.WireFormat.CBOR_MEDIA_TYPE;
+import static uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.WireFormat.SMILE_MEDIA_TYPE;
+import static uk.gov.gchq.maestro.rest.ServiceConstants.APPLICATION_NDJSON;
 import static uk.gov.gchq.maestro.rest.ServiceConstants.BAD_REQUEST;
 import static uk.gov.gchq.maestro.rest.ServiceConstants.FORBIDDEN;
 import static uk.gov.gchq.maestro.rest.ServiceConstants.INTERNAL_SERVER_ERROR;
@@ -82,11 +87,12 @@ public interface IOperationServiceV2 {
 
     @POST
     @Path("/execute")
-    @Produces({APPLICATION_JSON, TEXT_PLAIN})
+    @Produces({APPLICATION_JSON, TEXT_PLAIN, SMILE_MEDIA_TYPE, CBOR_MEDIA_TYPE})
+    @Consumes({APPLICATION_JSON, SMILE_MEDIA_TYPE, CBOR_MEDIA_TYPE})
     @ApiOperation(value = "Performs the given operation on the executor",
             notes = "Attempts to execute the provided operation on the executor, and returns the result below. " +
                     "Simple examples for each operation can be added using the drop-down below.",
-            produces = (APPLICATION_JSON + "," + TEXT_PLAIN),
+            produces = (APPLICATION_JSON + "," + TEXT_PLAIN + "," + SMILE_MEDIA_TYPE + "," + CBOR_MEDIA_TYPE),
             response = Object.class,
             responseHeaders = {
                     @ResponseHeader(name = JOB_ID_HEADER, description = JOB_ID_HEADER_DESCRIPTION),
@@ -99,6 +105,45 @@ public interface IOperationServiceV2 {
             @ApiResponse(code = 501, message = OPERATION_NOT_IMPLEMENTED)})
     Response execute(@ApiParam(value = "The operation to be performed on the executor") final Operation operation);
 
+    @POST
+    @Path("/execute/chunked")
+    @Produces(APPLICATION_NDJSON)
+    @ApiOperation(value = "Performs the given operation on the executor, streaming the results",
+            notes = "Attempts to execute the provided operation on the executor. Each element of an iterable result " +
+                    "is written as a line of JSON as soon as it is available, so large results are not buffered.",
+            produces = APPLICATION_NDJSON,
+            response = Object.class,
+            responseHeaders = {
+                    @ResponseHeader(name = JOB_ID_HEADER, description = JOB_ID_HEADER_DESCRIPTION),
+                    @ResponseHeader(name = MAESTRO_MEDIA_TYPE_HEADER, description = MAESTRO_MEDIA_TYPE_HEADER_DESCRIPTION)
+            })
+    @ApiResponses(value = {@ApiResponse(code = 200, message = OK, response = Object.class),
+            @ApiResponse(code = 400, message = BAD_REQUEST),
+            @ApiResponse(code = 403, message = FORBIDDEN),
+            @ApiResponse(code = 500, message = INTERNAL_SERVER_ERROR),
+            @ApiResponse(code = 501, message = OPERATION_NOT_IMPLEMENTED)})
+    Response executeChunked(@ApiParam(value = "The operation to be performed on the executor") final Operation operation);
+
+    @POST
+    @Path("/execute/batch")
+    @Produces({APPLICATION_JSON, SMILE_MEDIA_TYPE, CBOR_MEDIA_TYPE})
+    @Consumes({APPLICATION_JSON, SMILE_MEDIA_TYPE, CBOR_MEDIA_TYPE})
+    @ApiOperation(value = "Performs each of the given operations on the executor",
+            notes = "Executes the operations independently, in order, and returns one entry per operation. " +
+                    "Each entry holds either the operation's \"result\" or the \"error\" it failed with, so one " +
+                    "failing operation does not fail the others.",
+            response = Object.class,
+            responseContainer = "List",
+            produces = APPLICATION_JSON,
+            responseHeaders = {
+                    @ResponseHeader(name = MAESTRO_MEDIA_TYPE_HEADER, description = MAESTRO_MEDIA_TYPE_HEADER_DESCRIPTION)
+            })
+    @ApiResponses(value = {@ApiResponse(code = 200, message = OK, response = Object.class),
+            @ApiResponse(code = 400, message = BAD_REQUEST),
+            @ApiResponse(code = 403, message = FORBIDDEN),
+            @ApiResponse(code = 500, message = INTERNAL_SERVER_ERROR)})
+    Response executeBatch(@ApiParam(value = "The operations to be performed on the executor") final List<Operation> operations);
+
     @GET
     @Path("/{operationType}")
     @ApiOperation(value = "Gets details about the specified operation",
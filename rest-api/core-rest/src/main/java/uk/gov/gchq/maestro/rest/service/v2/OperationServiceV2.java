@@ -20,30 +20,42 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.glassfish.jersey.server.ChunkedOutput;
+import org.glassfish.jersey.server.CloseableService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import uk.gov.gchq.maestro.commonutil.CloseableUtil;
 import uk.gov.gchq.maestro.commonutil.ToStringBuilder;
 import uk.gov.gchq.maestro.commonutil.exception.Error;
+import uk.gov.gchq.maestro.commonutil.exception.ErrorFactory;
+import uk.gov.gchq.maestro.commonutil.exception.MaestroCheckedException;
 import uk.gov.gchq.maestro.commonutil.exception.MaestroRuntimeException;
+import uk.gov.gchq.maestro.commonutil.exception.MaestroWrappedErrorRuntimeException;
 import uk.gov.gchq.maestro.commonutil.exception.OperationException;
 import uk.gov.gchq.maestro.commonutil.exception.Status;
+import uk.gov.gchq.maestro.commonutil.exception.UnauthorisedException;
 import uk.gov.gchq.maestro.commonutil.pair.Pair;
 import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.JSONSerialiser;
 import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.JsonSerialisationUtil;
 import uk.gov.gchq.maestro.executor.Context;
 import uk.gov.gchq.maestro.executor.Executor;
 import uk.gov.gchq.maestro.executor.operation.declaration.FieldDeclaration;
+import uk.gov.gchq.maestro.executor.util.OperationCapabilities;
+import uk.gov.gchq.maestro.executor.util.RawOperation;
+import uk.gov.gchq.maestro.executor.util.RawResult;
 import uk.gov.gchq.maestro.executor.util.Request;
 import uk.gov.gchq.maestro.executor.util.Result;
+import uk.gov.gchq.maestro.executor.util.SpooledInputs;
 import uk.gov.gchq.maestro.operation.Operation;
 import uk.gov.gchq.maestro.operation.OperationChain;
+import uk.gov.gchq.maestro.rest.SystemProperty;
 import uk.gov.gchq.maestro.rest.factory.ExecutorFactory;
 import uk.gov.gchq.maestro.rest.factory.UserFactory;
+import uk.gov.gchq.maestro.rest.serialisation.NdJsonStreamingOutput;
 import uk.gov.gchq.maestro.rest.service.v2.example.ExamplesFactory;
 
 import javax.inject.Inject;
+import javax.ws.rs.container.ContainerRequestContext;
 import javax.ws.rs.core.Response;
 
 import java.io.IOException;
@@ -81,11 +93,19 @@ public class OperationServiceV2 implements IOperationServiceV2 {
     @Inject
     private ExamplesFactory examplesFactory;
 
+    @javax.ws.rs.core.Context
+    private CloseableService closeableService;
+
+    @javax.ws.rs.core.Context
+    private ContainerRequestContext requestContext;
+
     public final ObjectMapper mapper = JSONSerialiser.createDefaultMapper();
 
     @Override
     public Response getOperations() {
-        return Response.ok(executorFactory.getExecutor().getSupportedOperations())
+        final Executor executor = executorFactory.getExecutor();
+        final OperationCapabilities capabilities = OperationCapabilities.get(executor);
+        return Response.ok(null != capabilities ? capabilities.getOperations() : executor.getSupportedOperations())
                 .header(MAESTRO_MEDIA_TYPE_HEADER, MAESTRO_MEDIA_TYPE)
                 .build();
     }
@@ -93,6 +113,13 @@ public class OperationServiceV2 implements IOperationServiceV2 {
     @Override
     public Response getOperationDetails() {
         final Executor executor = executorFactory.getExecutor();
+        final OperationCapabilities capabilities = OperationCapabilities.get(executor);
+        if (null != capabilities) {
+            return Response.ok(capabilities.getOperationDetails())
+                    .header(MAESTRO_MEDIA_TYPE_HEADER, MAESTRO_MEDIA_TYPE)
+                    .build();
+        }
+
         Set<String> supportedOperations = executor.getSupportedOperations();
         List<OperationDetail> supportedClassesAsOperationDetail = new ArrayList<>();
 
@@ -107,7 +134,9 @@ public class OperationServiceV2 implements IOperationServiceV2 {
 
     @Override
     public Response execute(final Operation operation) {
-        final Pair<Object, String> resultAndJobId = _execute(operation, userFactory.createContext());
+        closeInputsAfterRequest(operation);
+        final Pair<Object, String> resultAndJobId = _execute(operation, createContext(operation));
+        closeRawResultAfterRequest(resultAndJobId.getFirst());
         final HashMap<String, Object> newResult = new HashMap<>(); //TODO Demo cheat high priority
         newResult.put("result", resultAndJobId.getFirst());
         final Response rtn = Response.ok(newResult)
@@ -118,10 +147,44 @@ public class OperationServiceV2 implements IOperationServiceV2 {
         return rtn;
     }
 
+    @Override
+    public Response executeChunked(final Operation operation) {
+        closeInputsAfterRequest(operation);
+        final Pair<Object, String> resultAndJobId = _execute(operation, createContext(operation));
+        final int batchSize = Integer.parseInt(System.getProperty(SystemProperty.CHUNKED_BATCH_SIZE, SystemProperty.CHUNKED_BATCH_SIZE_DEFAULT));
+        return Response.ok(new NdJsonStreamingOutput(resultAndJobId.getFirst(), batchSize))
+                .header(MAESTRO_MEDIA_TYPE_HEADER, MAESTRO_MEDIA_TYPE)
+                .header(JOB_ID_HEADER, resultAndJobId.getSecond())
+                .build();
+    }
+
+    @Override
+    public Response executeBatch(final List<Operation> operations) {
+        final List<Map<String, Object>> results = new ArrayList<>(operations.size());
+        for (final Operation operation : operations) {
+            closeInputsAfterRequest(operation);
+            final Map<String, Object> entry = new HashMap<>();
+            try {
+                entry.put("result", _execute(operation, userFactory.createContext()).getFirst());
+            } catch (final Exception e) {
+                entry.put("error", toError(e));
+            }
+            results.add(entry);
+        }
+        return Response.ok(results)
+                .header(MAESTRO_MEDIA_TYPE_HEADER, MAESTRO_MEDIA_TYPE)
+                .build();
+    }
+
     @Override
     public Response operationDetails(final String operationType) {
         final Executor executor = executorFactory.getExecutor();
-        if (executor.isSupported(operationType)) {
+        final OperationCapabilities capabilities = OperationCapabilities.get(executor);
+        if (null != capabilities && null != capabilities.getOperationDetails(operationType)) {
+            return Response.ok(capabilities.getOperationDetails(operationType))
+                    .header(MAESTRO_MEDIA_TYPE_HEADER, MAESTRO_MEDIA_TYPE)
+                    .build();
+        } else if (null == capabilities && executor.isSupported(operationType)) {
             return Response.ok(new OperationDetail(operationType, executor))
                     .header(MAESTRO_MEDIA_TYPE_HEADER, MAESTRO_MEDIA_TYPE)
                     .build();
@@ -156,6 +219,20 @@ public class OperationServiceV2 implements IOperationServiceV2 {
         }
     }
 
+    /**
+     * Executes an operation in the same way as {@link #execute(Operation)},
+     * running the pre and post operation hooks, but leaves any spooled
+     * inputs open for the caller to close once it has finished with the
+     * result.
+     *
+     * @param operation the operation to execute
+     * @param <O>       the type of the result
+     * @return the result and the job id it was executed with
+     */
+    public <O> Pair<O, String> executeKeepingInputs(final Operation operation) {
+        return _execute(operation, createContext(operation));
+    }
+
     protected void preOperationHook(final OperationChain opChain, final Context context) {
         // no action by default
     }
@@ -215,6 +292,55 @@ public class OperationServiceV2 implements IOperationServiceV2 {
         }
     }
 
+    // A pass-through result streams from the remote's response, which is
+    // released even if the result is never written.
+    private void closeRawResultAfterRequest(final Object result) {
+        if (null != closeableService && result instanceof RawResult) {
+            closeableService.add((RawResult) result);
+        }
+    }
+
+    // Inputs that were spooled to disk while reading the request are closed,
+    // deleting their spool files, once the response has been written. Those
+    // of a job are left for the job to close, as it runs after the request.
+    private void closeInputsAfterRequest(final Operation operation) {
+        if (null == closeableService || null == operation) {
+            return;
+        }
+        SpooledInputs.find(operation).forEach(closeableService::add);
+    }
+
+    // Attaches the bytes the operation was read from, if they were kept, so
+    // a pass-through proxy handler can forward them unchanged.
+    private Context createContext(final Operation operation) {
+        final Context context = userFactory.createContext();
+        final Object rawOperation = null == requestContext ? null : requestContext.getProperty(RawOperation.CONTEXT_KEY);
+        if (rawOperation instanceof RawOperation && operation == ((RawOperation) rawOperation).getOperation()) {
+            ((RawOperation) rawOperation).attachTo(context);
+        }
+        return context;
+    }
+
+    // Mirrors the exception mappers, so a failed operation in a batch reports
+    // the same error it would have if it had been executed on its own. The
+    // RuntimeException _execute wraps an OperationException in is unwrapped
+    // first, so the operation's own status is kept.
+    private Error toError(final Exception exception) {
+        final Exception e = RuntimeException.class == exception.getClass() && exception.getCause() instanceof MaestroCheckedException
+                ? (Exception) exception.getCause()
+                : exception;
+        if (e instanceof UnauthorisedException) {
+            return ErrorFactory.from((UnauthorisedException) e);
+        } else if (e instanceof MaestroWrappedErrorRuntimeException) {
+            return ErrorFactory.from((MaestroWrappedErrorRuntimeException) e);
+        } else if (e instanceof MaestroRuntimeException) {
+            return ErrorFactory.from((MaestroRuntimeException) e);
+        } else if (e instanceof MaestroCheckedException) {
+            return ErrorFactory.from((MaestroCheckedException) e);
+        }
+        return ErrorFactory.from(e);
+    }
+
     private Operation generateExampleJson(final String operationType) {
         return examplesFactory.generateExample(operationType);
     }
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.rest.service.v2.cursor;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+
+import uk.gov.gchq.maestro.commonutil.ToStringBuilder;
+
+import java.util.List;
+
+/**
+ * A page of results read from a server-side cursor.
+ */
+@JsonPropertyOrder(value = {"cursorId", "results", "hasMore"})
+public class CursorPage {
+    private final String cursorId;
+    private final List<Object> results;
+    private final boolean hasMore;
+
+    @JsonCreator
+    public CursorPage(@JsonProperty("cursorId") final String cursorId,
+                      @JsonProperty("results") final List<Object> results,
+                      @JsonProperty("hasMore") final boolean hasMore) {
+        this.cursorId = cursorId;
+        this.results = results;
+        this.hasMore = hasMore;
+    }
+
+    public String getCursorId() {
+        return cursorId;
+    }
+
+    public List<Object> getResults() {
+        return results;
+    }
+
+    /**
+     * @return false once the cursor is exhausted, after which it has been
+     * closed and can no longer be read
+     */
+    @JsonProperty("hasMore")
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        final CursorPage that = (CursorPage) o;
+
+        return new EqualsBuilder()
+                .append(hasMore, that.hasMore)
+                .append(cursorId, that.cursorId)
+                .append(results, that.results)
+                .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder(17, 37)
+                .append(cursorId)
+                .append(results)
+                .append(hasMore)
+                .toHashCode();
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("cursorId", cursorId)
+                .append("results", results)
+                .append("hasMore", hasMore)
+                .toString();
+    }
+}
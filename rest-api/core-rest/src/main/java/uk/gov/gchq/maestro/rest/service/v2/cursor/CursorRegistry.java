@@ -0,0 +1,280 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.rest.service.v2.cursor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.gov.gchq.maestro.commonutil.CloseableUtil;
+import uk.gov.gchq.maestro.commonutil.exception.MaestroRuntimeException;
+import uk.gov.gchq.maestro.commonutil.exception.Status;
+import uk.gov.gchq.maestro.rest.SystemProperty;
+
+import javax.annotation.PreDestroy;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@code CursorRegistry} holds open server-side cursors over execute
+ * results, so that clients can page through a result without it being
+ * re-run or materialised.
+ * <p>
+ * Each cursor is leased to the user that created it for the idle timeout,
+ * and every read renews the lease. Cursors that are exhausted, deleted or
+ * left idle past their lease are closed, which closes the underlying
+ * result. Each user may hold a bounded number of open cursors.
+ * </p>
+ */
+public class CursorRegistry implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CursorRegistry.class);
+    private static final String CURSOR_NOT_FOUND = "Cursor: %s was not found, it may have expired or been exhausted";
+    private static final String TOO_MANY_CURSORS = "User: %s already has the maximum of %s open cursors";
+    private static final String INVALID_PAGE_SIZE = "Page size must be between 1 and %s, but was: %s";
+
+    private final Map<String, Cursor> cursors = new ConcurrentHashMap<>();
+    private final long idleTimeoutMillis;
+    private final int maxPerUser;
+    private final int maxPageSize;
+    private final ScheduledExecutorService sweeper;
+
+    public CursorRegistry() {
+        this(getLongProperty(SystemProperty.CURSOR_IDLE_TIMEOUT, SystemProperty.CURSOR_IDLE_TIMEOUT_DEFAULT),
+                (int) getLongProperty(SystemProperty.CURSOR_MAX_PER_USER, SystemProperty.CURSOR_MAX_PER_USER_DEFAULT),
+                (int) getLongProperty(SystemProperty.CURSOR_MAX_PAGE_SIZE, SystemProperty.CURSOR_MAX_PAGE_SIZE_DEFAULT));
+    }
+
+    public CursorRegistry(final long idleTimeoutMillis, final int maxPerUser, final int maxPageSize) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxPerUser = maxPerUser;
+        this.maxPageSize = maxPageSize;
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "cursor-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long sweepInterval = Math.max(1, idleTimeoutMillis / 2);
+        sweeper.scheduleWithFixedDelay(this::expireIdleCursors, sweepInterval, sweepInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Checks a user may open another cursor, so an operation is not executed
+     * just to have its result rejected.
+     *
+     * @param userId the id of the user that wants to open a cursor
+     */
+    public void checkCanOpen(final String userId) {
+        if (countOpen(userId) >= maxPerUser) {
+            throw tooManyCursors(userId);
+        }
+    }
+
+    /**
+     * Opens a cursor over a result. A result that is not an {@link Iterable}
+     * is treated as a single element.
+     *
+     * @param userId the id of the user that owns the cursor
+     * @param result the result to page through
+     * @return the cursor id
+     */
+    public String open(final String userId, final Object result) {
+        return open(userId, result, Collections.emptyList());
+    }
+
+    /**
+     * Opens a cursor over a result. A result that is not an {@link Iterable}
+     * is treated as a single element.
+     *
+     * @param userId    the id of the user that owns the cursor
+     * @param result    the result to page through
+     * @param resources resources the result may read from, such as spooled
+     *                  inputs, which are closed along with the cursor
+     * @return the cursor id
+     */
+    public String open(final String userId, final Object result, final Collection<? extends Closeable> resources) {
+        final Iterator<?> iterator = result instanceof Iterable
+                ? ((Iterable<?>) result).iterator()
+                : Collections.singletonList(result).iterator();
+        final Cursor cursor = new Cursor(UUID.randomUUID().toString(), userId, result, iterator, resources);
+
+        synchronized (this) {
+            if (countOpen(userId) >= maxPerUser) {
+                cursor.close();
+                throw tooManyCursors(userId);
+            }
+            cursors.put(cursor.id, cursor);
+        }
+        LOGGER.debug("Opened cursor {} for user {}", cursor.id, userId);
+        return cursor.id;
+    }
+
+    /**
+     * Reads the next page from a cursor. The cursor is closed once it is
+     * exhausted.
+     *
+     * @param userId   the id of the user reading the cursor
+     * @param cursorId the cursor id
+     * @param size     the maximum number of results to return
+     * @return the next page
+     */
+    public CursorPage next(final String userId, final String cursorId, final int size) {
+        if (size < 1 || size > maxPageSize) {
+            throw new MaestroRuntimeException(String.format(INVALID_PAGE_SIZE, maxPageSize, size), Status.BAD_REQUEST);
+        }
+
+        final Cursor cursor = get(userId, cursorId);
+        final List<Object> results = new ArrayList<>(Math.min(size, 1024));
+        final boolean hasMore;
+        synchronized (cursor) {
+            if (cursor.closed) {
+                throw notFound(cursorId);
+            }
+            cursor.touch();
+            while (results.size() < size && cursor.iterator.hasNext()) {
+                results.add(cursor.iterator.next());
+            }
+            hasMore = cursor.iterator.hasNext();
+            cursor.touch();
+        }
+
+        if (!hasMore) {
+            remove(cursorId);
+        }
+        return new CursorPage(cursorId, results, hasMore);
+    }
+
+    /**
+     * Closes a cursor before it is exhausted.
+     *
+     * @param userId   the id of the user that owns the cursor
+     * @param cursorId the cursor id
+     */
+    public void close(final String userId, final String cursorId) {
+        get(userId, cursorId);
+        remove(cursorId);
+    }
+
+    /**
+     * Closes all cursors that have not been read within the idle timeout.
+     */
+    public void expireIdleCursors() {
+        final long now = System.currentTimeMillis();
+        for (final Cursor cursor : cursors.values()) {
+            if (now - cursor.lastAccessed > idleTimeoutMillis) {
+                LOGGER.debug("Cursor {} for user {} expired", cursor.id, cursor.userId);
+                remove(cursor.id);
+            }
+        }
+    }
+
+    public int size() {
+        return cursors.size();
+    }
+
+    @PreDestroy
+    @Override
+    public void close() {
+        sweeper.shutdownNow();
+        new ArrayList<>(cursors.keySet()).forEach(this::remove);
+    }
+
+    private Cursor get(final String userId, final String cursorId) {
+        final Cursor cursor = cursors.get(cursorId);
+        // Another user's cursor is reported as not found so ids cannot be probed
+        if (null == cursor || !cursor.userId.equals(userId)) {
+            throw notFound(cursorId);
+        }
+        return cursor;
+    }
+
+    private void remove(final String cursorId) {
+        final Cursor cursor = cursors.remove(cursorId);
+        if (null != cursor) {
+            synchronized (cursor) {
+                cursor.close();
+            }
+        }
+    }
+
+    private int countOpen(final String userId) {
+        int count = 0;
+        for (final Cursor cursor : cursors.values()) {
+            if (cursor.userId.equals(userId)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private MaestroRuntimeException tooManyCursors(final String userId) {
+        return new MaestroRuntimeException(String.format(TOO_MANY_CURSORS, userId, maxPerUser), Status.TOO_MANY_REQUESTS);
+    }
+
+    private static MaestroRuntimeException notFound(final String cursorId) {
+        return new MaestroRuntimeException(String.format(CURSOR_NOT_FOUND, cursorId), Status.NOT_FOUND);
+    }
+
+    private static long getLongProperty(final String key, final String defaultValue) {
+        final String value = System.getProperty(key, defaultValue);
+        try {
+            return Long.parseLong(value);
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Unable to convert " + key + " into a number: " + value, e);
+        }
+    }
+
+    private static final class Cursor {
+        private final String id;
+        private final String userId;
+        private final Object result;
+        private final Iterator<?> iterator;
+        private final Collection<? extends Closeable> resources;
+        private volatile long lastAccessed;
+        private boolean closed;
+
+        private Cursor(final String id, final String userId, final Object result, final Iterator<?> iterator,
+                       final Collection<? extends Closeable> resources) {
+            this.id = id;
+            this.userId = userId;
+            this.result = result;
+            this.iterator = iterator;
+            this.resources = resources;
+            touch();
+        }
+
+        private void touch() {
+            lastAccessed = System.currentTimeMillis();
+        }
+
+        private void close() {
+            closed = true;
+            CloseableUtil.close(iterator);
+            CloseableUtil.close(result);
+            resources.forEach(CloseableUtil::close);
+        }
+    }
+}
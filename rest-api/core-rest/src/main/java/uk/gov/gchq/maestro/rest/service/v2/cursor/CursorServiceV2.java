@@ -0,0 +1,96 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.rest.service.v2.cursor;
+
+import uk.gov.gchq.maestro.commonutil.CloseableUtil;
+import uk.gov.gchq.maestro.commonutil.iterable.SpooledCloseableIterable;
+import uk.gov.gchq.maestro.commonutil.pair.Pair;
+import uk.gov.gchq.maestro.executor.util.SpooledInputs;
+import uk.gov.gchq.maestro.operation.Operation;
+import uk.gov.gchq.maestro.rest.factory.UserFactory;
+import uk.gov.gchq.maestro.rest.service.v2.OperationServiceV2;
+
+import javax.inject.Inject;
+import javax.ws.rs.container.ResourceContext;
+import javax.ws.rs.core.Response;
+
+import java.util.List;
+
+import static uk.gov.gchq.maestro.rest.ServiceConstants.JOB_ID_HEADER;
+import static uk.gov.gchq.maestro.rest.ServiceConstants.MAESTRO_MEDIA_TYPE;
+import static uk.gov.gchq.maestro.rest.ServiceConstants.MAESTRO_MEDIA_TYPE_HEADER;
+
+/**
+ * An implementation of {@link ICursorServiceV2}. Operations are executed by
+ * the {@link OperationServiceV2}, so its operation hooks apply, and their
+ * results are held open in the {@link CursorRegistry} along with any inputs
+ * spooled while reading the request.
+ */
+public class CursorServiceV2 implements ICursorServiceV2 {
+
+    @Inject
+    private UserFactory userFactory;
+
+    @Inject
+    private CursorRegistry cursorRegistry;
+
+    @javax.ws.rs.core.Context
+    private ResourceContext resourceContext;
+
+    @Override
+    public Response open(final Operation operation) {
+        final String userId = getUserId();
+        cursorRegistry.checkCanOpen(userId);
+
+        // The result may read from the spooled inputs until the cursor is closed
+        final List<SpooledCloseableIterable> inputs = SpooledInputs.find(operation);
+        final Pair<Object, String> resultAndJobId;
+        try {
+            resultAndJobId = resourceContext.getResource(OperationServiceV2.class).executeKeepingInputs(operation);
+        } catch (final RuntimeException e) {
+            inputs.forEach(CloseableUtil::close);
+            throw e;
+        }
+
+        final String cursorId = cursorRegistry.open(userId, resultAndJobId.getFirst(), inputs);
+        return Response.status(Response.Status.CREATED)
+                .entity(cursorId)
+                .header(MAESTRO_MEDIA_TYPE_HEADER, MAESTRO_MEDIA_TYPE)
+                .header(JOB_ID_HEADER, resultAndJobId.getSecond())
+                .build();
+    }
+
+    @Override
+    public Response next(final String id, final int size) {
+        final CursorPage page = cursorRegistry.next(getUserId(), id, size);
+        return Response.ok(page)
+                .header(MAESTRO_MEDIA_TYPE_HEADER, MAESTRO_MEDIA_TYPE)
+                .build();
+    }
+
+    @Override
+    public Response close(final String id) {
+        cursorRegistry.close(getUserId(), id);
+        return Response.noContent()
+                .header(MAESTRO_MEDIA_TYPE_HEADER, MAESTRO_MEDIA_TYPE)
+                .build();
+    }
+
+    private String getUserId() {
+        return userFactory.createUser().getUserId();
+    }
+}
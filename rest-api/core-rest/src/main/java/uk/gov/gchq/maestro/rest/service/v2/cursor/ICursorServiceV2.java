@@ -0,0 +1,104 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.rest.service.v2.cursor;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import io.swagger.annotations.ResponseHeader;
+
+import uk.gov.gchq.maestro.operation.Operation;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Response;
+
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static uk.gov.gchq.maestro.rest.ServiceConstants.BAD_REQUEST;
+import static uk.gov.gchq.maestro.rest.ServiceConstants.CURSOR_CREATED;
+import static uk.gov.gchq.maestro.rest.ServiceConstants.CURSOR_NOT_FOUND;
+import static uk.gov.gchq.maestro.rest.ServiceConstants.FORBIDDEN;
+import static uk.gov.gchq.maestro.rest.ServiceConstants.INTERNAL_SERVER_ERROR;
+import static uk.gov.gchq.maestro.rest.ServiceConstants.JOB_ID_HEADER;
+import static uk.gov.gchq.maestro.rest.ServiceConstants.JOB_ID_HEADER_DESCRIPTION;
+import static uk.gov.gchq.maestro.rest.ServiceConstants.MAESTRO_MEDIA_TYPE_HEADER;
+import static uk.gov.gchq.maestro.rest.ServiceConstants.MAESTRO_MEDIA_TYPE_HEADER_DESCRIPTION;
+import static uk.gov.gchq.maestro.rest.ServiceConstants.OK;
+import static uk.gov.gchq.maestro.rest.ServiceConstants.TOO_MANY_CURSORS;
+
+/**
+ * An {@code ICursorServiceV2} has methods to execute an {@link Operation} and
+ * page through its results using a server-side cursor.
+ */
+@Path("/executor/cursors")
+@Api(value = "cursors")
+@Produces(APPLICATION_JSON)
+@Consumes(APPLICATION_JSON)
+public interface ICursorServiceV2 {
+
+    @POST
+    @ApiOperation(value = "Performs the given operation on the executor and opens a cursor over the results",
+            notes = "The results are not returned. Instead the cursor id is returned and the results can be read " +
+                    "a page at a time. Cursors are closed once exhausted, deleted or left idle.",
+            response = String.class,
+            produces = APPLICATION_JSON,
+            responseHeaders = {
+                    @ResponseHeader(name = JOB_ID_HEADER, description = JOB_ID_HEADER_DESCRIPTION),
+                    @ResponseHeader(name = MAESTRO_MEDIA_TYPE_HEADER, description = MAESTRO_MEDIA_TYPE_HEADER_DESCRIPTION)
+            })
+    @ApiResponses(value = {@ApiResponse(code = 201, message = CURSOR_CREATED),
+            @ApiResponse(code = 400, message = BAD_REQUEST),
+            @ApiResponse(code = 403, message = FORBIDDEN),
+            @ApiResponse(code = 429, message = TOO_MANY_CURSORS),
+            @ApiResponse(code = 500, message = INTERNAL_SERVER_ERROR)})
+    Response open(@ApiParam(value = "The operation to be performed on the executor") final Operation operation);
+
+    @GET
+    @Path("/{id}/next")
+    @ApiOperation(value = "Returns the next page of results from a cursor",
+            response = CursorPage.class,
+            produces = APPLICATION_JSON,
+            responseHeaders = {
+                    @ResponseHeader(name = MAESTRO_MEDIA_TYPE_HEADER, description = MAESTRO_MEDIA_TYPE_HEADER_DESCRIPTION)
+            })
+    @ApiResponses(value = {@ApiResponse(code = 200, message = OK),
+            @ApiResponse(code = 400, message = BAD_REQUEST),
+            @ApiResponse(code = 404, message = CURSOR_NOT_FOUND),
+            @ApiResponse(code = 500, message = INTERNAL_SERVER_ERROR)})
+    Response next(@ApiParam(value = "The cursor id") @PathParam("id") final String id,
+                  @ApiParam(value = "The maximum number of results to return") @QueryParam("size") @DefaultValue("100") final int size);
+
+    @DELETE
+    @Path("/{id}")
+    @ApiOperation(value = "Closes a cursor",
+            responseHeaders = {
+                    @ResponseHeader(name = MAESTRO_MEDIA_TYPE_HEADER, description = MAESTRO_MEDIA_TYPE_HEADER_DESCRIPTION)
+            })
+    @ApiResponses(value = {@ApiResponse(code = 204, message = OK),
+            @ApiResponse(code = 404, message = CURSOR_NOT_FOUND),
+            @ApiResponse(code = 500, message = INTERNAL_SERVER_ERROR)})
+    Response close(@ApiParam(value = "The cursor id") @PathParam("id") final String id);
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.rest.serialisation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+import uk.gov.gchq.maestro.commonutil.iterable.SpooledCloseableIterable;
+import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.JSONSerialiser;
+import uk.gov.gchq.maestro.operation.Operation;
+import uk.gov.gchq.maestro.operation.OperationChain;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LazyInputDeserializerTest {
+    private static final List<Object> LARGE_INPUT = new ArrayList<>(Arrays.asList("a", "b", "c", 4, 5));
+
+    private final ObjectMapper mapper = JSONSerialiser.createDefaultMapper().registerModule(new LazyInputModule(3));
+
+    @Test
+    public void shouldSpoolInputLargerThanThresholdAndReadItLazily() throws IOException {
+        // Given
+        final Operation operation = new Operation("test")
+                .input(LARGE_INPUT)
+                .operationArg("zArg", "after input");
+
+        // When
+        final Operation result = mapper.readValue(JSONSerialiser.serialise(operation), Operation.class);
+
+        // Then
+        assertTrue(result.input() instanceof SpooledCloseableIterable);
+        final SpooledCloseableIterable<?> input = (SpooledCloseableIterable<?>) result.input();
+        assertEquals(LARGE_INPUT, Lists.newArrayList(input));
+        assertEquals(LARGE_INPUT, Lists.newArrayList(input));
+        assertEquals("after input", result.get("zArg"));
+
+        input.close();
+        assertFalse(input.getFile().exists());
+    }
+
+    @Test
+    public void shouldBindInputWithinThresholdAsList() throws IOException {
+        // Given
+        final Operation operation = new Operation("test")
+                .input(new ArrayList<>(Arrays.asList("a", "b", "c")));
+
+        // When
+        final Operation result = mapper.readValue(JSONSerialiser.serialise(operation), Operation.class);
+
+        // Then
+        assertEquals(ArrayList.class, result.input().getClass());
+        assertEquals(Arrays.asList("a", "b", "c"), result.input());
+    }
+
+    @Test
+    public void shouldOnlySpoolTheInputArg() throws IOException {
+        // Given
+        final Operation operation = new Operation("test")
+                .operationArg("other", LARGE_INPUT);
+
+        // When
+        final Operation result = mapper.readValue(JSONSerialiser.serialise(operation), Operation.class);
+
+        // Then
+        assertEquals(LARGE_INPUT, result.get("other"));
+    }
+
+    @Test
+    public void shouldSpoolInputOfOperationsWithinAChain() throws IOException {
+        // Given
+        final OperationChain chain = new OperationChain("chain", new Operation("test").input(LARGE_INPUT), null, null);
+
+        // When
+        final Operation result = mapper.readValue(JSONSerialiser.serialise(chain), Operation.class);
+
+        // Then
+        final Operation first = ((OperationChain) result).getOperations().get(0);
+        assertTrue(first.input() instanceof SpooledCloseableIterable);
+        assertEquals(LARGE_INPUT, Lists.newArrayList((Iterable<?>) first.input()));
+        ((SpooledCloseableIterable<?>) first.input()).close();
+    }
+}
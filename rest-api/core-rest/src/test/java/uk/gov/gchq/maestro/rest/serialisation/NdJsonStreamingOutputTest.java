@@ -0,0 +1,179 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.rest.serialisation;
+
+import org.junit.Test;
+
+import uk.gov.gchq.maestro.commonutil.StringUtil;
+import uk.gov.gchq.maestro.commonutil.exception.Error;
+import uk.gov.gchq.maestro.commonutil.exception.Status;
+import uk.gov.gchq.maestro.commonutil.iterable.WrappedCloseableIterable;
+import uk.gov.gchq.maestro.commonutil.serialisation.jsonserialisation.JSONSerialiser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NdJsonStreamingOutputTest {
+
+    @Test
+    public void shouldWriteEachElementOnItsOwnLineAndFlushInBatches() throws IOException {
+        // Given
+        final TrackedIterable result = new TrackedIterable("a", "b", "c");
+        final CountingOutputStream output = new CountingOutputStream(Integer.MAX_VALUE);
+
+        // When
+        new NdJsonStreamingOutput(result, 2).write(output);
+
+        // Then
+        assertEquals("\"a\"\n\"b\"\n\"c\"\n", StringUtil.toString(output.toByteArray()));
+        assertEquals(Integer.valueOf(8), output.flushedSizes.get(0));
+        assertTrue(result.closed);
+    }
+
+    @Test
+    public void shouldWriteSingleResultAsOneLine() throws IOException {
+        // Given
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // When
+        new NdJsonStreamingOutput(5, 10).write(output);
+
+        // Then
+        assertEquals("5\n", StringUtil.toString(output.toByteArray()));
+    }
+
+    @Test
+    public void shouldCloseResultWhenClientDisconnects() throws IOException {
+        // Given
+        final TrackedIterable result = new TrackedIterable("a", "b", "c", "d");
+        final CountingOutputStream output = new CountingOutputStream(4);
+
+        // When
+        new NdJsonStreamingOutput(result, 1).write(output);
+
+        // Then
+        assertTrue(result.closed);
+    }
+
+    @Test
+    public void shouldEndWithAnErrorLineWhenAnElementCannotBeSerialised() throws Exception {
+        // Given
+        final List<Object> result = Arrays.asList("a", new Unserialisable(), "c");
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // When
+        new NdJsonStreamingOutput(result, 1).write(output);
+
+        // Then
+        final String[] lines = StringUtil.toString(output.toByteArray()).split("\n");
+        assertEquals("\"a\"", lines[0]);
+        final Error error = JSONSerialiser.deserialise(lines[lines.length - 1], Error.class);
+        assertEquals(Status.INTERNAL_SERVER_ERROR, error.getStatus());
+    }
+
+    @Test
+    public void shouldEndWithAnErrorLineWhenTheResultFails() throws Exception {
+        // Given
+        final Iterable<String> result = () -> new Iterator<String>() {
+            private boolean first = true;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public String next() {
+                if (first) {
+                    first = false;
+                    return "a";
+                }
+                throw new IllegalStateException("Remote failed");
+            }
+        };
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // When
+        new NdJsonStreamingOutput(result, 1).write(output);
+
+        // Then
+        final String[] lines = StringUtil.toString(output.toByteArray()).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("\"a\"", lines[0]);
+        assertEquals("Remote failed", JSONSerialiser.deserialise(lines[1], Error.class).getSimpleMessage());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectBatchSizeLessThanOne() {
+        new NdJsonStreamingOutput(null, 0);
+    }
+
+    private static final class Unserialisable {
+        public String getValue() {
+            throw new IllegalStateException("Cannot be serialised");
+        }
+    }
+
+    private static final class TrackedIterable extends WrappedCloseableIterable<String> {
+        private boolean closed;
+
+        private TrackedIterable(final String... items) {
+            super(Arrays.asList(items));
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            super.close();
+        }
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final List<Integer> flushedSizes = new ArrayList<>();
+        private final int maxBytes;
+
+        private CountingOutputStream(final int maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            if (bytes.size() >= maxBytes) {
+                throw new IOException("Client disconnected");
+            }
+            bytes.write(b);
+        }
+
+        @Override
+        public void flush() {
+            flushedSizes.add(bytes.size());
+        }
+
+        private byte[] toByteArray() {
+            return bytes.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.maestro.rest.service.v2.cursor;
+
+import org.junit.After;
+import org.junit.Test;
+
+import uk.gov.gchq.maestro.commonutil.exception.MaestroRuntimeException;
+import uk.gov.gchq.maestro.commonutil.exception.Status;
+import uk.gov.gchq.maestro.commonutil.iterable.WrappedCloseableIterable;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CursorRegistryTest {
+    private static final String USER = "user01";
+    private static final String OTHER_USER = "user02";
+
+    private CursorRegistry registry;
+
+    @After
+    public void after() {
+        if (null != registry) {
+            registry.close();
+        }
+    }
+
+    @Test
+    public void shouldPageThroughResultAndCloseWhenExhausted() {
+        // Given
+        registry = new CursorRegistry(60000, 10, 100);
+        final TrackedIterable result = new TrackedIterable(1, 2, 3, 4, 5);
+        final String id = registry.open(USER, result);
+
+        // When
+        final CursorPage first = registry.next(USER, id, 2);
+        final CursorPage second = registry.next(USER, id, 2);
+        final CursorPage last = registry.next(USER, id, 2);
+
+        // Then
+        assertEquals(Arrays.asList(1, 2), first.getResults());
+        assertTrue(first.hasMore());
+        assertEquals(Arrays.asList(3, 4), second.getResults());
+        assertTrue(second.hasMore());
+        assertEquals(Collections.singletonList(5), last.getResults());
+        assertFalse(last.hasMore());
+        assertTrue(result.closed);
+        assertEquals(0, registry.size());
+        assertStatus(Status.NOT_FOUND, () -> registry.next(USER, id, 2));
+    }
+
+    @Test
+    public void shouldTreatNonIterableResultAsSingleElement() {
+        // Given
+        registry = new CursorRegistry(60000, 10, 100);
+        final String id = registry.open(USER, "result");
+
+        // When
+        final CursorPage page = registry.next(USER, id, 10);
+
+        // Then
+        assertEquals(Collections.singletonList("result"), page.getResults());
+        assertFalse(page.hasMore());
+    }
+
+    @Test
+    public void shouldCloseIdleCursors() throws InterruptedException {
+        // Given
+        registry = new CursorRegistry(50, 10, 100);
+        final TrackedIterable result = new TrackedIterable(1, 2, 3);
+        final String id = registry.open(USER, result);
+
+        // When
+        Thread.sleep(100);
+        registry.expireIdleCursors();
+
+        // Then
+        assertTrue(result.closed);
+        assertEquals(0, registry.size());
+        assertStatus(Status.NOT_FOUND, () -> registry.next(USER, id, 1));
+    }
+
+    @Test
+    public void shouldCloseCursorOnRequest() {
+        // Given
+        registry = new CursorRegistry(60000, 10, 100);
+        final TrackedIterable result = new TrackedIterable(1, 2, 3);
+        final String id = registry.open(USER, result);
+
+        // When
+        registry.close(USER, id);
+
+        // Then
+        assertTrue(result.closed);
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    public void shouldLimitOpenCursorsPerUser() {
+        // Given
+        registry = new CursorRegistry(60000, 2, 100);
+        registry.open(USER, Arrays.asList(1, 2));
+        registry.open(USER, Arrays.asList(1, 2));
+        final TrackedIterable rejected = new TrackedIterable(1, 2);
+
+        // When / Then
+        assertStatus(Status.TOO_MANY_REQUESTS, () -> registry.open(USER, rejected));
+        assertTrue(rejected.closed);
+        registry.open(OTHER_USER, Arrays.asList(1, 2));
+        assertEquals(3, registry.size());
+    }
+
+    @Test
+    public void shouldCheckCursorLimitBeforeOpening() {
+        // Given
+        registry = new CursorRegistry(60000, 1, 100);
+        registry.checkCanOpen(USER);
+        registry.open(USER, Arrays.asList(1, 2));
+
+        // When / Then
+        assertStatus(Status.TOO_MANY_REQUESTS, () -> registry.checkCanOpen(USER));
+        registry.checkCanOpen(OTHER_USER);
+    }
+
+    @Test
+    public void shouldCloseResourcesWithCursor() {
+        // Given
+        registry = new CursorRegistry(60000, 10, 100);
+        final TrackedIterable input = new TrackedIterable(1, 2, 3);
+        final String id = registry.open(USER, Arrays.asList(1, 2), Collections.singletonList(input));
+
+        // When
+        registry.next(USER, id, 1);
+
+        // Then
+        assertFalse(input.closed);
+        registry.close(USER, id);
+        assertTrue(input.closed);
+    }
+
+    @Test
+    public void shouldNotAllowAnotherUserToReadOrCloseCursor() {
+        // Given
+        registry = new CursorRegistry(60000, 10, 100);
+        final String id = registry.open(USER, Arrays.asList(1, 2));
+
+        // When / Then
+        assertStatus(Status.NOT_FOUND, () -> registry.next(OTHER_USER, id, 1));
+        assertStatus(Status.NOT_FOUND, () -> registry.close(OTHER_USER, id));
+        assertEquals(Collections.singletonList(1), registry.next(USER, id, 1).getResults());
+    }
+
+    @Test
+    public void shouldRejectPageSizesOutsideTheLimit() {
+        // Given
+        registry = new CursorRegistry(60000, 10, 100);
+        final String id = registry.open(USER, Arrays.asList(1, 2));
+
+        // When / Then
+        assertStatus(Status.BAD_REQUEST, () -> registry.next(USER, id, 0));
+        assertStatus(Status.BAD_REQUEST, () -> registry.next(USER, id, 101));
+    }
+
+    private static void assertStatus(final Status expected, final Runnable runnable) {
+        try {
+            runnable.run();
+            fail("Exception expected");
+        } catch (final MaestroRuntimeException e) {
+            assertEquals(expected, e.getStatus());
+        }
+    }
+
+    private static final class TrackedIterable extends WrappedCloseableIterable<Object> {
+        private boolean closed;
+
+        private TrackedIterable(final Object... items) {
+            super(Arrays.asList(items));
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            super.close();
+        }
+    }
+}